@@ -127,6 +127,8 @@ public abstract class AbstractAsynchronousEventStore implements EventStore, Init
 
         private final Map<String, Serializable> context;
 
+        private final long creationTime;
+
         private O output;
 
         protected EventStoreTask(I input, EventStoreTaskType type, Map<String, Serializable> contextStore)
@@ -136,6 +138,7 @@ protected EventStoreTask(I input, EventStoreTaskType type, Map<String, Serializa
             this.context = contextStore;
 
             this.future = new CompletableFuture<>();
+            this.creationTime = System.currentTimeMillis();
         }
 
         /**
@@ -153,6 +156,15 @@ public EventStoreTaskType getType()
         {
             return this.type;
         }
+
+        /**
+         * @return the future notified when the task is done
+         * @since 12.8RC1
+         */
+        public CompletableFuture<O> getFuture()
+        {
+            return this.future;
+        }
     }
 
     private static class DeleteStatusesData
@@ -193,6 +205,12 @@ public EventStoreTaskType getType()
 
     private boolean disposed;
 
+    private volatile int lastBatchSize;
+
+    private volatile long lastBatchDuration;
+
+    private volatile long lastBatchLatency;
+
     /**
      * Give an estimation of the number of events that are going to be added to the store. Can be negative if there is
      * more deletes than add.
@@ -224,6 +242,34 @@ public int getQueueSize()
         return size;
     }
 
+    /**
+     * @return the number of tasks processed in the last batch
+     * @since 12.8RC1
+     */
+    public int getLastBatchSize()
+    {
+        return this.lastBatchSize;
+    }
+
+    /**
+     * @return the time (in milliseconds) spent processing the last batch of tasks
+     * @since 12.8RC1
+     */
+    public long getLastBatchDuration()
+    {
+        return this.lastBatchDuration;
+    }
+
+    /**
+     * @return the time (in milliseconds) between the queuing of the oldest task of the last batch and the end of the
+     *         batch
+     * @since 12.8RC1
+     */
+    public long getLastBatchLatency()
+    {
+        return this.lastBatchLatency;
+    }
+
     private <O, I> CompletableFuture<O> addTask(I input, EventStoreTaskType type)
     {
         // Remember a few standard things from the context
@@ -330,6 +376,8 @@ private void processTasks(EventStoreTask<?, ?> firstTask)
     {
         this.execution.setContext(new ExecutionContext());
 
+        long start = System.currentTimeMillis();
+
         List<EventStoreTask<?, ?>> tasks = new ArrayList<>();
         try {
             for (EventStoreTask<?, ?> task = firstTask; task != null; task = this.queue.poll()) {
@@ -347,6 +395,22 @@ private void processTasks(EventStoreTask<?, ?> firstTask)
             afterTasks(tasks);
 
             this.execution.removeContext();
+
+            updateStatistics(tasks, start);
+        }
+    }
+
+    private void updateStatistics(List<EventStoreTask<?, ?>> tasks, long start)
+    {
+        if (!tasks.isEmpty()) {
+            long end = System.currentTimeMillis();
+
+            this.lastBatchSize = tasks.size();
+            this.lastBatchDuration = end - start;
+            this.lastBatchLatency = end - tasks.get(0).creationTime;
+
+            this.logger.debug("Processed [{}] tasks in [{}] ms with a latency of [{}] ms for event store [{}]",
+                this.lastBatchSize, this.lastBatchDuration, this.lastBatchLatency, this.descriptor.getRoleHint());
         }
     }
 
@@ -520,7 +584,10 @@ protected void afterTasks(List<EventStoreTask<?, ?>> tasks)
     {
         if (this.notifyAll) {
             for (EventStoreTask task : tasks) {
-                complete(task, task.output);
+                // Don't notify the tasks which failed
+                if (!task.future.isDone()) {
+                    complete(task, task.output);
+                }
             }
         }
     }
@@ -54,4 +54,24 @@ public boolean isEventStoreEnabled()
     {
         return this.configuration.getProperty("eventstream.store.enabled", true);
     }
+
+    /**
+     * @return the maximum time (in milliseconds) before the changes sent to the Solr event store are committed, 0 or
+     *         less to explicitly commit the changes at the end of each batch of tasks
+     * @since 12.8RC1
+     */
+    public int getSolrCommitWithin()
+    {
+        return this.configuration.getProperty("eventstream.store.solr.commitWithin", 0);
+    }
+
+    /**
+     * @return true if the commits explicitly performed at the end of each batch of tasks of the Solr event store should
+     *         be soft commits
+     * @since 12.8RC1
+     */
+    public boolean isSolrSoftCommit()
+    {
+        return this.configuration.getProperty("eventstream.store.solr.softCommit", true);
+    }
 }
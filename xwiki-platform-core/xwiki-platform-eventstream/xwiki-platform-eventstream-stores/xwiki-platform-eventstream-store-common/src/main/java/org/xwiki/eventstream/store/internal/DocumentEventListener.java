@@ -20,12 +20,15 @@
 package org.xwiki.eventstream.store.internal;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.xwiki.annotation.event.AnnotationAddedEvent;
 import org.xwiki.annotation.event.AnnotationDeletedEvent;
@@ -42,12 +45,15 @@
 import org.xwiki.observation.event.Event;
 import org.xwiki.observation.remote.RemoteObservationManagerContext;
 
+import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.internal.event.AttachmentAddedEvent;
 import com.xpn.xwiki.internal.event.AttachmentDeletedEvent;
 import com.xpn.xwiki.internal.event.AttachmentUpdatedEvent;
 import com.xpn.xwiki.internal.event.CommentAddedEvent;
 import com.xpn.xwiki.internal.event.CommentDeletedEvent;
 import com.xpn.xwiki.internal.event.CommentUpdatedEvent;
+import com.xpn.xwiki.internal.event.DocumentsBatchSavedEvent;
+import com.xpn.xwiki.internal.event.DocumentsBatchSavingEvent;
 
 /**
  * Store the recordable event inside the event stream (except events that are already handled by the Activity Stream
@@ -82,7 +88,8 @@ public class DocumentEventListener extends AbstractEventListener
         }
     };
 
-    private static final BeginFoldEvent IGNORED_EVENTS = otherEvent -> otherEvent instanceof BeginFoldEvent;
+    private static final BeginFoldEvent IGNORED_EVENTS =
+        otherEvent -> otherEvent instanceof BeginFoldEvent && !(otherEvent instanceof DocumentsBatchSavingEvent);
 
     @Inject
     private RemoteObservationManagerContext remoteObservationManagerContext;
@@ -99,22 +106,86 @@ public class DocumentEventListener extends AbstractEventListener
     @Inject
     private DocumentEventRecorder documentEventRecorder;
 
+    /**
+     * The events delayed until the end of the batch of documents being saved in the current thread, indexed by the
+     * document they concern when they can be merged with the following events of the same document.
+     */
+    private final ThreadLocal<Map<Object, Pair<Event, Object>>> batchEvents = new ThreadLocal<>();
+
     /**
      * Construct a NotificationEventListener.
      */
     public DocumentEventListener()
     {
-        super("EventStreamStoreListener", LISTENER_EVENTS);
+        super("EventStreamStoreListener", getListenerEvents());
+    }
+
+    private static List<Event> getListenerEvents()
+    {
+        List<Event> events = new ArrayList<>(LISTENER_EVENTS);
+        events.add(DocumentsBatchSavedEvent.EVENT);
+
+        return events;
     }
 
     @Override
     public void onEvent(Event event, Object source, Object data)
     {
+        if (event instanceof DocumentsBatchSavedEvent) {
+            flushBatchEvents(Boolean.TRUE.equals(source));
+
+            return;
+        }
+
         if (remoteObservationManagerContext.isRemoteState() || observationContext.isIn(IGNORED_EVENTS)
             || execution.getContext().hasProperty(AbstractEventStreamEvent.EVENT_LOOP_CONTEXT_LOCK_PROPERTY)) {
             return;
         }
 
+        if (observationContext.isIn(DocumentsBatchSavingEvent.EVENT)) {
+            // The saved documents are not committed yet and might be rolled back
+            delayEvent(event, source);
+        } else {
+            recordEvent(event, source);
+        }
+    }
+
+    private void delayEvent(Event event, Object source)
+    {
+        Map<Object, Pair<Event, Object>> events = this.batchEvents.get();
+        if (events == null) {
+            events = new LinkedHashMap<>();
+            this.batchEvents.set(events);
+        }
+
+        if (event instanceof DocumentCreatedEvent || event instanceof DocumentUpdatedEvent) {
+            // Importing several revisions of a document produces several events: only keep one per document (the
+            // creation, if any) with the last saved version of the document
+            String key = ((XWikiDocument) source).getKey();
+            Pair<Event, Object> previous = events.remove(key);
+            Event mergedEvent = previous != null && previous.getKey() instanceof DocumentCreatedEvent
+                ? previous.getKey() : event;
+            events.put(key, Pair.of(mergedEvent, source));
+        } else {
+            events.put(new Object(), Pair.of(event, source));
+        }
+    }
+
+    private void flushBatchEvents(boolean committed)
+    {
+        Map<Object, Pair<Event, Object>> events = this.batchEvents.get();
+        this.batchEvents.remove();
+
+        // Nothing happened if the batch was rolled back
+        if (events != null && committed) {
+            for (Pair<Event, Object> event : events.values()) {
+                recordEvent(event.getKey(), event.getValue());
+            }
+        }
+    }
+
+    private void recordEvent(Event event, Object source)
+    {
         try {
             this.execution.getContext().setProperty(AbstractEventStreamEvent.EVENT_LOOP_CONTEXT_LOCK_PROPERTY, true);
 
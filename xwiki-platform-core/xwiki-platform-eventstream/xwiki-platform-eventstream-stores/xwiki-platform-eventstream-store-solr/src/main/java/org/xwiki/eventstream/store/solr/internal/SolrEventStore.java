@@ -21,10 +21,12 @@
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -57,6 +59,7 @@
 import org.xwiki.eventstream.EventStreamException;
 import org.xwiki.eventstream.internal.AbstractAsynchronousEventStore;
 import org.xwiki.eventstream.internal.DefaultEvent;
+import org.xwiki.eventstream.internal.EventStreamConfiguration;
 import org.xwiki.eventstream.internal.StreamEventSearchResult;
 import org.xwiki.eventstream.query.CompareQueryCondition;
 import org.xwiki.eventstream.query.CompareQueryCondition.CompareType;
@@ -92,11 +95,37 @@ public class SolrEventStore extends AbstractAsynchronousEventStore
 {
     private static final Map<String, String> SEARCH_FIELD_MAPPING = new HashMap<>();
 
+    /**
+     * The maximum number of documents to accumulate before sending them to Solr.
+     */
+    private static final int MAX_PENDING_DOCUMENTS = 100;
+
+    /**
+     * The minimum time (in milliseconds) between two hard commits when soft commits are enabled.
+     */
+    private static final long HARD_COMMIT_INTERVAL = 60000L;
+
     static {
         SEARCH_FIELD_MAPPING.put(Event.FIELD_DOCUMENT, EventsSolrCoreInitializer.FIELD_DOCUMENT_INDEX);
         SEARCH_FIELD_MAPPING.put(Event.FIELD_SPACE, EventsSolrCoreInitializer.FIELD_SPACE_INDEX);
     }
 
+    private static final class PendingDocument
+    {
+        private final SolrInputDocument document;
+
+        private final Object input;
+
+        private final String errorMessage;
+
+        private PendingDocument(SolrInputDocument document, Object input, String errorMessage)
+        {
+            this.document = document;
+            this.input = input;
+            this.errorMessage = errorMessage;
+        }
+    }
+
     @Inject
     private Solr solr;
 
@@ -114,8 +143,23 @@ public class SolrEventStore extends AbstractAsynchronousEventStore
     @Named("compactwiki")
     private EntityReferenceSerializer<String> compactwiki;
 
+    @Inject
+    private EventStreamConfiguration configuration;
+
     private SolrClient client;
 
+    /**
+     * The documents not yet sent to Solr. Only accessed by the store thread.
+     */
+    private final List<PendingDocument> pendingDocuments = new ArrayList<>();
+
+    /**
+     * The inputs of the tasks for which the document could not be sent. Only accessed by the store thread.
+     */
+    private final Map<Object, EventStreamException> failures = new IdentityHashMap<>();
+
+    private long lastHardCommit;
+
     @Override
     public void initialize() throws InitializationException
     {
@@ -131,23 +175,97 @@ public void initialize() throws InitializationException
     @Override
     protected void afterTasks(List<EventStoreTask<?, ?>> tasks)
     {
-        try {
-            commit();
-        } catch (EventStreamException e) {
-            this.logger.error("Failed to commit", e);
+        // Send what's left
+        flush();
+
+        if (this.configuration.getSolrCommitWithin() <= 0) {
+            try {
+                commit();
+            } catch (EventStreamException e) {
+                this.logger.error("Failed to commit", e);
+            }
+        }
+
+        // Fail the tasks for which the changes could not be sent
+        if (!this.failures.isEmpty()) {
+            for (EventStoreTask<?, ?> task : tasks) {
+                EventStreamException failure = this.failures.get(task.getInput());
+                if (failure != null) {
+                    task.getFuture().completeExceptionally(failure);
+                }
+            }
+
+            this.failures.clear();
         }
 
         super.afterTasks(tasks);
     }
 
-    @Override
-    protected Event syncSaveEvent(Event event) throws EventStreamException
+    /**
+     * Remember a document to send to Solr with the next batch.
+     * 
+     * @param document the document to send
+     * @param input the input of the task which produced the document
+     * @param errorMessage the message of the error to report if the document cannot be sent
+     */
+    private void add(SolrInputDocument document, Object input, String errorMessage)
     {
+        this.pendingDocuments.add(new PendingDocument(document, input, errorMessage));
+
+        if (this.pendingDocuments.size() >= MAX_PENDING_DOCUMENTS) {
+            flush();
+        }
+    }
+
+    /**
+     * Send the pending documents to Solr.
+     */
+    private void flush()
+    {
+        if (this.pendingDocuments.isEmpty()) {
+            return;
+        }
+
+        List<SolrInputDocument> documents = new ArrayList<>(this.pendingDocuments.size());
+        this.pendingDocuments.forEach(pending -> documents.add(pending.document));
+
         try {
-            this.client.add(toSolrInputDocument(event));
+            sendDocuments(documents);
         } catch (Exception e) {
-            throw new EventStreamException("Failed to save event", e);
+            this.logger.debug("Failed to send a batch of [{}] documents, sending them one by one", documents.size(), e);
+
+            // Find which documents are responsible for the failure
+            for (PendingDocument pending : this.pendingDocuments) {
+                try {
+                    sendDocuments(Collections.singletonList(pending.document));
+                } catch (Exception ex) {
+                    EventStreamException failure = new EventStreamException(pending.errorMessage, ex);
+                    if (pending.input != null) {
+                        this.failures.put(pending.input, failure);
+                    } else {
+                        this.logger.error(pending.errorMessage, ex);
+                    }
+                }
+            }
+        } finally {
+            this.pendingDocuments.clear();
         }
+    }
+
+    private void sendDocuments(List<SolrInputDocument> documents) throws SolrServerException, IOException
+    {
+        int commitWithin = this.configuration.getSolrCommitWithin();
+        if (commitWithin > 0) {
+            this.client.add(documents, commitWithin);
+        } else {
+            this.client.add(documents);
+        }
+    }
+
+    @Override
+    protected Event syncSaveEvent(Event event) throws EventStreamException
+    {
+        add(toSolrInputDocument(event), event, "Failed to save event");
 
         return event;
     }
@@ -155,7 +273,7 @@ protected Event syncSaveEvent(Event event) throws EventStreamException
     @Override
     protected EventStatus syncSaveEventStatus(EventStatus status) throws EventStreamException
     {
-        saveEventStatus(status.getEvent().getId(), status.getEntityId(), status.isRead(), !status.isRead());
+        saveEventStatus(status.getEvent().getId(), status.getEntityId(), status.isRead(), !status.isRead(), status);
 
         return status;
     }
@@ -163,7 +281,7 @@ protected EventStatus syncSaveEventStatus(EventStatus status) throws EventStream
     @Override
     protected EntityEvent syncSaveMailEntityEvent(EntityEvent event) throws EventStreamException
     {
-        saveMailEntityEvent(event.getEvent().getId(), event.getEntityId(), true);
+        saveMailEntityEvent(event.getEvent().getId(), event.getEntityId(), true, event);
 
         return event;
     }
@@ -171,7 +289,7 @@ protected EntityEvent syncSaveMailEntityEvent(EntityEvent event) throws EventStr
     @Override
     protected Optional<EventStatus> syncDeleteEventStatus(EventStatus status) throws EventStreamException
     {
-        saveEventStatus(status.getEvent().getId(), status.getEntityId(), false, false);
+        saveEventStatus(status.getEvent().getId(), status.getEntityId(), false, false, status);
 
         return Optional.of(status);
     }
@@ -179,6 +297,9 @@ protected Optional<EventStatus> syncDeleteEventStatus(EventStatus status) throws
     @Override
     protected Void syncDeleteEventStatuses(String entityId, Date date) throws EventStreamException
     {
+        // Make sure the search takes into account the previous changes
+        flush();
+
         SimpleEventQuery query = new SimpleEventQuery();
         query.withStatus(entityId);
         if (date != null) {
@@ -189,7 +310,7 @@ protected Void syncDeleteEventStatuses(String entityId, Date date) throws EventS
         for (Iterator<Event> it = results.stream().iterator(); it.hasNext();) {
             Event event = it.next();
 
-            saveEventStatus(event.getId(), entityId, false, false);
+            saveEventStatus(event.getId(), entityId, false, false, null);
         }
 
         return null;
@@ -198,7 +319,7 @@ protected Void syncDeleteEventStatuses(String entityId, Date date) throws EventS
     @Override
     protected Optional<EntityEvent> syncDeleteMailEntityEvent(EntityEvent event) throws EventStreamException
     {
-        saveMailEntityEvent(event.getEvent().getId(), event.getEntityId(), false);
+        saveMailEntityEvent(event.getEvent().getId(), event.getEntityId(), false, event);
 
         return Optional.of(event);
     }
@@ -212,12 +333,7 @@ protected Event syncPrefilterEvent(Event event) throws EventStreamException
 
         this.utils.setAtomic(SolrUtils.ATOMIC_UPDATE_MODIFIER_SET, Event.FIELD_PREFILTERED, true, document);
 
-        try {
-            this.client.add(document);
-        } catch (Exception e) {
-            throw new EventStreamException(
-                String.format("Failed to to set the event [%s] as prefiltered", event.getId()), e);
-        }
+        add(document, event, String.format("Failed to to set the event [%s] as prefiltered", event.getId()));
 
         // Update the event so that we return something with the right value
         if (event instanceof DefaultEvent) {
@@ -227,8 +343,7 @@ protected Event syncPrefilterEvent(Event event) throws EventStreamException
         return event;
     }
 
-    private void saveEventStatus(String eventId, String entityId, boolean read, boolean unread)
-        throws EventStreamException
+    private void saveEventStatus(String eventId, String entityId, boolean read, boolean unread, Object input)
     {
         SolrInputDocument document = new SolrInputDocument();
 
@@ -241,16 +356,11 @@ private void saveEventStatus(String eventId, String entityId, boolean read, bool
             unread ? SolrUtils.ATOMIC_UPDATE_MODIFIER_ADD_DISTINCT : SolrUtils.ATOMIC_UPDATE_MODIFIER_REMOVE,
             EventsSolrCoreInitializer.SOLR_FIELD_UNREADLISTENERS, entityId, document);
 
-        try {
-            this.client.add(document);
-        } catch (Exception e) {
-            throw new EventStreamException(
-                String.format("Failed to update the event status for event [%s] and entity id [%s]", eventId, entityId),
-                e);
-        }
+        add(document, input,
+            String.format("Failed to update the event status for event [%s] and entity id [%s]", eventId, entityId));
     }
 
-    private void saveMailEntityEvent(String eventId, String entityId, boolean add) throws EventStreamException
+    private void saveMailEntityEvent(String eventId, String entityId, boolean add, Object input)
     {
         SolrInputDocument document = new SolrInputDocument();
 
@@ -260,12 +370,8 @@ private void saveMailEntityEvent(String eventId, String entityId, boolean add) t
             add ? SolrUtils.ATOMIC_UPDATE_MODIFIER_ADD_DISTINCT : SolrUtils.ATOMIC_UPDATE_MODIFIER_REMOVE,
             EventsSolrCoreInitializer.SOLR_FIELD_MAILLISTENERS, entityId, document);
 
-        try {
-            this.client.add(document);
-        } catch (Exception e) {
-            throw new EventStreamException(String.format(
-                "Failed to update the event mail status for event [%s] and entity id [%s]", eventId, entityId), e);
-        }
+        add(document, input, String
+            .format("Failed to update the event mail status for event [%s] and entity id [%s]", eventId, entityId));
     }
 
     private SolrInputDocument toSolrInputDocument(Event event)
@@ -321,6 +427,9 @@ private SolrInputDocument toSolrInputDocument(Event event)
     @Override
     protected Optional<Event> syncDeleteEvent(String eventId) throws EventStreamException
     {
+        // Make sure the event is not saved after being deleted
+        flush();
+
         Optional<Event> event = getEvent(eventId);
 
         if (event.isPresent()) {
@@ -339,7 +448,12 @@ protected Optional<Event> syncDeleteEvent(Event event) throws EventStreamExcepti
     private void deleteById(String eventId) throws EventStreamException
     {
         try {
-            this.client.deleteById(eventId);
+            int commitWithin = this.configuration.getSolrCommitWithin();
+            if (commitWithin > 0) {
+                this.client.deleteById(eventId, commitWithin);
+            } else {
+                this.client.deleteById(eventId);
+            }
         } catch (Exception e) {
             throw new EventStreamException("Failed to delete the event", e);
         }
@@ -347,11 +461,19 @@ private void deleteById(String eventId) throws EventStreamException
 
     private void commit() throws EventStreamException
     {
+        // Regularly flush the soft committed changes to the disk
+        long now = System.currentTimeMillis();
+        boolean softCommit = this.configuration.isSolrSoftCommit() && now - this.lastHardCommit < HARD_COMMIT_INTERVAL;
+
         try {
-            this.client.commit();
+            this.client.commit(true, true, softCommit);
         } catch (Exception e) {
             throw new EventStreamException("Failed to commit", e);
         }
+
+        if (!softCommit) {
+            this.lastHardCommit = now;
+        }
     }
 
     public SolrDocument getEventDocument(String eventId) throws SolrServerException, IOException
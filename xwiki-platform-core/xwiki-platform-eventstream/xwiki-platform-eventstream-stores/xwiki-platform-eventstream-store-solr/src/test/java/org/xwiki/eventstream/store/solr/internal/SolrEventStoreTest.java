@@ -0,0 +1,221 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.eventstream.store.solr.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.xwiki.eventstream.Event;
+import org.xwiki.eventstream.EventStreamException;
+import org.xwiki.eventstream.internal.DefaultEvent;
+import org.xwiki.eventstream.internal.EventStreamConfiguration;
+import org.xwiki.search.solr.Solr;
+import org.xwiki.search.solr.SolrUtils;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate the way {@link SolrEventStore} sends the changes to Solr and commits them.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class SolrEventStoreTest
+{
+    @MockComponent
+    private Solr solr;
+
+    @MockComponent
+    private SolrUtils utils;
+
+    @MockComponent
+    private EventStreamConfiguration configuration;
+
+    @InjectMockComponents
+    private SolrEventStore eventStore;
+
+    private SolrClient client = mock(SolrClient.class);
+
+    /**
+     * The identifiers of the documents sent to Solr, one list per request.
+     */
+    private List<List<Object>> sentDocuments = new ArrayList<>();
+
+    @BeforeComponent
+    public void beforeComponent() throws Exception
+    {
+        when(this.solr.getClient(EventsSolrCoreInitializer.NAME)).thenReturn(this.client);
+
+        // Only remember the identifier of the documents
+        doAnswer(invocation -> {
+            SolrInputDocument document = invocation.getArgument(2);
+            document.setField(EventsSolrCoreInitializer.SOLR_FIELD_ID, invocation.getArgument(1));
+            return null;
+        }).when(this.utils).set(eq(EventsSolrCoreInitializer.SOLR_FIELD_ID), any(Object.class),
+            any(SolrInputDocument.class));
+
+        doAnswer(invocation -> {
+            this.sentDocuments.add(getIds(invocation.getArgument(0)));
+            return null;
+        }).when(this.client).add(anyCollection());
+    }
+
+    @AfterEach
+    public void afterEach() throws Exception
+    {
+        this.eventStore.dispose();
+    }
+
+    private static DefaultEvent event(String id)
+    {
+        DefaultEvent event = new DefaultEvent();
+        event.setId(id);
+
+        return event;
+    }
+
+    private static List<Object> getIds(Collection<SolrInputDocument> documents)
+    {
+        List<Object> ids = new ArrayList<>(documents.size());
+        documents.forEach(document -> ids.add(document.getFieldValue(EventsSolrCoreInitializer.SOLR_FIELD_ID)));
+
+        return ids;
+    }
+
+    @Test
+    public void saveEventsInBulk() throws Exception
+    {
+        // Block the store thread on the first event so that the next ones are handled in the same batch
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(this.utils).set(eq(Event.FIELD_APPLICATION), eq("blocking"), any(SolrInputDocument.class));
+
+        DefaultEvent event1 = event("id1");
+        event1.setApplication("blocking");
+        CompletableFuture<Event> future1 = this.eventStore.saveEvent(event1);
+        CompletableFuture<Event> future2 = this.eventStore.saveEvent(event("id2"));
+        CompletableFuture<Event> future3 = this.eventStore.saveEvent(event("id3"));
+        release.countDown();
+
+        assertSame(event1, future1.get());
+        assertEquals("id2", future2.get().getId());
+        assertEquals("id3", future3.get().getId());
+
+        // All the events are sent with a single request and committed once
+        assertEquals(Arrays.asList(Arrays.asList("id1", "id2", "id3")), this.sentDocuments);
+        verify(this.client).commit(true, true, false);
+    }
+
+    @Test
+    public void saveEventsWithFailure() throws Exception
+    {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(this.utils).set(eq(Event.FIELD_APPLICATION), eq("blocking"), any(SolrInputDocument.class));
+
+        // Reject the batch and the second event
+        SolrServerException exception = new SolrServerException("error");
+        doAnswer(invocation -> {
+            List<Object> ids = getIds(invocation.getArgument(0));
+            this.sentDocuments.add(ids);
+            if (ids.size() > 1 || ids.contains("id2")) {
+                throw exception;
+            }
+            return null;
+        }).when(this.client).add(anyCollection());
+
+        DefaultEvent event1 = event("id1");
+        event1.setApplication("blocking");
+        CompletableFuture<Event> future1 = this.eventStore.saveEvent(event1);
+        CompletableFuture<Event> future2 = this.eventStore.saveEvent(event("id2"));
+        CompletableFuture<Event> future3 = this.eventStore.saveEvent(event("id3"));
+        release.countDown();
+
+        // Only the future of the rejected event fails
+        assertSame(event1, future1.get());
+        ExecutionException failure = assertThrows(ExecutionException.class, future2::get);
+        assertEquals(EventStreamException.class, failure.getCause().getClass());
+        assertEquals("Failed to save event", failure.getCause().getMessage());
+        assertSame(exception, failure.getCause().getCause());
+        assertEquals("id3", future3.get().getId());
+
+        // The documents are sent one by one after the failure of the batch
+        assertEquals(Arrays.asList(Arrays.asList("id1", "id2", "id3"), Arrays.asList("id1"), Arrays.asList("id2"),
+            Arrays.asList("id3")), this.sentDocuments);
+    }
+
+    @Test
+    public void saveEventsWithSoftCommit() throws Exception
+    {
+        when(this.configuration.isSolrSoftCommit()).thenReturn(true);
+
+        this.eventStore.saveEvent(event("id1")).get();
+        this.eventStore.saveEvent(event("id2")).get();
+
+        // The first commit is a hard one, the next ones are soft commits till the hard commit interval is reached
+        InOrder inOrder = inOrder(this.client);
+        inOrder.verify(this.client).commit(true, true, false);
+        inOrder.verify(this.client).commit(true, true, true);
+    }
+
+    @Test
+    public void saveEventsWithCommitWithin() throws Exception
+    {
+        when(this.configuration.getSolrCommitWithin()).thenReturn(1000);
+
+        this.eventStore.saveEvent(event("id1")).get();
+
+        // Solr is in charge of committing the changes
+        verify(this.client).add(anyCollection(), eq(1000));
+        verify(this.client, never()).add(anyCollection());
+        verify(this.client, never()).commit(anyBoolean(), anyBoolean(), anyBoolean());
+    }
+}
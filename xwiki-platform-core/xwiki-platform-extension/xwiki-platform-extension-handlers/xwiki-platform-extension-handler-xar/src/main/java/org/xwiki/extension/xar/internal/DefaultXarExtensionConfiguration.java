@@ -48,4 +48,10 @@ public DocumentProtection getDocumentProtection()
     {
         return this.configuration.getProperty(PREFIX + "protection", DocumentProtection.WARNING);
     }
+
+    @Override
+    public int getWikiImportThreads()
+    {
+        return Math.max(1, this.configuration.getProperty(PREFIX + "wikiImportThreads", 1));
+    }
 }
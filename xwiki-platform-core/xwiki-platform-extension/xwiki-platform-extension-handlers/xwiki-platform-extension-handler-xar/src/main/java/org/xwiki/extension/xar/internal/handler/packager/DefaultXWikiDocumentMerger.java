@@ -20,6 +20,7 @@
 package org.xwiki.extension.xar.internal.handler.packager;
 
 import java.util.List;
+import java.util.Map;
 
 import javax.inject.Inject;
 import javax.inject.Provider;
@@ -61,6 +62,12 @@
 @Singleton
 public class DefaultXWikiDocumentMerger implements XWikiDocumentMerger
 {
+    /**
+     * The name of the execution context property holding the conflict answers shared by the threads importing the same
+     * XAR in different wikis.
+     */
+    static final String CONTEXT_SHAREDCONFLICTANSWERS = "extension.xar.sharedconflictanswers";
+
     @Inject
     private MandatoryDocumentInitializerManager initializerManager;
 
@@ -320,14 +327,23 @@ private XWikiDocument askDocumentToSave(XWikiDocument currentDocument, XWikiDocu
 
             if (job != null && job.getStatus() != null && job.getStatus().getRequest() != null
                 && job.getStatus().getRequest().isInteractive()) {
-                try {
-                    // Ask what to do
-                    job.getStatus().ask(question);
-                    if (question.isAlways()) {
-                        setMergeConflictAnswer(question.getType(), question.getGlobalAction());
+                // Several wikis might be imported at the same time but a job can only ask one question at a time
+                synchronized (job) {
+                    // The question might have been answered for all documents while waiting
+                    contextAction = getMergeConflictAnswer(question.getType(), configuration);
+                    if (contextAction != null && contextAction != GlobalAction.ASK) {
+                        question.setGlobalAction(contextAction);
+                    } else {
+                        try {
+                            // Ask what to do
+                            job.getStatus().ask(question);
+                            if (question.isAlways()) {
+                                setMergeConflictAnswer(question.getType(), question.getGlobalAction());
+                            }
+                        } catch (InterruptedException e) {
+                            // TODO: log something ?
+                        }
                     }
-                } catch (InterruptedException e) {
-                    // TODO: log something ?
                 }
             }
         }
@@ -376,7 +392,15 @@ private XWikiDocument askDocumentToSave(XWikiDocument currentDocument, XWikiDocu
     private GlobalAction getMergeConflictAnswer(ConflictQuestion.ConflictType type,
         XWikiDocumentMergerConfiguration configuration)
     {
-        GlobalAction action = (GlobalAction) this.execution.getContext().getProperty(ConflictQuestion.toKey(type));
+        String key = ConflictQuestion.toKey(type);
+        GlobalAction action = (GlobalAction) this.execution.getContext().getProperty(key);
+
+        if (action == null) {
+            Map<String, Object> sharedAnswers = getSharedConflictAnswers();
+            if (sharedAnswers != null) {
+                action = (GlobalAction) sharedAnswers.get(key);
+            }
+        }
 
         if (action == null && configuration != null) {
             action = configuration.getConflictAction(type);
@@ -387,6 +411,21 @@ private GlobalAction getMergeConflictAnswer(ConflictQuestion.ConflictType type,
 
     private void setMergeConflictAnswer(ConflictQuestion.ConflictType type, GlobalAction action)
     {
-        this.execution.getContext().setProperty(ConflictQuestion.toKey(type), action);
+        String key = ConflictQuestion.toKey(type);
+        this.execution.getContext().setProperty(key, action);
+
+        Map<String, Object> sharedAnswers = getSharedConflictAnswers();
+        if (sharedAnswers != null) {
+            sharedAnswers.put(key, action);
+        }
+    }
+
+    private Map<String, Object> getSharedConflictAnswers()
+    {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> sharedAnswers =
+            (Map<String, Object>) this.execution.getContext().getProperty(CONTEXT_SHAREDCONFLICTANSWERS);
+
+        return sharedAnswers;
     }
 }
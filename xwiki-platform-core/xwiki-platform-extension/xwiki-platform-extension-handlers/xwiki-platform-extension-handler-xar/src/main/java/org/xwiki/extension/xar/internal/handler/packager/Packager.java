@@ -23,9 +23,18 @@
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -34,21 +43,35 @@
 
 import org.apache.commons.compress.archivers.ArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipArchiveInputStream;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.manager.ComponentLookupException;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.context.concurrent.ContextStoreManager;
 import org.xwiki.extension.ExtensionId;
 import org.xwiki.extension.repository.InstalledExtensionRepository;
+import org.xwiki.extension.xar.XarExtensionConfiguration;
 import org.xwiki.extension.xar.XarExtensionException;
 import org.xwiki.extension.xar.internal.handler.XarExtensionHandler;
 import org.xwiki.extension.xar.internal.handler.XarExtensionPlan;
 import org.xwiki.extension.xar.internal.repository.XarInstalledExtension;
 import org.xwiki.extension.xar.internal.repository.XarInstalledExtensionRepository;
 import org.xwiki.extension.xar.job.diff.DocumentVersionReference;
+import org.xwiki.extension.xar.question.ConflictQuestion;
+import org.xwiki.extension.xar.question.ConflictQuestion.ConflictType;
 import org.xwiki.filter.FilterException;
 import org.xwiki.filter.input.DefaultInputStreamInputSource;
 import org.xwiki.filter.instance.output.DocumentInstanceOutputProperties;
 import org.xwiki.filter.xar.input.XARInputProperties;
+import org.xwiki.job.Job;
+import org.xwiki.job.JobContext;
+import org.xwiki.job.event.status.JobProgressManager;
+import org.xwiki.logging.LogQueue;
+import org.xwiki.logging.LoggerManager;
+import org.xwiki.logging.event.LoggerListener;
 import org.xwiki.logging.marker.BeginTranslationMarker;
 import org.xwiki.logging.marker.EndTranslationMarker;
 import org.xwiki.logging.marker.TranslationMarker;
@@ -98,6 +121,8 @@
     private static final TranslationMarker LOG_DELETEDDOCUMENT_FAILURE =
         new TranslationMarker("extension.xar.log.delete.document.failure");
 
+    private static final List<String> CONTEXT_ENTRIES = Arrays.asList("user", "author", "locale", "request.base");
+
     @Inject
     @Named("explicit")
     private DocumentReferenceResolver<EntityReference> resolver;
@@ -130,6 +155,27 @@
     @Named(XarExtensionHandler.TYPE)
     private InstalledExtensionRepository installedXARs;
 
+    @Inject
+    private XarExtensionConfiguration xarConfiguration;
+
+    @Inject
+    private Execution execution;
+
+    @Inject
+    private ExecutionContextManager executionContextManager;
+
+    @Inject
+    private ContextStoreManager contextStore;
+
+    @Inject
+    private JobContext jobContext;
+
+    @Inject
+    private LoggerManager loggerManager;
+
+    @Inject
+    private JobProgressManager progress;
+
     private XarInstalledExtensionRepository getXarInstalledExtensionRepository()
     {
         return (XarInstalledExtensionRepository) this.installedXARs;
@@ -141,14 +187,136 @@ public void importXAR(String comment, File xarFile, PackageConfiguration configu
         if (configuration.getWiki() == null) {
             Collection<String> wikis = this.wikiDescriptors.getAllIds();
 
-            for (String subwiki : wikis) {
-                importXARToWiki(comment, xarFile, new WikiReference(subwiki), configuration);
+            int threads = Math.min(this.xarConfiguration.getWikiImportThreads(), wikis.size());
+            if (threads > 1) {
+                importXARToWikis(comment, xarFile, wikis, configuration, threads);
+            } else {
+                for (String subwiki : wikis) {
+                    importXARToWiki(comment, xarFile, new WikiReference(subwiki), configuration);
+                }
             }
         } else {
             importXARToWiki(comment, xarFile, new WikiReference(configuration.getWiki()), configuration);
         }
     }
 
+    private void importXARToWikis(String comment, File xarFile, Collection<String> wikis,
+        PackageConfiguration configuration, int threads) throws XarException
+    {
+        // Remember a few standard things from the context to give them to each worker
+        Map<String, Serializable> contextEntries;
+        try {
+            contextEntries = this.contextStore.save(CONTEXT_ENTRIES);
+        } catch (ComponentLookupException e) {
+            throw new XarException("Failed to save the current context", e);
+        }
+
+        Job job = this.jobContext.getCurrentJob();
+
+        // Make sure an answer given with "always" in one wiki is reused in all the other wikis
+        ExecutionContext currentContext = this.execution.getContext();
+        Map<String, Object> conflictAnswers = new ConcurrentHashMap<>();
+        for (ConflictType type : ConflictType.values()) {
+            Object answer = currentContext.getProperty(ConflictQuestion.toKey(type));
+            if (answer != null) {
+                conflictAnswers.put(ConflictQuestion.toKey(type), answer);
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+            new BasicThreadFactory.Builder().namingPattern("XAR import thread %d").daemon(true).build());
+
+        Map<String, LogQueue> wikiLogs = new LinkedHashMap<>();
+        List<Future<?>> futures = new ArrayList<>(wikis.size());
+        XarException failure = null;
+        // The workers don't report any progress themselves, the progress of the current job is updated each time a
+        // wiki import is finished (in the order in which the wikis were submitted)
+        this.progress.pushLevelProgress(wikis.size(), this);
+        try {
+            for (String wiki : wikis) {
+                LogQueue logs = new LogQueue();
+                wikiLogs.put(wiki, logs);
+
+                // Each worker needs its own configuration since it holds the current XAR entry
+                PackageConfiguration wikiConfiguration = configuration.clone();
+                futures.add(executor.submit(() -> {
+                    importXARToWiki(comment, xarFile, wiki, wikiConfiguration, contextEntries, job, conflictAnswers,
+                        logs);
+
+                    return null;
+                }));
+            }
+
+            int index = 0;
+            for (Map.Entry<String, LogQueue> entry : wikiLogs.entrySet()) {
+                this.progress.startStep(this);
+
+                try {
+                    futures.get(index++).get();
+                } catch (ExecutionException e) {
+                    // Wait for the other wikis before failing, like the sequential import would have stopped at the
+                    // first failure but without interrupting imports which are already running
+                    XarException wikiFailure = new XarException(
+                        "Failed to import XAR file [" + xarFile + "] in wiki [" + entry.getKey() + "]", e.getCause());
+                    if (failure == null) {
+                        failure = wikiFailure;
+                    } else {
+                        failure.addSuppressed(wikiFailure);
+                    }
+                } finally {
+                    // Give the log of the wiki import to the current job
+                    entry.getValue().log(this.logger);
+
+                    this.progress.endStep(this);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new XarException("Interrupted while importing XAR file [" + xarFile + "]", e);
+        } finally {
+            this.progress.popLevelProgress(this);
+
+            executor.shutdownNow();
+
+            currentContext.setProperties(conflictAnswers);
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void importXARToWiki(String comment, File xarFile, String wiki, PackageConfiguration configuration,
+        Map<String, Serializable> contextEntries, Job job, Map<String, Object> conflictAnswers, LogQueue logs)
+        throws Exception
+    {
+        ExecutionContext context = new ExecutionContext();
+        context.setProperty(DefaultXWikiDocumentMerger.CONTEXT_SHAREDCONFLICTANSWERS, conflictAnswers);
+
+        this.executionContextManager.initialize(context);
+
+        try {
+            this.contextStore.restore(contextEntries);
+
+            if (job != null) {
+                this.jobContext.pushCurrentJob(job);
+            }
+            this.loggerManager.pushLogListener(new LoggerListener(wiki, logs));
+
+            try {
+                importXARToWiki(comment, xarFile, new WikiReference(wiki), configuration);
+            } finally {
+                this.loggerManager.popLogListener();
+                if (job != null) {
+                    this.jobContext.popCurrentJob();
+                }
+            }
+        } finally {
+            this.execution.removeContext();
+        }
+    }
+
     private void importXARToWiki(String comment, File xarFile, WikiReference wikiReference,
         PackageConfiguration configuration) throws IOException, XarException, XWikiException
     {
@@ -20,6 +20,8 @@
 package org.xwiki.extension.xar.internal.handler.packager;
 
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.inject.Provider;
 
@@ -55,11 +57,13 @@
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.doc.merge.MergeConfiguration;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -431,6 +435,48 @@ public void testMergeInteractiveChangesConflictAnswerPreviousAlways() throws Com
             same(this.xcontext));
     }
 
+    @Test
+    public void testMergeInteractiveChangesConflictAnswerAlwaysShared() throws ComponentLookupException, Exception
+    {
+        setInteractive();
+        this.configuration.setUser(new DocumentReference("wiki", "space", "user"));
+
+        this.mergeResult.setModified(true);
+        this.mergeResult.getLog().error("error");
+
+        Map<String, Object> sharedAnswers = new ConcurrentHashMap<>();
+        this.econtext.setProperty(DefaultXWikiDocumentMerger.CONTEXT_SHAREDCONFLICTANSWERS, sharedAnswers);
+
+        answerGlobalAction(GlobalAction.PREVIOUS, true);
+
+        this.documentMergeImporter.importDocument("comment", this.previousDocument, this.currentDocument,
+            this.nextDocument, this.configuration);
+
+        // The answer is made available to the imports running in other threads
+        assertEquals(GlobalAction.PREVIOUS, sharedAnswers.get(ConflictQuestion.toKey(ConflictType.MERGE_FAILURE)));
+    }
+
+    @Test
+    public void testMergeInteractiveChangesConflictSharedAnswer() throws ComponentLookupException, Exception
+    {
+        setInteractive();
+        this.configuration.setUser(new DocumentReference("wiki", "space", "user"));
+
+        this.mergeResult.setModified(true);
+        this.mergeResult.getLog().error("error");
+
+        // Answer given with "always" by an import running in another thread
+        Map<String, Object> sharedAnswers = new ConcurrentHashMap<>();
+        sharedAnswers.put(ConflictQuestion.toKey(ConflictType.MERGE_FAILURE), GlobalAction.NEXT);
+        this.econtext.setProperty(DefaultXWikiDocumentMerger.CONTEXT_SHAREDCONFLICTANSWERS, sharedAnswers);
+
+        this.documentMergeImporter.importDocument("comment", this.previousDocument, this.currentDocument,
+            this.nextDocument, this.configuration);
+
+        verify(this.jobStatus, never()).ask(any());
+        verify(this.xwiki).saveDocument(same(this.nextDocument), eq("comment"), eq(false), same(this.xcontext));
+    }
+
     // No merge
 
     @Test
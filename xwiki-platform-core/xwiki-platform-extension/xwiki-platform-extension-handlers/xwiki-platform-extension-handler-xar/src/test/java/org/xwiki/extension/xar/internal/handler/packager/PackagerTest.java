@@ -0,0 +1,287 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.extension.xar.internal.handler.packager;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.xwiki.context.Execution;
+import org.xwiki.context.ExecutionContext;
+import org.xwiki.context.ExecutionContextManager;
+import org.xwiki.context.concurrent.ContextStoreManager;
+import org.xwiki.extension.xar.XarExtensionConfiguration;
+import org.xwiki.extension.xar.question.ConflictQuestion;
+import org.xwiki.extension.xar.question.ConflictQuestion.ConflictType;
+import org.xwiki.extension.xar.question.ConflictQuestion.GlobalAction;
+import org.xwiki.filter.instance.output.DocumentInstanceOutputProperties;
+import org.xwiki.job.Job;
+import org.xwiki.job.JobContext;
+import org.xwiki.job.event.status.JobProgressManager;
+import org.xwiki.logging.LoggerManager;
+import org.xwiki.logging.event.LogEvent;
+import org.xwiki.logging.event.LoggerListener;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.test.LogLevel;
+import org.xwiki.test.junit5.LogCaptureExtension;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+import org.xwiki.xar.XarException;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.filter.XWikiDocumentFilterUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate the import of a XAR file in several wikis in parallel by {@link Packager}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class PackagerTest
+{
+    private static final String ANSWER_KEY = ConflictQuestion.toKey(ConflictType.MERGE_FAILURE);
+
+    @InjectMockComponents
+    private Packager packager;
+
+    @MockComponent
+    private WikiDescriptorManager wikiDescriptors;
+
+    @MockComponent
+    private XarExtensionConfiguration xarConfiguration;
+
+    @MockComponent
+    private XWikiDocumentFilterUtils documentImporter;
+
+    @MockComponent
+    private DocumentMergeImporter importer;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    @MockComponent
+    private Execution execution;
+
+    @MockComponent
+    private ExecutionContextManager executionContextManager;
+
+    @MockComponent
+    private ContextStoreManager contextStore;
+
+    @MockComponent
+    private JobContext jobContext;
+
+    @MockComponent
+    private JobProgressManager progress;
+
+    @MockComponent
+    private LoggerManager loggerManager;
+
+    @RegisterExtension
+    LogCaptureExtension logCapture = new LogCaptureExtension(LogLevel.INFO);
+
+    @XWikiTempDir
+    private File tmpDir;
+
+    private File xarFile;
+
+    private XWiki xwiki = mock(XWiki.class);
+
+    private XWikiContext xcontext = mock(XWikiContext.class);
+
+    private Job job = mock(Job.class);
+
+    private ExecutionContext econtext = new ExecutionContext();
+
+    private Map<String, Serializable> contextEntries = Collections.singletonMap("user", "xwiki:XWiki.Admin");
+
+    private Map<Thread, ExecutionContext> workerContexts = new ConcurrentHashMap<>();
+
+    private Map<Thread, LoggerListener> workerLogListeners = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    public void beforeEach() throws Exception
+    {
+        this.xarFile = new File(this.tmpDir, "test.xar");
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(this.xarFile))) {
+            zos.putNextEntry(new ZipEntry("space/page.xml"));
+            zos.write("<xwikidoc/>".getBytes());
+            zos.closeEntry();
+        }
+
+        when(this.wikiDescriptors.getAllIds()).thenReturn(Arrays.asList("wiki1", "wiki2"));
+        when(this.xarConfiguration.getWikiImportThreads()).thenReturn(2);
+
+        when(this.xcontextProvider.get()).thenReturn(this.xcontext);
+        when(this.xcontext.getWiki()).thenReturn(this.xwiki);
+
+        when(this.execution.getContext()).thenReturn(this.econtext);
+        when(this.contextStore.save(any())).thenReturn(this.contextEntries);
+        when(this.jobContext.getCurrentJob()).thenReturn(this.job);
+
+        // Remember the context and the log listener of each worker
+        doAnswer(invocation -> {
+            this.workerContexts.put(Thread.currentThread(), invocation.getArgument(0));
+            return null;
+        }).when(this.executionContextManager).initialize(any());
+        doAnswer(invocation -> {
+            this.workerLogListeners.put(Thread.currentThread(), invocation.getArgument(0));
+            return null;
+        }).when(this.loggerManager).pushLogListener(any());
+
+        // Parse the XAR entry as a document of the target wiki
+        when(this.documentImporter.importDocument(any(), any(), any())).then(invocation -> {
+            DocumentInstanceOutputProperties properties = invocation.getArgument(2);
+            DocumentReference reference = getReference(properties.getDefaultReference().getName());
+            XWikiDocument document = mock(XWikiDocument.class, reference.getWikiReference().getName());
+            when(document.getDocumentReferenceWithLocale()).thenReturn(reference);
+            return document;
+        });
+        when(this.xwiki.getDocument(any(DocumentReference.class), same(this.xcontext)))
+            .then(invocation -> mock(XWikiDocument.class));
+    }
+
+    private void log(String message, String wiki)
+    {
+        this.workerLogListeners.get(Thread.currentThread()).onEvent(
+            new LogEvent(null, org.xwiki.logging.LogLevel.INFO, message, new Object[] { wiki }, null), null, null);
+    }
+
+    private DocumentReference getReference(String wiki)
+    {
+        return new DocumentReference(wiki, "space", "page");
+    }
+
+    @Test
+    public void importXARInParallel() throws Exception
+    {
+        this.packager.importXAR("comment", this.xarFile, new PackageConfiguration());
+
+        verify(this.xwiki).getDocument(getReference("wiki1"), this.xcontext);
+        verify(this.xwiki).getDocument(getReference("wiki2"), this.xcontext);
+        verify(this.importer, times(2)).importDocument(eq("comment"), any(), any(), any(),
+            any(PackageConfiguration.class));
+
+        // Each worker is given its own execution context initialized from the current one
+        assertEquals(2, this.workerContexts.size());
+        verify(this.contextStore, times(2)).restore(this.contextEntries);
+        verify(this.jobContext, times(2)).pushCurrentJob(this.job);
+        verify(this.jobContext, times(2)).popCurrentJob();
+        verify(this.execution, times(2)).removeContext();
+
+        // The progress of the current job is updated for each wiki
+        verify(this.progress).pushLevelProgress(2, this.packager);
+        verify(this.progress, times(2)).startStep(this.packager);
+        verify(this.progress, times(2)).endStep(this.packager);
+        verify(this.progress).popLevelProgress(this.packager);
+    }
+
+    @Test
+    public void importXARInParallelShareConflictAnswers() throws Exception
+    {
+        this.econtext.setProperty(ConflictQuestion.toKey(ConflictType.CURRENT_EXIST), GlobalAction.CURRENT);
+
+        // Simulate an answer given with "always" during the import
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> sharedAnswers = (Map<String, Object>) this.workerContexts.get(Thread.currentThread())
+                .getProperty(DefaultXWikiDocumentMerger.CONTEXT_SHAREDCONFLICTANSWERS);
+            sharedAnswers.put(ANSWER_KEY, GlobalAction.NEXT);
+            return null;
+        }).when(this.importer).importDocument(any(), any(), any(), any(), any());
+
+        this.packager.importXAR("comment", this.xarFile, new PackageConfiguration());
+
+        // All the workers share the same answers, starting with the ones already given in the current context
+        ExecutionContext[] contexts = this.workerContexts.values().toArray(new ExecutionContext[0]);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> sharedAnswers =
+            (Map<String, Object>) contexts[0].getProperty(DefaultXWikiDocumentMerger.CONTEXT_SHAREDCONFLICTANSWERS);
+        assertSame(sharedAnswers,
+            contexts[1].getProperty(DefaultXWikiDocumentMerger.CONTEXT_SHAREDCONFLICTANSWERS));
+        assertEquals(GlobalAction.CURRENT, sharedAnswers.get(ConflictQuestion.toKey(ConflictType.CURRENT_EXIST)));
+
+        // The answers given by the workers are kept for the next XAR imports of the job
+        assertEquals(GlobalAction.NEXT, this.econtext.getProperty(ANSWER_KEY));
+    }
+
+    @Test
+    public void importXARInParallelReplayLogs() throws Exception
+    {
+        when(this.xwiki.getDocument(any(DocumentReference.class), same(this.xcontext))).then(invocation -> {
+            DocumentReference reference = invocation.getArgument(0);
+            log("Importing in [{}]", reference.getWikiReference().getName());
+            return mock(XWikiDocument.class);
+        });
+
+        this.packager.importXAR("comment", this.xarFile, new PackageConfiguration());
+
+        // The log of each wiki is given to the current job in the order of the wikis
+        assertEquals("Importing in [wiki1]", this.logCapture.getMessage(0));
+        assertEquals("Importing in [wiki2]", this.logCapture.getMessage(1));
+    }
+
+    @Test
+    public void importXARInParallelWithFailure() throws Exception
+    {
+        XWikiException cause = new XWikiException();
+        when(this.xwiki.getDocument(getReference("wiki1"), this.xcontext)).thenThrow(cause);
+
+        XarException exception = assertThrows(XarException.class,
+            () -> this.packager.importXAR("comment", this.xarFile, new PackageConfiguration()));
+
+        assertEquals("Failed to import XAR file [" + this.xarFile + "] in wiki [wiki1]", exception.getMessage());
+        assertSame(cause, exception.getCause());
+
+        // The failure of one wiki does not prevent the import in the other wikis
+        verify(this.importer).importDocument(eq("comment"), any(), any(), any(), any(PackageConfiguration.class));
+        assertEquals(2, this.workerContexts.size());
+        verify(this.progress).popLevelProgress(this.packager);
+    }
+}
@@ -20,6 +20,7 @@
 package org.xwiki.filter.instance.internal.output;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -37,6 +38,7 @@
 import org.xwiki.filter.instance.output.InstanceOutputProperties;
 import org.xwiki.filter.instance.output.OutputInstanceFilterStreamFactory;
 import org.xwiki.filter.output.AbstractBeanOutputFilterStream;
+import org.xwiki.filter.output.OutputFilterStream;
 
 /**
  * @version $Id$
@@ -54,6 +56,8 @@ public class InstanceOutputFilterStream extends AbstractBeanOutputFilterStream<I
     @Named("context")
     private Provider<ComponentManager> componentManager;
 
+    private final List<OutputFilterStream> streams = new ArrayList<>();
+
     @Override
     public void setProperties(InstanceOutputProperties properties) throws FilterException
     {
@@ -70,7 +74,9 @@ public void setProperties(InstanceOutputProperties properties) throws FilterExce
         Object[] filters = new Object[factories.size()];
         int i = 0;
         for (OutputInstanceFilterStreamFactory factory : factories) {
-            filters[i++] = factory.createOutputFilterStream(properties).getFilter();
+            OutputFilterStream stream = factory.createOutputFilterStream(properties);
+            this.streams.add(stream);
+            filters[i++] = stream.getFilter();
         }
 
         this.filter = this.filterManager.createCompositeFilter(filters);
@@ -85,6 +91,22 @@ public Object getFilter() throws FilterException
     @Override
     public void close() throws IOException
     {
-        // Nothing to close
+        // Some streams might have pending work (e.g. a batch of documents to commit)
+        IOException exception = null;
+        for (OutputFilterStream stream : this.streams) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                if (exception == null) {
+                    exception = e;
+                } else {
+                    exception.addSuppressed(e);
+                }
+            }
+        }
+
+        if (exception != null) {
+            throw exception;
+        }
     }
 }
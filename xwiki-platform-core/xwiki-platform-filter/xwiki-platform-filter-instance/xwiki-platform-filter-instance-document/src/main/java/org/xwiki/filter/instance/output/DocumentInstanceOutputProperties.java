@@ -24,6 +24,7 @@
 import org.xwiki.properties.annotation.PropertyDescription;
 import org.xwiki.properties.annotation.PropertyName;
 import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.stability.Unstable;
 
 /**
  * @version $Id$
@@ -76,6 +77,11 @@ public class DocumentInstanceOutputProperties extends InstanceOutputProperties
      */
     private boolean stoppedWhenSaveFail = true;
 
+    /**
+     * @see #getSaveBatchSize()
+     */
+    private int saveBatchSize;
+
     /**
      * @return The base reference to use to resolve reference from events
      */
@@ -237,4 +243,34 @@ public void setStoppedWhenSaveFail(boolean stoppedWhenSaveFail)
     {
         this.stoppedWhenSaveFail = stoppedWhenSaveFail;
     }
+
+    /**
+     * A save failure rolls back the whole batch, but the listeners which don't wait for the end of the batch have
+     * already been notified about the documents saved before the failure: the canceled documents should be imported
+     * again. It's thus mostly meant for initial imports.
+     *
+     * @return the number of documents to save in the same database transaction, 0 or 1 to save each document in its
+     *         own transaction
+     * @since 12.8RC1
+     */
+    @PropertyName("Save batch size")
+    @PropertyDescription("The number of documents to save in the same database transaction when importing a lot of"
+        + " documents. A save failure cancels the whole batch and the canceled documents should be imported again."
+        + " 0 or 1 to save each document in its own transaction.")
+    @Unstable
+    public int getSaveBatchSize()
+    {
+        return this.saveBatchSize;
+    }
+
+    /**
+     * @param saveBatchSize the number of documents to save in the same database transaction, 0 or 1 to save each
+     *            document in its own transaction
+     * @since 12.8RC1
+     */
+    @Unstable
+    public void setSaveBatchSize(int saveBatchSize)
+    {
+        this.saveBatchSize = saveBatchSize;
+    }
 }
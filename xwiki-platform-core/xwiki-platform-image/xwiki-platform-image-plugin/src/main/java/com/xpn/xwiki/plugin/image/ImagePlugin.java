@@ -21,24 +21,31 @@
 
 import java.awt.Image;
 import java.awt.image.RenderedImage;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Arrays;
+import java.util.List;
 
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.xwiki.cache.Cache;
-import org.xwiki.cache.CacheException;
-import org.xwiki.cache.CacheManager;
-import org.xwiki.cache.config.CacheConfiguration;
-import org.xwiki.cache.eviction.LRUEvictionConfiguration;
+import org.xwiki.environment.Environment;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.event.Event;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.api.Api;
 import com.xpn.xwiki.doc.XWikiAttachment;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.event.AbstractAttachmentEvent;
+import com.xpn.xwiki.internal.event.AttachmentDeletedEvent;
+import com.xpn.xwiki.internal.event.AttachmentUpdatedEvent;
 import com.xpn.xwiki.plugin.XWikiDefaultPlugin;
 import com.xpn.xwiki.plugin.XWikiPluginInterface;
 import com.xpn.xwiki.web.Utils;
@@ -48,7 +55,7 @@
  * @deprecated the plugin technology is deprecated, consider rewriting as components
  */
 @Deprecated
-public class ImagePlugin extends XWikiDefaultPlugin
+public class ImagePlugin extends XWikiDefaultPlugin implements EventListener
 {
     /**
      * Logging helper object.
@@ -62,15 +69,30 @@ public class ImagePlugin extends XWikiDefaultPlugin
      */
     private static final String PLUGIN_NAME = "image";
 
+    /**
+     * The events that invalidate the cached thumbnails of an image.
+     */
+    private static final List<Event> EVENTS = Arrays.asList(new AttachmentUpdatedEvent(), new AttachmentDeletedEvent());
+
     /**
      * Cache for already served images.
      */
-    private Cache<XWikiAttachment> imageCache;
+    private ThumbnailCache imageCache;
 
     /**
-     * The size of the cache. This parameter can be configured using the key {@code xwiki.plugin.image.cache.capacity}.
+     * The number of thumbnails kept in the cache. This parameter can be configured using the key
+     * {@code xwiki.plugin.image.cache.capacity}.
+     * <p>
+     * The default used to be 50 when the thumbnails were kept in memory. Now that they are stored on disk the total
+     * size below is what actually bounds the cache, and 1000 thumbnails of about 100KB fit in it.
      */
-    private int capacity = 50;
+    private int capacity = 1000;
+
+    /**
+     * The maximum total size (in megabytes) of the thumbnails kept in the cache. This parameter can be configured
+     * using the key {@code xwiki.plugin.image.cache.size}.
+     */
+    private long size = 100;
 
     /**
      * Default JPEG image quality.
@@ -116,6 +138,8 @@ public void init(XWikiContext context)
 
         initCache(context);
 
+        Utils.getComponent(ObservationManager.class).addListener(this);
+
         String imageProcessorHint = context.getWiki().Param("xwiki.plugin.image.processorHint", "thumbnailator");
         this.imageProcessor = Utils.getComponent(ImageProcessor.class, imageProcessorHint);
 
@@ -138,14 +162,6 @@ public void init(XWikiContext context)
     private void initCache(XWikiContext context)
     {
         if (this.imageCache == null) {
-            CacheConfiguration configuration = new CacheConfiguration();
-
-            configuration.setConfigurationId("xwiki.plugin.image");
-
-            // Set cache constraints.
-            LRUEvictionConfiguration lru = new LRUEvictionConfiguration();
-            configuration.put(LRUEvictionConfiguration.CONFIGURATIONID, lru);
-
             String capacityParam = context.getWiki().Param("xwiki.plugin.image.cache.capacity");
             if (!StringUtils.isBlank(capacityParam) && StringUtils.isNumeric(capacityParam.trim())) {
                 try {
@@ -156,11 +172,24 @@ private void initCache(XWikiContext context)
                             + "Using %s as the cache capacity.", this.capacity), e);
                 }
             }
-            lru.setMaxEntries(this.capacity);
+
+            String sizeParam = context.getWiki().Param("xwiki.plugin.image.cache.size");
+            if (!StringUtils.isBlank(sizeParam) && StringUtils.isNumeric(sizeParam.trim())) {
+                try {
+                    this.size = Long.parseLong(sizeParam.trim());
+                } catch (NumberFormatException e) {
+                    LOG.warn(String.format("Failed to parse xwiki.plugin.image.cache.size configuration parameter. "
+                        + "Using %s as the cache size.", this.size), e);
+                }
+            }
 
             try {
-                this.imageCache = Utils.getComponent(CacheManager.class).createNewLocalCache(configuration);
-            } catch (CacheException e) {
+                File cacheDirectory =
+                    new File(Utils.getComponent(Environment.class).getPermanentDirectory(), "cache/image");
+                cacheDirectory.mkdirs();
+
+                this.imageCache = new ThumbnailCache(cacheDirectory, this.capacity, this.size * 1024 * 1024);
+            } catch (Exception e) {
                 LOG.error("Error initializing the image cache.", e);
             }
         }
@@ -170,9 +199,33 @@ private void initCache(XWikiContext context)
     public void flushCache()
     {
         if (this.imageCache != null) {
-            this.imageCache.dispose();
+            this.imageCache.clear();
         }
-        this.imageCache = null;
+    }
+
+    @Override
+    public List<Event> getEvents()
+    {
+        return EVENTS;
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        if (this.imageCache != null) {
+            // The thumbnails of the previous version of the image are not needed anymore.
+            XWikiDocument document = (XWikiDocument) source;
+            String fileName = ((AbstractAttachmentEvent) event).getName();
+
+            this.imageCache.invalidate(serialize(new AttachmentReference(fileName, document.getDocumentReference())));
+        }
+    }
+
+    private String serialize(AttachmentReference reference)
+    {
+        EntityReferenceSerializer<String> serializer = Utils.getComponent(EntityReferenceSerializer.TYPE_STRING);
+
+        return serializer.serialize(reference);
     }
 
     /**
@@ -280,15 +333,17 @@ private XWikiAttachment downloadImage(XWikiAttachment image, int width, int heig
     private XWikiAttachment downloadImageFromCache(XWikiAttachment image, int width, int height,
         boolean keepAspectRatio, float quality, XWikiContext context) throws Exception
     {
-        String key = String.format("%s;%s;%s;%s;%s;%s;%s", image.getId(), image.getVersion(), image.getDate().getTime(),
-            width, height, keepAspectRatio, quality);
+        String key = String.format("%s;%s;%s;%s;%s;%s", image.getVersion(), image.getDate().getTime(), width, height,
+            keepAspectRatio, quality);
 
-        XWikiAttachment thumbnail = this.imageCache.get(key);
-        if (thumbnail == null) {
-            thumbnail = shrinkImage(image, width, height, keepAspectRatio, quality, context);
-            this.imageCache.set(key, thumbnail);
+        XWikiAttachment thumbnail = (XWikiAttachment) image.clone();
+        try (InputStream content = this.imageCache.get(serialize(image.getReference()), key,
+            output -> shrinkImage(image, width, height, keepAspectRatio, quality, output, context))) {
+            thumbnail.setContent(content);
         }
-        return thumbnail;
+
+        // An empty thumbnail means the image doesn't need to be transformed.
+        return thumbnail.getLongSize() > 0 ? thumbnail : image;
     }
 
     /**
@@ -310,6 +365,41 @@ private XWikiAttachment downloadImageFromCache(XWikiAttachment image, int width,
      */
     private XWikiAttachment shrinkImage(XWikiAttachment attachment, int requestedWidth, int requestedHeight,
         boolean keepAspectRatio, float requestedQuality, XWikiContext context) throws Exception
+    {
+        // Create an image attachment for the shrunk image.
+        XWikiAttachment thumbnail = (XWikiAttachment) attachment.clone();
+        thumbnail.loadAttachmentContent(context);
+
+        try (OutputStream acos = thumbnail.getAttachment_content().getContentOutputStream()) {
+            if (!shrinkImage(attachment, requestedWidth, requestedHeight, keepAspectRatio, requestedQuality, acos,
+                context)) {
+                return attachment;
+            }
+        }
+
+        return thumbnail;
+    }
+
+    /**
+     * Reduces the size (i.e. the number of bytes) of an image by scaling its width and height and by reducing its
+     * compression quality.
+     *
+     * @param attachment the image to be shrunk
+     * @param requestedWidth the desired image width; this value is taken into account only if it is greater than zero
+     *            and less than the current image width
+     * @param requestedHeight the desired image height; this value is taken into account only if it is greater than zero
+     *            and less than the current image height
+     * @param keepAspectRatio {@code true} to preserve the image aspect ratio even when both requested dimensions are
+     *            properly specified (in this case the image will be resized to best fit the rectangle with the
+     *            requested width and height), {@code false} otherwise
+     * @param requestedQuality the desired compression quality
+     * @param output where to write the shrunk image
+     * @param context the XWiki context
+     * @return {@code false} if the image doesn't need to be shrunk, in which case nothing is written
+     * @throws Exception if shrinking the image fails
+     */
+    private boolean shrinkImage(XWikiAttachment attachment, int requestedWidth, int requestedHeight,
+        boolean keepAspectRatio, float requestedQuality, OutputStream output, XWikiContext context) throws Exception
     {
         Image image = this.imageProcessor.readImage(attachment.getContentInputStream(context));
 
@@ -323,7 +413,7 @@ private XWikiAttachment shrinkImage(XWikiAttachment attachment, int requestedWid
         if (quality < 0) {
             // If no scaling is needed and the quality parameter is not specified, return the original image.
             if (dimensions[0] == currentWidth && dimensions[1] == currentHeight) {
-                return attachment;
+                return false;
             }
             quality = this.defaultQuality;
         }
@@ -331,19 +421,9 @@ private XWikiAttachment shrinkImage(XWikiAttachment attachment, int requestedWid
         // Scale the image to the new dimensions.
         RenderedImage shrunkImage = this.imageProcessor.scaleImage(image, dimensions[0], dimensions[1]);
 
-        // Create an image attachment for the shrunk image.
-        XWikiAttachment thumbnail = (XWikiAttachment) attachment.clone();
-        thumbnail.loadAttachmentContent(context);
-
-        OutputStream acos = thumbnail.getAttachment_content().getContentOutputStream();
-        this.imageProcessor.writeImage(shrunkImage,
-            attachment.getMimeType(context),
-            quality,
-            acos);
+        this.imageProcessor.writeImage(shrunkImage, attachment.getMimeType(context), quality, output);
 
-        IOUtils.closeQuietly(acos);
-
-        return thumbnail;
+        return true;
     }
 
     /**
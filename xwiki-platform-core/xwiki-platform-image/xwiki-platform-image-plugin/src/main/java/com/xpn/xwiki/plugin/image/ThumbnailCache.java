@@ -0,0 +1,289 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.plugin.image;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Two-tier cache for the resized images: the encoded thumbnails are stored on disk while a small in-memory index keeps
+ * track of them, in least recently used order, in order to enforce the cache limits. Concurrent requests for the same
+ * missing thumbnail wait for a single computation instead of all resizing the same image.
+ * <p>
+ * The thumbnails are grouped by source image so that they can all be invalidated when the source image changes.
+ *
+ * @version $Id$
+ * @since 12.8RC1
+ */
+public class ThumbnailCache
+{
+    /**
+     * Used to write the thumbnail when it's not cached.
+     */
+    @FunctionalInterface
+    public interface ThumbnailWriter
+    {
+        /**
+         * @param output where to write the encoded thumbnail, nothing should be written if the source image should be
+         *            used as is
+         * @throws Exception if creating the thumbnail fails
+         */
+        void write(OutputStream output) throws Exception;
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ThumbnailCache.class);
+
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    /**
+     * The name of the directory where the thumbnails are written before being moved to their source image directory.
+     * It cannot collide with a source image directory, whose name is a SHA-256 hash.
+     */
+    private static final String TEMPORARY_DIRECTORY_NAME = "tmp";
+
+    private static final char PATH_SEPARATOR = '/';
+
+    private final File directory;
+
+    private final File temporaryDirectory;
+
+    private final int capacity;
+
+    private final long maxSize;
+
+    /**
+     * The thumbnails stored on disk, indexed by their path relative to the cache directory, in access order.
+     */
+    private final Map<String, Long> index = new LinkedHashMap<>(16, 0.75F, true);
+
+    /**
+     * The thumbnails being computed, indexed by their path relative to the cache directory.
+     */
+    private final ConcurrentMap<String, CompletableFuture<Void>> inProgress = new ConcurrentHashMap<>();
+
+    /**
+     * The total size of the thumbnails stored on disk.
+     */
+    private long size;
+
+    /**
+     * @param directory the directory where to store the thumbnails
+     * @param capacity the maximum number of thumbnails to keep
+     * @param maxSize the maximum total size (in bytes) of the thumbnails to keep
+     */
+    public ThumbnailCache(File directory, int capacity, long maxSize)
+    {
+        this.directory = directory;
+        this.temporaryDirectory = new File(directory, TEMPORARY_DIRECTORY_NAME);
+        this.capacity = capacity;
+        this.maxSize = maxSize;
+
+        loadIndex();
+    }
+
+    /**
+     * Index the thumbnails stored by a previous instance.
+     */
+    private synchronized void loadIndex()
+    {
+        // Left over by interrupted computations.
+        FileUtils.deleteQuietly(this.temporaryDirectory);
+
+        File[] sourceDirectories = this.directory.listFiles(File::isDirectory);
+        if (sourceDirectories == null) {
+            return;
+        }
+
+        List<File> files = new ArrayList<>();
+        for (File sourceDirectory : sourceDirectories) {
+            File[] sourceFiles = sourceDirectory.listFiles(File::isFile);
+            if (sourceFiles != null) {
+                files.addAll(Arrays.asList(sourceFiles));
+            }
+        }
+
+        // Least recently modified first.
+        files.sort(Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            long length = file.length();
+            this.index.put(file.getParentFile().getName() + PATH_SEPARATOR + file.getName(), length);
+            this.size += length;
+        }
+
+        evict();
+    }
+
+    /**
+     * @param sourceReference the reference of the source image
+     * @param variant the identifier of the thumbnail, which includes the version of the source image and the
+     *            transformation applied to it
+     * @param writer used to write the thumbnail if it's not cached
+     * @return the content of the thumbnail, empty if the source image should be used as is
+     * @throws Exception if creating the thumbnail fails
+     */
+    public InputStream get(String sourceReference, String variant, ThumbnailWriter writer) throws Exception
+    {
+        String path = DigestUtils.sha256Hex(sourceReference) + PATH_SEPARATOR + DigestUtils.sha256Hex(variant);
+
+        while (true) {
+            InputStream content = open(path);
+            if (content != null) {
+                return content;
+            }
+
+            CompletableFuture<Void> computation = new CompletableFuture<>();
+            CompletableFuture<Void> existingComputation = this.inProgress.putIfAbsent(path, computation);
+            if (existingComputation == null) {
+                try {
+                    return create(path, writer);
+                } catch (Exception e) {
+                    computation.completeExceptionally(e);
+                    throw e;
+                } finally {
+                    // Release the threads waiting for this computation.
+                    computation.complete(null);
+                    this.inProgress.remove(path, computation);
+                }
+            }
+
+            // Wait for the thumbnail to be computed by another thread, and then try again to read it.
+            try {
+                existingComputation.get();
+            } catch (ExecutionException e) {
+                throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+            }
+        }
+    }
+
+    /**
+     * Remove all the thumbnails of the given source image, whatever its version.
+     *
+     * @param sourceReference the reference of the source image
+     */
+    public synchronized void invalidate(String sourceReference)
+    {
+        String prefix = DigestUtils.sha256Hex(sourceReference);
+        String pathPrefix = prefix + PATH_SEPARATOR;
+
+        for (Iterator<Map.Entry<String, Long>> it = this.index.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, Long> entry = it.next();
+            if (entry.getKey().startsWith(pathPrefix)) {
+                this.size -= entry.getValue();
+                it.remove();
+            }
+        }
+
+        FileUtils.deleteQuietly(new File(this.directory, prefix));
+    }
+
+    /**
+     * Remove all the thumbnails.
+     */
+    public synchronized void clear()
+    {
+        this.index.clear();
+        this.size = 0;
+
+        // Keep the thumbnails being written, they are not indexed yet.
+        File[] sourceDirectories =
+            this.directory.listFiles(file -> !file.getName().equals(TEMPORARY_DIRECTORY_NAME));
+        if (sourceDirectories == null) {
+            LOGGER.warn("Failed to clean the image cache directory [{}]", this.directory);
+        } else {
+            for (File sourceDirectory : sourceDirectories) {
+                FileUtils.deleteQuietly(sourceDirectory);
+            }
+        }
+    }
+
+    private synchronized InputStream open(String path) throws IOException
+    {
+        // Open the file while holding the lock so that it cannot be evicted in between.
+        return this.index.get(path) != null ? new FileInputStream(new File(this.directory, path)) : null;
+    }
+
+    private InputStream create(String path, ThumbnailWriter writer) throws Exception
+    {
+        File file = new File(this.directory, path);
+
+        // Write in a temporary file first so that a partially written thumbnail is never visible. The temporary file
+        // is not located in the source image directory since that directory can be deleted at any time by
+        // #invalidate(String).
+        this.temporaryDirectory.mkdirs();
+        File temporaryFile = File.createTempFile(file.getName(), TEMPORARY_FILE_SUFFIX, this.temporaryDirectory);
+        try {
+            try (OutputStream output = Files.newOutputStream(temporaryFile.toPath())) {
+                // An empty file indicates that the source image should be used as is.
+                writer.write(output);
+            }
+
+            synchronized (this) {
+                // Holding the lock prevents the source image directory from being deleted before the move.
+                file.getParentFile().mkdirs();
+                Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+
+                long length = file.length();
+                Long previousLength = this.index.put(path, length);
+                this.size += length - (previousLength != null ? previousLength : 0);
+
+                evict();
+
+                return open(path);
+            }
+        } finally {
+            FileUtils.deleteQuietly(temporaryFile);
+        }
+    }
+
+    private synchronized void evict()
+    {
+        Iterator<Map.Entry<String, Long>> it = this.index.entrySet().iterator();
+        // Always keep the most recently used thumbnail.
+        while (this.index.size() > 1 && (this.index.size() > this.capacity || this.size > this.maxSize)) {
+            Map.Entry<String, Long> entry = it.next();
+            this.size -= entry.getValue();
+            it.remove();
+
+            FileUtils.deleteQuietly(new File(this.directory, entry.getKey()));
+        }
+    }
+}
@@ -27,22 +27,30 @@
 import java.util.Date;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatchers;
-import org.xwiki.cache.Cache;
-import org.xwiki.cache.CacheManager;
+import org.xwiki.model.reference.AttachmentReference;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.observation.ObservationManager;
 
 import com.xpn.xwiki.XWiki;
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.doc.XWikiAttachment;
-import com.xpn.xwiki.doc.XWikiAttachmentContent;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.event.AttachmentUpdatedEvent;
 import com.xpn.xwiki.test.MockitoOldcore;
 import com.xpn.xwiki.test.junit5.mockito.InjectMockitoOldcore;
 import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
 import com.xpn.xwiki.web.XWikiServletRequest;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -109,7 +117,8 @@ public void configure() throws Exception
         doReturn("test").when(xwiki).Param(ArgumentMatchers.eq("xwiki.plugin.image.processorHint"),
             ArgumentMatchers.anyString());
 
-        this.oldCore.getMocker().registerMockComponent(CacheManager.class);
+        this.oldCore.registerMockEnvironment();
+        this.oldCore.getMocker().registerMockComponent(ObservationManager.class);
 
         this.imageProcessor = this.oldCore.getMocker().registerMockComponent(ImageProcessor.class, "test");
         when(this.imageProcessor.isMimeTypeSupported("image/png")).thenReturn(true);
@@ -129,26 +138,27 @@ public void testDownloadAttachmentWithUnsupportedFileType()
     @Test
     public void testCacheOfScaledAttachment() throws Exception
     {
-        Date date = new Date(0);
+        byte[] scaledContent = new byte[] { 1, 2, 3 };
 
         XWikiContext xcontext = this.oldCore.getXWikiContext();
 
+        DocumentReference documentReference = new DocumentReference("wiki", "Space", "Page");
+        AttachmentReference attachmentReference = new AttachmentReference("image.png", documentReference);
+        EntityReferenceSerializer<String> serializer =
+            this.oldCore.getMocker().registerMockComponent(EntityReferenceSerializer.TYPE_STRING);
+        when(serializer.serialize(attachmentReference)).thenReturn("wiki:Space.Page@image.png");
+
         XWikiAttachment attachment = mock(XWikiAttachment.class);
         when(attachment.getMimeType(xcontext)).thenReturn("image/png");
+        when(attachment.getReference()).thenReturn(attachmentReference);
         InputStream attachmentInputStream = new ByteArrayInputStream(IMAGE_CONTENT);
         when(attachment.getContentInputStream(xcontext)).thenReturn(attachmentInputStream);
-        when(attachment.clone()).thenReturn(attachment);
-        when(attachment.getDate()).thenReturn(date);
-
-        XWikiAttachmentContent attachmentContent = mock(XWikiAttachmentContent.class);
-        when(attachment.getAttachment_content()).thenReturn(attachmentContent);
-        when(attachmentContent.getContentInputStream()).thenReturn(attachmentInputStream);
-        OutputStream attachmentOutputStream = mock(OutputStream.class);
-        when(attachmentContent.getContentOutputStream()).thenReturn(attachmentOutputStream);
-
-        CacheManager cacheManager = this.oldCore.getMocker().getInstance(CacheManager.class);
-        Cache<Object> imageCache = mock(Cache.class);
-        when(cacheManager.createNewLocalCache(ArgumentMatchers.any())).thenReturn(imageCache);
+        when(attachment.clone()).thenAnswer(invocation -> {
+            XWikiAttachment thumbnail = new XWikiAttachment();
+            thumbnail.setFilename("image.png");
+            return thumbnail;
+        });
+        when(attachment.getDate()).thenReturn(new Date(0));
 
         XWikiServletRequest request = mock(XWikiServletRequest.class);
         when(request.getParameter("width")).thenReturn("30");
@@ -161,16 +171,31 @@ public void testCacheOfScaledAttachment() throws Exception
         when(imageProcessor.readImage(attachmentInputStream)).thenReturn(image);
         RenderedImage renderedImage = mock(RenderedImage.class);
         when(imageProcessor.scaleImage(image, 30, 30)).thenReturn(renderedImage);
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(3).write(scaledContent);
+            return null;
+        }).when(imageProcessor).writeImage(ArgumentMatchers.eq(renderedImage), ArgumentMatchers.eq("image/png"),
+            ArgumentMatchers.eq(.5F), any());
 
         XWikiAttachment scaled = plugin.downloadAttachment(attachment, xcontext);
-
-        String cacheKey = "0;null;0;30;30;false;-1.0";
-        when(imageCache.get(cacheKey)).thenReturn(scaled);
+        assertNotSame(attachment, scaled);
+        assertArrayEquals(scaledContent, IOUtils.toByteArray(scaled.getContentInputStream(xcontext)));
 
         // Load again, this time from cache.
-        assertSame(scaled, plugin.downloadAttachment(attachment, xcontext));
+        scaled = plugin.downloadAttachment(attachment, xcontext);
+        assertArrayEquals(scaledContent, IOUtils.toByteArray(scaled.getContentInputStream(xcontext)));
+
+        verify(imageProcessor, times(1)).writeImage(ArgumentMatchers.eq(renderedImage),
+            ArgumentMatchers.eq("image/png"), ArgumentMatchers.eq(.5F), any());
+
+        // Update the image, which invalidates its thumbnails.
+        XWikiDocument document = new XWikiDocument(documentReference);
+        plugin.onEvent(new AttachmentUpdatedEvent("wiki:Space.Page", "image.png"), document, xcontext);
+
+        scaled = plugin.downloadAttachment(attachment, xcontext);
+        assertArrayEquals(scaledContent, IOUtils.toByteArray(scaled.getContentInputStream(xcontext)));
 
-        verify(imageProcessor, times(1)).writeImage(renderedImage, "image/png", .5F, attachmentOutputStream);
-        verify(imageCache, times(1)).set(cacheKey, attachment);
+        verify(imageProcessor, times(2)).writeImage(ArgumentMatchers.eq(renderedImage),
+            ArgumentMatchers.eq("image/png"), ArgumentMatchers.eq(.5F), any());
     }
 }
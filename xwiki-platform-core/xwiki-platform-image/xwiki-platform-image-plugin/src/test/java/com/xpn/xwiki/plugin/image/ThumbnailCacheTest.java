@@ -0,0 +1,113 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.plugin.image;
+
+import java.io.File;
+import java.io.InputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.XWikiTempDirExtension;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Validate {@link ThumbnailCache}.
+ *
+ * @version $Id$
+ */
+@ExtendWith(XWikiTempDirExtension.class)
+public class ThumbnailCacheTest
+{
+    private static final String SOURCE = "wiki:Space.Page@image.png";
+
+    private static final byte[] CONTENT = new byte[] { 1, 2, 3 };
+
+    @XWikiTempDir
+    private File directory;
+
+    private ThumbnailCache cache;
+
+    @BeforeEach
+    public void beforeEach()
+    {
+        this.cache = new ThumbnailCache(this.directory, 10, 1024);
+    }
+
+    private byte[] get(String variant, ThumbnailCache.ThumbnailWriter writer) throws Exception
+    {
+        try (InputStream content = this.cache.get(SOURCE, variant, writer)) {
+            return IOUtils.toByteArray(content);
+        }
+    }
+
+    @Test
+    public void get() throws Exception
+    {
+        assertArrayEquals(CONTENT, get("1.1-30x30", output -> output.write(CONTENT)));
+        assertArrayEquals(CONTENT, get("1.1-30x30", output -> fail("The thumbnail should be cached")));
+    }
+
+    @Test
+    public void getWhenInvalidatedWhileWriting() throws Exception
+    {
+        // Cache a first thumbnail so that the source image directory exists.
+        get("1.1-30x30", output -> output.write(CONTENT));
+
+        // The source image directory is deleted while the new thumbnail is being written.
+        assertArrayEquals(CONTENT, get("1.2-30x30", output -> {
+            output.write(CONTENT);
+            this.cache.invalidate(SOURCE);
+        }));
+
+        assertArrayEquals(CONTENT, get("1.2-30x30", output -> fail("The thumbnail should be cached")));
+    }
+
+    @Test
+    public void clearKeepsThumbnailsBeingWritten() throws Exception
+    {
+        assertArrayEquals(CONTENT, get("1.1-30x30", output -> {
+            output.write(CONTENT);
+            this.cache.clear();
+        }));
+
+        // The temporary directory is the only directory left besides the one of the new thumbnail.
+        assertEquals(2, this.directory.listFiles().length);
+    }
+
+    @Test
+    public void loadIndexRemovesTemporaryFiles() throws Exception
+    {
+        get("1.1-30x30", output -> output.write(CONTENT));
+        File temporaryFile = new File(new File(this.directory, "tmp"), "leftover.tmp");
+        temporaryFile.createNewFile();
+
+        this.cache = new ThumbnailCache(this.directory, 10, 1024);
+
+        assertFalse(temporaryFile.exists());
+        assertArrayEquals(CONTENT, get("1.1-30x30", output -> fail("The thumbnail should be cached")));
+    }
+}
@@ -56,4 +56,23 @@ public boolean isGenerateInlineSourceMaps()
     {
         return configurationSource.getProperty(CONFIGURATION_PREFIX + "generateInlineSourceMaps", false);
     }
+
+    /**
+     * @return whether the compiled skin files should be stored in the permanent directory so that they don't need to
+     *         be compiled again after a restart
+     * @since 12.8RC1
+     */
+    public boolean isPersistentCacheEnabled()
+    {
+        return configurationSource.getProperty(CONFIGURATION_PREFIX + "persistentCache", true);
+    }
+
+    /**
+     * @return whether the main skin style of each wiki should be compiled in the background when XWiki starts
+     * @since 12.8RC1
+     */
+    public boolean isPrewarmEnabled()
+    {
+        return configurationSource.getProperty(CONFIGURATION_PREFIX + "prewarm", false);
+    }
 }
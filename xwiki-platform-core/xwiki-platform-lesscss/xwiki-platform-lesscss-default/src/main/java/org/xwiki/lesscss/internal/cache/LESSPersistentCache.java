@@ -0,0 +1,222 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.lesscss.internal.cache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.environment.Environment;
+import org.xwiki.lesscss.internal.compiler.less4j.TemplateLESSSource;
+import org.xwiki.lesscss.resources.LESSResourceReference;
+import org.xwiki.skin.Skin;
+import org.xwiki.skin.SkinManager;
+import org.xwiki.template.TemplateManager;
+
+import com.github.sommeri.less4j.LessCompiler;
+import com.github.sommeri.less4j.LessSource;
+
+/**
+ * Store the result of the LESS compilations in the permanent directory so that they survive a restart.
+ * <p>
+ * There is one file per resource, skin and color theme, holding the compiled CSS along with a hash of the LESS code
+ * which was compiled and a hash of each template it imported. A stored CSS is reused only if none of these sources
+ * changed, so the cache never needs to be invalidated explicitly.
+ *
+ * @version $Id$
+ * @since 12.8RC1
+ */
+@Component(roles = LESSPersistentCache.class)
+@Singleton
+public class LESSPersistentCache
+{
+    private static final String DIRECTORY = "cache/lesscss";
+
+    private static final String FILE_EXTENSION = ".properties";
+
+    private static final String SOURCE_PROPERTY = "source";
+
+    private static final String CSS_PROPERTY = "css";
+
+    private static final String IMPORT_PREFIX = "import.";
+
+    private static final char SEPARATOR = '\0';
+
+    /**
+     * The output of the compiler might change when it's upgraded.
+     */
+    private static final String COMPILER_VERSION = String.valueOf(LessCompiler.class.getPackage()
+        .getImplementationVersion());
+
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private TemplateManager templateManager;
+
+    @Inject
+    private SkinManager skinManager;
+
+    @Inject
+    private Logger logger;
+
+    /**
+     * @param lessResourceReference the compiled resource
+     * @param skin the skin used to compile the resource
+     * @param colorTheme the color theme used to compile the resource
+     * @param lessCode the LESS code to compile (after the Velocity execution)
+     * @param inlineSourceMap whether the CSS contains an inline source map
+     * @return the stored CSS or {@code null} if none was stored or if one of its sources changed since then
+     */
+    public String get(LESSResourceReference lessResourceReference, String skin, String colorTheme, String lessCode,
+        boolean inlineSourceMap)
+    {
+        Properties properties = new Properties();
+        try {
+            File file = getFile(lessResourceReference, skin, colorTheme);
+            if (!file.exists()) {
+                return null;
+            }
+
+            try (InputStream stream = new FileInputStream(file)) {
+                properties.load(stream);
+            }
+        } catch (IOException e) {
+            this.logger.warn("Failed to load the stored compilation of the resource [{}]: {}", lessResourceReference,
+                ExceptionUtils.getRootCauseMessage(e));
+
+            return null;
+        }
+
+        if (!getSourceHash(lessCode, inlineSourceMap).equals(properties.getProperty(SOURCE_PROPERTY))
+            || !isImportsUpToDate(properties, skin)) {
+            return null;
+        }
+
+        return properties.getProperty(CSS_PROPERTY);
+    }
+
+    /**
+     * @param lessResourceReference the compiled resource
+     * @param skin the skin used to compile the resource
+     * @param colorTheme the color theme used to compile the resource
+     * @param lessCode the compiled LESS code (after the Velocity execution)
+     * @param inlineSourceMap whether the CSS contains an inline source map
+     * @param css the result of the compilation
+     * @param imports the content of the templates imported during the compilation, indexed by template name
+     */
+    public void set(LESSResourceReference lessResourceReference, String skin, String colorTheme, String lessCode,
+        boolean inlineSourceMap, String css, Map<String, String> imports)
+    {
+        Properties properties = new Properties();
+        properties.setProperty(SOURCE_PROPERTY, getSourceHash(lessCode, inlineSourceMap));
+        for (Map.Entry<String, String> entry : imports.entrySet()) {
+            properties.setProperty(IMPORT_PREFIX + entry.getKey(), DigestUtils.sha256Hex(entry.getValue()));
+        }
+        properties.setProperty(CSS_PROPERTY, css);
+
+        File temporaryFile = null;
+        try {
+            File file = getFile(lessResourceReference, skin, colorTheme);
+            file.getParentFile().mkdirs();
+
+            // Write the whole file before making it visible so that other cluster members or a crash never leave a
+            // truncated CSS behind
+            temporaryFile = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+            try (OutputStream stream = new FileOutputStream(temporaryFile)) {
+                properties.store(stream, null);
+            }
+            Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            this.logger.warn("Failed to store the compilation of the resource [{}]: {}", lessResourceReference,
+                ExceptionUtils.getRootCauseMessage(e));
+
+            if (temporaryFile != null) {
+                temporaryFile.delete();
+            }
+        }
+    }
+
+    private boolean isImportsUpToDate(Properties properties, String skin)
+    {
+        Skin skinObject = this.skinManager.getSkin(skin);
+        if (skinObject == null) {
+            return false;
+        }
+
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith(IMPORT_PREFIX)) {
+                String templateName = key.substring(IMPORT_PREFIX.length());
+
+                String content;
+                try {
+                    content =
+                        new TemplateLESSSource(this.templateManager, skinObject, templateName).getContent();
+                } catch (LessSource.FileNotFound | LessSource.CannotReadFile e) {
+                    return false;
+                }
+
+                if (!DigestUtils.sha256Hex(content).equals(properties.getProperty(key))) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private String getSourceHash(String lessCode, boolean inlineSourceMap)
+    {
+        return DigestUtils.sha256Hex(COMPILER_VERSION + SEPARATOR + inlineSourceMap + SEPARATOR + lessCode);
+    }
+
+    private File getFile(LESSResourceReference lessResourceReference, String skin, String colorTheme)
+        throws UnsupportedEncodingException
+    {
+        File directory = new File(this.environment.getPermanentDirectory(), DIRECTORY);
+        directory = new File(directory, encode(skin));
+        directory = new File(directory, encode(colorTheme));
+
+        return new File(directory, encode(lessResourceReference.serialize()) + FILE_EXTENSION);
+    }
+
+    private String encode(String name) throws UnsupportedEncodingException
+    {
+        return URLEncoder.encode(name, StandardCharsets.UTF_8.name());
+    }
+}
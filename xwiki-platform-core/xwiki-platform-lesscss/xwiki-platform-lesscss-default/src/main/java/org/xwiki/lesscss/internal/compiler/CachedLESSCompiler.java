@@ -20,6 +20,8 @@
 package org.xwiki.lesscss.internal.compiler;
 
 import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.Semaphore;
 
 import javax.inject.Inject;
@@ -31,7 +33,10 @@
 import org.xwiki.component.phase.InitializationException;
 import org.xwiki.lesscss.compiler.LESSCompilerException;
 import org.xwiki.lesscss.internal.LESSConfiguration;
+import org.xwiki.lesscss.internal.LESSContext;
 import org.xwiki.lesscss.internal.cache.CachedCompilerInterface;
+import org.xwiki.lesscss.internal.cache.LESSPersistentCache;
+import org.xwiki.lesscss.internal.colortheme.CurrentColorThemeGetter;
 import org.xwiki.lesscss.internal.compiler.less4j.Less4jCompiler;
 import org.xwiki.lesscss.internal.resources.LESSSkinFileResourceReference;
 import org.xwiki.lesscss.resources.LESSResourceReference;
@@ -67,6 +72,15 @@ public class CachedLESSCompiler implements CachedCompilerInterface<String>, Init
     @Inject
     private LESSConfiguration lessConfiguration;
 
+    @Inject
+    private LESSPersistentCache persistentCache;
+
+    @Inject
+    private LESSContext lessContext;
+
+    @Inject
+    private CurrentColorThemeGetter currentColorThemeGetter;
+
     private Semaphore semaphore;
 
     @Override
@@ -105,7 +119,12 @@ public String compute(LESSResourceReference lessResourceReference, boolean inclu
 
             // Compile the LESS code
             if (useLESS) {
-                return less4JCompiler.compile(lessCode, skin, lessConfiguration.isGenerateInlineSourceMaps());
+                boolean inlineSourceMap = lessConfiguration.isGenerateInlineSourceMaps();
+                if (isPersistentCacheUsed(lessResourceReference)) {
+                    return compileWithPersistentCache(lessResourceReference, lessCode, skin, inlineSourceMap);
+                }
+
+                return less4JCompiler.compile(lessCode, skin, inlineSourceMap);
             }
 
             // Otherwise return the raw LESS code
@@ -118,6 +137,30 @@ public String compute(LESSResourceReference lessResourceReference, boolean inclu
         }
     }
 
+    private boolean isPersistentCacheUsed(LESSResourceReference lessResourceReference)
+    {
+        // Only the skin files are stored since their number is limited. The HTML export produces a different CSS (see
+        // ExportURLFactory) which should not replace the stored one.
+        return lessResourceReference instanceof LESSSkinFileResourceReference
+            && lessConfiguration.isPersistentCacheEnabled() && !lessContext.isCacheDisabled()
+            && !lessContext.isHtmlExport();
+    }
+
+    private String compileWithPersistentCache(LESSResourceReference lessResourceReference, String lessCode,
+        String skin, boolean inlineSourceMap) throws Less4jException
+    {
+        String colorTheme = currentColorThemeGetter.getCurrentColorTheme(true, "default");
+
+        String css = persistentCache.get(lessResourceReference, skin, colorTheme, lessCode, inlineSourceMap);
+        if (css == null) {
+            Map<String, String> imports = new HashMap<>();
+            css = less4JCompiler.compile(lessCode, skin, inlineSourceMap, imports);
+            persistentCache.set(lessResourceReference, skin, colorTheme, lessCode, inlineSourceMap, css, imports);
+        }
+
+        return css;
+    }
+
     private String executeVelocity(String source, String skin)
     {
         // Get the XWiki object
@@ -19,6 +19,8 @@
  */
 package org.xwiki.lesscss.internal.compiler.less4j;
 
+import java.util.Map;
+
 import org.xwiki.skin.Resource;
 import org.xwiki.skin.Skin;
 import org.xwiki.template.TemplateManager;
@@ -37,6 +39,12 @@ public abstract class AbstractLESSSource extends LessSource
 
     protected Skin skin;
     
+    /**
+     * The content of the templates imported during the compilation, indexed by template name (or null when they don't
+     * need to be remembered).
+     */
+    protected Map<String, String> imports;
+
     private String folder;
 
     /**
@@ -46,10 +54,23 @@ public abstract class AbstractLESSSource extends LessSource
      * @param folder the folder in which the template is located
      */
     public AbstractLESSSource(TemplateManager templateManager, Skin skin, String folder)
+    {
+        this(templateManager, skin, folder, null);
+    }
+
+    /**
+     * @param templateManager the template manager component
+     * @param skin the skin holding the templates
+     * @param folder the folder in which the template is located
+     * @param imports the map where to remember the content of the imported templates, can be null
+     * @since 12.8RC1
+     */
+    public AbstractLESSSource(TemplateManager templateManager, Skin skin, String folder, Map<String, String> imports)
     {
         this.templateManager = templateManager;
         this.skin = skin;
         this.folder = folder;
+        this.imports = imports;
     }
     
     @Override
@@ -58,7 +79,7 @@ public LessSource relativeSource(String filename) throws FileNotFound
         String template = folder + "/" + filename;
         Resource resource = skin.getResource(template);
         if (resource != null) {
-            return new TemplateLESSSource(templateManager, skin, template);
+            return new TemplateLESSSource(templateManager, skin, template, this.imports);
         }
 
         // The file has not been found
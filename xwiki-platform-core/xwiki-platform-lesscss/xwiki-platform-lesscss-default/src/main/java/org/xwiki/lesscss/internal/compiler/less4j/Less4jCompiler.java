@@ -19,6 +19,8 @@
  */
 package org.xwiki.lesscss.internal.compiler.less4j;
 
+import java.util.Map;
+
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
@@ -56,6 +58,22 @@
      * @throws Less4jException if problems occur
      */
     public String compile(String lessCode, String skin, boolean inlineSourceMap) throws Less4jException
+    {
+        return compile(lessCode, skin, inlineSourceMap, null);
+    }
+
+    /**
+     * Compile the LESS code and get the included files from the skin templates.
+     * @param lessCode code to compile
+     * @param skin skin holding the templates
+     * @param inlineSourceMap whether to create inline sourcemaps in the generated css
+     * @param imports the map where to put the content of the templates imported by the LESS code, can be null
+     * @return the results of the LESS compilation
+     * @throws Less4jException if problems occur
+     * @since 12.8RC1
+     */
+    public String compile(String lessCode, String skin, boolean inlineSourceMap, Map<String, String> imports)
+        throws Less4jException
     {
         LessCompiler lessCompiler = new DefaultLessCompiler();
         LessCompiler.Configuration options = new LessCompiler.Configuration();
@@ -63,7 +81,7 @@ public String compile(String lessCode, String skin, boolean inlineSourceMap) thr
         options.getSourceMapConfiguration().setInline(inlineSourceMap);
         options.getSourceMapConfiguration().setIncludeSourcesContent(true);
         LessSource lessSource = 
-            new CustomContentLESSSource(lessCode, templateManager, skinManager.getSkin(skin));
+            new CustomContentLESSSource(lessCode, templateManager, skinManager.getSkin(skin), imports);
         LessCompiler.CompilationResult lessResult = lessCompiler.compile(lessSource, options);
         return lessResult.getCss();
     }
@@ -0,0 +1,153 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.lesscss.internal.listeners;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.bridge.event.ApplicationReadyEvent;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.lesscss.compiler.LESSCompiler;
+import org.xwiki.lesscss.internal.LESSConfiguration;
+import org.xwiki.lesscss.internal.compiler.CachedLESSCompiler;
+import org.xwiki.lesscss.resources.LESSResourceReference;
+import org.xwiki.lesscss.resources.LESSResourceReferenceFactory;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.event.Event;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+import org.xwiki.wiki.manager.WikiManagerException;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.util.AbstractXWikiRunnable;
+
+/**
+ * Compile the main style of the skin and color theme of each wiki in the background when XWiki is ready so that the
+ * first visitors don't have to wait for it (the compilation of a skin can take several seconds).
+ *
+ * @version $Id$
+ * @since 12.8RC1
+ */
+@Component
+@Named(LESSPrewarmListener.NAME)
+@Singleton
+public class LESSPrewarmListener implements EventListener
+{
+    /**
+     * The name of the listener.
+     */
+    public static final String NAME = "lessprewarm";
+
+    @Inject
+    private LESSConfiguration lessConfiguration;
+
+    @Inject
+    private Provider<LESSCompiler> lessCompilerProvider;
+
+    @Inject
+    private LESSResourceReferenceFactory lessResourceReferenceFactory;
+
+    @Inject
+    private WikiDescriptorManager wikiDescriptorManager;
+
+    @Inject
+    @Named("current")
+    private DocumentReferenceResolver<String> currentDocumentReferenceResolver;
+
+    @Inject
+    private Provider<XWikiContext> xcontextProvider;
+
+    @Inject
+    private Logger logger;
+
+    @Override
+    public String getName()
+    {
+        return NAME;
+    }
+
+    @Override
+    public List<Event> getEvents()
+    {
+        return Arrays.<Event>asList(new ApplicationReadyEvent());
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        if (this.lessConfiguration.isPrewarmEnabled()) {
+            Thread thread = new Thread(new AbstractXWikiRunnable()
+            {
+                @Override
+                protected void runInternal()
+                {
+                    prewarm();
+                }
+            }, "LESS prewarm");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            thread.start();
+        }
+    }
+
+    /**
+     * Compile the main style of each wiki.
+     */
+    void prewarm()
+    {
+        Collection<String> wikis;
+        try {
+            wikis = this.wikiDescriptorManager.getAllIds();
+        } catch (WikiManagerException e) {
+            this.logger.warn("Failed to get the wikis for which to compile the skin style: {}",
+                ExceptionUtils.getRootCauseMessage(e));
+
+            return;
+        }
+
+        LESSResourceReference mainStyle =
+            this.lessResourceReferenceFactory.createReferenceForSkinFile(CachedLESSCompiler.MAIN_SKIN_STYLE_FILENAME);
+
+        XWikiContext xcontext = this.xcontextProvider.get();
+        XWiki xwiki = xcontext.getWiki();
+        for (String wiki : wikis) {
+            try {
+                xcontext.setWikiId(wiki);
+                // The Velocity code of the skin style is executed in the context of the home page of the wiki
+                xcontext.setDoc(xwiki.getDocument(this.currentDocumentReferenceResolver.resolve(""), xcontext));
+
+                // The skin and color theme are resolved from the preferences of the wiki
+                this.lessCompilerProvider.get().compile(mainStyle, false, true, xwiki.getSkin(xcontext), false);
+            } catch (Exception e) {
+                this.logger.warn("Failed to compile the skin style of wiki [{}]: {}", wiki,
+                    ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+    }
+}
@@ -55,4 +55,20 @@ public void generateSourceMaps() throws Exception
         lessConfiguration.isGenerateInlineSourceMaps();
         verify(configurationSource).getProperty("lesscss.generateInlineSourceMaps", false);
     }
+
+    @Test
+    public void persistentCache() throws Exception
+    {
+        when(configurationSource.getProperty("lesscss.persistentCache", true)).thenReturn(true);
+        lessConfiguration.isPersistentCacheEnabled();
+        verify(configurationSource).getProperty("lesscss.persistentCache", true);
+    }
+
+    @Test
+    public void prewarm() throws Exception
+    {
+        when(configurationSource.getProperty("lesscss.prewarm", false)).thenReturn(false);
+        lessConfiguration.isPrewarmEnabled();
+        verify(configurationSource).getProperty("lesscss.prewarm", false);
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.lesscss.internal.cache;
+
+import java.io.File;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.environment.Environment;
+import org.xwiki.lesscss.resources.LESSResourceReference;
+import org.xwiki.skin.Skin;
+import org.xwiki.skin.SkinManager;
+import org.xwiki.template.Template;
+import org.xwiki.template.TemplateContent;
+import org.xwiki.template.TemplateManager;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link LESSPersistentCache}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class LESSPersistentCacheTest
+{
+    @InjectMockComponents
+    private LESSPersistentCache cache;
+
+    @MockComponent
+    private Environment environment;
+
+    @MockComponent
+    private TemplateManager templateManager;
+
+    @MockComponent
+    private SkinManager skinManager;
+
+    @XWikiTempDir
+    private File permanentDirectory;
+
+    private LESSResourceReference resource = mock(LESSResourceReference.class);
+
+    private Skin skin = mock(Skin.class);
+
+    private TemplateContent variablesContent = mock(TemplateContent.class);
+
+    @BeforeEach
+    public void beforeEach() throws Exception
+    {
+        when(this.environment.getPermanentDirectory()).thenReturn(this.permanentDirectory);
+        when(this.resource.serialize()).thenReturn("LessSkinFile[style.less.vm]");
+        when(this.skinManager.getSkin("flamingo")).thenReturn(this.skin);
+
+        Template template = mock(Template.class);
+        when(template.getContent()).thenReturn(this.variablesContent);
+        when(this.templateManager.getTemplate("less/variables.less", this.skin)).thenReturn(template);
+        when(this.variablesContent.getContent()).thenReturn("@color: red;");
+
+        this.cache.set(this.resource, "flamingo", "xwiki:FlamingoThemes.Charcoal", "@import \"variables.less\";",
+            false, "css", Collections.singletonMap("less/variables.less", "@color: red;"));
+    }
+
+    @Test
+    public void get()
+    {
+        assertEquals("css",
+            this.cache.get(this.resource, "flamingo", "xwiki:FlamingoThemes.Charcoal", "@import \"variables.less\";",
+                false));
+    }
+
+    @Test
+    public void getWithOtherSources()
+    {
+        assertNull(this.cache.get(this.resource, "flamingo", "xwiki:FlamingoThemes.Charcoal", "@import \"other\";",
+            false));
+        assertNull(this.cache.get(this.resource, "flamingo", "xwiki:FlamingoThemes.Charcoal",
+            "@import \"variables.less\";", true));
+        assertNull(this.cache.get(this.resource, "flamingo", "xwiki:FlamingoThemes.Kitty",
+            "@import \"variables.less\";", false));
+        assertNull(this.cache.get(this.resource, "other", "xwiki:FlamingoThemes.Charcoal",
+            "@import \"variables.less\";", false));
+    }
+
+    @Test
+    public void getWithModifiedImport()
+    {
+        when(this.variablesContent.getContent()).thenReturn("@color: blue;");
+
+        assertNull(this.cache.get(this.resource, "flamingo", "xwiki:FlamingoThemes.Charcoal",
+            "@import \"variables.less\";", false));
+    }
+}
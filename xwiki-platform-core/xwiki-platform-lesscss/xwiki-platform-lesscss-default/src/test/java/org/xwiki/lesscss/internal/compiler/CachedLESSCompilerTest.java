@@ -19,6 +19,8 @@
  */
 package org.xwiki.lesscss.internal.compiler;
 
+import java.util.Collections;
+
 import javax.inject.Provider;
 
 import org.junit.Before;
@@ -26,6 +28,8 @@
 import org.junit.Test;
 import org.xwiki.lesscss.compiler.LESSCompilerException;
 import org.xwiki.lesscss.internal.LESSConfiguration;
+import org.xwiki.lesscss.internal.cache.LESSPersistentCache;
+import org.xwiki.lesscss.internal.colortheme.CurrentColorThemeGetter;
 import org.xwiki.lesscss.internal.compiler.less4j.Less4jCompiler;
 import org.xwiki.lesscss.internal.resources.LESSSkinFileResourceReference;
 import org.xwiki.lesscss.resources.LESSResourceReference;
@@ -40,6 +44,8 @@
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -194,4 +200,29 @@ public void computeSkinFileWhenException() throws Exception
             caughtException.getMessage());
 
     }
+
+    @Test
+    public void computeSkinFileWithPersistentCache() throws Exception
+    {
+        // Mocks
+        LESSResourceReference resource = mock(LESSSkinFileResourceReference.class);
+        when(resource.getContent(eq("skin"))).thenReturn("Some LESS content");
+        when(lessConfiguration.isPersistentCacheEnabled()).thenReturn(true);
+        CurrentColorThemeGetter colorThemeGetter = mocker.getInstance(CurrentColorThemeGetter.class);
+        when(colorThemeGetter.getCurrentColorTheme(true, "default")).thenReturn("colorTheme");
+        LESSPersistentCache persistentCache = mocker.getInstance(LESSPersistentCache.class);
+        when(less4jCompiler.compile(eq("Some LESS content"), eq("skin"), eq(false), anyMap())).thenReturn("output");
+
+        // Tests
+        assertEquals("output", mocker.getComponentUnderTest().compute(resource, false, false, true, "skin"));
+
+        // Verify
+        verify(persistentCache).set(resource, "skin", "colorTheme", "Some LESS content", false, "output",
+            Collections.emptyMap());
+
+        // Already stored
+        when(persistentCache.get(resource, "skin", "colorTheme", "Some LESS content", false)).thenReturn("stored");
+        assertEquals("stored", mocker.getComponentUnderTest().compute(resource, false, false, true, "skin"));
+        verify(less4jCompiler, times(1)).compile(any(), any(), anyBoolean(), anyMap());
+    }
 }
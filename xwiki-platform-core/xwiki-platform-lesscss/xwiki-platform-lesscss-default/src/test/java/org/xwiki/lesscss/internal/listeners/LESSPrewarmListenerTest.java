@@ -0,0 +1,126 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.lesscss.internal.listeners;
+
+import java.util.Arrays;
+
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.bridge.event.ApplicationReadyEvent;
+import org.xwiki.lesscss.compiler.LESSCompiler;
+import org.xwiki.lesscss.compiler.LESSCompilerException;
+import org.xwiki.lesscss.internal.LESSConfiguration;
+import org.xwiki.lesscss.resources.LESSResourceReference;
+import org.xwiki.lesscss.resources.LESSResourceReferenceFactory;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.wiki.descriptor.WikiDescriptorManager;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link LESSPrewarmListener}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class LESSPrewarmListenerTest
+{
+    @InjectMockComponents
+    private LESSPrewarmListener listener;
+
+    @MockComponent
+    private LESSConfiguration lessConfiguration;
+
+    @MockComponent
+    private LESSCompiler lessCompiler;
+
+    @MockComponent
+    private LESSResourceReferenceFactory lessResourceReferenceFactory;
+
+    @MockComponent
+    private WikiDescriptorManager wikiDescriptorManager;
+
+    @MockComponent
+    @Named("current")
+    private DocumentReferenceResolver<String> currentDocumentReferenceResolver;
+
+    @MockComponent
+    private Provider<XWikiContext> xcontextProvider;
+
+    private XWikiContext xcontext = mock(XWikiContext.class);
+
+    @Test
+    public void getEvents()
+    {
+        assertEquals(Arrays.asList(new ApplicationReadyEvent()), this.listener.getEvents());
+    }
+
+    @Test
+    public void onEventWhenDisabled()
+    {
+        this.listener.onEvent(new ApplicationReadyEvent(), null, null);
+
+        verifyZeroInteractions(this.lessCompiler);
+    }
+
+    @Test
+    public void prewarm() throws Exception
+    {
+        LESSResourceReference mainStyle = mock(LESSResourceReference.class);
+        when(this.lessResourceReferenceFactory.createReferenceForSkinFile("style.less.vm")).thenReturn(mainStyle);
+        when(this.wikiDescriptorManager.getAllIds()).thenReturn(Arrays.asList("wiki1", "wiki2"));
+
+        when(this.xcontextProvider.get()).thenReturn(this.xcontext);
+        XWiki xwiki = mock(XWiki.class);
+        when(this.xcontext.getWiki()).thenReturn(xwiki);
+        DocumentReference homeReference = new DocumentReference("wiki1", "Main", "WebHome");
+        when(this.currentDocumentReferenceResolver.resolve("")).thenReturn(homeReference);
+        XWikiDocument home = mock(XWikiDocument.class);
+        when(xwiki.getDocument(homeReference, this.xcontext)).thenReturn(home);
+        when(xwiki.getSkin(this.xcontext)).thenReturn("flamingo", "other");
+        when(this.lessCompiler.compile(any(LESSResourceReference.class), anyBoolean(), anyBoolean(), anyString(),
+            anyBoolean())).thenThrow(new LESSCompilerException("error", null)).thenReturn("css");
+
+        this.listener.prewarm();
+
+        verify(this.xcontext).setWikiId("wiki1");
+        verify(this.xcontext).setWikiId("wiki2");
+        // A failure on one wiki should not prevent the others from being compiled
+        verify(this.lessCompiler).compile(mainStyle, false, true, "flamingo", false);
+        verify(this.lessCompiler).compile(mainStyle, false, true, "other", false);
+    }
+}
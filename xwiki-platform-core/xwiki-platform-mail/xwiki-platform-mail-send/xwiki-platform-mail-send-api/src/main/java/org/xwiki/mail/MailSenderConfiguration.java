@@ -97,11 +97,31 @@
 
     /**
      * @return the delay to wait between each mail being sent, in milliseconds. This is done to support mail throttling
-     *         and not considered a spammer by mail servers.
+     *         and not considered a spammer by mail servers. When several mails are sent in parallel (see
+     *         {@link #getSendThreadCount()}) this is the average delay between two mails sent by any of the threads.
      * @since 6.4RC1
      */
     long getSendWaitTime();
 
+    /**
+     * @return the number of mails which can be sent without waiting (see {@link #getSendWaitTime()}) after the mail
+     *         sending has been idle for a while
+     * @since 12.8RC1
+     */
+    default int getSendBurstSize()
+    {
+        return 1;
+    }
+
+    /**
+     * @return the number of threads sending mails in parallel, each using its own connection to the SMTP server
+     * @since 12.8RC1
+     */
+    default int getSendThreadCount()
+    {
+        return 1;
+    }
+
     /**
      * @return the max size of the prepare queue. When this size is reached calls to put new elements on the queue will
      *         block
@@ -19,6 +19,8 @@
  */
 package org.xwiki.mail.internal;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,9 +35,12 @@ public abstract class AbstractMailStatusResult implements UpdateableMailStatusRe
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractMailStatusResult.class);
 
-    private long totalSize = -1;
+    private volatile long totalSize = -1;
 
-    private long currentSize;
+    /**
+     * Several mail sender threads can update the status of mails of the same batch at the same time.
+     */
+    private final AtomicLong currentSize = new AtomicLong();
 
     @Override
     public void setTotalSize(long totalSize)
@@ -46,7 +51,7 @@ public void setTotalSize(long totalSize)
     @Override
     public void incrementCurrentSize()
     {
-        this.currentSize++;
+        this.currentSize.incrementAndGet();
     }
 
     @Override
@@ -58,7 +63,7 @@ public long getTotalMailCount()
     @Override
     public long getProcessedMailCount()
     {
-        return this.currentSize;
+        return this.currentSize.get();
     }
 
     @Override
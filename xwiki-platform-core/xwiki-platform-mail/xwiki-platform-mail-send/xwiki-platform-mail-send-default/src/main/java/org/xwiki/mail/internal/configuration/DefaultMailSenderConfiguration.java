@@ -104,6 +104,10 @@ public class DefaultMailSenderConfiguration implements MailSenderConfiguration
     private static final String PREPARE_QUEUE_CAPACITY_PROPERTY = "prepareQueueCapacity";
     private static final String SEND_QUEUE_CAPACITY_PROPERTY = "sendQueueCapacity";
 
+    private static final String SEND_BURST_SIZE_PROPERTY = "sendBurstSize";
+
+    private static final String SEND_THREAD_COUNT_PROPERTY = "sendThreadCount";
+
     /**
      * The default size of the prepare queue.
      */
@@ -337,6 +341,18 @@ public int getSendQueueCapacity()
             SEND_QUEUE_CAPACITY_DEFAULT);
     }
 
+    @Override
+    public int getSendBurstSize()
+    {
+        return Math.max(1, this.xwikiPropertiesSource.getProperty(PREFIX + SEND_BURST_SIZE_PROPERTY, 1));
+    }
+
+    @Override
+    public int getSendThreadCount()
+    {
+        return Math.max(1, this.xwikiPropertiesSource.getProperty(PREFIX + SEND_THREAD_COUNT_PROPERTY, 1));
+    }
+
     private boolean isMainWiki()
     {
         return this.wikiDescriptorManager.isMainWiki(this.wikiDescriptorManager.getCurrentWikiId());
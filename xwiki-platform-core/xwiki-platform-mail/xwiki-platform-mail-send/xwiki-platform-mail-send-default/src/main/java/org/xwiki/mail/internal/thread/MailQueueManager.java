@@ -65,6 +65,17 @@ default void addMessage(T mailQueueItem, long timeout, TimeUnit unit) throws Int
      */
     T peekMessage();
 
+    /**
+     * Removes the next mail from the queue, waiting for one to be available if the queue is empty.
+     *
+     * @param timeout how long to wait for a mail, in units of {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the {@code timeout} parameter
+     * @return the next mail on the queue or {@code null} if none was added before the timeout
+     * @throws InterruptedException if interrupted while waiting
+     * @since 12.8RC1
+     */
+    T pollMessage(long timeout, TimeUnit unit) throws InterruptedException;
+
     /**
      * Removes the next mail on the queue.
      *
@@ -0,0 +1,79 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.mail.internal.thread;
+
+/**
+ * Token bucket shared by all the mail sender threads to throttle the mail sending: a token is added to the bucket
+ * every send wait time, the bucket holds at most the configured burst size and each mail consumes one token.
+ * <p>
+ * Instead of counting the tokens, the limiter remembers the date at which the next token will be available, which
+ * makes it possible to reserve a token in constant time and to wait for it outside of any lock.
+ *
+ * @version $Id$
+ * @since 12.8RC1
+ */
+public class SendMailRateLimiter
+{
+    /**
+     * The date (in milliseconds) at which the next token will be available.
+     */
+    private long nextTokenDate;
+
+    /**
+     * Wait till a mail can be sent.
+     *
+     * @param interval the time it takes to get a new token, in milliseconds
+     * @param burstSize the maximum number of tokens the bucket can hold
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void acquire(long interval, int burstSize) throws InterruptedException
+    {
+        long waitTime = reserve(interval, burstSize, System.currentTimeMillis());
+        if (waitTime > 0) {
+            Thread.sleep(waitTime);
+        }
+    }
+
+    /**
+     * Reserve a token.
+     *
+     * @param interval the time it takes to get a new token, in milliseconds
+     * @param burstSize the maximum number of tokens the bucket can hold
+     * @param now the current date, in milliseconds
+     * @return the time to wait before the reserved token is available, in milliseconds
+     */
+    synchronized long reserve(long interval, int burstSize, long now)
+    {
+        if (interval <= 0) {
+            return 0;
+        }
+
+        // The tokens accumulated while the bucket was not used cannot exceed the burst size
+        long fullBucketDate = now - (Math.max(1, burstSize) - 1) * interval;
+        if (this.nextTokenDate < fullBucketDate) {
+            this.nextTokenDate = fullBucketDate;
+        }
+
+        long waitTime = Math.max(0, this.nextTokenDate - now);
+        this.nextTokenDate += interval;
+
+        return waitTime;
+    }
+}
@@ -20,6 +20,8 @@
 package org.xwiki.mail.internal.thread;
 
 import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -41,7 +43,11 @@
 import com.xpn.xwiki.XWikiContext;
 
 /**
- * Runnable that regularly check for mails on a Queue, and for each mail tries to send it.
+ * Runnable that waits for mails on a Queue, and for each mail tries to send it.
+ * <p>
+ * Several threads can execute this runnable at the same time (see
+ * {@link org.xwiki.mail.MailSenderConfiguration#getSendThreadCount()}), each thread keeping its own connection to the
+ * SMTP server while the mail throttling is shared by all of them.
  *
  * @version $Id$
  * @since 6.4
@@ -51,6 +57,11 @@
 @Singleton
 public class SendMailRunnable extends AbstractMailRunnable
 {
+    /**
+     * The time after which an idle thread closes its connection to the SMTP server, in seconds.
+     */
+    private static final long IDLE_TIMEOUT = 10L;
+
     @Inject
     private MailQueueManager<SendMailQueueItem> sendMailQueueManager;
 
@@ -64,25 +75,77 @@ public class SendMailRunnable extends AbstractMailRunnable
     @Inject
     private Provider<XWikiContext> contextProvider;
 
-    private Transport currentTransport;
+    private final SendMailRateLimiter rateLimiter = new SendMailRateLimiter();
+
+    private final LongAdder sentMessageCount = new LongAdder();
+
+    private final LongAdder failedMessageCount = new LongAdder();
+
+    private final LongAdder sendTime = new LongAdder();
+
+    /**
+     * The connection to the SMTP server used by a sender thread.
+     */
+    private class SMTPConnection
+    {
+        private Transport transport;
+
+        private Session session;
+
+        private int count;
+
+        void send(Session mailSession, ExtendedMimeMessage message) throws MessagingException
+        {
+            // If the current Session in use is different from the one passed then close the current Transport, get a
+            // new one and reconnect.
+            // Also do that every 100 mails sent.
+            // TODO: explain why!
+            if (mailSession != this.session || (this.count % 100) == 0) {
+                close();
+                this.session = mailSession;
+                this.transport = this.session.getTransport("smtp");
+                this.transport.connect();
+            } else if (!this.transport.isConnected()) {
+                this.transport.connect();
+            }
 
-    private Session currentSession;
+            // Unlike the static send method, the sendMessage method does not call the saveChanges method on the
+            // message; this prevent the MessageID header to be changed.
+            this.transport.sendMessage(message, message.getAllRecipients());
+            this.count++;
+        }
 
-    private int count;
+        void close()
+        {
+            if (this.transport != null) {
+                try {
+                    this.transport.close();
+                } catch (MessagingException e) {
+                    logger.warn("Failed to close JavaMail Transport connection. Reason [{}]",
+                        ExceptionUtils.getRootCauseMessage(e));
+                }
+                this.transport = null;
+                this.session = null;
+                this.count = 0;
+            }
+        }
+    }
 
     @Override
     public void run()
     {
+        SMTPConnection connection = new SMTPConnection();
+
         try {
             // Make sure we initialize an execution context.
             prepareContext();
 
-            runInternal();
+            runInternal(connection);
         } catch (ExecutionContextException e) {
             // Not much to do but log.
             logger.error("Failed to initialize the send mail thread's execution context", e);
         } finally {
-            closeTransport();
+            connection.close();
         }
     }
 
@@ -101,28 +164,23 @@ private void prepareContextForQueueItem(SendMailQueueItem mailItem)
         xcontext.setWikiId(mailItem.getWikiId());
     }
 
-    private void runInternal()
+    private void runInternal(SMTPConnection connection)
     {
         do {
             try {
-                // Handle next message in the queue
-                if (this.sendMailQueueManager.hasMessage()) {
-                    // Important: only remove the mail item from the queue after the mail has been sent as
-                    // otherwise, MailSender.waitTillSent() may return before the mail is actually sent!
-                    SendMailQueueItem mailItem = this.sendMailQueueManager.peekMessage();
-                    try {
-                        sendMail(mailItem);
-                    } finally {
-                        this.sendMailQueueManager.removeMessageFromQueue(mailItem);
-                    }
-                    // Email throttling: Wait before processing the next mail queue item
-                    // Note: it's important that we wait after the previous item has been removed from the queue in
-                    // order to let users know as soon as possible that their mail has been sent (otherwise when sending
-                    // a synchronous mail, the user would have to wait the send wait time!).
+                // Wait for the next message in the queue (the thread is interrupted when it needs to stop)
+                SendMailQueueItem mailItem = this.sendMailQueueManager.pollMessage(IDLE_TIMEOUT, TimeUnit.SECONDS);
+                if (mailItem != null) {
+                    prepareContextForQueueItem(mailItem);
+
+                    // Email throttling: wait till the mail can be sent
                     waitSendWaitTime();
+
+                    sendMail(mailItem, connection);
+                } else {
+                    // Don't keep the SMTP server connection open while there's nothing to send
+                    connection.close();
                 }
-                // Note: a short pause to catch thread interruptions and to be kind on CPU.
-                Thread.sleep(50L);
             } catch (InterruptedException e) {
                 // Thread has been stopped, exit
                 this.logger.debug("Mail Sender Thread was forcefully stopped", e);
@@ -138,11 +196,10 @@ private void runInternal()
      * Send the mail.
      *
      * @param item the queue item containing all the data for sending the mail
+     * @param connection the connection to the SMTP server of the current thread
      */
-    protected void sendMail(SendMailQueueItem item)
+    private void sendMail(SendMailQueueItem item, SMTPConnection connection)
     {
-        prepareContextForQueueItem(item);
-
         MailListener listener = item.getListener();
 
         ExtendedMimeMessage message;
@@ -150,6 +207,7 @@ protected void sendMail(SendMailQueueItem item)
             // Step 1: Load the message from the filesystem store
             message = this.mailContentStore.load(item.getSession(), item.getBatchId(), item.getUniqueMessageId());
         } catch (Exception e) {
+            this.failedMessageCount.increment();
             if (listener != null) {
                 listener.onSendMessageFatalError(item.getUniqueMessageId(), e, Collections.<String, Object>emptyMap());
             }
@@ -157,30 +215,21 @@ protected void sendMail(SendMailQueueItem item)
         }
 
         try {
-            // Step 2: If the current Session in use is different from the one passed then close
-            // the current Transport, get a new one and reconnect.
-            // Also do that every 100 mails sent.
-            // TODO: explain why!
-            if (item.getSession() != this.currentSession || (this.count % 100) == 0) {
-                closeTransport();
-                this.currentSession = item.getSession();
-                this.currentTransport = this.currentSession.getTransport("smtp");
-                this.currentTransport.connect();
-            } else if (!this.currentTransport.isConnected()) {
-                this.currentTransport.connect();
-            }
+            long startTime = System.currentTimeMillis();
 
-            // Step 3: Send the mail
-            // Unlike the static send method, the sendMessage method does not call the saveChanges method on the
-            // message; this prevent the MessageID header to be changed.
-            this.currentTransport.sendMessage(message, message.getAllRecipients());
-            this.count++;
+            // Step 2: Send the mail, reusing the connection of the current thread when possible
+            connection.send(item.getSession(), message);
+
+            this.sendTime.add(System.currentTimeMillis() - startTime);
+            this.sentMessageCount.increment();
 
-            // Step 4: Notify the user of the success if a listener has been provided
+            // Step 3: Notify the user of the success if a listener has been provided
             if (listener != null) {
                 listener.onSendMessageSuccess(message, Collections.<String, Object>emptyMap());
             }
         } catch (Exception e) {
+            this.failedMessageCount.increment();
+
             // An error occurred, notify the user if a listener has been provided.
             if (listener != null) {
                 listener.onSendMessageError(message, e, Collections.<String, Object>emptyMap());
@@ -190,19 +239,36 @@ protected void sendMail(SendMailQueueItem item)
 
     private void waitSendWaitTime() throws InterruptedException
     {
-        long sendWaitTime = this.configuration.getSendWaitTime();
-        Thread.sleep(sendWaitTime);
+        this.rateLimiter.acquire(this.configuration.getSendWaitTime(), this.configuration.getSendBurstSize());
     }
 
-    private void closeTransport()
+    /**
+     * @return the number of mails successfully sent since the application started
+     * @since 12.8RC1
+     */
+    public long getSentMessageCount()
     {
-        if (this.currentTransport != null) {
-            try {
-                this.currentTransport.close();
-            } catch (MessagingException e) {
-                this.logger.warn("Failed to close JavaMail Transport connection. Reason [{}]",
-                    ExceptionUtils.getRootCauseMessage(e));
-            }
-        }
+        return this.sentMessageCount.sum();
+    }
+
+    /**
+     * @return the number of mails which failed to be sent since the application started
+     * @since 12.8RC1
+     */
+    public long getFailedMessageCount()
+    {
+        return this.failedMessageCount.sum();
+    }
+
+    /**
+     * @return the average time it took to send a mail to the SMTP server (including the connection to the server when
+     *         needed), in milliseconds, not counting the time spent waiting because of the mail throttling
+     * @since 12.8RC1
+     */
+    public long getAverageSendTime()
+    {
+        long count = this.sentMessageCount.sum();
+
+        return count > 0 ? this.sendTime.sum() / count : 0;
     }
 }
@@ -24,6 +24,7 @@
 import java.util.Iterator;
 import java.util.Map;
 
+import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 import javax.mail.Message;
@@ -38,6 +39,9 @@
 import org.xwiki.mail.MailSenderConfiguration;
 import org.xwiki.mail.MimeMessageFactory;
 import org.xwiki.mail.internal.script.MimeMessageFactoryProvider;
+import org.xwiki.mail.internal.thread.MailRunnable;
+import org.xwiki.mail.internal.thread.SendMailRunnable;
+import org.xwiki.stability.Unstable;
 
 /**
  * Expose Mail Sending API to scripts.
@@ -64,6 +68,10 @@ public class MailSenderScriptService extends AbstractMailScriptService
      */
     static final String ERROR_KEY = "scriptservice.mail.sender.error";
 
+    @Inject
+    @Named("send")
+    private MailRunnable sendMailRunnable;
+
     /**
      * Creates a pre-filled Mime Message by running the Component implementation of {@link
      * org.xwiki.mail.MimeMessageFactory} corresponding to the passed hint.
@@ -282,6 +290,49 @@ public MailSenderConfiguration getConfiguration()
         return this.senderConfiguration;
     }
 
+    /**
+     * @return the number of mails successfully sent since the application started
+     * @since 12.8RC1
+     */
+    @Unstable
+    public long getSentMessageCount()
+    {
+        SendMailRunnable runnable = getSendMailRunnable();
+
+        return runnable != null ? runnable.getSentMessageCount() : 0;
+    }
+
+    /**
+     * @return the number of mails which failed to be sent since the application started
+     * @since 12.8RC1
+     */
+    @Unstable
+    public long getFailedMessageCount()
+    {
+        SendMailRunnable runnable = getSendMailRunnable();
+
+        return runnable != null ? runnable.getFailedMessageCount() : 0;
+    }
+
+    /**
+     * @return the average time it took to send a mail to the SMTP server, in milliseconds, not counting the time spent
+     *         waiting because of the mail throttling
+     * @since 12.8RC1
+     */
+    @Unstable
+    public long getAverageSendTime()
+    {
+        SendMailRunnable runnable = getSendMailRunnable();
+
+        return runnable != null ? runnable.getAverageSendTime() : 0;
+    }
+
+    private SendMailRunnable getSendMailRunnable()
+    {
+        // The statistics are only available with the default implementation
+        return this.sendMailRunnable instanceof SendMailRunnable ? (SendMailRunnable) this.sendMailRunnable : null;
+    }
+
     @Override
     protected String getErrorKey()
     {
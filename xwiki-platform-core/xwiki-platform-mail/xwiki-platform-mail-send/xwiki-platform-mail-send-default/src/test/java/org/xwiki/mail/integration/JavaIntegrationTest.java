@@ -22,9 +22,11 @@
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 
@@ -56,6 +58,7 @@
 import org.xwiki.mail.MailListener;
 import org.xwiki.mail.MailSender;
 import org.xwiki.mail.MailSenderConfiguration;
+import org.xwiki.mail.MailStatusResult;
 import org.xwiki.mail.MimeBodyPartFactory;
 import org.xwiki.mail.internal.DefaultMailSender;
 import org.xwiki.mail.internal.FileSystemMailContentStore;
@@ -68,6 +71,7 @@
 import org.xwiki.mail.internal.thread.PrepareMailRunnable;
 import org.xwiki.mail.internal.thread.SendMailQueueManager;
 import org.xwiki.mail.internal.thread.SendMailRunnable;
+import org.xwiki.mail.internal.thread.MailRunnable;
 import org.xwiki.mail.internal.thread.context.Copier;
 import org.xwiki.model.ModelContext;
 import org.xwiki.model.reference.WikiReference;
@@ -146,6 +150,8 @@ public void registerConfiguration() throws Exception
 
         this.configuration = new TestMailSenderConfiguration(
             this.greenMail.getSmtp().getPort(), null, null, new Properties());
+        // Send the mails in parallel to verify the mail sender threads don't interfere with each other
+        this.configuration.setSendThreadCount(2);
         this.componentManager.registerComponent(MailSenderConfiguration.class, this.configuration);
 
         // Set the current wiki in the Context
@@ -420,4 +426,35 @@ protected void updateMessageID() throws MessagingException
 
         assertEquals("<custom@domain>", messages[0].getMessageID());
     }
+
+    @Test
+    public void sendSeveralMailsInParallel() throws Exception
+    {
+        Session session = Session.getInstance(this.configuration.getAllProperties());
+
+        List<MimeMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            MimeMessage message = new MimeMessage(session);
+            message.setSubject("subject" + i);
+            message.setRecipient(RecipientType.TO, new InternetAddress("john@doe.com"));
+            message.setText("content" + i);
+            messages.add(message);
+        }
+
+        MailListener memoryMailListener = this.componentManager.getInstance(MailListener.class, "memory");
+        this.sender.sendAsynchronously(messages, session, memoryMailListener);
+
+        // Verify that the mails have been received (wait maximum 30 seconds).
+        this.greenMail.waitForIncomingEmail(30000L, 10);
+        assertEquals(10, this.greenMail.getReceivedMessages().length);
+
+        // Verify that each mail status has been reported
+        MailStatusResult statusResult = memoryMailListener.getMailStatusResult();
+        statusResult.waitTillProcessed(30000L);
+        assertEquals(10, statusResult.getProcessedMailCount());
+
+        SendMailRunnable sendMailRunnable = this.componentManager.getInstance(MailRunnable.class, "send");
+        assertEquals(10, sendMailRunnable.getSentMessageCount());
+        assertEquals(0, sendMailRunnable.getFailedMessageCount());
+    }
 }
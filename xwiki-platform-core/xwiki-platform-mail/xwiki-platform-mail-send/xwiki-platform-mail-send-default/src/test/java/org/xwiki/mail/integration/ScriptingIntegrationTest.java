@@ -225,6 +225,11 @@ public void sendTextMail() throws Exception
         assertFalse(result.getStatusResult().getByState(MailState.PREPARE_SUCCESS).hasNext(),
             "There should not be any mails in the ready state!");
 
+        // Verify the mail sending statistics
+        assertEquals(3, this.scriptService.getSentMessageCount());
+        assertEquals(0, this.scriptService.getFailedMessageCount());
+        assertTrue(this.scriptService.getAverageSendTime() >= 0);
+
         // Verify that the mails have been received (wait maximum 30 seconds).
         this.greenMail.waitForIncomingEmail(30000L, 3);
         MimeMessage[] messages = this.greenMail.getReceivedMessages();
@@ -42,6 +42,8 @@ public class TestMailSenderConfiguration extends DefaultMailSenderConfiguration
 
     private List<String> bccAddresses = new ArrayList<>();
 
+    private int sendThreadCount = 1;
+
     public TestMailSenderConfiguration(int port, String username, String password, Properties additionalProperties)
     {
         this.port = port;
@@ -116,8 +118,25 @@ public int getSendQueueCapacity()
         return 10;
     }
 
+    @Override
+    public int getSendBurstSize()
+    {
+        return 1;
+    }
+
+    @Override
+    public int getSendThreadCount()
+    {
+        return this.sendThreadCount;
+    }
+
     public void setBCCAddresses(List<String> addresses)
     {
         this.bccAddresses = addresses;
     }
+
+    public void setSendThreadCount(int sendThreadCount)
+    {
+        this.sendThreadCount = sendThreadCount;
+    }
 }
@@ -220,4 +220,15 @@ public void getPortWhenMailConfigDoesntExist()
 
         assertEquals(25, this.configuration.getPort());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void getSendThreadCount()
+    {
+        when(this.xwikiPropertiesSource.getProperty("mail.sender.sendThreadCount", 1)).thenReturn(4);
+        assertEquals(4, this.configuration.getSendThreadCount());
+
+        // At least one thread is needed
+        when(this.xwikiPropertiesSource.getProperty("mail.sender.sendThreadCount", 1)).thenReturn(0);
+        assertEquals(1, this.configuration.getSendThreadCount());
+    }
+}
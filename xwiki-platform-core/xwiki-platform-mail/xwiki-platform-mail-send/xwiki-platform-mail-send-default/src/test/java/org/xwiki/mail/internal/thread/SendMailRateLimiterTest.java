@@ -0,0 +1,69 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.mail.internal.thread;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Unit tests for {@link SendMailRateLimiter}.
+ *
+ * @version $Id$
+ */
+public class SendMailRateLimiterTest
+{
+    private SendMailRateLimiter limiter = new SendMailRateLimiter();
+
+    @Test
+    public void reserveWithoutBurst()
+    {
+        // The first mail is sent right away
+        assertEquals(0, this.limiter.reserve(1000, 1, 10000));
+        // The next ones wait for the interval, even when reserved at the same time
+        assertEquals(1000, this.limiter.reserve(1000, 1, 10000));
+        assertEquals(1500, this.limiter.reserve(1000, 1, 10500));
+
+        // Nothing is accumulated while idle
+        assertEquals(0, this.limiter.reserve(1000, 1, 20000));
+        assertEquals(1000, this.limiter.reserve(1000, 1, 20000));
+    }
+
+    @Test
+    public void reserveWithBurst()
+    {
+        // A full bucket allows to send 3 mails right away
+        assertEquals(0, this.limiter.reserve(1000, 3, 10000));
+        assertEquals(0, this.limiter.reserve(1000, 3, 10000));
+        assertEquals(0, this.limiter.reserve(1000, 3, 10000));
+        assertEquals(1000, this.limiter.reserve(1000, 3, 10000));
+
+        // One token has been added since then
+        assertEquals(0, this.limiter.reserve(1000, 3, 12000));
+        assertEquals(1000, this.limiter.reserve(1000, 3, 12000));
+    }
+
+    @Test
+    public void reserveWithoutWaitTime()
+    {
+        assertEquals(0, this.limiter.reserve(0, 1, 10000));
+        assertEquals(0, this.limiter.reserve(0, 1, 10000));
+    }
+}
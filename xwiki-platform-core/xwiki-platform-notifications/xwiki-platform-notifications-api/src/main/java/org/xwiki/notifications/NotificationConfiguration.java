@@ -90,4 +90,25 @@ default int getAsyncPoolSize()
     {
         return 2;
     }
+
+    /**
+     * @return true if the number of unread notifications of each user should be cached until the status of one of its
+     *         events changes instead of being computed each time it's displayed
+     * @since 12.8RC1
+     */
+    @Unstable
+    default boolean isUnreadCountCacheEnabled()
+    {
+        return false;
+    }
+
+    /**
+     * @return the number of seconds after which a cached unread notifications count is computed again
+     * @since 12.8RC1
+     */
+    @Unstable
+    default int getUnreadCountCacheRefreshDelay()
+    {
+        return 3600;
+    }
 }
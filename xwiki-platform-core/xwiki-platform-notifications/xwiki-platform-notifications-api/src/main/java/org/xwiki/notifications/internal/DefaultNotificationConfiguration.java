@@ -84,4 +84,16 @@ public int getAsyncPoolSize()
     {
         return configurationSource.getProperty(CONFIGURATION_PREFIX + "async.poolSize", 2);
     }
+
+    @Override
+    public boolean isUnreadCountCacheEnabled()
+    {
+        return configurationSource.getProperty(CONFIGURATION_PREFIX + "unreadCountCache.enabled", false);
+    }
+
+    @Override
+    public int getUnreadCountCacheRefreshDelay()
+    {
+        return configurationSource.getProperty(CONFIGURATION_PREFIX + "unreadCountCache.refreshDelay", 3600);
+    }
 }
@@ -56,6 +56,9 @@ public class DefaultAsyncNotificationRenderer implements AsyncRenderer
     @Inject
     private DefaultNotificationCacheManager notificationCacheManager;
 
+    @Inject
+    private UnreadNotificationCountCache unreadCountCache;
+
     @Inject
     private InternalHtmlNotificationRenderer htmlNotificationRenderer;
 
@@ -104,6 +107,11 @@ public List<String> getId()
     @Override
     public AsyncRendererResult render(boolean async, boolean cached) throws RenderingException
     {
+        NotificationParameters parameters = this.configuration.getNotificationParameters();
+        if (this.configuration.isCount() && this.unreadCountCache.isSupported(parameters)) {
+            return new AsyncRendererResult(this.htmlNotificationRenderer.render(getUnreadCount(parameters)));
+        }
+
         Object fromCache =
             this.notificationCacheManager.getFromCache(this.cacheKey, this.configuration.isCount());
 
@@ -147,6 +155,18 @@ public AsyncRendererResult render(boolean async, boolean cached) throws Renderin
         return new AsyncRendererResult(stringResult);
     }
 
+    private int getUnreadCount(NotificationParameters parameters) throws RenderingException
+    {
+        String userId = this.documentReferenceSerializer.serialize(parameters.user);
+
+        try {
+            return this.unreadCountCache.getCount(userId, this.cacheKey,
+                () -> this.notificationManager.getEvents(parameters).size());
+        } catch (NotificationException e) {
+            throw new RenderingException("Error while retrieving the notification", e);
+        }
+    }
+
     /**
      * @return {@code true}: this implementation is dedicated to async.
      */
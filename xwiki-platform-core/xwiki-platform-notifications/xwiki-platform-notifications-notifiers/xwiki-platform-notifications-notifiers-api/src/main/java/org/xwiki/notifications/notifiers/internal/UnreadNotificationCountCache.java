@@ -0,0 +1,195 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.notifiers.internal;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.notifications.NotificationConfiguration;
+import org.xwiki.notifications.NotificationException;
+import org.xwiki.notifications.sources.NotificationParameters;
+
+/**
+ * Cache the number of unread notifications of each user instead of computing it each time it's displayed.
+ * <p>
+ * The cached counts are not incremented or decremented when an event is dispatched to the user or read since the
+ * displayed notifications are grouped and filtered: the counts of the user are forgotten (see
+ * {@link UnreadNotificationCountCacheListener}) and computed again with the actual request the next time they are
+ * requested. A count is also computed again after
+ * {@link NotificationConfiguration#getUnreadCountCacheRefreshDelay()} in case a change was missed.
+ * <p>
+ * This component is only used when {@link NotificationConfiguration#isUnreadCountCacheEnabled()} and
+ * {@link NotificationConfiguration#isEventPrefilteringEnabled()} are true.
+ *
+ * @version $Id$
+ * @since 12.8RC1
+ */
+@Component(roles = UnreadNotificationCountCache.class)
+@Singleton
+public class UnreadNotificationCountCache implements Initializable, Disposable
+{
+    private static final class CachedCount
+    {
+        private final int count;
+
+        private final long expiration;
+
+        CachedCount(int count, long expiration)
+        {
+            this.count = count;
+            this.expiration = expiration;
+        }
+
+        boolean isExpired(long now)
+        {
+            return now >= this.expiration;
+        }
+    }
+
+    @Inject
+    private NotificationConfiguration configuration;
+
+    @Inject
+    private CacheManager cacheManager;
+
+    /**
+     * The counts of each user indexed by the key of the request they answer.
+     */
+    private Cache<Map<String, CachedCount>> cache;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        if (isEnabled()) {
+            try {
+                this.cache = this.cacheManager
+                    .createNewCache(new LRUCacheConfiguration("notification.unreadCounts", 10000, 86400));
+            } catch (CacheException e) {
+                throw new InitializationException("Failed to create the unread notification count cache", e);
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if the number of unread notifications of each user is cached
+     */
+    public boolean isEnabled()
+    {
+        return this.configuration.isUnreadCountCacheEnabled() && this.configuration.isEventPrefilteringEnabled();
+    }
+
+    /**
+     * @param parameters the parameters of the request
+     * @return {@code true} if the number of notifications returned by the request can be cached
+     */
+    public boolean isSupported(NotificationParameters parameters)
+    {
+        return this.cache != null && parameters.user != null && Boolean.TRUE.equals(parameters.onlyUnread)
+            && parameters.endDate == null && parameters.expectedCount > 0;
+    }
+
+    /**
+     * @param userId the serialized reference of the user
+     * @param cacheKey the key of the request
+     * @param counter compute the actual number of unread notifications when it's not known
+     * @return the number of unread notifications
+     * @throws NotificationException when failing to compute the number of unread notifications
+     */
+    public int getCount(String userId, String cacheKey, Callable<Integer> counter) throws NotificationException
+    {
+        Map<String, CachedCount> userCounts = getUserCounts(userId);
+
+        CachedCount cachedCount = userCounts.get(cacheKey);
+        if (cachedCount != null && !cachedCount.isExpired(System.currentTimeMillis())) {
+            return cachedCount.count;
+        }
+
+        int count;
+        try {
+            count = counter.call();
+        } catch (NotificationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new NotificationException("Failed to count the unread notifications", e);
+        }
+
+        // If the counts of the user were invalidated during the computation, the count is stored in a map which is
+        // not used anymore (so it's computed again next time)
+        long expiration = System.currentTimeMillis() + this.configuration.getUnreadCountCacheRefreshDelay() * 1000L;
+        userCounts.put(cacheKey, new CachedCount(count, expiration));
+
+        return count;
+    }
+
+    private synchronized Map<String, CachedCount> getUserCounts(String userId)
+    {
+        Map<String, CachedCount> userCounts = this.cache.get(userId);
+
+        if (userCounts == null) {
+            userCounts = new ConcurrentHashMap<>();
+            this.cache.set(userId, userCounts);
+        }
+
+        return userCounts;
+    }
+
+    /**
+     * Forget the cached counts of the user so that they are computed again.
+     *
+     * @param userId the serialized reference of the user
+     */
+    public synchronized void invalidate(String userId)
+    {
+        if (this.cache != null) {
+            this.cache.remove(userId);
+        }
+    }
+
+    /**
+     * Forget all the cached counts.
+     */
+    public synchronized void invalidateAll()
+    {
+        if (this.cache != null) {
+            this.cache.removeAll();
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        if (this.cache != null) {
+            this.cache.dispose();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.notifiers.internal;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.xwiki.component.annotation.Component;
+import org.xwiki.eventstream.EventStatus;
+import org.xwiki.eventstream.events.EventStreamDeletedEvent;
+import org.xwiki.eventstream.internal.events.EventStatusAddOrUpdatedEvent;
+import org.xwiki.eventstream.internal.events.EventStatusDeletedEvent;
+import org.xwiki.notifications.filters.internal.event.NotificationFilterPreferenceAddOrUpdatedEvent;
+import org.xwiki.notifications.filters.internal.event.NotificationFilterPreferenceDeletedEvent;
+import org.xwiki.notifications.preferences.internal.event.NotificationPreferenceAddedEvent;
+import org.xwiki.notifications.preferences.internal.event.NotificationPreferenceDeletedEvent;
+import org.xwiki.notifications.preferences.internal.event.NotificationPreferenceUpdatedEvent;
+import org.xwiki.observation.AbstractEventListener;
+import org.xwiki.observation.event.Event;
+
+/**
+ * Forget the cached unread notification counts of a user when an event is dispatched to the user or when the status of
+ * one of the user's events changes, and the cached counts of all users when an event is deleted or when notification
+ * preferences or filters change.
+ *
+ * @version $Id$
+ * @since 12.8RC1
+ */
+@Component
+@Singleton
+@Named(UnreadNotificationCountCacheListener.NAME)
+public class UnreadNotificationCountCacheListener extends AbstractEventListener
+{
+    /**
+     * The name of the listener.
+     */
+    public static final String NAME = "UnreadNotificationCountCacheListener";
+
+    @Inject
+    private UnreadNotificationCountCache cache;
+
+    /**
+     * The default constructor.
+     */
+    public UnreadNotificationCountCacheListener()
+    {
+        super(NAME, new EventStatusAddOrUpdatedEvent(), new EventStatusDeletedEvent(), new EventStreamDeletedEvent(),
+            new NotificationPreferenceAddedEvent(), new NotificationPreferenceUpdatedEvent(),
+            new NotificationPreferenceDeletedEvent(), new NotificationFilterPreferenceAddOrUpdatedEvent(),
+            new NotificationFilterPreferenceDeletedEvent());
+    }
+
+    @Override
+    public void onEvent(Event event, Object source, Object data)
+    {
+        if (!this.cache.isEnabled()) {
+            return;
+        }
+
+        if ((event instanceof EventStatusAddOrUpdatedEvent || event instanceof EventStatusDeletedEvent)
+            && source instanceof EventStatus) {
+            // An event was dispatched to the user or one of its notifications was (un)marked as read: the number of
+            // displayed notifications depends on the filters and grouping of each request so it's computed again
+            this.cache.invalidate(((EventStatus) source).getEntityId());
+        } else {
+            // Neither the deleted events nor the preference and filter events tell which users are impacted
+            this.cache.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.notifications.notifiers.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.notifications.NotificationConfiguration;
+import org.xwiki.notifications.NotificationException;
+import org.xwiki.notifications.sources.NotificationParameters;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+import org.xwiki.test.mockito.MockitoComponentManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link UnreadNotificationCountCache}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class UnreadNotificationCountCacheTest
+{
+    private static final String USER = "xwiki:XWiki.User";
+
+    private static final String KEY = "key";
+
+    @InjectMockComponents
+    private UnreadNotificationCountCache cache;
+
+    @MockComponent
+    private NotificationConfiguration configuration;
+
+    private Map<String, Object> cacheContent = new HashMap<>();
+
+    @BeforeComponent
+    public void setupComponents(MockitoComponentManager componentManager) throws Exception
+    {
+        when(this.configuration.isUnreadCountCacheEnabled()).thenReturn(true);
+        when(this.configuration.isEventPrefilteringEnabled()).thenReturn(true);
+        when(this.configuration.getUnreadCountCacheRefreshDelay()).thenReturn(3600);
+
+        Cache<Object> cache = mock(Cache.class);
+        when(cache.get(any())).then(invocation -> this.cacheContent.get(invocation.getArgument(0)));
+        doAnswer(invocation -> this.cacheContent.put(invocation.getArgument(0), invocation.getArgument(1)))
+            .when(cache).set(any(), any());
+        doAnswer(invocation -> this.cacheContent.remove(invocation.getArgument(0))).when(cache).remove(any());
+        doAnswer(invocation -> {
+            this.cacheContent.clear();
+            return null;
+        }).when(cache).removeAll();
+
+        CacheManager cacheManager = componentManager.registerMockComponent(CacheManager.class);
+        when(cacheManager.createNewCache(any(LRUCacheConfiguration.class))).thenReturn(cache);
+    }
+
+    @Test
+    public void isSupported()
+    {
+        NotificationParameters parameters = new NotificationParameters();
+        parameters.expectedCount = 20;
+        assertFalse(this.cache.isSupported(parameters));
+
+        parameters.user = new DocumentReference("xwiki", "XWiki", "User");
+        assertFalse(this.cache.isSupported(parameters));
+
+        parameters.onlyUnread = true;
+        assertTrue(this.cache.isSupported(parameters));
+    }
+
+    @Test
+    public void getCount() throws Exception
+    {
+        Callable<Integer> counter = mock(Callable.class);
+        when(counter.call()).thenReturn(2, 3);
+
+        assertEquals(2, this.cache.getCount(USER, KEY, counter));
+        assertEquals(2, this.cache.getCount(USER, KEY, counter));
+        verify(counter).call();
+
+        // The count is computed again when the status of an event of the user changes
+        this.cache.invalidate(USER);
+        assertEquals(3, this.cache.getCount(USER, KEY, counter));
+        verify(counter, times(2)).call();
+    }
+
+    @Test
+    public void getCountInvalidatedWhileComputed() throws Exception
+    {
+        Callable<Integer> counter = mock(Callable.class);
+        when(counter.call()).then(invocation -> {
+            // The status of an event changed while the count was being computed
+            this.cache.invalidate(USER);
+            return 2;
+        }).thenReturn(3);
+
+        assertEquals(2, this.cache.getCount(USER, KEY, counter));
+        // The possibly outdated count is not remembered
+        assertEquals(3, this.cache.getCount(USER, KEY, counter));
+        assertEquals(3, this.cache.getCount(USER, KEY, counter));
+        verify(counter, times(2)).call();
+    }
+
+    @Test
+    public void getCountWhenFailing() throws Exception
+    {
+        Callable<Integer> counter = mock(Callable.class);
+        NotificationException exception = new NotificationException("error");
+        when(counter.call()).thenThrow(exception).thenReturn(2);
+
+        assertSame(exception, assertThrows(NotificationException.class,
+            () -> this.cache.getCount(USER, KEY, counter)));
+        assertEquals(2, this.cache.getCount(USER, KEY, counter));
+    }
+
+    @Test
+    public void expiredCount() throws Exception
+    {
+        when(this.configuration.getUnreadCountCacheRefreshDelay()).thenReturn(0);
+
+        Callable<Integer> counter = mock(Callable.class);
+        when(counter.call()).thenReturn(2, 3);
+
+        assertEquals(2, this.cache.getCount(USER, KEY, counter));
+        assertEquals(3, this.cache.getCount(USER, KEY, counter));
+    }
+}
@@ -41,6 +41,7 @@
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
@@ -48,6 +49,7 @@
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -211,6 +213,7 @@
 import com.xpn.xwiki.internal.event.XObjectPropertyDeletedEvent;
 import com.xpn.xwiki.internal.event.XObjectPropertyEvent;
 import com.xpn.xwiki.internal.event.XObjectPropertyUpdatedEvent;
+import com.xpn.xwiki.internal.mandatory.MandatoryDocumentInitializerFingerprints;
 import com.xpn.xwiki.internal.mandatory.XWikiPreferencesDocumentInitializer;
 import com.xpn.xwiki.internal.render.LinkedResourceHelper;
 import com.xpn.xwiki.internal.render.OldRendering;
@@ -457,6 +460,8 @@ public class XWiki implements EventListener
 
     private JobProgressManager progress;
 
+    private MandatoryDocumentInitializerFingerprints mandatoryDocumentFingerprints;
+
     private Provider<DocumentReference> defaultDocumentReferenceProvider;
 
     private DocumentReferenceResolver<EntityReference> currentgetdocumentResolver;
@@ -643,6 +648,15 @@ private JobProgressManager getProgress()
         return this.progress;
     }
 
+    private MandatoryDocumentInitializerFingerprints getMandatoryDocumentFingerprints()
+    {
+        if (this.mandatoryDocumentFingerprints == null) {
+            this.mandatoryDocumentFingerprints = Utils.getComponent(MandatoryDocumentInitializerFingerprints.class);
+        }
+
+        return this.mandatoryDocumentFingerprints;
+    }
+
     private Provider<DocumentReference> getDefaultDocumentReferenceProvider()
     {
         if (this.defaultDocumentReferenceProvider == null) {
@@ -1376,18 +1390,33 @@ public int compare(MandatoryDocumentInitializer left, MandatoryDocumentInitializ
 
             getObservationManager().notify(MandatoryDocumentsInitializingEvent.EVENT, null);
 
+            // Skip the initializers which did not change since they last checked their (unmodified) document
+            String wiki = context.getWikiId();
+            Set<MandatoryDocumentInitializer> upToDate =
+                getMandatoryDocumentFingerprints().getUpToDate(initializers, wiki);
+            LOGGER.debug("Skipping [{}] up to date mandatory documents over [{}] in wiki [{}]", upToDate.size(),
+                initializers.size(), wiki);
+
+            // Load at once the documents of the initializers which need to be executed
+            Map<DocumentReference, XWikiDocument> documents =
+                getMandatoryDocuments(initializers, upToDate, context);
+
             getProgress().pushLevelProgress(initializers.size(), this);
 
             try {
                 for (MandatoryDocumentInitializer initializer : initializers) {
                     getProgress().startStep(this);
 
-                    initializeMandatoryDocument(initializer, context);
+                    if (!upToDate.contains(initializer)) {
+                        initializeMandatoryDocument(initializer, documents, context);
+                    }
 
                     getProgress().endStep(this);
                 }
             } finally {
                 getProgress().popLevelProgress(this);
+
+                getMandatoryDocumentFingerprints().save(wiki);
             }
 
             getObservationManager().notify(MandatoryDocumentsInitializedEvent.EVENT, null);
@@ -1408,19 +1437,65 @@ private void initializeMandatoryDocument(String wiki, MandatoryDocumentInitializ
         }
     }
 
+    private Map<DocumentReference, XWikiDocument> getMandatoryDocuments(
+        List<MandatoryDocumentInitializer> initializers, Set<MandatoryDocumentInitializer> skippedInitializers,
+        XWikiContext context)
+    {
+        Set<DocumentReference> references = new LinkedHashSet<>();
+        for (MandatoryDocumentInitializer initializer : initializers) {
+            if (!skippedInitializers.contains(initializer)) {
+                DocumentReference documentReference =
+                    getCurrentReferenceDocumentReferenceResolver().resolve(initializer.getDocumentReference());
+
+                if (documentReference.getWikiReference().getName().equals(context.getWikiId())) {
+                    references.add(documentReference);
+                }
+            }
+        }
+
+        Map<DocumentReference, XWikiDocument> documents = new HashMap<>(references.size());
+        if (!references.isEmpty()) {
+            try {
+                for (XWikiDocument document : getDocuments(references, context)) {
+                    documents.put(document.getDocumentReference(), document);
+                }
+            } catch (XWikiException e) {
+                LOGGER.warn("Failed to load the mandatory documents of wiki [{}] at once, loading them one by one: {}",
+                    context.getWikiId(), ExceptionUtils.getRootCauseMessage(e));
+            }
+        }
+
+        return documents;
+    }
+
     private void initializeMandatoryDocument(MandatoryDocumentInitializer initializer, XWikiContext context)
+    {
+        initializeMandatoryDocument(initializer, Collections.emptyMap(), context);
+    }
+
+    /**
+     * @param documents the documents already loaded, each one is only used by the first initializer targeting it
+     *            (the following ones get it again from the store to see the changes made by the previous ones)
+     */
+    private void initializeMandatoryDocument(MandatoryDocumentInitializer initializer,
+        Map<DocumentReference, XWikiDocument> documents, XWikiContext context)
     {
         try {
             DocumentReference documentReference =
                 getCurrentReferenceDocumentReferenceResolver().resolve(initializer.getDocumentReference());
 
             if (documentReference.getWikiReference().getName().equals(context.getWikiId())) {
-                XWikiDocument document = context.getWiki().getDocument(documentReference, context);
+                XWikiDocument document = documents.remove(documentReference);
+                if (document == null) {
+                    document = context.getWiki().getDocument(documentReference, context);
+                }
 
                 if (initializer.updateDocument(document)) {
                     saveDocument(document,
                         localizePlainOrKey("core.model.xclass.mandatoryUpdateProperty.versionSummary"), context);
                 }
+
+                getMandatoryDocumentFingerprints().setChecked(initializer, document);
             }
         } catch (XWikiException e) {
             LOGGER.error("Failed to initialize mandatory document [{}]", initializer.getDocumentReference(), e);
@@ -2196,6 +2271,34 @@ public XWikiDocument getDocument(DocumentReference reference, XWikiContext conte
         return getDocument(doc, context);
     }
 
+    /**
+     * Load several documents at once. This is a lot faster than calling {@link #getDocument(DocumentReference,
+     * XWikiContext)} for each document since the documents which are not already in the cache are loaded from the
+     * store with a few queries.
+     *
+     * @param references the references of the documents (with the locale of the translation to load, if any)
+     * @param context see {@link XWikiContext}
+     * @return the documents, in the same order as the passed references
+     * @throws XWikiException when failing to load the documents
+     * @since 12.8RC1
+     */
+    @Unstable
+    public List<XWikiDocument> getDocuments(Collection<DocumentReference> references, XWikiContext context)
+        throws XWikiException
+    {
+        for (DocumentReference reference : references) {
+            try {
+                // Indicate the the async context manipulated documents
+                getAsyncContext().useEntity(reference);
+            } catch (Exception e) {
+                // If the AsyncContext component does not work then we are not in an asynchronous context anyway
+                LOGGER.debug("Failed to register the document in the asynchronous context", e);
+            }
+        }
+
+        return getStore().loadXWikiDocs(references, context);
+    }
+
     /**
      * @param reference the reference of the page
      * @param context see {@link XWikiContext}
@@ -216,7 +216,9 @@ public XWikiDocument getDocument()
     protected XWikiDocument getDoc()
     {
         if (this.initialDoc == this.doc) {
-            this.doc = this.initialDoc.clone();
+            // The wrapped document (usually the cached one) is never modified through this API so its xobjects can be
+            // shared until they are accessed
+            this.doc = this.initialDoc.lazyClone();
         }
 
         return this.doc;
@@ -24,8 +24,10 @@
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
@@ -329,6 +331,39 @@ public Document getDocument(DocumentReference reference) throws XWikiException
         }
     }
 
+    /**
+     * Loads several Documents at once. This is a lot faster than calling {@link #getDocument(DocumentReference)} for
+     * each document since the documents which are not in the cache are loaded with a few queries. Rights are checked
+     * before sending back the documents.
+     *
+     * @param references the references of the XWiki documents to be loaded
+     * @return the Document objects, in the same order as the passed references ({@code null} for the documents the
+     *         current user is not allowed to view, a new document for the ones which couldn't be found)
+     * @throws XWikiException when failing to load the documents
+     * @since 12.8RC1
+     */
+    @Unstable
+    public List<Document> getDocuments(List<DocumentReference> references) throws XWikiException
+    {
+        List<DocumentReference> viewableReferences =
+            getContextualAuthorizationManager().filterAccessible(Right.VIEW, references);
+
+        List<XWikiDocument> documents = this.xwiki.getDocuments(viewableReferences, getXWikiContext());
+
+        Map<DocumentReference, XWikiDocument> viewableDocuments = new HashMap<>(viewableReferences.size());
+        for (int i = 0; i < viewableReferences.size(); ++i) {
+            viewableDocuments.put(viewableReferences.get(i), documents.get(i));
+        }
+
+        List<Document> result = new ArrayList<>(references.size());
+        for (DocumentReference reference : references) {
+            XWikiDocument document = viewableDocuments.get(reference);
+            result.add(document != null ? document.newDocument(getXWikiContext()) : null);
+        }
+
+        return result;
+    }
+
     /**
      * Loads a Document from the store. Rights are checked before sending back the document.
      * <p>
@@ -23,6 +23,7 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringWriter;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Date;
@@ -59,6 +60,7 @@
 import org.xwiki.model.reference.EntityReferenceResolver;
 import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.model.reference.WikiReference;
+import org.xwiki.stability.Unstable;
 import org.xwiki.text.XWikiToStringBuilder;
 import org.xwiki.tika.internal.TikaUtils;
 
@@ -905,6 +907,27 @@ public InputStream getContentInputStream(XWikiContext xcontext) throws XWikiExce
         return getContentInputStream();
     }
 
+    /**
+     * Retrieve the content of this attachment as a channel reading directly the file where the content is stored. This
+     * allows for example to send a part of the content without having to read what's before it.
+     *
+     * @param xcontext current XWikiContext
+     * @return a channel to read the content of this attachment, or {@code null} if the content is not stored in a file
+     *         (in which case {@link #getContentInputStream(XWikiContext)} should be used)
+     * @throws XWikiException when an error occurs during wiki operation
+     * @throws IOException when failing to open the file where the content is stored
+     * @since 12.8RC1
+     */
+    @Unstable
+    public FileChannel getContentChannel(XWikiContext xcontext) throws XWikiException, IOException
+    {
+        if (this.content == null && xcontext != null) {
+            reloadAttachmentContent(xcontext);
+        }
+
+        return this.content != null ? this.content.getContentChannel() : null;
+    }
+
     private InputStream getContentInputStream()
     {
         return this.content != null ? this.content.getContentInputStream() : null;
@@ -24,6 +24,8 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.fileupload.disk.DiskFileItem;
@@ -32,6 +34,7 @@
 import org.apache.commons.io.input.BoundedInputStream;
 import org.apache.commons.io.output.ProxyOutputStream;
 import org.xwiki.environment.Environment;
+import org.xwiki.stability.Unstable;
 import org.xwiki.store.UnexpectedException;
 
 import com.xpn.xwiki.web.Utils;
@@ -250,6 +253,26 @@ public InputStream getContentInputStream()
         }
     }
 
+    /**
+     * @return a channel to read the binary content of this attachment directly from the file where it's stored, or
+     *         {@code null} if the content is not stored in a file (in which case {@link #getContentInputStream()}
+     *         should be used)
+     * @throws IOException when failing to open the file where the content is stored
+     * @since 12.8RC1
+     */
+    @Unstable
+    public FileChannel getContentChannel() throws IOException
+    {
+        if (this.file instanceof DiskFileItem && !this.file.isInMemory()) {
+            File storeLocation = ((DiskFileItem) this.file).getStoreLocation();
+            if (storeLocation != null && storeLocation.exists()) {
+                return FileChannel.open(storeLocation.toPath(), StandardOpenOption.READ);
+            }
+        }
+
+        return null;
+    }
+
     /**
      * Set the content of the attachment by writing to a provided OutputStream. Content is *not* appended, this method
      * clears the content and creates new content. If you want to append content, you can call
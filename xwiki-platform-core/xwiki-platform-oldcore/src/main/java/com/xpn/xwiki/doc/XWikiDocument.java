@@ -497,6 +497,12 @@ private static ObjectReferenceResolver<EntityReference> getCurrentReferenceObjec
      */
     private Map<DocumentReference, List<BaseObject>> xObjects = new TreeMap<DocumentReference, List<BaseObject>>();
 
+    /**
+     * The xobjects still shared with the document this document was cloned from (see {@link #lazyClone()}), indexed by
+     * XClass reference. They are cloned and moved to {@link #xObjects} the first time their XClass is accessed.
+     */
+    private Map<DocumentReference, List<BaseObject>> sharedXObjects;
+
     private final XWikiAttachmentList attachmentList = new XWikiAttachmentList(XWikiDocument.this);
 
     // Caching
@@ -2491,9 +2497,109 @@ public void setXClass(BaseClass xwikiClass)
      */
     public Map<DocumentReference, List<BaseObject>> getXObjects()
     {
+        cloneSharedXObjects();
+
         return this.xObjects;
     }
 
+    /**
+     * Read only access to the xobjects of the document, which does not clone the xobjects still shared with the document
+     * this document was cloned from with {@link #lazyClone()}.
+     * <p>
+     * Meant to be used by internal code which only reads the xobjects (e.g. to store or clone the document): neither the
+     * returned map nor its lists should be modified.
+     *
+     * @return the xobjects of the document indexed by XClass reference
+     * @since 12.8RC1
+     */
+    @Unstable
+    public Map<DocumentReference, List<BaseObject>> getReadOnlyXObjects()
+    {
+        if (this.sharedXObjects == null) {
+            return Collections.unmodifiableMap(this.xObjects);
+        }
+
+        // The xobjects of a XClass are either still shared or already cloned
+        Map<DocumentReference, List<BaseObject>> objects = new TreeMap<>(this.xObjects);
+        objects.putAll(this.sharedXObjects);
+
+        return Collections.unmodifiableMap(objects);
+    }
+
+    private List<BaseObject> getXObjectsInternal(DocumentReference classReference)
+    {
+        cloneSharedXObjects(classReference);
+
+        return this.xObjects.get(classReference);
+    }
+
+    private void cloneSharedXObjects()
+    {
+        if (this.sharedXObjects != null) {
+            for (Map.Entry<DocumentReference, List<BaseObject>> entry : this.sharedXObjects.entrySet()) {
+                cloneSharedXObjects(entry.getKey(), entry.getValue());
+            }
+
+            this.sharedXObjects = null;
+        }
+    }
+
+    private void cloneSharedXObjects(DocumentReference classReference)
+    {
+        if (this.sharedXObjects != null && classReference != null) {
+            List<BaseObject> objects = this.sharedXObjects.remove(classReference);
+            if (objects != null) {
+                cloneSharedXObjects(classReference, objects);
+            }
+
+            if (this.sharedXObjects.isEmpty()) {
+                this.sharedXObjects = null;
+            }
+        }
+    }
+
+    private void cloneSharedXObjects(DocumentReference classReference, List<BaseObject> objects)
+    {
+        // Same result as #cloneXObjects but without touching the dirty flags
+        List<BaseObject> clonedObjects = new ArrayList<>(objects.size());
+        for (BaseObject object : objects) {
+            if (object != null) {
+                BaseObject clonedObject = object.clone();
+                clonedObject.setOwnerDocument(this);
+                clonedObject.setNumber(clonedObjects.size());
+                clonedObjects.add(clonedObject);
+            } else {
+                clonedObjects.add(null);
+            }
+        }
+
+        this.xObjects.put(classReference, clonedObjects);
+    }
+
+    /**
+     * Share the xobjects of the passed document instead of cloning them right away.
+     *
+     * @param sourceDocument the document to share the xobjects with
+     */
+    private void shareXObjects(XWikiDocument sourceDocument)
+    {
+        this.xObjects.clear();
+        this.sharedXObjects = new TreeMap<>();
+
+        for (Map.Entry<DocumentReference, List<BaseObject>> entry : sourceDocument.xObjects.entrySet()) {
+            this.sharedXObjects.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        if (sourceDocument.sharedXObjects != null) {
+            for (Map.Entry<DocumentReference, List<BaseObject>> entry : sourceDocument.sharedXObjects.entrySet()) {
+                this.sharedXObjects.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            }
+        }
+
+        if (this.sharedXObjects.isEmpty()) {
+            this.sharedXObjects = null;
+        }
+    }
+
     /**
      * @since 2.2M1
      */
@@ -2520,6 +2626,7 @@ public void setXObjects(Map<DocumentReference, List<BaseObject>> objects)
 
         // Replace the current objects with the provided ones.
         this.xObjects = objects;
+        this.sharedXObjects = null;
     }
 
     /**
@@ -2583,7 +2690,7 @@ public int createXObject(EntityReference classReference, XWikiContext context) t
         BaseObject object = BaseClass.newCustomClassInstance(absoluteClassReference, context);
         object.setOwnerDocument(this);
         object.setXClassReference(classReference);
-        List<BaseObject> objects = this.xObjects.get(absoluteClassReference);
+        List<BaseObject> objects = getXObjectsInternal(absoluteClassReference);
         if (objects == null) {
             objects = new ArrayList<BaseObject>();
             this.xObjects.put(absoluteClassReference, objects);
@@ -2612,7 +2719,7 @@ public int createNewObject(String className, XWikiContext context) throws XWikiE
     public int getXObjectSize(DocumentReference classReference)
     {
         try {
-            return getXObjects().get(classReference).size();
+            return getXObjectsInternal(classReference).size();
         } catch (Exception e) {
             return 0;
         }
@@ -2646,7 +2753,7 @@ public List<BaseObject> getXObjects(DocumentReference classReference)
         List<BaseObject> xobjects = null;
 
         if (classReference != null) {
-            xobjects = getXObjects().get(classReference);
+            xobjects = getXObjectsInternal(classReference);
         }
 
         return xobjects != null ? xobjects : Collections.emptyList();
@@ -2672,7 +2779,7 @@ public List<BaseObject> getXObjects(EntityReference reference)
     @Deprecated
     public Vector<BaseObject> getObjects(String className)
     {
-        List<BaseObject> result = this.xObjects.get(resolveClassReference(className));
+        List<BaseObject> result = getXObjectsInternal(resolveClassReference(className));
         return result == null ? null : new Vector<BaseObject>(result);
     }
 
@@ -2682,7 +2789,7 @@ public Vector<BaseObject> getObjects(String className)
     public void setXObjects(DocumentReference classReference, List<BaseObject> objects)
     {
         // Remove existing objects
-        List<BaseObject> existingbjects = this.xObjects.get(classReference);
+        List<BaseObject> existingbjects = getXObjectsInternal(classReference);
         if (existingbjects != null) {
             existingbjects.clear();
         }
@@ -2731,7 +2838,7 @@ public BaseObject getXObject(EntityReference reference)
     public BaseObject getXObject(DocumentReference classReference)
     {
         BaseObject result = null;
-        List<BaseObject> objects = getXObjects().get(classReference);
+        List<BaseObject> objects = getXObjectsInternal(classReference);
         if (objects != null) {
             for (BaseObject object : objects) {
                 if (object != null) {
@@ -2797,7 +2904,7 @@ public BaseObject getObject(String className)
      */
     public BaseObject getXObject(DocumentReference classReference, int nb)
     {
-        List<BaseObject> objects = getXObjects().get(classReference);
+        List<BaseObject> objects = getXObjectsInternal(classReference);
 
         if (objects != null && objects.size() > nb) {
             return objects.get(nb);
@@ -2903,7 +3010,7 @@ public BaseObject getXObject(DocumentReference classReference, String key, Strin
                 }
             }
 
-            List<BaseObject> objects = getXObjects().get(classReference);
+            List<BaseObject> objects = getXObjectsInternal(classReference);
             if ((objects == null) || (objects.size() == 0)) {
                 return null;
             }
@@ -2947,7 +3054,7 @@ public BaseObject getObject(String className, String key, String value, boolean
     @Deprecated
     public void addXObject(DocumentReference classReference, BaseObject object)
     {
-        List<BaseObject> vobj = this.xObjects.get(classReference);
+        List<BaseObject> vobj = getXObjectsInternal(classReference);
         if (vobj == null) {
             setXObject(classReference, 0, object);
         } else {
@@ -2967,7 +3074,7 @@ public void addXObject(BaseObject object)
     {
         object.setOwnerDocument(this);
 
-        List<BaseObject> vobj = this.xObjects.get(object.getXClassReference());
+        List<BaseObject> vobj = getXObjectsInternal(object.getXClassReference());
         if (vobj == null) {
             setXObject(0, object);
         } else {
@@ -2996,7 +3103,7 @@ public void setXObject(DocumentReference classReference, int nb, BaseObject obje
             object.setNumber(nb);
         }
 
-        List<BaseObject> objects = this.xObjects.get(classReference);
+        List<BaseObject> objects = getXObjectsInternal(classReference);
         if (objects == null) {
             objects = new ArrayList<BaseObject>();
             this.xObjects.put(classReference, objects);
@@ -3022,7 +3129,7 @@ public void setXObject(int nb, BaseObject object)
         object.setOwnerDocument(this);
         object.setNumber(nb);
 
-        List<BaseObject> objects = this.xObjects.get(object.getXClassReference());
+        List<BaseObject> objects = getXObjectsInternal(object.getXClassReference());
         if (objects == null) {
             objects = new ArrayList<BaseObject>();
             this.xObjects.put(object.getXClassReference(), objects);
@@ -3142,9 +3249,10 @@ private void cloneXObjects(XWikiDocument templatedoc, boolean keepsIdentity)
     {
         // clean map
         this.xObjects.clear();
+        this.sharedXObjects = null;
 
-        // fill map
-        for (Map.Entry<DocumentReference, List<BaseObject>> entry : templatedoc.getXObjects().entrySet()) {
+        // fill map (the xobjects are cloned anyway so there is no need to clone the shared ones in the template)
+        for (Map.Entry<DocumentReference, List<BaseObject>> entry : templatedoc.getReadOnlyXObjects().entrySet()) {
             List<BaseObject> tobjects = entry.getValue();
 
             // clone and insert xobjects
@@ -4136,7 +4244,28 @@ public void clone(XWikiDocument document)
     @Override
     public XWikiDocument clone()
     {
-        return cloneInternal(getDocumentReference(), true, false);
+        return cloneInternal(getDocumentReference(), true, false, false);
+    }
+
+    /**
+     * Clone the document but only clone its xobjects when they are accessed, one XClass at a time, and share the
+     * already parsed content. This is much cheaper than {@link #clone()} for documents with many xobjects when only
+     * a few of them (or none) end up being manipulated. Only the xobjects are cloned lazily: the XClass and the
+     * attachments are still cloned right away, like with {@link #clone()}.
+     * <p>
+     * Until they are accessed, the xobjects of the returned document are the instances of this document. Adding or
+     * removing xobjects in one of the documents does not affect the other one, but modifying an xobject of this
+     * document is visible in the returned document as long as the xobjects of its XClass have not been accessed there.
+     * So this method should only be used on documents which are not modified anymore, like the documents stored in the
+     * document cache, which have to be cloned before being modified.
+     *
+     * @return a copy of this document
+     * @since 12.8RC1
+     */
+    @Unstable
+    public XWikiDocument lazyClone()
+    {
+        return cloneInternal(getDocumentReference(), true, false, true);
     }
 
     /**
@@ -4146,7 +4275,7 @@ public XWikiDocument clone()
      */
     public XWikiDocument duplicate(DocumentReference newDocumentReference)
     {
-        return cloneInternal(newDocumentReference, false, false);
+        return cloneInternal(newDocumentReference, false, false, false);
     }
 
     private void cloneDocumentArchive(XWikiDocument originalDocument) throws XWikiException
@@ -4159,7 +4288,8 @@ private void cloneDocumentArchive(XWikiDocument originalDocument) throws XWikiEx
 
     private XWikiDocument cloneInternal(DocumentReference newDocumentReference,
         boolean keepsIdentity,
-        boolean cloneArchive)
+        boolean cloneArchive,
+        boolean shareXObjects)
     {
         XWikiDocument doc = null;
 
@@ -4208,7 +4338,11 @@ private XWikiDocument cloneInternal(DocumentReference newDocumentReference,
 
             if (keepsIdentity) {
                 doc.setXClassXML(getXClassXML());
-                doc.cloneXObjects(this);
+                if (shareXObjects) {
+                    doc.shareXObjects(this);
+                } else {
+                    doc.cloneXObjects(this);
+                }
                 doc.cloneAttachments(this);
             } else {
                 doc.getXClass().setCustomMapping(null);
@@ -4216,6 +4350,11 @@ private XWikiDocument cloneInternal(DocumentReference newDocumentReference,
                 doc.copyAttachments(this);
             }
 
+            // The parsed content is never modified (see #getXDOM()) so it can be shared between the two documents
+            if (newDocumentReference.equals(getDocumentReference())) {
+                doc.xdomCache = this.xdomCache;
+            }
+
             doc.setContentDirty(isContentDirty());
             doc.setMetaDataDirty(isMetaDataDirty());
 
@@ -5264,7 +5403,7 @@ private Set<EntityReference> getUniqueLinkedEntityReferences(XWikiContext contex
                 references = new LinkedHashSet<>();
 
                 // Document content
-                XDOM dom = getXDOM();
+                XDOM dom = getReadOnlyXDOM();
                 getUniqueLinkedEntityReferences(dom, entityType, references);
 
                 // XObjects
@@ -5511,7 +5650,7 @@ public List<String> getChildren(int nb, int start, XWikiContext context) throws
      */
     public void renameProperties(DocumentReference classReference, Map<String, String> fieldsToRename)
     {
-        List<BaseObject> objects = this.xObjects.get(classReference);
+        List<BaseObject> objects = getXObjectsInternal(classReference);
         if (objects == null) {
             return;
         }
@@ -5639,7 +5778,7 @@ private List<String> getIncludedPagesInternal(XWikiContext context)
             return getIncludedPagesForXWiki10Syntax(getContent(), context);
         } else {
             // Find all include macros listed on the page
-            XDOM dom = getXDOM();
+            XDOM dom = getReadOnlyXDOM();
 
             List<String> result = new ArrayList<String>();
             List<MacroBlock> macroBlocks =
@@ -6868,7 +7007,7 @@ public XWikiDocument cloneRename(DocumentReference newDocumentReference, XWikiCo
     {
         loadAttachments(context);
         loadArchive(context);
-        return this.cloneInternal(newDocumentReference, true, true);
+        return this.cloneInternal(newDocumentReference, true, true, false);
     }
 
     /**
@@ -6880,7 +7019,7 @@ public XWikiDocument copyDocument(DocumentReference newDocumentReference, XWikiC
         loadAttachments(context);
         loadArchive(context);
 
-        XWikiDocument newdoc = cloneInternal(newDocumentReference, false, true);
+        XWikiDocument newdoc = cloneInternal(newDocumentReference, false, true, false);
 
         // If the copied document has a title set to the original page name then set the new title to be the new page
         // name.
@@ -7077,7 +7216,7 @@ private String getDefaultEditModeInternal(XWikiContext context) throws XWikiExce
             // Find all include macros and extract the document names
             // TODO: Is there a good way not to hardcode the macro name? The macro itself shouldn't know
             // its own name since it's a deployment time concern.
-            for (Block macroBlock : getXDOM().getBlocks(new MacroBlockMatcher("include"), Axes.CHILD)) {
+            for (Block macroBlock : getReadOnlyXDOM().getBlocks(new MacroBlockMatcher("include"), Axes.CHILD)) {
                 // Find the document reference to include by checking the macro's "reference" parameter.
                 // For backward-compatibility we also check for a "document" parameter since this is the parameter name
                 // that was used prior to XWiki 3.4M1 when the "reference" one was introduced and thus when the
@@ -7683,7 +7822,7 @@ public boolean isProgrammaticContent()
      */
     public boolean removeXObject(BaseObject object)
     {
-        List<BaseObject> objects = this.xObjects.get(object.getXClassReference());
+        List<BaseObject> objects = getXObjectsInternal(object.getXClassReference());
         // No objects at all, nothing to remove
         if (objects == null) {
             return false;
@@ -7740,7 +7879,7 @@ public boolean removeObject(BaseObject object)
      */
     public boolean removeXObjects(DocumentReference classReference)
     {
-        List<BaseObject> objects = this.xObjects.get(classReference);
+        List<BaseObject> objects = getXObjectsInternal(classReference);
         // No objects at all, nothing to remove
         if (objects == null) {
             return false;
@@ -8536,16 +8675,33 @@ public void convertSyntax(Syntax targetSyntax, XWikiContext context) throws XWik
     @Override
     public XDOM getXDOM()
     {
-        if (this.xdomCache == null) {
+        return getReadOnlyXDOM().clone();
+    }
+
+    /**
+     * NOTE: This method caches the XDOM and returns it directly instead of a clone so it must not be modified in any
+     * way (including by creating a new {@link XDOM} with some of its blocks, which changes their parent). Use
+     * {@link #getXDOM()} when the XDOM needs to be modified or transformed.
+     *
+     * @return the XDOM corresponding to the document's string content, shared with other read only callers
+     * @since 12.8RC1
+     */
+    @Unstable
+    public XDOM getReadOnlyXDOM()
+    {
+        XDOM xdom = this.xdomCache;
+
+        if (xdom == null) {
             try {
-                this.xdomCache = parseContent(getContent());
+                xdom = parseContent(getContent());
+                this.xdomCache = xdom;
             } catch (XWikiException e) {
                 ErrorBlockGenerator errorBlockGenerator = Utils.getComponent(ErrorBlockGenerator.class);
                 return new XDOM(errorBlockGenerator.generateErrorBlocks("Failed to render content", e, false));
             }
         }
 
-        return this.xdomCache.clone();
+        return xdom;
     }
 
     /**
@@ -20,12 +20,17 @@
 package com.xpn.xwiki.internal.filter.output;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Provider;
 
+import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.annotation.InstantiationStrategy;
@@ -35,6 +40,7 @@
 import org.xwiki.filter.FilterEventParameters;
 import org.xwiki.filter.FilterException;
 import org.xwiki.filter.event.model.WikiDocumentFilter;
+import org.xwiki.filter.event.model.WikiFilter;
 import org.xwiki.filter.instance.output.DocumentInstanceOutputProperties;
 import org.xwiki.filter.output.AbstractBeanOutputFilterStream;
 import org.xwiki.logging.marker.TranslationMarker;
@@ -42,11 +48,17 @@
 import org.xwiki.model.reference.DocumentReferenceResolver;
 import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.EntityReferenceResolver;
+import org.xwiki.observation.ObservationManager;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.doc.XWikiAttachment;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.doc.XWikiDocumentArchive;
+import com.xpn.xwiki.internal.event.DocumentsBatchSavedEvent;
+import com.xpn.xwiki.internal.event.DocumentsBatchSavingEvent;
+import com.xpn.xwiki.store.XWikiCacheStore;
+import com.xpn.xwiki.store.XWikiHibernateStore;
+import com.xpn.xwiki.store.XWikiStoreInterface;
 import com.xpn.xwiki.store.XWikiVersioningStoreInterface;
 
 /**
@@ -57,7 +69,7 @@
 @Named(DocumentInstanceOutputFilterStreamFactory.ROLEHINT)
 @InstantiationStrategy(ComponentInstantiationStrategy.PER_LOOKUP)
 public class DocumentInstanceOutputFilterStream extends AbstractBeanOutputFilterStream<DocumentInstanceOutputProperties>
-    implements WikiDocumentFilter
+    implements WikiFilter, WikiDocumentFilter
 {
     private static final TranslationMarker LOG_DOCUMENT_CREATED =
         new TranslationMarker("filter.instance.log.document.created", WikiDocumentFilter.LOG_DOCUMENT_CREATED);
@@ -68,6 +80,11 @@ public class DocumentInstanceOutputFilterStream extends AbstractBeanOutputFilter
     private static final TranslationMarker LOG_DOCUMENT_FAILSAVE =
         new TranslationMarker("filter.instance.log.document.failsave", WikiDocumentFilter.LOG_DOCUMENT_ERROR);
 
+    private static final TranslationMarker LOG_BATCH_SAVED = new TranslationMarker("filter.instance.log.batch.saved");
+
+    private static final TranslationMarker LOG_BATCH_FAILSAVE =
+        new TranslationMarker("filter.instance.log.batch.failsave", WikiDocumentFilter.LOG_DOCUMENT_ERROR);
+
     @Inject
     private FilterDescriptorManager filterManager;
 
@@ -89,6 +106,9 @@ public class DocumentInstanceOutputFilterStream extends AbstractBeanOutputFilter
     @Inject
     private EntityOutputFilterStream<XWikiDocument> documentListener;
 
+    @Inject
+    private ObservationManager observation;
+
     @Inject
     private Logger logger;
 
@@ -98,6 +118,30 @@ public class DocumentInstanceOutputFilterStream extends AbstractBeanOutputFilter
 
     private FilterEventParameters currentRevisionParameters;
 
+    /**
+     * The store holding the transaction of the current batch, {@code null} if no batch is in progress.
+     */
+    private XWikiHibernateStore batchStore;
+
+    /**
+     * The wiki targeted by the transaction of the current batch.
+     */
+    private String batchWiki;
+
+    /**
+     * The cache keys of the documents read or saved during the current batch.
+     */
+    private final Set<String> batchDocuments = new LinkedHashSet<>();
+
+    /**
+     * The documents saved during the current batch.
+     */
+    private final List<DocumentReference> batchSavedDocuments = new ArrayList<>();
+
+    private int savedDocuments;
+
+    private long batchesStartTime;
+
     private XWikiDocumentOutputFilterStream getXWikiDocumentOutputFilterStream()
     {
         return (XWikiDocumentOutputFilterStream) this.documentListener;
@@ -112,7 +156,12 @@ protected Object createFilter() throws FilterException
     @Override
     public void close() throws IOException
     {
-        // Nothing to close
+        // Commit the last batch
+        try {
+            endBatch(true);
+        } catch (Exception e) {
+            throw new IOException("Failed to commit the last batch of documents", e);
+        }
     }
 
     @Override
@@ -125,6 +174,19 @@ public void setProperties(DocumentInstanceOutputProperties properties) throws Fi
 
     // Events
 
+    @Override
+    public void beginWiki(String name, FilterEventParameters parameters) throws FilterException
+    {
+        // Nothing to do
+    }
+
+    @Override
+    public void endWiki(String name, FilterEventParameters parameters) throws FilterException
+    {
+        // Don't wait for the stream to be closed (which might never happen) to commit the last batch of the wiki
+        endBatch(true);
+    }
+
     @Override
     public void beginWikiDocument(String name, FilterEventParameters parameters) throws FilterException
     {
@@ -197,6 +259,8 @@ private void maybeSaveDocument() throws FilterException
         XWikiContext xcontext = this.xcontextProvider.get();
 
         try {
+            beginBatch(inputDocument, xcontext);
+
             XWikiDocument databaseDocument =
                 xcontext.getWiki().getDocument(inputDocument.getDocumentReferenceWithLocale(), xcontext);
 
@@ -291,16 +355,157 @@ private void maybeSaveDocument() throws FilterException
                         document.getDocumentReferenceWithLocale());
                 }
             }
+
+            documentSaved(document, xcontext);
         } catch (Exception e) {
             this.logger.error(LOG_DOCUMENT_FAILSAVE, "Failed to save document [{}]",
                 inputDocument.getDocumentReferenceWithLocale(), e);
 
+            failBatch();
+
             if (this.properties.isStoppedWhenSaveFail()) {
                 throw new FilterException("Failed to save document", e);
             }
         }
     }
 
+    private void beginBatch(XWikiDocument inputDocument, XWikiContext xcontext) throws FilterException
+    {
+        if (this.properties.getSaveBatchSize() <= 1) {
+            return;
+        }
+
+        String wiki = inputDocument.getDocumentReference().getWikiReference().getName();
+
+        // A transaction is bound to a database
+        if (this.batchStore != null && !wiki.equals(this.batchWiki)) {
+            endBatch(true);
+        }
+
+        if (this.batchStore == null) {
+            XWikiHibernateStore store = xcontext.getWiki().getHibernateStore();
+            if (store == null) {
+                // Not a database store, save each document in its own transaction
+                return;
+            }
+
+            this.observation.notify(DocumentsBatchSavingEvent.EVENT, null, xcontext);
+
+            String currentWiki = xcontext.getWikiId();
+            try {
+                xcontext.setWikiId(wiki);
+
+                if (!store.beginTransaction(xcontext)) {
+                    // Someone else is already in charge of the transaction
+                    this.observation.notify(DocumentsBatchSavedEvent.EVENT, Boolean.FALSE, xcontext);
+
+                    return;
+                }
+            } catch (Exception e) {
+                this.observation.notify(DocumentsBatchSavedEvent.EVENT, Boolean.FALSE, xcontext);
+
+                throw new FilterException("Failed to start a new batch of documents", e);
+            } finally {
+                xcontext.setWikiId(currentWiki);
+            }
+
+            this.batchStore = store;
+            this.batchWiki = wiki;
+            if (this.batchesStartTime == 0) {
+                this.batchesStartTime = System.currentTimeMillis();
+            }
+        }
+
+        // The document read from the database during the batch might not be committed
+        this.batchDocuments.add(inputDocument.getKey());
+    }
+
+    private void documentSaved(XWikiDocument document, XWikiContext xcontext) throws FilterException
+    {
+        if (this.batchStore != null) {
+            this.batchSavedDocuments.add(document.getDocumentReferenceWithLocale());
+
+            // Make sure the database is up to date for the next queries of the transaction and release the memory
+            // used by the saved entities
+            Session session = this.batchStore.getSession(xcontext);
+            session.flush();
+            session.clear();
+
+            if (this.batchSavedDocuments.size() >= this.properties.getSaveBatchSize()) {
+                endBatch(true);
+            }
+        }
+    }
+
+    /**
+     * Rollback the current batch after a save failure.
+     * <p>
+     * The listeners of the document events have already been notified about the documents saved in the batch: the
+     * listeners which delay their work until the end of the batch (see {@link DocumentsBatchSavingEvent}) will see that
+     * the batch was rolled back, but the others (caches, components registered from wiki pages, etc.) can keep state
+     * which does not match the database until the canceled documents are saved again.
+     */
+    private void failBatch()
+    {
+        if (this.batchStore != null) {
+            this.logger.error(LOG_BATCH_FAILSAVE,
+                "The [{}] documents previously saved in the same batch have been canceled and should be imported again:"
+                    + " {}",
+                this.batchSavedDocuments.size(), this.batchSavedDocuments);
+
+            try {
+                endBatch(false);
+            } catch (FilterException e) {
+                this.logger.error("Failed to rollback the batch of documents", e);
+            }
+        }
+    }
+
+    private void endBatch(boolean commit) throws FilterException
+    {
+        if (this.batchStore == null) {
+            return;
+        }
+
+        XWikiContext xcontext = this.xcontextProvider.get();
+
+        XWikiHibernateStore store = this.batchStore;
+        this.batchStore = null;
+
+        boolean committed = false;
+        try {
+            store.endTransaction(xcontext, commit);
+
+            committed = commit;
+        } catch (Exception e) {
+            throw new FilterException("Failed to commit the batch of documents", e);
+        } finally {
+            // Some of the documents might have been cached by another thread before the end of the transaction or by
+            // the current thread during the transaction
+            XWikiStoreInterface cacheStore = xcontext.getWiki().getStore();
+            if (cacheStore instanceof XWikiCacheStore) {
+                for (String key : this.batchDocuments) {
+                    ((XWikiCacheStore) cacheStore).getCache().remove(key);
+                    ((XWikiCacheStore) cacheStore).getPageExistCache().remove(key);
+                }
+            }
+            this.batchDocuments.clear();
+
+            if (committed) {
+                this.savedDocuments += this.batchSavedDocuments.size();
+            }
+            this.batchSavedDocuments.clear();
+
+            this.observation.notify(DocumentsBatchSavedEvent.EVENT, committed, xcontext);
+        }
+
+        if (committed) {
+            long time = System.currentTimeMillis() - this.batchesStartTime;
+            this.logger.info(LOG_BATCH_SAVED, "Saved [{}] documents ([{}] documents per second)", this.savedDocuments,
+                time > 0 ? this.savedDocuments * 1000L / time : this.savedDocuments);
+        }
+    }
+
     private void setAuthorReference(XWikiDocument document, DocumentReference authorReference)
     {
         // Document author
@@ -0,0 +1,333 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.mandatory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.environment.Environment;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryException;
+import org.xwiki.query.QueryManager;
+
+import com.xpn.xwiki.doc.MandatoryDocumentInitializer;
+import com.xpn.xwiki.doc.XWikiDocument;
+
+/**
+ * Remember, for each wiki, the state of the mandatory documents the last time their initializer checked them so that
+ * the initializers which did not change since then don't need to load their document again as long as it was not
+ * modified.
+ * <p>
+ * The fingerprint of an initializer is made of the location of its class and of the classes it extends and the date of
+ * those locations (so it changes when the jar containing the initializer or one of its parent classes is upgraded)
+ * while the state of the document is made of its version and date.
+ *
+ * @version $Id$
+ * @since 12.8RC1
+ */
+@Component(roles = MandatoryDocumentInitializerFingerprints.class)
+@Singleton
+public class MandatoryDocumentInitializerFingerprints
+{
+    private static final String DIRECTORY = "mandatory";
+
+    private static final String FILE_EXTENSION = ".properties";
+
+    private static final char SEPARATOR = '|';
+
+    private static final String DOCUMENTS_QUERY = "select doc.fullName, doc.version, doc.date from XWikiDocument doc"
+        + " where doc.fullName in (:names) and (doc.language = '' or doc.language is null)";
+
+    @Inject
+    private Environment environment;
+
+    @Inject
+    private QueryManager queryManager;
+
+    @Inject
+    @Named("current")
+    private DocumentReferenceResolver<EntityReference> resolver;
+
+    @Inject
+    @Named("local")
+    private EntityReferenceSerializer<String> localSerializer;
+
+    @Inject
+    private Logger logger;
+
+    private final Map<Class<?>, Optional<String>> initializerFingerprints = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Properties> wikis = new ConcurrentHashMap<>();
+
+    /**
+     * @param initializers the initializers to check
+     * @param wiki the wiki where the mandatory documents are initialized
+     * @return the initializers which already checked their document in the passed wiki and for which nothing changed
+     *         since then
+     */
+    public Set<MandatoryDocumentInitializer> getUpToDate(Collection<MandatoryDocumentInitializer> initializers,
+        String wiki)
+    {
+        Properties fingerprints = getFingerprints(wiki);
+        if (fingerprints.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        // Gather the initializers which could be skipped
+        Map<String, String> candidates = new HashMap<>();
+        Map<String, MandatoryDocumentInitializer> candidateInitializers = new HashMap<>();
+        for (MandatoryDocumentInitializer initializer : initializers) {
+            DocumentReference documentReference = getDocumentReference(initializer, wiki);
+
+            if (documentReference != null) {
+                String key = getKey(initializer, documentReference);
+                String initializerFingerprint = getInitializerFingerprint(initializer);
+                if (initializerFingerprint != null && fingerprints.containsKey(key)) {
+                    candidates.put(key, initializerFingerprint);
+                    candidateInitializers.put(key, initializer);
+                }
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        // Get the current state of all the documents at once
+        Map<String, String> documentStates = getDocumentStates(candidateInitializers.values(), wiki);
+
+        Set<MandatoryDocumentInitializer> upToDate = new HashSet<>();
+        for (Map.Entry<String, String> entry : candidates.entrySet()) {
+            MandatoryDocumentInitializer initializer = candidateInitializers.get(entry.getKey());
+            String documentState =
+                documentStates.get(this.localSerializer.serialize(getDocumentReference(initializer, wiki)));
+
+            if (documentState != null && fingerprints.getProperty(entry.getKey())
+                .equals(getFingerprint(entry.getValue(), documentState))) {
+                upToDate.add(initializer);
+            }
+        }
+
+        return upToDate;
+    }
+
+    /**
+     * Remember the state of the document after being checked by the initializer.
+     *
+     * @param initializer the initializer which checked the document
+     * @param document the document, as it is in the database after the check
+     */
+    public void setChecked(MandatoryDocumentInitializer initializer, XWikiDocument document)
+    {
+        String initializerFingerprint = getInitializerFingerprint(initializer);
+        Properties fingerprints = getFingerprints(document.getDocumentReference().getWikiReference().getName());
+        String key = getKey(initializer, document.getDocumentReference());
+
+        if (initializerFingerprint != null && !document.isNew()) {
+            fingerprints.setProperty(key,
+                getFingerprint(initializerFingerprint, getDocumentState(document.getVersion(), document.getDate())));
+        } else {
+            fingerprints.remove(key);
+        }
+    }
+
+    /**
+     * Persist the fingerprints of the passed wiki.
+     *
+     * @param wiki the wiki
+     */
+    public void save(String wiki)
+    {
+        Properties fingerprints = getFingerprints(wiki);
+
+        try {
+            File file = getFile(wiki);
+            file.getParentFile().mkdirs();
+
+            try (OutputStream stream = new FileOutputStream(file)) {
+                fingerprints.store(stream, null);
+            }
+        } catch (IOException e) {
+            this.logger.warn("Failed to save the mandatory document fingerprints of wiki [{}]: {}", wiki,
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+    }
+
+    private Properties getFingerprints(String wiki)
+    {
+        return this.wikis.computeIfAbsent(wiki, this::loadFingerprints);
+    }
+
+    private Properties loadFingerprints(String wiki)
+    {
+        Properties fingerprints = new Properties();
+
+        try {
+            File file = getFile(wiki);
+            if (file.exists()) {
+                try (InputStream stream = new FileInputStream(file)) {
+                    fingerprints.load(stream);
+                }
+            }
+        } catch (IOException e) {
+            this.logger.warn("Failed to load the mandatory document fingerprints of wiki [{}]: {}", wiki,
+                ExceptionUtils.getRootCauseMessage(e));
+
+            fingerprints.clear();
+        }
+
+        return fingerprints;
+    }
+
+    private File getFile(String wiki) throws UnsupportedEncodingException
+    {
+        File directory = new File(this.environment.getPermanentDirectory(), DIRECTORY);
+
+        return new File(directory, URLEncoder.encode(wiki, StandardCharsets.UTF_8.name()) + FILE_EXTENSION);
+    }
+
+    private DocumentReference getDocumentReference(MandatoryDocumentInitializer initializer, String wiki)
+    {
+        DocumentReference documentReference =
+            this.resolver.resolve(initializer.getDocumentReference(), new WikiReference(wiki));
+
+        // The initializer might target a specific wiki
+        return documentReference.getWikiReference().getName().equals(wiki) ? documentReference : null;
+    }
+
+    private String getKey(MandatoryDocumentInitializer initializer, DocumentReference documentReference)
+    {
+        return initializer.getClass().getName() + SEPARATOR + this.localSerializer.serialize(documentReference);
+    }
+
+    private String getFingerprint(String initializerFingerprint, String documentState)
+    {
+        return initializerFingerprint + SEPARATOR + documentState;
+    }
+
+    private String getDocumentState(String version, Date date)
+    {
+        // Some databases don't store the milliseconds
+        return version + SEPARATOR + (date != null ? date.getTime() / 1000 : 0);
+    }
+
+    private String getInitializerFingerprint(MandatoryDocumentInitializer initializer)
+    {
+        return this.initializerFingerprints
+            .computeIfAbsent(initializer.getClass(), c -> Optional.ofNullable(computeInitializerFingerprint(c)))
+            .orElse(null);
+    }
+
+    private String computeInitializerFingerprint(Class<?> initializerClass)
+    {
+        // The initializer behavior also depends on the classes it extends (which might come from another jar)
+        StringBuilder fingerprint = new StringBuilder();
+        for (Class<?> currentClass = initializerClass; currentClass != null && currentClass != Object.class;
+            currentClass = currentClass.getSuperclass()) {
+            String classFingerprint = computeClassFingerprint(currentClass);
+            if (classFingerprint == null) {
+                return null;
+            }
+
+            if (fingerprint.length() > 0) {
+                fingerprint.append(',');
+            }
+            fingerprint.append(classFingerprint);
+        }
+
+        return fingerprint.toString();
+    }
+
+    private String computeClassFingerprint(Class<?> currentClass)
+    {
+        // Classes generated at runtime (wiki components, proxies, etc.) cannot be trusted
+        URL location = currentClass.getResource('/' + currentClass.getName().replace('.', '/') + ".class");
+        if (location == null) {
+            return null;
+        }
+
+        try {
+            long lastModified = location.openConnection().getLastModified();
+
+            return lastModified > 0 ? location.toString() + '@' + lastModified : null;
+        } catch (IOException e) {
+            this.logger.debug("Failed to get the date of [{}]", location, e);
+
+            return null;
+        }
+    }
+
+    private Map<String, String> getDocumentStates(Collection<MandatoryDocumentInitializer> initializers, String wiki)
+    {
+        List<String> names = new ArrayList<>(initializers.size());
+        for (MandatoryDocumentInitializer initializer : initializers) {
+            names.add(this.localSerializer.serialize(getDocumentReference(initializer, wiki)));
+        }
+
+        Map<String, String> states = new HashMap<>(names.size());
+        try {
+            Query query = this.queryManager.createQuery(DOCUMENTS_QUERY, Query.HQL);
+            query.bindValue("names", names);
+            query.setWiki(wiki);
+
+            for (Object[] result : query.<Object[]>execute()) {
+                states.put((String) result[0], getDocumentState((String) result[1], (Date) result[2]));
+            }
+        } catch (QueryException e) {
+            this.logger.warn("Failed to get the state of the mandatory documents of wiki [{}]: {}", wiki,
+                ExceptionUtils.getRootCauseMessage(e));
+        }
+
+        return states;
+    }
+}
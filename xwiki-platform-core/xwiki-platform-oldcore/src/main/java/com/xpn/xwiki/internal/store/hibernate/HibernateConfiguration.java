@@ -64,6 +64,16 @@ public boolean hasDynamicCustomMappings()
         return "1".equals(this.xwikiConfiguration.getProperty("xwiki.store.hibernate.custommapping.dynamic", "0"));
     }
 
+    /**
+     * @return true if the properties of all the objects of a document should be loaded with one query per property
+     *         type instead of several queries per object
+     * @since 12.8RC1
+     */
+    public boolean isBulkObjectLoading()
+    {
+        return "1".equals(this.xwikiConfiguration.getProperty("xwiki.store.hibernate.bulkObjectLoading", "0"));
+    }
+
     /**
      * @return the path to the hibernate configuration file
      */
@@ -19,6 +19,7 @@
  */
 package com.xpn.xwiki.internal.template;
 
+import java.io.File;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.Writer;
@@ -41,9 +42,14 @@
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.component.manager.ComponentLookupException;
 import org.xwiki.component.manager.ComponentManager;
@@ -58,6 +64,9 @@
 import org.xwiki.job.event.status.JobProgressManager;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.observation.EventListener;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.observation.event.Event;
 import org.xwiki.properties.BeanManager;
 import org.xwiki.properties.ConverterManager;
 import org.xwiki.properties.PropertyException;
@@ -83,6 +92,9 @@
 import org.xwiki.skin.Skin;
 import org.xwiki.template.Template;
 import org.xwiki.template.TemplateContent;
+import org.xwiki.template.event.TemplateDeletedEvent;
+import org.xwiki.template.event.TemplateEvent;
+import org.xwiki.template.event.TemplateUpdatedEvent;
 
 import com.xpn.xwiki.XWiki;
 import com.xpn.xwiki.internal.skin.AbstractEnvironmentResource;
@@ -110,6 +122,8 @@ public class InternalTemplateManager implements Initializable
 
     private static final String TEMPLATE_RESOURCE_SUFFIX = "/templates/";
 
+    private static final List<Event> EVENTS = Arrays.asList(new TemplateUpdatedEvent(), new TemplateDeletedEvent());
+
     @Inject
     private Environment environment;
 
@@ -163,12 +177,36 @@ public class InternalTemplateManager implements Initializable
     @Inject
     private VelocityTemplateEvaluator evaluator;
 
+    @Inject
+    private ObservationManager observation;
+
+    @Inject
+    private CacheManager cacheManager;
+
     @Inject
     private Logger logger;
 
     private String templateRootURL;
 
-    private static abstract class AbtractTemplate<T extends TemplateContent, R extends Resource<?>> implements Template
+    /**
+     * The already loaded template contents indexed by template id.
+     */
+    private Cache<CachedTemplateContent> contentCache;
+
+    private static final class CachedTemplateContent
+    {
+        private final Object version;
+
+        private final TemplateContent content;
+
+        CachedTemplateContent(Object version, TemplateContent content)
+        {
+            this.version = version;
+            this.content = content;
+        }
+    }
+
+    private abstract class AbtractTemplate<T extends TemplateContent, R extends Resource<?>> implements Template
     {
         protected R resource;
 
@@ -192,33 +230,64 @@ public String getPath()
         }
 
         @Override
+        @SuppressWarnings("unchecked")
         public TemplateContent getContent() throws Exception
         {
             if (this.content == null) {
-                // TODO: work with streams instead of forcing String
-                String strinContent;
-
-                try (InputSource source = this.resource.getInputSource()) {
-                    if (source instanceof StringInputSource) {
-                        strinContent = source.toString();
-                    } else if (source instanceof ReaderInputSource) {
-                        strinContent = IOUtils.toString(((ReaderInputSource) source).getReader());
-                    } else if (source instanceof InputStreamInputSource) {
-                        // It's impossible to know the real attachment encoding, but let's assume that they respect the
-                        // standard and use UTF-8 (which is required for the files located on the filesystem)
-                        strinContent = IOUtils.toString(((InputStreamInputSource) source).getInputStream(),
-                            StandardCharsets.UTF_8);
+                Object version = getContentVersion();
+
+                if (version != null) {
+                    // Reuse the content already loaded if the template did not change since then
+                    CachedTemplateContent cachedContent = contentCache.get(getId());
+                    if (cachedContent != null && version.equals(cachedContent.version)) {
+                        this.content = (T) cachedContent.content;
                     } else {
-                        return null;
+                        this.content = loadContent();
+
+                        if (this.content != null) {
+                            contentCache.set(getId(), new CachedTemplateContent(version, this.content));
+                        }
                     }
+                } else {
+                    this.content = loadContent();
                 }
-
-                this.content = getContentInternal(strinContent);
             }
 
             return this.content;
         }
 
+        /**
+         * @return an object which changes when the content of the template changes or {@code null} if the content
+         *         should not be cached
+         */
+        protected Object getContentVersion()
+        {
+            return null;
+        }
+
+        private T loadContent() throws Exception
+        {
+            // TODO: work with streams instead of forcing String
+            String strinContent;
+
+            try (InputSource source = this.resource.getInputSource()) {
+                if (source instanceof StringInputSource) {
+                    strinContent = source.toString();
+                } else if (source instanceof ReaderInputSource) {
+                    strinContent = IOUtils.toString(((ReaderInputSource) source).getReader());
+                } else if (source instanceof InputStreamInputSource) {
+                    // It's impossible to know the real attachment encoding, but let's assume that they respect the
+                    // standard and use UTF-8 (which is required for the files located on the filesystem)
+                    strinContent = IOUtils.toString(((InputStreamInputSource) source).getInputStream(),
+                        StandardCharsets.UTF_8);
+                } else {
+                    return null;
+                }
+            }
+
+            return getContentInternal(strinContent);
+        }
+
         protected abstract T getContentInternal(String content) throws Exception;
 
         @Override
@@ -235,6 +304,12 @@ private class EnvironmentTemplate extends AbtractTemplate<FilesystemTemplateCont
             super(resource);
         }
 
+        @Override
+        protected Object getContentVersion()
+        {
+            return getResourceVersion(environment.getResource(this.resource.getPath()));
+        }
+
         @Override
         protected FilesystemTemplateContent getContentInternal(String content)
         {
@@ -244,9 +319,19 @@ protected FilesystemTemplateContent getContentInternal(String content)
 
     private class ClassloaderTemplate extends AbtractTemplate<FilesystemTemplateContent, ClassloaderResource>
     {
-        ClassloaderTemplate(ClassloaderResource resource)
+        private final URL url;
+
+        ClassloaderTemplate(ClassloaderResource resource, URL url)
         {
             super(resource);
+
+            this.url = url;
+        }
+
+        @Override
+        protected Object getContentVersion()
+        {
+            return getResourceVersion(this.url);
         }
 
         @Override
@@ -263,6 +348,20 @@ private class DefaultTemplate extends AbtractTemplate<DefaultTemplateContent, Re
             super(resource);
         }
 
+        @Override
+        protected Object getContentVersion()
+        {
+            if (this.resource instanceof WikiResource) {
+                // Wiki templates are removed from the cache when modified but the author of the document can change
+                // without the template being modified
+                DocumentReference authorReference = ((WikiResource<?>) this.resource).getAuthorReference();
+
+                return authorReference != null ? authorReference : StringUtils.EMPTY;
+            }
+
+            return null;
+        }
+
         @Override
         protected DefaultTemplateContent getContentInternal(String content)
         {
@@ -526,6 +625,54 @@ public void setPrivileged(boolean privileged)
     public void initialize() throws InitializationException
     {
         getTemplateRootPath();
+
+        try {
+            this.contentCache =
+                this.cacheManager.createNewCache(new LRUCacheConfiguration("templates.content", 1000, 86400));
+        } catch (CacheException e) {
+            throw new InitializationException("Failed to initialize the template content cache", e);
+        }
+
+        this.observation.addListener(new EventListener()
+        {
+            @Override
+            public void onEvent(Event event, Object source, Object data)
+            {
+                contentCache.remove(((TemplateEvent) event).getId());
+            }
+
+            @Override
+            public String getName()
+            {
+                return InternalTemplateManager.class.getName();
+            }
+
+            @Override
+            public List<Event> getEvents()
+            {
+                return EVENTS;
+            }
+        });
+    }
+
+    private Object getResourceVersion(URL url)
+    {
+        if (url != null) {
+            File file = FileUtils.toFile(url);
+            if (file != null) {
+                long lastModified = file.lastModified();
+
+                // 0 means that the file does not exist or cannot be accessed
+                return lastModified > 0 ? lastModified : null;
+            }
+
+            // The content of a jar is not supposed to change without its URL changing
+            if ("jar".equals(url.getProtocol())) {
+                return url.toExternalForm();
+            }
+        }
+
+        return null;
     }
 
     private String getTemplateRootPath()
@@ -898,7 +1045,7 @@ private Template getClassloaderTemplate(ClassLoader classloader, String suffixPa
 
         URL url = classloader.getResource(templatePath);
 
-        return url != null ? new ClassloaderTemplate(new ClassloaderResource(url, templateName)) : null;
+        return url != null ? new ClassloaderTemplate(new ClassloaderResource(url, templateName), url) : null;
     }
 
     private Template createTemplate(Resource<?> resource)
@@ -73,7 +73,7 @@ public void onEvent(Event event, Object source, Object data)
         XWikiDocument document = (XWikiDocument) source;
 
         // Is this a skin document
-        if (document.getXObject(WikiSkinUtils.SKINCLASS_REFERENCE) != null) {
+        if (isSkinDocument(document, event)) {
             if (event instanceof AbstractAttachmentEvent) {
                 AttachmentReference attachment = new AttachmentReference(((AbstractAttachmentEvent) event).getName(),
                     document.getDocumentReference());
@@ -93,4 +93,22 @@ public void onEvent(Event event, Object source, Object data)
             }
         }
     }
+
+    private boolean isSkinDocument(XWikiDocument document, Event event)
+    {
+        if (document.getXObject(WikiSkinUtils.SKINCLASS_REFERENCE) != null) {
+            return true;
+        }
+
+        // When the document is deleted the source is an empty document and the skin object is only found in the
+        // original document
+        if (event instanceof AttachmentDeletedEvent || event instanceof XObjectPropertyDeletedEvent) {
+            XWikiDocument originalDocument = document.getOriginalDocument();
+
+            return originalDocument != null
+                && originalDocument.getXObject(WikiSkinUtils.SKINCLASS_REFERENCE) != null;
+        }
+
+        return false;
+    }
 }
@@ -92,6 +92,8 @@ public void evaluateContent(Template template, TemplateContent content, Writer w
             "Evaluate content of template with id [{}]", template.getId());
 
         try {
+            // The parsed template cannot be reused: the Velocity engine only evaluates a Reader and the macros of the
+            // template are registered in the macro namespace while parsing it
             this.velocityManager.evaluate(writer, namespace, new StringReader(content.getContent()));
         } finally {
             // Get rid of temporary rendering context
@@ -84,18 +84,45 @@ public String getId()
         return String.format("%s %s %s %s", getClass(), this.name, this.action, this.period);
     }
 
+    /**
+     * @return true if this statistic is part of a user visit
+     */
+    boolean isVisit()
+    {
+        return this.isVisit;
+    }
+
     @Override
     public void storeInternal(List<XWikiStatsStoreItem> stats)
     {
         DocumentStatsStoreItem lastItem = (DocumentStatsStoreItem) stats.get(stats.size() - 1);
 
+        int visits = 0;
+        for (XWikiStatsStoreItem statItem : stats) {
+            DocumentStatsStoreItem docStat = (DocumentStatsStoreItem) statItem;
+
+            if (docStat.isVisit) {
+                visits++;
+            }
+        }
+
+        lastItem.storeCounters(stats.size(), visits);
+    }
+
+    /**
+     * Add the passed counters to the statistics stored in the database.
+     *
+     * @param pageViews the number of page views to add
+     * @param visits the number of visits to add
+     */
+    void storeCounters(int pageViews, int visits)
+    {
         XWikiHibernateStore store = this.context.getWiki().getHibernateStore();
         if (store == null) {
             return;
         }
 
-        DocumentStats documentStat =
-            new DocumentStats(lastItem.name, lastItem.action, lastItem.periodDate, lastItem.periodType);
+        DocumentStats documentStat = new DocumentStats(this.name, this.action, this.periodDate, this.periodType);
 
         // Load old statistics object from database
         try {
@@ -108,14 +135,8 @@ public void storeInternal(List<XWikiStatsStoreItem> stats)
         }
 
         // Increment counters
-        documentStat.setIntValue("pageViews", documentStat.getPageViews() + stats.size());
-        for (XWikiStatsStoreItem statItem : stats) {
-            DocumentStatsStoreItem docStat = (DocumentStatsStoreItem) statItem;
-
-            if (docStat.isVisit) {
-                documentStat.incVisits();
-            }
-        }
+        documentStat.setIntValue("pageViews", documentStat.getPageViews() + pageViews);
+        documentStat.setVisits(documentStat.getVisits() + visits);
 
         // Re-save statistics object
         try {
@@ -19,28 +19,42 @@
  */
 package com.xpn.xwiki.stats.impl.xwiki;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xwiki.context.Execution;
 import org.xwiki.context.ExecutionContext;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.stats.impl.StatsUtil;
 import com.xpn.xwiki.stats.impl.VisitStats;
+import com.xpn.xwiki.store.XWikiHibernateStore;
 import com.xpn.xwiki.util.AbstractXWikiRunnable;
 import com.xpn.xwiki.web.DownloadAction;
 import com.xpn.xwiki.web.SaveAction;
+import com.xpn.xwiki.web.Utils;
 import com.xpn.xwiki.web.ViewAction;
 
 /**
  * Back-end statistics storing service.
+ * <p>
+ * The statistics are aggregated in memory without ever blocking the request threads: the document statistics are
+ * counted and only one pending statistic is kept per visit and referer. When the service is overloaded the new
+ * statistics are dropped. Everything is stored periodically, in one transaction per wiki.
  *
  * @version $Id$
  * @since 1.4M2
@@ -53,9 +67,49 @@ public class XWikiStatsStoreService extends AbstractXWikiRunnable
     private static final Logger LOGGER = LoggerFactory.getLogger(XWikiStatsStoreService.class);
 
     /**
-     * The queue containing the statistics to store.
+     * The other statistics (visits, referers) waiting to be stored, aggregated by wiki and statistics identifier.
      */
-    private ArrayBlockingQueue<XWikiStatsStoreItem> queue;
+    private final Map<String, PendingStats> pendingStats = new ConcurrentHashMap<>();
+
+    /**
+     * The maximum number of aggregated other statistics waiting to be stored.
+     */
+    private int maxPendingStats;
+
+    /**
+     * Used to store the other statistics in the order they were first added.
+     */
+    private final AtomicLong pendingSequence = new AtomicLong();
+
+    /**
+     * The document statistics waiting to be stored, aggregated by wiki and statistics identifier.
+     */
+    private final Map<String, DocumentStatsCounter> documentCounters = new ConcurrentHashMap<>();
+
+    /**
+     * The maximum number of aggregated document statistics waiting to be stored.
+     */
+    private int maxDocumentCounters;
+
+    /**
+     * The time to wait between two storages, in milliseconds.
+     */
+    private long flushInterval;
+
+    /**
+     * The number of statistics dropped because the service was overloaded since the previous storage.
+     */
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * The total number of statistics dropped because the service was overloaded.
+     */
+    private final AtomicLong totalDropped = new AtomicLong();
+
+    /**
+     * Released when the storing thread should stop.
+     */
+    private final CountDownLatch stopSignal = new CountDownLatch(1);
 
     /**
      * The thread on which the storing service is running.
@@ -75,8 +129,9 @@ public class XWikiStatsStoreService extends AbstractXWikiRunnable
     public XWikiStatsStoreService(XWikiContext context)
     {
         this.xwikiContext = context.clone();
-        long queueSize = context.getWiki().ParamAsLong("stats.queue.size", 200);
-        this.queue = new ArrayBlockingQueue<>((int) queueSize);
+        this.maxPendingStats = (int) context.getWiki().ParamAsLong("stats.queue.size", 10000);
+        this.maxDocumentCounters = (int) context.getWiki().ParamAsLong("stats.counters.size", 10000);
+        this.flushInterval = context.getWiki().ParamAsLong("stats.flush.interval", 10) * 1000;
     }
 
     @Override
@@ -100,13 +155,12 @@ public void start()
     }
 
     /**
-     * Stop storing thread.
+     * Stop storing thread, after storing the pending statistics.
      */
     public void stop()
     {
-        this.queue.clear();
+        this.stopSignal.countDown();
         try {
-            this.queue.put(new StopStatsRegisterObject());
             this.thread.join();
             this.thread = null;
         } catch (InterruptedException e) {
@@ -116,61 +170,146 @@ public void stop()
         }
     }
 
+    /**
+     * @return the total number of statistics which were dropped because the service was overloaded
+     * @since 12.8RC1
+     */
+    public long getDroppedStatistics()
+    {
+        return this.totalDropped.get() + this.dropped.sum();
+    }
+
     @Override
     public void runInternal() throws InterruptedException
     {
         try {
-            while (true) {
+            while (!this.stopSignal.await(this.flushInterval, TimeUnit.MILLISECONDS)) {
                 register();
             }
+
+            if (LOGGER.isInfoEnabled()) {
+                LOGGER.info("Statistics storing thread received stop order.");
+            }
+
+            // Store the statistics gathered since the last storage so that they are not lost
+            register();
         } catch (InterruptedException e) {
             if (LOGGER.isWarnEnabled()) {
                 LOGGER.warn("Statistics storing thread has been interrupted.", e);
             }
             throw e;
-        } catch (StopStatsStoreException e) {
-            if (LOGGER.isInfoEnabled()) {
-                LOGGER.warn("Statistics storing thread received stop order.", e);
-            }
         }
     }
 
     /**
-     * Store the statistics in the queue.
-     *
-     * @throws InterruptedException thread has been interrupted.
-     * @throws StopStatsStoreException service received stop order.
+     * Store the statistics gathered since the previous call.
      */
-    private void register() throws InterruptedException, StopStatsStoreException
+    void register()
     {
-        XWikiStatsStoreItem stat = this.queue.take();
+        long droppedCount = this.dropped.sumThenReset();
+        if (droppedCount > 0) {
+            this.totalDropped.addAndGet(droppedCount);
 
-        List<List<XWikiStatsStoreItem>> statsList = new ArrayList<>();
-        Map<String, List<XWikiStatsStoreItem>> statsMap = new HashMap<>();
+            LOGGER.warn("[{}] statistics have been dropped because the statistics storing service is overloaded",
+                droppedCount);
+        }
+
+        // Group the statistics by wiki to store them in one transaction per wiki
+        Map<String, List<Runnable>> wikiStats = new LinkedHashMap<>();
+        Map<String, XWikiContext> wikiContexts = new HashMap<>();
 
-        do {
-            if (stat instanceof StopStatsRegisterObject) {
-                throw new StopStatsStoreException();
+        List<PendingStats> pendingList = new ArrayList<>(this.pendingStats.size());
+        for (String key : this.pendingStats.keySet()) {
+            // The statistics added from now on will be stored the next time
+            PendingStats pending = this.pendingStats.remove(key);
+            if (pending != null) {
+                pendingList.add(pending);
             }
+        }
+        // A visit might be stored under a new identifier (e.g. when the user logs in) in which case the statistics of
+        // the previous identifier must be stored first
+        pendingList.sort(Comparator.comparingLong(PendingStats::getSequence));
+        for (PendingStats pending : pendingList) {
+            List<XWikiStatsStoreItem> stats = pending.getItems();
+            XWikiStatsStoreItem stat = stats.get(0);
+            addStat(getWiki(stat), stat, () -> stat.store(stats), wikiStats, wikiContexts);
+        }
 
-            String statId = stat.getId();
+        for (Map.Entry<String, DocumentStatsCounter> entry : this.documentCounters.entrySet()) {
+            DocumentStatsCounter counter = entry.getValue();
+            long value = counter.reset();
+
+            if (value == 0) {
+                // Forget the statistics which were not updated since the previous storage
+                if (counter.retire()) {
+                    this.documentCounters.remove(entry.getKey(), counter);
+                }
+            } else {
+                DocumentStatsStoreItem stat = counter.getItem();
+                addStat(stat.context.getWikiId(), stat,
+                    () -> stat.storeCounters(DocumentStatsCounter.getPageViews(value),
+                        DocumentStatsCounter.getVisits(value)), wikiStats, wikiContexts);
+            }
+        }
+
+        for (Map.Entry<String, List<Runnable>> entry : wikiStats.entrySet()) {
+            store(wikiContexts.get(entry.getKey()), entry.getValue());
+        }
+    }
 
-            List<XWikiStatsStoreItem> stats = statsMap.get(statId);
+    private String getWiki(XWikiStatsStoreItem stat)
+    {
+        return stat instanceof AbstractStatsStoreItem ? ((AbstractStatsStoreItem) stat).context.getWikiId() : null;
+    }
 
-            if (stats == null) {
-                stats = new ArrayList<>();
+    private void addStat(String wiki, XWikiStatsStoreItem stat, Runnable storage, Map<String, List<Runnable>> wikiStats,
+        Map<String, XWikiContext> wikiContexts)
+    {
+        if (wiki != null) {
+            wikiStats.computeIfAbsent(wiki, k -> new ArrayList<>()).add(storage);
+            wikiContexts.putIfAbsent(wiki, ((AbstractStatsStoreItem) stat).context);
+        } else {
+            storage.run();
+        }
+    }
 
-                statsMap.put(statId, stats);
-                statsList.add(stats);
+    /**
+     * Store the statistics of a wiki in one transaction.
+     *
+     * @param context the XWiki context to use
+     * @param storages the storage of each statistic
+     */
+    private void store(XWikiContext context, List<Runnable> storages)
+    {
+        ExecutionContext econtext = Utils.getComponent(Execution.class).getContext();
+
+        XWikiContext currentContext = (XWikiContext) econtext.getProperty(XWikiContext.EXECUTIONCONTEXT_KEY);
+
+        XWikiHibernateStore store = context.getWiki().getHibernateStore();
+        boolean transaction = false;
+        try {
+            econtext.setProperty(XWikiContext.EXECUTIONCONTEXT_KEY, context);
+
+            if (store != null) {
+                transaction = store.beginTransaction(context);
             }
 
-            stats.add(stat);
+            for (Runnable storage : storages) {
+                storage.run();
+            }
 
-            stat = this.queue.poll();
-        } while (stat != null);
+            if (transaction) {
+                transaction = false;
+                store.endTransaction(context, true);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Failed to store the statistics of wiki [{}]", context.getWikiId(), e);
 
-        for (List<XWikiStatsStoreItem> stats : statsList) {
-            stats.get(0).store(stats);
+            if (transaction) {
+                store.endTransaction(context, false);
+            }
+        } finally {
+            econtext.setProperty(XWikiContext.EXECUTIONCONTEXT_KEY, currentContext);
         }
     }
 
@@ -180,15 +319,59 @@ private void register() throws InterruptedException, StopStatsStoreException
 
     /**
      * Add new statistic to store.
+     * <p>
+     * This method never blocks: the statistic is dropped if the service is overloaded.
      *
      * @param statsRegisterItem the statistic store item.
      */
     public void add(XWikiStatsStoreItem statsRegisterItem)
     {
-        try {
-            this.queue.put(statsRegisterItem);
-        } catch (InterruptedException e) {
-            LOGGER.error("Statistics storage thread has been interrupted", e);
+        boolean added;
+        if (statsRegisterItem instanceof DocumentStatsStoreItem) {
+            added = aggregate((DocumentStatsStoreItem) statsRegisterItem);
+        } else {
+            added = enqueue(statsRegisterItem);
+        }
+
+        if (!added) {
+            this.dropped.increment();
+        }
+    }
+
+    private boolean enqueue(XWikiStatsStoreItem stat)
+    {
+        String key = getWiki(stat) + ' ' + stat.getId();
+
+        if (this.pendingStats.size() >= this.maxPendingStats && !this.pendingStats.containsKey(key)) {
+            return false;
+        }
+
+        this.pendingStats.compute(key, (k, pending) -> pending != null ? pending.add(stat)
+            : new PendingStats(stat, this.pendingSequence.incrementAndGet()));
+
+        return true;
+    }
+
+    private boolean aggregate(DocumentStatsStoreItem stat)
+    {
+        String key = stat.context.getWikiId() + ' ' + stat.getId();
+
+        // The counter might be retired by the storing thread in the meantime
+        while (true) {
+            DocumentStatsCounter counter = this.documentCounters.get(key);
+            if (counter == null) {
+                if (this.documentCounters.size() >= this.maxDocumentCounters) {
+                    return false;
+                }
+
+                counter = this.documentCounters.computeIfAbsent(key, k -> new DocumentStatsCounter(stat));
+            }
+
+            if (counter.increment(stat.isVisit())) {
+                return true;
+            }
+
+            this.documentCounters.remove(key, counter);
         }
     }
 
@@ -282,30 +465,157 @@ private void addRefererStats(XWikiDocument doc, XWikiContext context)
 }
 
 /**
- * Item used to stop the statistics storing.
+ * Lock free counter of the page views and visits of a document statistic.
+ * <p>
+ * Both counters are packed in the same long (the page views in the high bits and the visits in the low bits) so that
+ * they are always updated and reset together. A negative value indicates that the counter was retired and should not
+ * be used anymore.
  *
  * @version $Id$
  */
-class StopStatsRegisterObject implements XWikiStatsStoreItem
+class DocumentStatsCounter
 {
-    @Override
-    public String getId()
+    private static final long PAGEVIEW = 1L << 32;
+
+    private static final long RETIRED = -1;
+
+    private final DocumentStatsStoreItem item;
+
+    private final AtomicLong value = new AtomicLong();
+
+    DocumentStatsCounter(DocumentStatsStoreItem item)
     {
-        return null;
+        this.item = item;
     }
 
-    @Override
-    public void store(List<XWikiStatsStoreItem> register)
+    /**
+     * @return the statistic used to store the counters
+     */
+    DocumentStatsStoreItem getItem()
+    {
+        return this.item;
+    }
+
+    /**
+     * @param visit true if the page view is part of a visit
+     * @return false if the counter was retired
+     */
+    boolean increment(boolean visit)
+    {
+        long increment = visit ? PAGEVIEW + 1 : PAGEVIEW;
+
+        for (long current = this.value.get(); current != RETIRED; current = this.value.get()) {
+            if (this.value.compareAndSet(current, current + increment)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the current value, see {@link #getPageViews(long)} and {@link #getVisits(long)}
+     */
+    long reset()
     {
+        for (long current = this.value.get(); current != RETIRED; current = this.value.get()) {
+            if (this.value.compareAndSet(current, 0)) {
+                return current;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * @return true if the counter was retired, false if it was updated in the meantime
+     */
+    boolean retire()
+    {
+        return this.value.compareAndSet(0, RETIRED);
+    }
+
+    static int getPageViews(long value)
+    {
+        return (int) (value >>> 32);
+    }
+
+    static int getVisits(long value)
+    {
+        return (int) value;
     }
 }
 
 /**
- * Used to order stopping storing thread.
+ * The statistics with the same identifier waiting to be stored.
+ * <p>
+ * Only the first and the last statistics are kept, along with the number of statistics: the store items only rely on
+ * these to store a list of statistics (e.g. the visit statistics store the last state of the visit and the referer
+ * statistics add the number of statistics to the stored counter).
  *
  * @version $Id$
  */
-class StopStatsStoreException extends Exception
+class PendingStats
 {
+    private final XWikiStatsStoreItem first;
+
+    private final long sequence;
+
+    private XWikiStatsStoreItem last;
+
+    private int count;
 
+    PendingStats(XWikiStatsStoreItem first, long sequence)
+    {
+        this.first = first;
+        this.last = first;
+        this.count = 1;
+        this.sequence = sequence;
+    }
+
+    /**
+     * @param stat the new statistic
+     * @return this pending statistics
+     */
+    PendingStats add(XWikiStatsStoreItem stat)
+    {
+        this.last = stat;
+        this.count++;
+
+        return this;
+    }
+
+    /**
+     * @return the order in which the statistics were first added
+     */
+    long getSequence()
+    {
+        return this.sequence;
+    }
+
+    /**
+     * @return the statistics to store, where the statistics between the first and the last ones are replaced by the
+     *         last one
+     */
+    List<XWikiStatsStoreItem> getItems()
+    {
+        return new AbstractList<XWikiStatsStoreItem>()
+        {
+            @Override
+            public XWikiStatsStoreItem get(int index)
+            {
+                if (index < 0 || index >= PendingStats.this.count) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + PendingStats.this.count);
+                }
+
+                return index == 0 ? PendingStats.this.first : PendingStats.this.last;
+            }
+
+            @Override
+            public int size()
+            {
+                return PendingStats.this.count;
+            }
+        };
+    }
 }
@@ -19,8 +19,11 @@
  */
 package com.xpn.xwiki.store;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -417,6 +420,90 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
         }
     }
 
+    @Override
+    public List<XWikiDocument> loadXWikiDocs(Collection<DocumentReference> references, XWikiContext inputxcontext)
+        throws XWikiException
+    {
+        // Make sure to use the right XWikiContext instance to avoid issues
+        XWikiContext context = getExecutionXContext(inputxcontext, true);
+
+        String currentWiki = context.getWikiId();
+        try {
+            XWikiDocument[] documents = new XWikiDocument[references.size()];
+            String[] keys = new String[references.size()];
+
+            // Get what we can from the cache
+            List<DocumentReference> missingReferences = new ArrayList<>();
+            List<Integer> missingIndexes = new ArrayList<>();
+            int index = 0;
+            for (DocumentReference reference : references) {
+                context.setWikiId(reference.getWikiReference().getName());
+
+                XWikiDocument doc = new XWikiDocument(
+                    reference.getLocale() != null ? new DocumentReference(reference, (Locale) null) : reference,
+                    reference.getLocale());
+                String key = getKey(doc, context);
+                keys[index] = key;
+
+                XWikiDocument cachedoc;
+                try {
+                    cachedoc = getCache().get(key);
+                } catch (Exception e) {
+                    LOGGER.error("Failed to get document from the cache", e);
+
+                    cachedoc = null;
+                }
+
+                if (cachedoc != null) {
+                    cachedoc.setFromCache(true);
+                    documents[index] = cachedoc;
+                } else if (getPageExistCache().get(key) == Boolean.FALSE) {
+                    doc.setNew(true);
+                    doc.setOriginalDocument(new XWikiDocument(doc.getDocumentReference(), doc.getLocale()));
+                    documents[index] = doc;
+                } else {
+                    missingReferences.add(reference);
+                    missingIndexes.add(index);
+                }
+
+                ++index;
+            }
+
+            context.setWikiId(currentWiki);
+
+            LOGGER.debug("Cache: Trying to get {} documents from persistent storage", missingReferences.size());
+
+            // Load all the missing documents at once
+            if (!missingReferences.isEmpty()) {
+                List<XWikiDocument> loadedDocuments = this.store.loadXWikiDocs(missingReferences, context);
+                for (int i = 0; i < loadedDocuments.size(); ++i) {
+                    XWikiDocument loadedDocument = loadedDocuments.get(i);
+                    int documentIndex = missingIndexes.get(i);
+                    String key = keys[documentIndex];
+
+                    if (loadedDocument.isNew()) {
+                        getPageExistCache().set(key, Boolean.FALSE);
+                    } else {
+                        getCache().set(key, loadedDocument);
+                        getPageExistCache().set(key, Boolean.TRUE);
+                    }
+
+                    documents[documentIndex] = loadedDocument;
+                }
+            }
+
+            for (XWikiDocument document : documents) {
+                document.setStore(this);
+            }
+
+            return Arrays.asList(documents);
+        } finally {
+            context.setWikiId(currentWiki);
+
+            restoreExecutionXContext();
+        }
+    }
+
     @Override
     public void deleteXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext) throws XWikiException
     {
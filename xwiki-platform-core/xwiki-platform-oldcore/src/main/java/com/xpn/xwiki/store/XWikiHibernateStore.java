@@ -25,6 +25,7 @@
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
@@ -45,6 +46,7 @@
 import javax.persistence.criteria.CriteriaUpdate;
 
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.hibernate.FlushMode;
@@ -96,6 +98,7 @@
 import com.xpn.xwiki.objects.BaseObject;
 import com.xpn.xwiki.objects.BaseProperty;
 import com.xpn.xwiki.objects.BaseStringProperty;
+import com.xpn.xwiki.objects.DBStringListProperty;
 import com.xpn.xwiki.objects.LargeStringProperty;
 import com.xpn.xwiki.objects.ListProperty;
 import com.xpn.xwiki.objects.PropertyInterface;
@@ -117,6 +120,12 @@
 @Singleton
 public class XWikiHibernateStore extends XWikiHibernateBaseStore implements XWikiStoreInterface, Initializable
 {
+    /**
+     * The maximum number of values to put in a single {@code in} clause (some databases, like Oracle, don't accept more
+     * than 1000).
+     */
+    private static final int IN_CLAUSE_BATCH_SIZE = 1000;
+
     @Inject
     private Logger logger;
 
@@ -531,7 +540,7 @@ public void saveXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext, boolean
 
                 // These informations will allow to not look for attachments and objects on loading
                 doc.setElement(XWikiDocument.HAS_ATTACHMENTS, !doc.getAttachmentList().isEmpty());
-                doc.setElement(XWikiDocument.HAS_OBJECTS, !doc.getXObjects().isEmpty());
+                doc.setElement(XWikiDocument.HAS_OBJECTS, !doc.getReadOnlyXObjects().isEmpty());
 
                 // Let's update the class XML since this is the new way to store it
                 // TODO If all the properties are removed, the old xml stays?
@@ -642,7 +651,9 @@ public void saveXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext, boolean
 
                 if (doc.hasElement(XWikiDocument.HAS_OBJECTS)) {
                     // TODO: Delete all objects for which we don't have a name in the Map
-                    for (List<BaseObject> objects : doc.getXObjects().values()) {
+                    // The xobjects still shared with the document this one was lazily cloned from were not modified,
+                    // there is no need to clone them just to save them
+                    for (List<BaseObject> objects : doc.getReadOnlyXObjects().values()) {
                         for (BaseObject obj : objects) {
                             if (obj != null) {
                                 obj.setDocumentReference(doc.getDocumentReference());
@@ -966,124 +977,13 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
 
                 try {
                     session.load(doc, Long.valueOf(doc.getId()));
-                    doc.setNew(false);
-                    doc.setMostRecent(true);
-                    // Fix for XWIKI-1651
-                    doc.setDate(new Date(doc.getDate().getTime()));
-                    doc.setCreationDate(new Date(doc.getCreationDate().getTime()));
-                    doc.setContentUpdateDate(new Date(doc.getContentUpdateDate().getTime()));
                 } catch (ObjectNotFoundException e) { // No document
-                    doc.setNew(true);
-
-                    // Make sure to always return a document with an original version, even for one that does not exist.
-                    // Allow writing more generic code.
-                    doc.setOriginalDocument(new XWikiDocument(doc.getDocumentReference(), doc.getLocale()));
+                    setNewDocument(doc);
 
                     return doc;
                 }
 
-                // Loading the attachment list
-                if (doc.hasElement(XWikiDocument.HAS_ATTACHMENTS)) {
-                    loadAttachmentList(doc, context, false);
-                }
-
-                // TODO: handle the case where there are no xWikiClass and xWikiObject in the Database
-                BaseClass bclass = new BaseClass();
-                String cxml = doc.getXClassXML();
-                if (cxml != null) {
-                    bclass.fromXML(cxml);
-                    doc.setXClass(bclass);
-                    bclass.setDirty(false);
-                }
-
-                // Store this XWikiClass in the context so that we can use it in case of recursive usage
-                // of classes
-                context.addBaseClass(bclass);
-
-                if (doc.hasElement(XWikiDocument.HAS_OBJECTS)) {
-                    Query<BaseObject> query = session.createQuery(
-                        "from BaseObject as bobject where bobject.name = :name order by bobject.number",
-                        BaseObject.class);
-                    query.setParameter("name", doc.getFullName());
-
-                    Iterator<BaseObject> it = query.list().iterator();
-
-                    EntityReference localGroupEntityReference = new EntityReference("XWikiGroups", EntityType.DOCUMENT,
-                        new EntityReference("XWiki", EntityType.SPACE));
-                    DocumentReference groupsDocumentReference = new DocumentReference(context.getWikiId(),
-                        localGroupEntityReference.getParent().getName(), localGroupEntityReference.getName());
-
-                    boolean hasGroups = false;
-                    while (it.hasNext()) {
-                        BaseObject object = it.next();
-                        DocumentReference classReference = object.getXClassReference();
-
-                        if (classReference == null) {
-                            continue;
-                        }
-
-                        // It seems to search before is case insensitive. And this would break the loading if we get an
-                        // object which doesn't really belong to this document
-                        if (!object.getDocumentReference().equals(doc.getDocumentReference())) {
-                            continue;
-                        }
-
-                        BaseObject newobject;
-                        if (classReference.equals(doc.getDocumentReference())) {
-                            newobject = bclass.newCustomClassInstance(true);
-                        } else {
-                            newobject = BaseClass.newCustomClassInstance(classReference, true, context);
-                        }
-                        if (newobject != null) {
-                            newobject.setId(object.getId());
-                            newobject.setXClassReference(object.getRelativeXClassReference());
-                            newobject.setDocumentReference(object.getDocumentReference());
-                            newobject.setNumber(object.getNumber());
-                            newobject.setGuid(object.getGuid());
-                            object = newobject;
-                        }
-
-                        if (classReference.equals(groupsDocumentReference)) {
-                            // Groups objects are handled differently.
-                            hasGroups = true;
-                        } else {
-                            loadXWikiCollectionInternal(object, doc, context, false, true);
-                        }
-                        doc.setXObject(object.getNumber(), object);
-                    }
-
-                    // AFAICT this was added as an emergency patch because loading of objects has proven
-                    // too slow and the objects which cause the most overhead are the XWikiGroups objects
-                    // as each group object (each group member) would otherwise cost 2 database queries.
-                    // This will do every group member in a single query.
-                    if (hasGroups) {
-                        Query<Object[]> query2 = session.createQuery(
-                            "select bobject.number, prop.value from StringProperty as prop,"
-                                + "BaseObject as bobject where bobject.name = :name and bobject.className='XWiki.XWikiGroups' "
-                                + "and bobject.id=prop.id.id and prop.id.name='member' order by bobject.number",
-                            Object[].class);
-                        query2.setParameter("name", doc.getFullName());
-
-                        Iterator<Object[]> it2 = query2.list().iterator();
-                        while (it2.hasNext()) {
-                            Object[] result = it2.next();
-                            Integer number = (Integer) result[0];
-                            String member = (String) result[1];
-                            BaseObject obj = BaseClass.newCustomClassInstance(groupsDocumentReference, true, context);
-                            obj.setDocumentReference(doc.getDocumentReference());
-                            obj.setXClassReference(localGroupEntityReference);
-                            obj.setNumber(number.intValue());
-                            obj.setStringValue("member", member);
-                            doc.setXObject(obj.getNumber(), obj);
-                        }
-                    }
-                }
-
-                doc.setContentDirty(false);
-                doc.setMetaDataDirty(false);
-
-                // We need to ensure that the loaded document becomes the original document
-                doc.setOriginalDocument(doc.clone());
+                loadXWikiDocContent(doc, session, context);
 
                 if (bTransaction) {
                     endTransaction(context, false);
@@ -1115,6 +1015,329 @@ public XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext)
         }
     }
 
+    @Override
+    public List<XWikiDocument> loadXWikiDocs(Collection<DocumentReference> references, XWikiContext inputxcontext)
+        throws XWikiException
+    {
+        XWikiContext context = getExecutionXContext(inputxcontext, true);
+
+        String currentWiki = context.getWikiId();
+        try {
+            // Group the documents by wiki since each wiki is stored in a different database
+            XWikiDocument[] documents = new XWikiDocument[references.size()];
+            Map<String, List<Integer>> indexesByWiki = new LinkedHashMap<>();
+            int index = 0;
+            for (DocumentReference reference : references) {
+                documents[index] = new XWikiDocument(
+                    reference.getLocale() != null ? new DocumentReference(reference, (Locale) null) : reference,
+                    reference.getLocale());
+                indexesByWiki.computeIfAbsent(reference.getWikiReference().getName(), k -> new ArrayList<>())
+                    .add(index++);
+            }
+
+            for (Map.Entry<String, List<Integer>> entry : indexesByWiki.entrySet()) {
+                context.setWikiId(entry.getKey());
+
+                List<XWikiDocument> wikiDocuments = new ArrayList<>(entry.getValue().size());
+                for (Integer wikiIndex : entry.getValue()) {
+                    wikiDocuments.add(documents[wikiIndex]);
+                }
+
+                List<XWikiDocument> loadedDocuments = loadXWikiDocs(wikiDocuments, context);
+                for (int i = 0; i < loadedDocuments.size(); ++i) {
+                    documents[entry.getValue().get(i)] = loadedDocuments.get(i);
+                }
+            }
+
+            return Arrays.asList(documents);
+        } finally {
+            context.setWikiId(currentWiki);
+
+            restoreExecutionXContext();
+        }
+    }
+
+    /**
+     * Load several documents of the current wiki with one query for all the document rows instead of one query per
+     * document.
+     *
+     * @param documents the documents to load
+     * @param context the XWiki context
+     * @return the loaded documents, in the same order as the passed documents
+     * @throws XWikiException when failing to load the documents
+     */
+    private List<XWikiDocument> loadXWikiDocs(List<XWikiDocument> documents, XWikiContext context)
+        throws XWikiException
+    {
+        List<XWikiDocument> loadedDocuments = new ArrayList<>(documents.size());
+
+        boolean bTransaction = true;
+        MonitorPlugin monitor = Util.getMonitorPlugin(context);
+        try {
+            // Start monitoring timer
+            if (monitor != null) {
+                monitor.startTimer(HINT);
+            }
+            checkHibernate(context);
+
+            SessionFactory sfactory = injectCustomMappingsInSessionFactory(context);
+            bTransaction = bTransaction && beginTransaction(sfactory, context);
+            Session session = getSession(context);
+            session.setHibernateFlushMode(FlushMode.MANUAL);
+
+            List<Long> ids = new ArrayList<>(documents.size());
+            for (XWikiDocument document : documents) {
+                ids.add(document.getId());
+            }
+
+            Map<Long, XWikiDocument> storedDocuments = new HashMap<>(documents.size());
+            for (List<Long> batch : ListUtils.partition(ids, IN_CLAUSE_BATCH_SIZE)) {
+                Query<XWikiDocument> query =
+                    session.createQuery("from XWikiDocument as doc where doc.id in (:ids)", XWikiDocument.class);
+                query.setParameterList("ids", batch);
+                for (XWikiDocument storedDocument : query.list()) {
+                    storedDocuments.put(storedDocument.getId(), storedDocument);
+                }
+            }
+
+            // Load the attachments and the objects of all the documents at once too
+            List<Long> attachmentDocIds = new ArrayList<>();
+            List<String> objectDocNames = new ArrayList<>();
+            for (XWikiDocument storedDocument : storedDocuments.values()) {
+                if (storedDocument.hasElement(XWikiDocument.HAS_ATTACHMENTS)) {
+                    attachmentDocIds.add(storedDocument.getId());
+                }
+                if (storedDocument.hasElement(XWikiDocument.HAS_OBJECTS)) {
+                    objectDocNames.add(storedDocument.getFullName());
+                }
+            }
+
+            Map<Long, List<XWikiAttachment>> attachments = new HashMap<>();
+            for (List<Long> batch : ListUtils.partition(attachmentDocIds, IN_CLAUSE_BATCH_SIZE)) {
+                // The document id of a loaded attachment is only known once the attachment is added to its document
+                Query<Object[]> query = session.createQuery(
+                    "select attach.docId, attach from XWikiAttachment as attach where attach.docId in (:ids)",
+                    Object[].class);
+                query.setParameterList("ids", batch);
+                for (Object[] result : query.list()) {
+                    attachments.computeIfAbsent((Long) result[0], k -> new ArrayList<>())
+                        .add((XWikiAttachment) result[1]);
+                }
+            }
+
+            Map<String, List<BaseObject>> objects = new HashMap<>();
+            for (List<String> batch : ListUtils.partition(objectDocNames, IN_CLAUSE_BATCH_SIZE)) {
+                Query<BaseObject> query = session.createQuery(
+                    "from BaseObject as bobject where bobject.name in (:names) order by bobject.name, bobject.number",
+                    BaseObject.class);
+                query.setParameterList("names", batch);
+                for (BaseObject object : query.list()) {
+                    objects.computeIfAbsent(object.getName(), k -> new ArrayList<>()).add(object);
+                }
+            }
+
+            for (XWikiDocument document : documents) {
+                XWikiDocument storedDocument = storedDocuments.get(document.getId());
+                if (storedDocument != null) {
+                    storedDocument.setStore(this);
+                    loadXWikiDocContent(storedDocument,
+                        attachments.getOrDefault(storedDocument.getId(), Collections.emptyList()),
+                        objects.getOrDefault(storedDocument.getFullName(), Collections.emptyList()), session, context);
+                    loadedDocuments.add(storedDocument);
+
+                    this.logger.debug("Loaded XWikiDocument: [{}]", storedDocument.getDocumentReference());
+                } else {
+                    document.setStore(this);
+                    setNewDocument(document);
+                    loadedDocuments.add(document);
+                }
+            }
+
+            if (bTransaction) {
+                endTransaction(context, false);
+            }
+        } catch (Exception e) {
+            throw new XWikiException(XWikiException.MODULE_XWIKI_STORE,
+                XWikiException.ERROR_XWIKI_STORE_HIBERNATE_READING_DOC, "Exception while reading documents", e);
+        } finally {
+            try {
+                if (bTransaction) {
+                    endTransaction(context, false);
+                }
+            } catch (Exception e) {
+            }
+
+            // End monitoring timer
+            if (monitor != null) {
+                monitor.endTimer(HINT);
+            }
+        }
+
+        return loadedDocuments;
+    }
+
+    private void setNewDocument(XWikiDocument doc)
+    {
+        doc.setNew(true);
+
+        // Make sure to always return a document with an original version, even for one that does not exist.
+        // Allow writing more generic code.
+        doc.setOriginalDocument(new XWikiDocument(doc.getDocumentReference(), doc.getLocale()));
+    }
+
+    /**
+     * Load everything which is not part of the document table (attachments, objects, etc.) for a document which has
+     * just been read from the database.
+     */
+    private void loadXWikiDocContent(XWikiDocument doc, Session session, XWikiContext context) throws XWikiException
+    {
+        loadXWikiDocContent(doc, null, null, session, context);
+    }
+
+    /**
+     * Load everything which is not part of the document table (attachments, objects, etc.) for a document which has
+     * just been read from the database.
+     *
+     * @param doc the document to load
+     * @param attachments the attachments of the document when already read from the database, {@code null} to read
+     *            them
+     * @param objects the object rows of the document, ordered by number, when already read from the database,
+     *            {@code null} to read them
+     * @param session the Hibernate session
+     * @param context the XWiki context
+     * @throws XWikiException when failing to load the document content
+     */
+    private void loadXWikiDocContent(XWikiDocument doc, List<XWikiAttachment> attachments, List<BaseObject> objects,
+        Session session, XWikiContext context) throws XWikiException
+    {
+        doc.setNew(false);
+        doc.setMostRecent(true);
+        // Fix for XWIKI-1651
+        doc.setDate(new Date(doc.getDate().getTime()));
+        doc.setCreationDate(new Date(doc.getCreationDate().getTime()));
+        doc.setContentUpdateDate(new Date(doc.getContentUpdateDate().getTime()));
+
+        // Loading the attachment list
+        if (doc.hasElement(XWikiDocument.HAS_ATTACHMENTS)) {
+            if (attachments != null) {
+                for (XWikiAttachment attachment : attachments) {
+                    doc.setAttachment(attachment);
+                }
+            } else {
+                loadAttachmentList(doc, context, false);
+            }
+        }
+
+        // TODO: handle the case where there are no xWikiClass and xWikiObject in the Database
+        BaseClass bclass = new BaseClass();
+        String cxml = doc.getXClassXML();
+        if (cxml != null) {
+            bclass.fromXML(cxml);
+            doc.setXClass(bclass);
+            bclass.setDirty(false);
+        }
+
+        // Store this XWikiClass in the context so that we can use it in case of recursive usage
+        // of classes
+        context.addBaseClass(bclass);
+
+        if (doc.hasElement(XWikiDocument.HAS_OBJECTS)) {
+            if (objects == null) {
+                Query<BaseObject> query = session.createQuery(
+                    "from BaseObject as bobject where bobject.name = :name order by bobject.number",
+                    BaseObject.class);
+                query.setParameter("name", doc.getFullName());
+                objects = query.list();
+            }
+
+            Iterator<BaseObject> it = objects.iterator();
+
+            EntityReference localGroupEntityReference = new EntityReference("XWikiGroups", EntityType.DOCUMENT,
+                new EntityReference("XWiki", EntityType.SPACE));
+            DocumentReference groupsDocumentReference = new DocumentReference(context.getWikiId(),
+                localGroupEntityReference.getParent().getName(), localGroupEntityReference.getName());
+
+            boolean hasGroups = false;
+            List<BaseObject> bulkObjects =
+                this.hibernateConfiguration.isBulkObjectLoading() ? new ArrayList<>() : null;
+            while (it.hasNext()) {
+                BaseObject object = it.next();
+                DocumentReference classReference = object.getXClassReference();
+
+                if (classReference == null) {
+                    continue;
+                }
+
+                // It seems to search before is case insensitive. And this would break the loading if we get an
+                // object which doesn't really belong to this document
+                if (!object.getDocumentReference().equals(doc.getDocumentReference())) {
+                    continue;
+                }
+
+                BaseObject newobject;
+                if (classReference.equals(doc.getDocumentReference())) {
+                    newobject = bclass.newCustomClassInstance(true);
+                } else {
+                    newobject = BaseClass.newCustomClassInstance(classReference, true, context);
+                }
+                if (newobject != null) {
+                    newobject.setId(object.getId());
+                    newobject.setXClassReference(object.getRelativeXClassReference());
+                    newobject.setDocumentReference(object.getDocumentReference());
+                    newobject.setNumber(object.getNumber());
+                    newobject.setGuid(object.getGuid());
+                    object = newobject;
+                }
+
+                if (classReference.equals(groupsDocumentReference)) {
+                    // Groups objects are handled differently.
+                    hasGroups = true;
+                } else if (bulkObjects != null) {
+                    bulkObjects.add(object);
+                } else {
+                    loadXWikiCollectionInternal(object, doc, context, false, true);
+                }
+                doc.setXObject(object.getNumber(), object);
+            }
+
+            if (bulkObjects != null && !bulkObjects.isEmpty()) {
+                loadXWikiCollectionsInBulk(bulkObjects, doc, session, context);
+            }
+
+            // AFAICT this was added as an emergency patch because loading of objects has proven
+            // too slow and the objects which cause the most overhead are the XWikiGroups objects
+            // as each group object (each group member) would otherwise cost 2 database queries.
+            // This will do every group member in a single query.
+            if (hasGroups) {
+                Query<Object[]> query2 = session.createQuery(
+                    "select bobject.number, prop.value from StringProperty as prop,"
+                        + "BaseObject as bobject where bobject.name = :name and bobject.className='XWiki.XWikiGroups' "
+                        + "and bobject.id=prop.id.id and prop.id.name='member' order by bobject.number",
+                    Object[].class);
+                query2.setParameter("name", doc.getFullName());
+
+                Iterator<Object[]> it2 = query2.list().iterator();
+                while (it2.hasNext()) {
+                    Object[] result = it2.next();
+                    Integer number = (Integer) result[0];
+                    String member = (String) result[1];
+                    BaseObject obj = BaseClass.newCustomClassInstance(groupsDocumentReference, true, context);
+                    obj.setDocumentReference(doc.getDocumentReference());
+                    obj.setXClassReference(localGroupEntityReference);
+                    obj.setNumber(number.intValue());
+                    obj.setStringValue("member", member);
+                    doc.setXObject(obj.getNumber(), obj);
+                }
+            }
+        }
+
+        doc.setContentDirty(false);
+        doc.setMetaDataDirty(false);
+
+        // We need to ensure that the loaded document becomes the original document
+        doc.setOriginalDocument(doc.clone());
+    }
+
     @Override
     public void deleteXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext) throws XWikiException
     {
@@ -1169,7 +1392,7 @@ private void deleteXWikiDoc(XWikiDocument doc, XWikiContext inputxcontext, boole
                     }
                     doc.setXObjectsToRemove(new ArrayList<BaseObject>());
                 }
-                for (List<BaseObject> objects : doc.getXObjects().values()) {
+                for (List<BaseObject> objects : doc.getReadOnlyXObjects().values()) {
                     for (BaseObject obj : objects) {
                         if (obj != null) {
                             deleteXWikiCollection(obj, context, false, false);
@@ -1397,6 +1620,178 @@ public void saveXWikiCollection(BaseCollection object, XWikiContext inputxcontex
         }
     }
 
+    /**
+     * Load the properties of the passed objects using one query per property type instead of several queries per
+     * object. Objects with a custom mapping fall back on
+     * {@link #loadXWikiCollectionInternal(BaseCollection, XWikiDocument, XWikiContext, boolean, boolean)} and the
+     * properties which could not be loaded that way (unexpected property type, etc.) are loaded one by one.
+     *
+     * @param objects the objects to load, all located in the passed document
+     * @param doc the document containing the objects
+     * @param session the current Hibernate session
+     * @param context the XWiki context
+     * @throws XWikiException when failing to load the objects
+     */
+    protected void loadXWikiCollectionsInBulk(List<BaseObject> objects, XWikiDocument doc, Session session,
+        XWikiContext context) throws XWikiException
+    {
+        Map<Long, BaseObject> bulkObjects = new HashMap<>(objects.size());
+        Map<Long, BaseClass> bulkClasses = new HashMap<>(objects.size());
+        for (BaseObject object : objects) {
+            BaseClass bclass;
+            if (object.getXClassReference().equals(object.getDocumentReference())) {
+                bclass = doc.getXClass();
+            } else {
+                bclass = object.getXClass(context);
+            }
+
+            if (bclass != null && bclass.hasCustomMapping() && context.getWiki().hasCustomMappings()) {
+                // Custom mapped properties are stored in a dedicated table
+                loadXWikiCollectionInternal(object, doc, context, false, true);
+            } else {
+                bulkObjects.put(object.getId(), object);
+                bulkClasses.put(object.getId(), bclass);
+            }
+        }
+
+        if (bulkObjects.isEmpty()) {
+            return;
+        }
+
+        // Find the names and types of all the properties of the document objects in a single query
+        Query<Object[]> query = session.createQuery("select prop.id.id, prop.id.name, prop.classType "
+            + "from BaseProperty as prop where prop.id.id in "
+            + "(select bobject.id from BaseObject as bobject where bobject.name = :name)", Object[].class);
+        query.setParameter("name", doc.getFullName());
+
+        // The type of each property not loaded yet, indexed by object id and property name
+        Map<Long, Map<String, String>> pendingProperties = new HashMap<>(bulkObjects.size());
+        Set<String> classTypes = new LinkedHashSet<>();
+        for (Object[] result : query.list()) {
+            Long id = (Long) result[0];
+            if (bulkObjects.containsKey(id)) {
+                pendingProperties.computeIfAbsent(id, k -> new HashMap<>()).put((String) result[1],
+                    (String) result[2]);
+                classTypes.add((String) result[2]);
+            }
+        }
+
+        // Load the values of each property type in a single query
+        for (String classType : classTypes) {
+            if (classType == null || this.store.getConfigurationMetadata() == null
+                || this.store.getConfigurationMetadata().getEntityBinding(classType) == null) {
+                // Unknown property type, let the standard loading deal with it
+                continue;
+            }
+
+            StringBuilder hql = new StringBuilder("select prop from ");
+            hql.append(classType);
+            hql.append(" as prop ");
+            if (DBStringListProperty.class.getName().equals(classType)) {
+                // Avoid one query per list
+                hql.append("left join fetch prop.list ");
+            }
+            hql.append("where prop.classType = :classType and prop.id.id in "
+                + "(select bobject.id from BaseObject as bobject where bobject.name = :name)");
+
+            Query<BaseProperty> propertyQuery = session.createQuery(hql.toString(), BaseProperty.class);
+            propertyQuery.setParameter("classType", classType);
+            propertyQuery.setParameter("name", doc.getFullName());
+
+            for (BaseProperty property : propertyQuery.list()) {
+                BaseObject object = bulkObjects.get(property.getId());
+                Map<String, String> pending = pendingProperties.get(property.getId());
+                // A fetch join returns the same property once per list item
+                if (object != null && pending != null && pending.remove(property.getName()) != null) {
+                    property.setObject(object);
+                    // In Oracle, empty string are converted to NULL. See loadXWikiProperty.
+                    if (property instanceof BaseStringProperty && property.getValue() == null) {
+                        ((BaseStringProperty) property).setValue("");
+                    }
+                    property.setValueDirty(false);
+                    object.addField(property.getName(), property);
+                }
+            }
+        }
+
+        // Load one by one the properties which could not be found in the expected table (e.g. mismatch between
+        // StringProperty and LargeStringProperty) or which have an unknown type, without loading again the others
+        for (Map.Entry<Long, Map<String, String>> entry : pendingProperties.entrySet()) {
+            BaseObject object = bulkObjects.get(entry.getKey());
+            BaseClass bclass = bulkClasses.get(entry.getKey());
+            for (Map.Entry<String, String> property : entry.getValue().entrySet()) {
+                object.addField(property.getKey(),
+                    loadXWikiProperty(object, bclass, property.getKey(), property.getValue(), context));
+            }
+        }
+    }
+
+    /**
+     * Load a property of an object, working around a mismatch between the type of the stored property and the type
+     * expected by the class (e.g. string stored as large string).
+     *
+     * @param object the object containing the property
+     * @param bclass the class of the object, if known
+     * @param name the name of the property
+     * @param classType the type of the stored property
+     * @param context the XWiki context
+     * @return the loaded property
+     * @throws XWikiException when failing to load the property
+     */
+    private BaseProperty loadXWikiProperty(BaseCollection object, BaseClass bclass, String name, String classType,
+        XWikiContext context) throws XWikiException
+    {
+        BaseProperty property = null;
+
+        try {
+            property = (BaseProperty) Class.forName(classType).newInstance();
+            property.setObject(object);
+            property.setName(name);
+            loadXWikiProperty(property, context, false);
+        } catch (Exception e) {
+            // WORKAROUND IN CASE OF MIXMATCH BETWEEN STRING AND LARGESTRING
+            try {
+                if (property instanceof StringProperty) {
+                    LargeStringProperty property2 = new LargeStringProperty();
+                    property2.setObject(object);
+                    property2.setName(name);
+                    loadXWikiProperty(property2, context, false);
+                    property.setValue(property2.getValue());
+
+                    if (bclass != null) {
+                        if (bclass.get(name) instanceof TextAreaClass) {
+                            property = property2;
+                        }
+                    }
+
+                } else if (property instanceof LargeStringProperty) {
+                    StringProperty property2 = new StringProperty();
+                    property2.setObject(object);
+                    property2.setName(name);
+                    loadXWikiProperty(property2, context, false);
+                    property.setValue(property2.getValue());
+
+                    if (bclass != null) {
+                        if (bclass.get(name) instanceof StringClass) {
+                            property = property2;
+                        }
+                    }
+                } else {
+                    throw e;
+                }
+            } catch (Throwable e2) {
+                Object[] args =
+                    { object.getName(), object.getClass(), Integer.valueOf(object.getNumber() + ""), name };
+                throw new XWikiException(XWikiException.MODULE_XWIKI_STORE,
+                    XWikiException.ERROR_XWIKI_STORE_HIBERNATE_LOADING_OBJECT,
+                    "Exception while loading object '{0}' of class '{1}', number '{2}' and property '{3}'",
+                    e, args);
+            }
+        }
+
+        return property;
+    }
+
     /**
      * @deprecated This is internal to XWikiHibernateStore and may be removed in the future.
      */
@@ -1486,55 +1881,8 @@ private void loadXWikiCollectionInternal(BaseCollection object1, XWikiDocument d
                         continue;
                     }
                     String classType = (String) result[1];
-                    BaseProperty property = null;
-
-                    try {
-                        property = (BaseProperty) Class.forName(classType).newInstance();
-                        property.setObject(object);
-                        property.setName(name);
-                        loadXWikiProperty(property, context, false);
-                    } catch (Exception e) {
-                        // WORKAROUND IN CASE OF MIXMATCH BETWEEN STRING AND LARGESTRING
-                        try {
-                            if (property instanceof StringProperty) {
-                                LargeStringProperty property2 = new LargeStringProperty();
-                                property2.setObject(object);
-                                property2.setName(name);
-                                loadXWikiProperty(property2, context, false);
-                                property.setValue(property2.getValue());
-
-                                if (bclass != null) {
-                                    if (bclass.get(name) instanceof TextAreaClass) {
-                                        property = property2;
-                                    }
-                                }
-
-                            } else if (property instanceof LargeStringProperty) {
-                                StringProperty property2 = new StringProperty();
-                                property2.setObject(object);
-                                property2.setName(name);
-                                loadXWikiProperty(property2, context, false);
-                                property.setValue(property2.getValue());
-
-                                if (bclass != null) {
-                                    if (bclass.get(name) instanceof StringClass) {
-                                        property = property2;
-                                    }
-                                }
-                            } else {
-                                throw e;
-                            }
-                        } catch (Throwable e2) {
-                            Object[] args =
-                                { object.getName(), object.getClass(), Integer.valueOf(object.getNumber() + ""), name };
-                            throw new XWikiException(XWikiException.MODULE_XWIKI_STORE,
-                                XWikiException.ERROR_XWIKI_STORE_HIBERNATE_LOADING_OBJECT,
-                                "Exception while loading object '{0}' of class '{1}', number '{2}' and property '{3}'",
-                                e, args);
-                        }
-                    }
 
-                    object.addField(name, property);
+                    object.addField(name, loadXWikiProperty(object, bclass, name, classType, context));
                 }
             }
 
@@ -2834,7 +3182,8 @@ public List<XWikiDocument> searchDocuments(String wheresql, boolean distinctbyla
 
         // Resolve documents. We use two separated sessions because rights service could need to switch database to
         // check rights
-        List<XWikiDocument> documents = new ArrayList<>();
+        List<DocumentReference> documentReferences = new ArrayList<>();
+        List<String> locales = new ArrayList<>();
         WikiReference currentWikiReference = new WikiReference(context.getWikiId());
         for (Object result : documentDatas) {
             String fullName;
@@ -2857,16 +3206,19 @@ public List<XWikiDocument> searchDocuments(String wheresql, boolean distinctbyla
                 }
             }
 
-            DocumentReference documentReference = doc.getDocumentReference();
-            if (distinctbylanguage) {
-                XWikiDocument document = context.getWiki().getDocument(documentReference, context);
-                if (StringUtils.isEmpty(locale)) {
-                    documents.add(document);
-                } else {
-                    documents.add(document.getTranslatedDocument(locale, context));
+            documentReferences.add(doc.getDocumentReference());
+            locales.add(locale);
+        }
+
+        // Load all the documents at once
+        List<XWikiDocument> documents = new ArrayList<>(context.getWiki().getDocuments(documentReferences, context));
+
+        if (distinctbylanguage) {
+            for (int i = 0; i < documents.size(); ++i) {
+                String locale = locales.get(i);
+                if (StringUtils.isNotEmpty(locale)) {
+                    documents.set(i, documents.get(i).getTranslatedDocument(locale, context));
                 }
-            } else {
-                documents.add(context.getWiki().getDocument(documentReference, context));
             }
         }
 
@@ -3041,7 +3393,7 @@ public boolean injectCustomMappings(XWikiDocument doc, XWikiContext inputxcontex
             }
 
             boolean result = false;
-            for (List<BaseObject> objectsOfType : doc.getXObjects().values()) {
+            for (List<BaseObject> objectsOfType : doc.getReadOnlyXObjects().values()) {
                 for (BaseObject object : objectsOfType) {
                     if (object != null) {
                         result |= injectCustomMapping(object.getXClass(context), context);
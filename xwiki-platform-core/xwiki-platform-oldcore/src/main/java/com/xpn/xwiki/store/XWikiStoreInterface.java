@@ -19,7 +19,10 @@
  */
 package com.xpn.xwiki.store;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 
 import org.xwiki.component.annotation.Role;
 import org.xwiki.model.reference.DocumentReference;
@@ -60,6 +63,39 @@ default void renameXWikiDoc(XWikiDocument doc, DocumentReference newReference, X
 
     XWikiDocument loadXWikiDoc(XWikiDocument doc, XWikiContext context) throws XWikiException;
 
+    /**
+     * Load several documents at once. Implementations are free to optimize this by loading all the documents with a
+     * few queries instead of one or more query per document.
+     *
+     * @param references the references of the documents to load (with the locale of the translation to load, if any)
+     * @param context the XWiki context
+     * @return the loaded documents, in the same order as the passed references (a new document is returned for each
+     *         reference which does not exist)
+     * @throws XWikiException when failing to load the documents
+     * @since 12.8RC1
+     */
+    @Unstable
+    default List<XWikiDocument> loadXWikiDocs(Collection<DocumentReference> references, XWikiContext context)
+        throws XWikiException
+    {
+        List<XWikiDocument> documents = new ArrayList<>(references.size());
+
+        String currentWiki = context.getWikiId();
+        try {
+            for (DocumentReference reference : references) {
+                context.setWikiId(reference.getWikiReference().getName());
+
+                documents.add(loadXWikiDoc(new XWikiDocument(
+                    reference.getLocale() != null ? new DocumentReference(reference, (Locale) null) : reference,
+                    reference.getLocale()), context));
+            }
+        } finally {
+            context.setWikiId(currentWiki);
+        }
+
+        return documents;
+    }
+
     void deleteXWikiDoc(XWikiDocument doc, XWikiContext context) throws XWikiException;
 
     List<String> getClassList(XWikiContext context) throws XWikiException;
@@ -21,12 +21,18 @@
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -88,8 +94,41 @@ public class DownloadAction extends XWikiAction
     /** The name of the HTTP Header that signals a byte-range request. */
     private static final String RANGE_HEADER_NAME = "Range";
 
-    /** The format of a valid range header. */
-    private static final Pattern RANGE_HEADER_PATTERN = Pattern.compile("bytes=([0-9]+)?-([0-9]+)?");
+    /** The prefix of a valid range header. */
+    private static final String RANGE_HEADER_PREFIX = "bytes=";
+
+    /** The format of a valid byte range, a range header can contain several of them separated by comma. */
+    private static final Pattern RANGE_PATTERN = Pattern.compile("([0-9]+)?-([0-9]+)?");
+
+    /**
+     * The maximum number of byte ranges accepted in a range header. Above that the range header is ignored and the full
+     * content is sent, to avoid spending lots of resources on pathological requests.
+     */
+    private static final int MAX_RANGES = 16;
+
+    /** The name of the HTTP Header that makes a range request conditional. */
+    private static final String IF_RANGE_HEADER_NAME = "If-Range";
+
+    /** The name of the HTTP Header used to send the entity tags of the content the client already has. */
+    private static final String IF_NONE_MATCH_HEADER_NAME = "If-None-Match";
+
+    /** The name of the HTTP Header used to send the entity tag of the content. */
+    private static final String ETAG_HEADER_NAME = "ETag";
+
+    /** The name of the HTTP Header that indicates the byte range sent. */
+    private static final String CONTENT_RANGE_HEADER_NAME = "Content-Range";
+
+    /** The unit of the byte ranges. */
+    private static final String BYTES_UNIT = "bytes ";
+
+    /** The separator between the lines of the headers of the parts of a multipart response. */
+    private static final String CRLF = "\r\n";
+
+    /** The prefix of the boundaries between the parts of a multipart response. */
+    private static final String BOUNDARY_PREFIX = "--";
+
+    /** The quote surrounding the entity tags. */
+    private static final String ETAG_QUOTE = "\"";
 
     /**
      * Default constructor.
@@ -150,6 +189,14 @@ public String render(XWikiContext context) throws XWikiException
                 throwNotFoundException(filename);
             }
 
+            // The conditional request only relies on the attachment metadata, so that answering it doesn't require
+            // loading the content
+            if (isNotModified(attachment, request)) {
+                response.setHeader(ETAG_HEADER_NAME, getEntityTag(attachment));
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return null;
+            }
+
             // Try to load the attachment content just to make sure that the attachment really exists
             // This will throw an exception if the attachment content isn't available
             try {
@@ -161,15 +208,8 @@ public String render(XWikiContext context) throws XWikiException
                     args);
             }
 
-            long lastModifiedOnClient = request.getDateHeader("If-Modified-Since");
-            long lastModifiedOnServer = attachment.getDate().getTime();
-            if (lastModifiedOnClient != -1 && lastModifiedOnClient >= lastModifiedOnServer) {
-                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
-                return null;
-            }
-
             // Sending the content of the attachment
-            if (request.getHeader(RANGE_HEADER_NAME) != null) {
+            if (request.getHeader(RANGE_HEADER_NAME) != null && isRangeApplicable(attachment, request)) {
                 try {
                     if (sendPartialContent(attachment, request, response, context)) {
                         return null;
@@ -195,9 +235,74 @@ private void throwNotFoundException(String filename) throws XWikiException
             message);
     }
 
+    /**
+     * @param attachment the attachment to download
+     * @param request the current client request
+     * @return {@code true} if the client already has the current content of the attachment
+     */
+    private boolean isNotModified(XWikiAttachment attachment, XWikiRequest request)
+    {
+        // The entity tags take precedence over the modification date when both are sent.
+        String ifNoneMatch = request.getHeader(IF_NONE_MATCH_HEADER_NAME);
+        if (ifNoneMatch != null) {
+            String entityTag = getEntityTag(attachment);
+            for (String clientEntityTag : StringUtils.split(ifNoneMatch, ',')) {
+                String tag = StringUtils.removeStart(clientEntityTag.trim(), "W/");
+                if ("*".equals(tag) || entityTag.equals(tag)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        long lastModifiedOnClient = request.getDateHeader("If-Modified-Since");
+        long lastModifiedOnServer = attachment.getDate().getTime();
+        return lastModifiedOnClient != -1 && lastModifiedOnClient >= lastModifiedOnServer;
+    }
+
+    /**
+     * Check the {@code If-Range} header, which asks to send the full content instead of the requested ranges when the
+     * attachment has been modified.
+     *
+     * @param attachment the attachment to download
+     * @param request the current client request
+     * @return {@code true} if the range header should be taken into account, {@code false} otherwise
+     */
+    private boolean isRangeApplicable(XWikiAttachment attachment, XWikiRequest request)
+    {
+        String ifRange = request.getHeader(IF_RANGE_HEADER_NAME);
+        if (ifRange == null) {
+            return true;
+        }
+
+        if (ifRange.startsWith(ETAG_QUOTE) || ifRange.startsWith("W/")) {
+            // The If-Range header requires a strong comparison so a weak entity tag never matches.
+            return ifRange.equals(getEntityTag(attachment));
+        }
+
+        try {
+            // HTTP dates have a precision of one second.
+            return request.getDateHeader(IF_RANGE_HEADER_NAME) / 1000 == attachment.getDate().getTime() / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param attachment the attachment to download
+     * @return the strong entity tag of the attachment content, computed from the attachment metadata only (the size
+     *         stored with the metadata) so that it never requires loading the content
+     */
+    private String getEntityTag(XWikiAttachment attachment)
+    {
+        return ETAG_QUOTE + attachment.getVersion() + '-' + attachment.getDate().getTime() + '-'
+            + attachment.getLongSize() + ETAG_QUOTE;
+    }
+
     /**
      * Respond to a range request, either with the requested bytes, or with a {@code 416 REQUESTED RANGE NOT
-     * SATISFIABLE} response if the requested byte range falls outside the length of the attachment. If the range
+     * SATISFIABLE} response if the requested byte ranges fall outside the length of the attachment. If the range
      * request header is syntactically invalid, nothing is written, and instead {@code false} is returned, letting the
      * action handler ignore the Range header and treat this as a normal (full) download request.
      *
@@ -214,33 +319,56 @@ private boolean sendPartialContent(final XWikiAttachment attachment, final XWiki
         final XWikiResponse response, final XWikiContext context) throws XWikiException, IOException
     {
         String range = request.getHeader(RANGE_HEADER_NAME);
-        Matcher m = RANGE_HEADER_PATTERN.matcher(range);
-        if (m.matches()) {
-            String startStr = m.group(1);
-            String endStr = m.group(2);
-            Long start = NumberUtils.createLong(startStr);
-            Long end = NumberUtils.createLong(endStr);
+        if (!range.startsWith(RANGE_HEADER_PREFIX)) {
+            return false;
+        }
+
+        String[] rangeSpecs = StringUtils.split(range.substring(RANGE_HEADER_PREFIX.length()), ',');
+        if (rangeSpecs.length == 0 || rangeSpecs.length > MAX_RANGES) {
+            return false;
+        }
+
+        long length = attachment.getContentLongSize(context);
+        List<long[]> ranges = new ArrayList<>(rangeSpecs.length);
+        for (String rangeSpec : rangeSpecs) {
+            Matcher m = RANGE_PATTERN.matcher(rangeSpec.trim());
+            if (!m.matches()) {
+                return false;
+            }
+            Long start = NumberUtils.createLong(m.group(1));
+            Long end = NumberUtils.createLong(m.group(2));
             if (start == null && end != null && end > 0) {
                 // Tail request, output the last <end> bytes
-                start = Math.max(attachment.getContentLongSize(context) - end, 0L);
-                end = attachment.getContentLongSize(context) - 1L;
+                start = Math.max(length - end, 0L);
+                end = length - 1L;
             }
             if (!isValidRange(start, end)) {
                 return false;
             }
             if (end == null) {
-                end = attachment.getContentLongSize(context) - 1L;
+                end = length - 1L;
             }
-            end = Math.min(end, attachment.getContentLongSize(context) - 1L);
-            writeByteRange(attachment, start, end, request, response, context);
-            return true;
+            end = Math.min(end, length - 1L);
+            // Ignore the ranges falling outside the file limits (including the empty tail ranges)
+            if (start != null && start >= 0 && start < length) {
+                ranges.add(new long[] { start, end });
+            }
+        }
+
+        if (ranges.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            response.setHeader(CONTENT_RANGE_HEADER_NAME, BYTES_UNIT + "*/" + length);
+        } else if (ranges.size() == 1) {
+            writeByteRange(attachment, ranges.get(0)[0], ranges.get(0)[1], request, response, context);
+        } else {
+            writeByteRanges(attachment, ranges, request, response, context);
         }
-        return false;
+
+        return true;
     }
 
     /**
-     * Write a byte range from the attachment to the response, if the requested range is valid and falls within the file
-     * limits.
+     * Write a byte range from the attachment to the response.
      *
      * @param attachment the attachment to get content from
      * @param start the first byte to write
@@ -251,23 +379,106 @@ private boolean sendPartialContent(final XWikiAttachment attachment, final XWiki
      * @throws XWikiException if the attachment content cannot be retrieved
      * @throws IOException if the response cannot be written
      */
-    private void writeByteRange(final XWikiAttachment attachment, Long start, Long end, final XWikiRequest request,
+    private void writeByteRange(final XWikiAttachment attachment, long start, long end, final XWikiRequest request,
         final XWikiResponse response, final XWikiContext context) throws XWikiException, IOException
     {
-        if (start >= 0 && start < attachment.getContentLongSize(context)) {
-            InputStream data = attachment.getContentInputStream(context);
-            data = new BoundedInputStream(data, end + 1);
-            data.skip(start);
-            setCommonHeaders(attachment, request, response, context);
-            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
-            if ((end - start + 1L) < Integer.MAX_VALUE) {
-                setContentLength(response, end - start + 1);
+        setCommonHeaders(attachment, request, response, context);
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        if ((end - start + 1L) < Integer.MAX_VALUE) {
+            setContentLength(response, end - start + 1);
+        }
+        response.setHeader(CONTENT_RANGE_HEADER_NAME, getContentRange(start, end, attachment, context));
+
+        try (FileChannel channel = attachment.getContentChannel(context)) {
+            writeByteRange(attachment, channel, start, end, response.getOutputStream(), context);
+        }
+    }
+
+    /**
+     * Write several byte ranges from the attachment to the response, as a {@code multipart/byteranges} content.
+     *
+     * @param attachment the attachment to get content from
+     * @param ranges the first and last bytes of the ranges to write
+     * @param request the current client request
+     * @param response the response to write to.
+     * @param context the current request context
+     * @throws XWikiException if the attachment content cannot be retrieved
+     * @throws IOException if the response cannot be written
+     */
+    private void writeByteRanges(final XWikiAttachment attachment, List<long[]> ranges, final XWikiRequest request,
+        final XWikiResponse response, final XWikiContext context) throws XWikiException, IOException
+    {
+        String boundary = UUID.randomUUID().toString();
+
+        setCommonHeaders(attachment, request, response, context);
+        response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        response.setContentType("multipart/byteranges; boundary=" + boundary);
+
+        OutputStream output = response.getOutputStream();
+        try (FileChannel channel = attachment.getContentChannel(context)) {
+            for (long[] range : ranges) {
+                StringBuilder partHeaders = new StringBuilder();
+                partHeaders.append(CRLF).append(BOUNDARY_PREFIX).append(boundary).append(CRLF);
+                partHeaders.append("Content-Type: ").append(attachment.getMimeType(context)).append(CRLF);
+                partHeaders.append(CONTENT_RANGE_HEADER_NAME).append(": ")
+                    .append(getContentRange(range[0], range[1], attachment, context)).append(CRLF);
+                partHeaders.append(CRLF);
+                output.write(partHeaders.toString().getBytes(StandardCharsets.ISO_8859_1));
+
+                writeByteRange(attachment, channel, range[0], range[1], output, context);
             }
-            response.setHeader("Content-Range",
-                "bytes " + start + "-" + end + SEPARATOR + attachment.getContentLongSize(context));
-            IOUtils.copyLarge(data, response.getOutputStream());
+        }
+        output.write((CRLF + BOUNDARY_PREFIX + boundary + BOUNDARY_PREFIX + CRLF).getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private String getContentRange(long start, long end, XWikiAttachment attachment, XWikiContext context)
+        throws XWikiException
+    {
+        return BYTES_UNIT + start + "-" + end + SEPARATOR + attachment.getContentLongSize(context);
+    }
+
+    /**
+     * Write a byte range from the attachment to the given output.
+     *
+     * @param attachment the attachment to get content from
+     * @param channel the channel to read the attachment content from, {@code null} if the content is not stored in a
+     *            file
+     * @param start the first byte to write
+     * @param end the last byte to write
+     * @param output where to write the content
+     * @param context the current request context
+     * @throws XWikiException if the attachment content cannot be retrieved
+     * @throws IOException if the response cannot be written
+     */
+    private void writeByteRange(XWikiAttachment attachment, FileChannel channel, long start, long end,
+        OutputStream output, XWikiContext context) throws XWikiException, IOException
+    {
+        if (channel != null) {
+            // Position the file directly on the first byte and let the file channel transfer the content, instead of
+            // reading (and then discarding) all the bytes before the range.
+            transfer(channel, start, end - start + 1, output);
         } else {
-            response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            try (InputStream data = new BoundedInputStream(attachment.getContentInputStream(context), end + 1)) {
+                IOUtils.skipFully(data, start);
+                IOUtils.copyLarge(data, output);
+            }
+        }
+    }
+
+    private void transfer(FileChannel channel, long start, long length, OutputStream output) throws IOException
+    {
+        WritableByteChannel target = Channels.newChannel(output);
+
+        long position = start;
+        long remaining = length;
+        while (remaining > 0) {
+            long transferred = channel.transferTo(position, remaining, target);
+            if (transferred <= 0) {
+                // The file is shorter than expected.
+                break;
+            }
+            position += transferred;
+            remaining -= transferred;
         }
     }
 
@@ -284,11 +495,16 @@ protected void sendContent(final XWikiAttachment attachment, final XWikiRequest
         final XWikiResponse response, final XWikiContext context) throws XWikiException
     {
         InputStream stream = null;
-        try {
+        try (FileChannel channel = attachment.getContentChannel(context)) {
             setCommonHeaders(attachment, request, response, context);
-            setContentLength(response, attachment.getContentLongSize(context));
-            stream = attachment.getContentInputStream(context);
-            IOUtils.copy(stream, response.getOutputStream());
+            long length = attachment.getContentLongSize(context);
+            setContentLength(response, length);
+            if (channel != null) {
+                transfer(channel, 0, length, response.getOutputStream());
+            } else {
+                stream = attachment.getContentInputStream(context);
+                IOUtils.copy(stream, response.getOutputStream());
+            }
         } catch (IOException e) {
             throw new XWikiException(XWikiException.MODULE_XWIKI_APP,
                 XWikiException.ERROR_XWIKI_APP_SEND_RESPONSE_EXCEPTION, "Exception while sending response", e);
@@ -421,7 +637,7 @@ private XWikiAttachment getAttachment(XWikiRequest request, XWikiDocument docume
      * @param context the current request context
      */
     private void setCommonHeaders(final XWikiAttachment attachment, final XWikiRequest request,
-        final XWikiResponse response, final XWikiContext context)
+        final XWikiResponse response, final XWikiContext context) throws XWikiException
     {
         // Choose the right content type
         String mimetype = attachment.getMimeType(context);
@@ -460,6 +676,7 @@ private void setCommonHeaders(final XWikiAttachment attachment, final XWikiReque
         response.addHeader("Content-disposition", dispType + "; filename*=utf-8''" + ofilename);
 
         response.setDateHeader("Last-Modified", attachment.getDate().getTime());
+        response.setHeader(ETAG_HEADER_NAME, getEntityTag(attachment));
         // Advertise that downloads can be resumed
         response.setHeader("Accept-Ranges", "bytes");
     }
@@ -19,13 +19,16 @@
  */
 package com.xpn.xwiki.api;
 
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.rendering.renderer.PrintRendererFactory;
 import org.xwiki.rendering.syntax.Syntax;
+import org.xwiki.security.authorization.Right;
 import org.xwiki.test.mockito.MockitoComponentManager;
 
 import com.xpn.xwiki.XWikiContext;
@@ -38,9 +41,11 @@
 import com.xpn.xwiki.user.api.XWikiRightService;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 /**
@@ -124,4 +129,26 @@ public void getAvailableRendererSyntax(MockitoComponentManager componentManager)
         assertNull(this.apiXWiki.getAvailableRendererSyntax("plai", "1.0"));
         assertNull(this.apiXWiki.getAvailableRendererSyntax("plai", null));
     }
+
+    @Test
+    public void getDocuments(MockitoOldcore mockitoOldcore) throws XWikiException
+    {
+        DocumentReference viewable = new DocumentReference("xwiki", "MilkyWay", "Fidis");
+        DocumentReference denied = new DocumentReference("xwiki", "MilkyWay", "Denied");
+        DocumentReference missing = new DocumentReference("xwiki", "MilkyWay", "Missing");
+        List<DocumentReference> references = Arrays.asList(viewable, denied, missing);
+
+        // The authorization manager returns equal references, not the passed instances
+        when(mockitoOldcore.getMockContextualAuthorizationManager().filterAccessible(eq(Right.VIEW), eq(references)))
+            .thenReturn(Arrays.asList(new DocumentReference(viewable), new DocumentReference(missing)));
+
+        List<Document> documents = this.apiXWiki.getDocuments(references);
+
+        assertEquals(3, documents.size());
+        assertEquals(viewable, documents.get(0).getDocumentReference());
+        assertFalse(documents.get(0).isNew());
+        assertNull(documents.get(1));
+        assertEquals(missing, documents.get(2).getDocumentReference());
+        assertTrue(documents.get(2).isNew());
+    }
 }
@@ -537,6 +537,64 @@ public void testCloneSaveVersions()
         assertEquals(doc1.getVersion(), doc2.getVersion());
     }
 
+    @Test
+    public void lazyClone()
+    {
+        DocumentReference otherClassReference = new DocumentReference(DOCWIKI, DOCSPACE, "OtherClass");
+        BaseObject otherObject = new BaseObject();
+        otherObject.setXClassReference(otherClassReference);
+        otherObject.setStringValue("string", "other");
+        this.document.addXObject(otherObject);
+
+        XWikiDocument clonedDocument = this.document.lazyClone();
+
+        BaseObject clonedObject = clonedDocument.getXObject(CLASS_REFERENCE, this.baseObject2.getNumber());
+        assertNotSame(this.baseObject2, clonedObject);
+        assertSame(clonedDocument, clonedObject.getOwnerDocument());
+        assertEquals(this.baseObject2.getNumber(), clonedObject.getNumber());
+        assertEquals(this.baseObject2, clonedObject);
+
+        clonedObject.setStringValue("string", "modified");
+        assertEquals("string", this.baseObject2.getStringValue("string"));
+        assertSame(this.document, this.baseObject2.getOwnerDocument());
+
+        clonedDocument.removeXObjects(otherClassReference);
+        assertEquals(1, this.document.getXObjects(otherClassReference).size());
+        assertSame(otherObject, this.document.getXObject(otherClassReference));
+        assertTrue(clonedDocument.getXObjects(otherClassReference).isEmpty());
+
+        assertEquals(this.document.getXObjects(CLASS_REFERENCE).size(),
+            clonedDocument.getXObjects().get(CLASS_REFERENCE).size());
+    }
+
+    @Test
+    public void lazyCloneSaveDoesNotCloneUntouchedXObjects()
+    {
+        DocumentReference otherClassReference = new DocumentReference(DOCWIKI, DOCSPACE, "OtherClass");
+        BaseObject otherObject = new BaseObject();
+        otherObject.setXClassReference(otherClassReference);
+        this.document.addXObject(otherObject);
+
+        XWikiDocument clonedDocument = this.document.lazyClone();
+        clonedDocument.getXObject(CLASS_REFERENCE, this.baseObject2.getNumber()).setStringValue("string", "modified");
+
+        // What the store reads when saving the document
+        Map<DocumentReference, List<BaseObject>> savedObjects = clonedDocument.getReadOnlyXObjects();
+        assertEquals(2, savedObjects.size());
+        assertEquals("modified", savedObjects.get(CLASS_REFERENCE).get(this.baseObject2.getNumber())
+            .getStringValue("string"));
+        assertSame(otherObject, savedObjects.get(otherClassReference).get(0));
+
+        // The saved document becomes the original document of itself
+        XWikiDocument originalDocument = clonedDocument.clone();
+        assertNotSame(otherObject, originalDocument.getXObject(otherClassReference));
+        assertEquals(otherObject, originalDocument.getXObject(otherClassReference));
+
+        // The untouched xobjects are still shared
+        assertSame(otherObject, clonedDocument.getReadOnlyXObjects().get(otherClassReference).get(0));
+        assertSame(this.document, otherObject.getOwnerDocument());
+    }
+
     @Test
     public void testAddObject() throws XWikiException
     {
@@ -30,6 +30,7 @@
 import org.xwiki.configuration.ConfigurationSource;
 import org.xwiki.display.internal.DisplayConfiguration;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.rendering.block.XDOM;
 import org.xwiki.rendering.syntax.Syntax;
 import org.xwiki.test.annotation.AllComponents;
 import org.xwiki.test.junit5.mockito.InjectComponentManager;
@@ -48,6 +49,8 @@
 import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
@@ -420,4 +423,19 @@ public void getRenderedContentTextRights() throws Exception
         assertEquals("<p>callerwiki:XWiki.calleruser Space.Page authorwiki:XWiki.contentauthor</p>",
             apiDocument.getRenderedContent(content, Syntax.XWIKI_2_1.toIdString(), Syntax.XHTML_1_0.toIdString()));
     }
+
+    @Test
+    public void getReadOnlyXDOM()
+    {
+        this.document.setContent("content");
+
+        XDOM xdom = this.document.getReadOnlyXDOM();
+        assertSame(xdom, this.document.getReadOnlyXDOM());
+        assertNotSame(xdom, this.document.getXDOM());
+        assertEquals(xdom.getChildren().size(), this.document.getXDOM().getChildren().size());
+
+        this.document.setContent("other content");
+
+        assertNotSame(xdom, this.document.getReadOnlyXDOM());
+    }
 }
@@ -23,33 +23,59 @@
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.suigeneris.jrcs.rcs.Version;
+import org.xwiki.bridge.event.DocumentCreatedEvent;
+import org.xwiki.cache.Cache;
 import org.xwiki.filter.FilterException;
 import org.xwiki.filter.instance.output.DocumentInstanceOutputProperties;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.observation.EventListener;
 import org.xwiki.rendering.syntax.Syntax;
 import org.xwiki.rendering.syntax.SyntaxType;
 
+import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.doc.XWikiAttachment;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.doc.XWikiDocumentArchive;
+import com.xpn.xwiki.internal.event.DocumentsBatchSavedEvent;
+import com.xpn.xwiki.internal.event.DocumentsBatchSavingEvent;
 import com.xpn.xwiki.internal.filter.AbstractInstanceFilterStreamTest;
 import com.xpn.xwiki.objects.BaseObject;
 import com.xpn.xwiki.objects.classes.BaseClass;
 import com.xpn.xwiki.objects.classes.NumberClass;
+import com.xpn.xwiki.store.XWikiCacheStore;
+import com.xpn.xwiki.store.XWikiHibernateStore;
 
+import static com.xpn.xwiki.test.mockito.OldcoreMatchers.anyXWikiContext;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * Validate {@link DocumentInstanceOutputFilterStream}.
@@ -555,4 +581,175 @@ public void importDocumentWithRevisionsAndPreserveVersion() throws FilterExcepti
 
         assertEquals("42.3", document3.getVersion());
     }
+
+    // Batch
+
+    private XWikiHibernateStore mockBatchStore(List<String> transactionWikis) throws XWikiException
+    {
+        XWikiHibernateStore store = (XWikiHibernateStore) this.oldcore.getMockStore();
+
+        doAnswer(invocation -> {
+            transactionWikis.add(invocation.<XWikiContext>getArgument(0).getWikiId());
+            return true;
+        }).when(store).beginTransaction(anyXWikiContext());
+        when(store.getSession(anyXWikiContext())).thenReturn(mock(Session.class));
+
+        return store;
+    }
+
+    private DocumentInstanceOutputProperties createBatchProperties(int batchSize)
+    {
+        DocumentInstanceOutputProperties outputProperties = new DocumentInstanceOutputProperties();
+
+        outputProperties.setVerbose(false);
+        outputProperties.setSaveBatchSize(batchSize);
+
+        return outputProperties;
+    }
+
+    private void assertSaved(String wiki, String page) throws XWikiException
+    {
+        assertFalse(this.oldcore.getSpyXWiki()
+            .getDocument(new DocumentReference(wiki, "space", page), this.oldcore.getXWikiContext()).isNew());
+    }
+
+    @Test
+    public void importDocumentsWithoutBatch() throws FilterException, XWikiException
+    {
+        List<String> transactionWikis = new ArrayList<>();
+        XWikiHibernateStore store = mockBatchStore(transactionWikis);
+
+        importFromXML("documentsbatch", createBatchProperties(0));
+
+        assertSaved("wiki", "page1");
+        assertSaved("otherwiki", "page4");
+
+        verify(store, never()).beginTransaction(anyXWikiContext());
+        verify(store, never()).endTransaction(anyXWikiContext(), anyBoolean());
+    }
+
+    @Test
+    public void importDocumentsCommitEveryBatchSize() throws FilterException, XWikiException
+    {
+        List<String> transactionWikis = new ArrayList<>();
+        XWikiHibernateStore store = mockBatchStore(transactionWikis);
+
+        importFromXML("documentsbatch", createBatchProperties(2));
+
+        assertSaved("wiki", "page1");
+        assertSaved("wiki", "page2");
+        assertSaved("wiki", "page3");
+        assertSaved("otherwiki", "page4");
+
+        // [page1, page2], [page3] (end of the wiki), [page4] (end of the wiki)
+        assertEquals(Arrays.asList("wiki", "wiki", "otherwiki"), transactionWikis);
+        verify(store, times(3)).endTransaction(anyXWikiContext(), eq(true));
+        verify(store, never()).endTransaction(anyXWikiContext(), eq(false));
+    }
+
+    @Test
+    public void importDocumentsCommitWhenWikiChanges() throws FilterException, XWikiException
+    {
+        List<String> transactionWikis = new ArrayList<>();
+        XWikiHibernateStore store = mockBatchStore(transactionWikis);
+
+        importFromXML("documentsbatch", createBatchProperties(10));
+
+        assertSaved("wiki", "page3");
+        assertSaved("otherwiki", "page4");
+
+        // A transaction is bound to a wiki database
+        assertEquals(Arrays.asList("wiki", "otherwiki"), transactionWikis);
+        verify(store, times(2)).endTransaction(anyXWikiContext(), eq(true));
+    }
+
+    @Test
+    public void importDocumentsRollbackBatchWhenSaveFails() throws Exception
+    {
+        List<String> transactionWikis = new ArrayList<>();
+        XWikiHibernateStore store = mockBatchStore(transactionWikis);
+
+        doThrow(new XWikiException()).when(this.oldcore.getSpyXWiki()).saveDocument(
+            argThat(document -> document != null && document.getDocumentReference().getName().equals("page2")),
+            any(String.class), anyBoolean(), anyXWikiContext());
+
+        EventListener listener = mock(EventListener.class);
+        when(listener.getName()).thenReturn("batchlistener");
+        when(listener.getEvents()).thenReturn(Arrays.asList(DocumentsBatchSavedEvent.EVENT));
+        this.oldcore.getObservationManager().addListener(listener);
+
+        DocumentInstanceOutputProperties outputProperties = createBatchProperties(10);
+        outputProperties.setStoppedWhenSaveFail(false);
+
+        importFromXML("documentsbatch", outputProperties);
+
+        // [page1, page2] rolled back, [page3] and [page4] committed
+        assertEquals(Arrays.asList("wiki", "wiki", "otherwiki"), transactionWikis);
+        verify(store).endTransaction(anyXWikiContext(), eq(false));
+        verify(store, times(2)).endTransaction(anyXWikiContext(), eq(true));
+
+        InOrder inOrder = inOrder(listener);
+        inOrder.verify(listener).onEvent(any(DocumentsBatchSavedEvent.class), eq(false), any());
+        inOrder.verify(listener, times(2)).onEvent(any(DocumentsBatchSavedEvent.class), eq(true), any());
+    }
+
+    @Test
+    public void importDocumentsEvictCacheAfterBatch() throws FilterException, XWikiException
+    {
+        List<String> transactionWikis = new ArrayList<>();
+        XWikiHibernateStore store = mockBatchStore(transactionWikis);
+
+        XWikiCacheStore cacheStore = mock(XWikiCacheStore.class);
+        when(cacheStore.getStore()).thenReturn(store);
+        Cache<XWikiDocument> cache = mock(Cache.class);
+        when(cacheStore.getCache()).thenReturn(cache);
+        Cache<Boolean> pageExistCache = mock(Cache.class);
+        when(cacheStore.getPageExistCache()).thenReturn(pageExistCache);
+        doReturn(cacheStore).when(this.oldcore.getSpyXWiki()).getStore();
+
+        importFromXML("documentsbatch", createBatchProperties(2));
+
+        for (DocumentReference reference : Arrays.asList(new DocumentReference("wiki", "space", "page1"),
+            new DocumentReference("wiki", "space", "page2"), new DocumentReference("wiki", "space", "page3"),
+            new DocumentReference("otherwiki", "space", "page4"))) {
+            String key = new XWikiDocument(reference).getKey();
+            verify(cache).remove(key);
+            verify(pageExistCache).remove(key);
+        }
+    }
+
+    @Test
+    public void importDocumentsSendFoldEvents() throws Exception
+    {
+        mockBatchStore(new ArrayList<>());
+
+        this.oldcore.notifyDocumentCreatedEvent(true);
+
+        EventListener listener = mock(EventListener.class);
+        when(listener.getName()).thenReturn("batchlistener");
+        when(listener.getEvents()).thenReturn(
+            Arrays.asList(DocumentsBatchSavingEvent.EVENT, DocumentsBatchSavedEvent.EVENT, new DocumentCreatedEvent()));
+        this.oldcore.getObservationManager().addListener(listener);
+
+        importFromXML("documentsbatch", createBatchProperties(2));
+
+        InOrder inOrder = inOrder(listener);
+
+        // First batch
+        inOrder.verify(listener).onEvent(any(DocumentsBatchSavingEvent.class), any(),
+            same(this.oldcore.getXWikiContext()));
+        inOrder.verify(listener, times(2)).onEvent(any(DocumentCreatedEvent.class), any(XWikiDocument.class), any());
+        inOrder.verify(listener).onEvent(any(DocumentsBatchSavedEvent.class), eq(true),
+            same(this.oldcore.getXWikiContext()));
+
+        // Second batch (end of the wiki)
+        inOrder.verify(listener).onEvent(any(DocumentsBatchSavingEvent.class), any(), any());
+        inOrder.verify(listener).onEvent(any(DocumentCreatedEvent.class), any(XWikiDocument.class), any());
+        inOrder.verify(listener).onEvent(any(DocumentsBatchSavedEvent.class), eq(true), any());
+
+        // Third batch (other wiki)
+        inOrder.verify(listener).onEvent(any(DocumentsBatchSavingEvent.class), any(), any());
+        inOrder.verify(listener).onEvent(any(DocumentCreatedEvent.class), any(XWikiDocument.class), any());
+        inOrder.verify(listener).onEvent(any(DocumentsBatchSavedEvent.class), eq(true), any());
+    }
 }
@@ -0,0 +1,209 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.mandatory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Properties;
+
+import javax.inject.Named;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.environment.Environment;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.LocalDocumentReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.test.junit5.XWikiTempDir;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.doc.MandatoryDocumentInitializer;
+import com.xpn.xwiki.doc.XWikiDocument;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link MandatoryDocumentInitializerFingerprints}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class MandatoryDocumentInitializerFingerprintsTest
+{
+    private static final DocumentReference DOCUMENT_REFERENCE = new DocumentReference("wiki", "Space", "Page");
+
+    /**
+     * A real class is needed to get a fingerprint.
+     */
+    public static class TestInitializer implements MandatoryDocumentInitializer
+    {
+        @Override
+        public EntityReference getDocumentReference()
+        {
+            return new LocalDocumentReference("Space", "Page");
+        }
+
+        @Override
+        public boolean updateDocument(XWikiDocument document)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * An initializer inheriting its behavior from another class.
+     */
+    public static class TestExtendedInitializer extends TestInitializer
+    {
+    }
+
+    @InjectMockComponents
+    private MandatoryDocumentInitializerFingerprints fingerprints;
+
+    @MockComponent
+    private Environment environment;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    @Named("current")
+    private DocumentReferenceResolver<EntityReference> resolver;
+
+    @MockComponent
+    @Named("local")
+    private EntityReferenceSerializer<String> localSerializer;
+
+    @XWikiTempDir
+    private File permanentDirectory;
+
+    private Query query = mock(Query.class);
+
+    private MandatoryDocumentInitializer initializer = new TestInitializer();
+
+    private List<MandatoryDocumentInitializer> initializers = Arrays.asList(this.initializer);
+
+    private XWikiDocument document = mock(XWikiDocument.class);
+
+    @BeforeEach
+    public void beforeEach() throws Exception
+    {
+        when(this.environment.getPermanentDirectory()).thenReturn(this.permanentDirectory);
+        when(this.resolver.resolve(any(), any())).thenReturn(DOCUMENT_REFERENCE);
+        when(this.localSerializer.serialize(DOCUMENT_REFERENCE)).thenReturn("Space.Page");
+        when(this.queryManager.createQuery(anyString(), eq(Query.HQL))).thenReturn(this.query);
+
+        when(this.document.getDocumentReference()).thenReturn(DOCUMENT_REFERENCE);
+        when(this.document.getVersion()).thenReturn("1.2");
+        when(this.document.getDate()).thenReturn(new Date(1000123L));
+    }
+
+    private void setDatabaseState(String version, long date) throws Exception
+    {
+        when(this.query.<Object[]>execute())
+            .thenReturn(Collections.singletonList(new Object[] { "Space.Page", version, new Date(date) }));
+    }
+
+    @Test
+    public void getUpToDate() throws Exception
+    {
+        // Never checked
+        assertEquals(Collections.emptySet(), this.fingerprints.getUpToDate(this.initializers, "wiki"));
+        verify(this.queryManager, never()).createQuery(anyString(), any());
+
+        this.fingerprints.setChecked(this.initializer, this.document);
+
+        // The database does not store the milliseconds
+        setDatabaseState("1.2", 1000000L);
+        assertEquals(Collections.singleton(this.initializer),
+            this.fingerprints.getUpToDate(this.initializers, "wiki"));
+        verify(this.query).bindValue("names", Arrays.asList("Space.Page"));
+        verify(this.query).setWiki("wiki");
+
+        // Modified document
+        setDatabaseState("1.3", 1000000L);
+        assertEquals(Collections.emptySet(), this.fingerprints.getUpToDate(this.initializers, "wiki"));
+
+        // Deleted document
+        when(this.query.execute()).thenReturn(Collections.emptyList());
+        assertEquals(Collections.emptySet(), this.fingerprints.getUpToDate(this.initializers, "wiki"));
+
+        // Other wiki
+        assertEquals(Collections.emptySet(), this.fingerprints.getUpToDate(this.initializers, "otherwiki"));
+    }
+
+    @Test
+    public void getUpToDateWithNewDocument() throws Exception
+    {
+        this.fingerprints.setChecked(this.initializer, this.document);
+
+        when(this.document.isNew()).thenReturn(true);
+        this.fingerprints.setChecked(this.initializer, this.document);
+
+        setDatabaseState("1.2", 1000000L);
+        assertEquals(Collections.emptySet(), this.fingerprints.getUpToDate(this.initializers, "wiki"));
+    }
+
+    @Test
+    public void save()
+    {
+        this.fingerprints.setChecked(this.initializer, this.document);
+        this.fingerprints.save("wiki");
+
+        assertTrue(new File(this.permanentDirectory, "mandatory/wiki.properties").exists());
+    }
+
+    @Test
+    public void saveWithExtendedInitializer() throws Exception
+    {
+        MandatoryDocumentInitializer extendedInitializer = new TestExtendedInitializer();
+        this.fingerprints.setChecked(extendedInitializer, this.document);
+        this.fingerprints.save("wiki");
+
+        Properties properties = new Properties();
+        try (InputStream stream = new FileInputStream(new File(this.permanentDirectory, "mandatory/wiki.properties"))) {
+            properties.load(stream);
+        }
+
+        // The fingerprint changes when the class the initializer extends changes
+        String fingerprint = properties.getProperty(TestExtendedInitializer.class.getName() + "|Space.Page");
+        assertTrue(fingerprint.contains("$TestExtendedInitializer.class@"));
+        assertTrue(fingerprint.contains("$TestInitializer.class@"));
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.internal.template;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.model.reference.ObjectPropertyReference;
+import org.xwiki.model.reference.ObjectReference;
+import org.xwiki.observation.ObservationManager;
+import org.xwiki.template.event.TemplateDeletedEvent;
+import org.xwiki.template.event.TemplateUpdatedEvent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.event.XObjectPropertyDeletedEvent;
+import com.xpn.xwiki.internal.event.XObjectPropertyUpdatedEvent;
+import com.xpn.xwiki.internal.skin.WikiSkinUtils;
+import com.xpn.xwiki.objects.BaseObject;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link TemplateListener}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+class TemplateListenerTest
+{
+    private static final DocumentReference SKIN_REFERENCE = new DocumentReference("wiki", "Space", "Skin");
+
+    private static final ObjectPropertyReference PROPERTY_REFERENCE =
+        new ObjectPropertyReference("view.vm", new ObjectReference("XWiki.XWikiSkins[0]", SKIN_REFERENCE));
+
+    @InjectMockComponents
+    private TemplateListener listener;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> serializer;
+
+    @MockComponent
+    private ObservationManager observation;
+
+    private XWikiDocument document = mock(XWikiDocument.class);
+
+    private XWikiDocument originalDocument = mock(XWikiDocument.class);
+
+    @Test
+    void onSkinPropertyUpdated()
+    {
+        when(this.document.getXObject(WikiSkinUtils.SKINCLASS_REFERENCE)).thenReturn(mock(BaseObject.class));
+        when(this.serializer.serialize(PROPERTY_REFERENCE)).thenReturn("template");
+
+        this.listener.onEvent(new XObjectPropertyUpdatedEvent(PROPERTY_REFERENCE), this.document, null);
+
+        verify(this.observation).notify(argThat(new TemplateUpdatedEvent("template")::matches), same(this.listener));
+    }
+
+    @Test
+    void onSkinDocumentDeleted()
+    {
+        // The source of the events sent when a document is deleted is an empty document
+        when(this.document.getOriginalDocument()).thenReturn(this.originalDocument);
+        when(this.originalDocument.getXObject(WikiSkinUtils.SKINCLASS_REFERENCE)).thenReturn(mock(BaseObject.class));
+        when(this.serializer.serialize(PROPERTY_REFERENCE)).thenReturn("template");
+
+        this.listener.onEvent(new XObjectPropertyDeletedEvent(PROPERTY_REFERENCE), this.document, null);
+
+        verify(this.observation).notify(argThat(new TemplateDeletedEvent("template")::matches), same(this.listener));
+    }
+
+    @Test
+    void onOtherDocumentDeleted()
+    {
+        when(this.document.getOriginalDocument()).thenReturn(this.originalDocument);
+
+        this.listener.onEvent(new XObjectPropertyDeletedEvent(PROPERTY_REFERENCE), this.document, null);
+
+        verify(this.observation, never()).notify(any(), same(this.listener));
+    }
+}
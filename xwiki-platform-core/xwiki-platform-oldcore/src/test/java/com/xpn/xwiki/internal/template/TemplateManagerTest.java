@@ -20,17 +20,23 @@
 package com.xpn.xwiki.internal.template;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.velocity.VelocityContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.internal.MapCache;
 import org.xwiki.configuration.ConfigurationSource;
 import org.xwiki.configuration.internal.MemoryConfigurationSource;
 import org.xwiki.environment.Environment;
@@ -61,6 +67,8 @@
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -92,6 +100,9 @@ void afterComponent() throws Exception
         this.componentManager.registerMockComponent(ObservationManager.class);
         this.componentManager.registerMockComponent(ContextualAuthorizationManager.class);
 
+        CacheManager cacheManager = this.componentManager.registerMockComponent(CacheManager.class);
+        when(cacheManager.createNewCache(any())).thenReturn(new MapCache<>());
+
         this.authorizationMock = this.componentManager.registerMockComponent(AuthorizationManager.class);
         this.environmentMock = this.componentManager.registerMockComponent(Environment.class);
         this.velocityManagerMock = this.componentManager.registerMockComponent(VelocityManager.class);
@@ -182,4 +193,32 @@ void renderClassloaderTemplate() throws Exception
 
         assertEquals("OK", this.templateManager.render("classloader_template.vm"));
     }
+
+    @Test
+    void renderModifiedTemplate(@TempDir File tmpDir) throws Exception
+    {
+        File file = new File(tmpDir, "template");
+        FileUtils.write(file, "source", StandardCharsets.UTF_8);
+        file.setLastModified(1000000000000L);
+
+        when(this.environmentMock.getResource("/templates/")).thenReturn(tmpDir.toURI().toURL());
+        when(this.environmentMock.getResource("/templates/template")).thenReturn(file.toURI().toURL());
+        when(this.environmentMock.getResourceAsStream("/templates/template"))
+            .then(invocation -> FileUtils.openInputStream(file));
+
+        mockVelocity("source", "OK");
+        mockVelocity("modified source", "MODIFIED");
+
+        assertEquals("OK", this.templateManager.render("template"));
+        assertEquals("OK", this.templateManager.render("template"));
+
+        // The content of the template is only loaded once as long as it's not modified
+        verify(this.environmentMock, times(1)).getResourceAsStream("/templates/template");
+
+        FileUtils.write(file, "modified source", StandardCharsets.UTF_8);
+        file.setLastModified(1000000001000L);
+
+        assertEquals("MODIFIED", this.templateManager.render("template"));
+        verify(this.environmentMock, times(2)).getResourceAsStream("/templates/template");
+    }
 }
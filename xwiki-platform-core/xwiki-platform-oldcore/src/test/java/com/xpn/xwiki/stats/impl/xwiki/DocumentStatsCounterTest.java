@@ -0,0 +1,66 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.stats.impl.xwiki;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validate {@link DocumentStatsCounter}.
+ *
+ * @version $Id$
+ */
+public class DocumentStatsCounterTest
+{
+    private DocumentStatsCounter counter = new DocumentStatsCounter(null);
+
+    @Test
+    public void incrementAndReset()
+    {
+        assertTrue(this.counter.increment(true));
+        assertTrue(this.counter.increment(false));
+        assertTrue(this.counter.increment(false));
+
+        long value = this.counter.reset();
+        assertEquals(3, DocumentStatsCounter.getPageViews(value));
+        assertEquals(1, DocumentStatsCounter.getVisits(value));
+
+        assertEquals(0, this.counter.reset());
+    }
+
+    @Test
+    public void retire()
+    {
+        this.counter.increment(false);
+
+        // Updated since the previous reset
+        assertFalse(this.counter.retire());
+
+        this.counter.reset();
+        assertTrue(this.counter.retire());
+
+        assertFalse(this.counter.increment(false));
+        assertEquals(0, this.counter.reset());
+        assertFalse(this.counter.increment(true));
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.stats.impl.xwiki;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import com.xpn.xwiki.XWiki;
+import com.xpn.xwiki.XWikiContext;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link XWikiStatsStoreService}.
+ *
+ * @version $Id$
+ */
+public class XWikiStatsStoreServiceTest
+{
+    private static final int MAX_PENDING_STATS = 2;
+
+    private XWikiStatsStoreService service;
+
+    @BeforeEach
+    public void beforeEach()
+    {
+        XWikiContext context = mock(XWikiContext.class);
+        XWiki xwiki = mock(XWiki.class);
+        when(context.getWiki()).thenReturn(xwiki);
+        when(xwiki.ParamAsLong(eq("stats.queue.size"), anyLong())).thenReturn((long) MAX_PENDING_STATS);
+        when(xwiki.ParamAsLong(eq("stats.counters.size"), anyLong())).thenReturn(10L);
+        when(xwiki.ParamAsLong(eq("stats.flush.interval"), anyLong())).thenReturn(10L);
+
+        this.service = new XWikiStatsStoreService(context);
+    }
+
+    private XWikiStatsStoreItem mockStat(String id)
+    {
+        XWikiStatsStoreItem stat = mock(XWikiStatsStoreItem.class, id);
+        when(stat.getId()).thenReturn(id);
+
+        return stat;
+    }
+
+    @Test
+    public void registerMoreStatsThanPendingStatsSize()
+    {
+        XWikiStatsStoreItem firstVisit = mockStat("visit1");
+        this.service.add(firstVisit);
+        for (int i = 0; i < 1000; i++) {
+            this.service.add(mockStat("visit1"));
+        }
+        XWikiStatsStoreItem lastVisit = mockStat("visit1");
+        this.service.add(lastVisit);
+        XWikiStatsStoreItem referer = mockStat("referer1");
+        this.service.add(referer);
+
+        // All the statistics of the same visit are aggregated so that they don't count in the limit
+        assertEquals(0, this.service.getDroppedStatistics());
+
+        XWikiStatsStoreItem otherVisit = mockStat("visit2");
+        this.service.add(otherVisit);
+
+        assertEquals(1, this.service.getDroppedStatistics());
+
+        this.service.register();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<XWikiStatsStoreItem>> visitCaptor = ArgumentCaptor.forClass(List.class);
+        InOrder inOrder = inOrder(firstVisit, referer);
+        inOrder.verify(firstVisit).store(visitCaptor.capture());
+        inOrder.verify(referer).store(any());
+        verify(otherVisit, never()).store(any());
+
+        List<XWikiStatsStoreItem> visits = visitCaptor.getValue();
+        assertEquals(1002, visits.size());
+        assertSame(firstVisit, visits.get(0));
+        assertSame(lastVisit, visits.get(visits.size() - 1));
+
+        // The pending statistics are emptied by the storage
+        this.service.add(otherVisit);
+        this.service.register();
+
+        verify(otherVisit).store(any());
+        assertEquals(1, this.service.getDroppedStatistics());
+    }
+}
@@ -19,6 +19,9 @@
  */
 package com.xpn.xwiki.store;
 
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.xwiki.cache.Cache;
@@ -36,7 +39,9 @@
 import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
 
 import static com.xpn.xwiki.test.mockito.OldcoreMatchers.isCacheConfiguration;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -121,6 +126,39 @@ void loadXWikiDoc() throws Exception
         verifyNoMoreInteractions(this.existCache);
     }
 
+    @Test
+    void loadXWikiDocs() throws Exception
+    {
+        this.oldcore.getXWikiContext().setWikiId("wiki");
+        this.oldcore.getSpyXWiki().saveDocument(new XWikiDocument(new DocumentReference("wiki", "space", "page")),
+            this.oldcore.getXWikiContext());
+
+        DocumentReference cachedReference = new DocumentReference("wiki", "space", "cached");
+        XWikiDocument cachedDocument = new XWikiDocument(cachedReference);
+        when(this.cache.get("4:wiki5:space6:cached0:")).thenReturn(cachedDocument);
+
+        XWikiCacheStore store = new XWikiCacheStore(this.oldcore.getMockStore(), this.oldcore.getXWikiContext());
+
+        DocumentReference pageReference = new DocumentReference("wiki", "space", "page");
+        DocumentReference noPageReference = new DocumentReference("wiki", "space", "nopage");
+        List<XWikiDocument> documents = store.loadXWikiDocs(
+            Arrays.asList(pageReference, cachedReference, noPageReference), this.oldcore.getXWikiContext());
+
+        assertEquals(3, documents.size());
+        assertFalse(documents.get(0).isNew());
+        assertSame(cachedDocument, documents.get(1));
+        assertTrue(documents.get(1).isFromCache());
+        assertTrue(documents.get(2).isNew());
+
+        // Only the missing documents are asked to the underlying store, all at once
+        verify(this.oldcore.getMockStore()).loadXWikiDocs(Arrays.asList(pageReference, noPageReference),
+            this.oldcore.getXWikiContext());
+
+        verify(this.cache).set(eq("4:wiki5:space4:page0:"), any(XWikiDocument.class));
+        verify(this.existCache).set("4:wiki5:space4:page0:", Boolean.TRUE);
+        verify(this.existCache).set("4:wiki5:space6:nopage0:", Boolean.FALSE);
+    }
+
     @Test
     void saveXWikiDocumentFailing() throws XWikiException
     {
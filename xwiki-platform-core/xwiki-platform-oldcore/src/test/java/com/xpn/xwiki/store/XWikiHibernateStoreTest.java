@@ -32,8 +32,10 @@
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
+import org.hibernate.boot.Metadata;
 import org.hibernate.dialect.Dialect;
 import org.hibernate.query.NativeQuery;
+import org.hibernate.mapping.PersistentClass;
 import org.hibernate.query.Query;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -65,6 +67,7 @@
 import com.xpn.xwiki.objects.BaseProperty;
 import com.xpn.xwiki.objects.LargeStringProperty;
 import com.xpn.xwiki.objects.StringProperty;
+import com.xpn.xwiki.objects.classes.BaseClass;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -74,6 +77,7 @@
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -451,4 +455,114 @@ void loadBacklinksFromSubwiki() throws Exception
         verify(this.hibernateStore).beginTransaction();
         verify(this.hibernateStore).endTransaction(false);
     }
+
+    private BaseObject mockObject(long id, DocumentReference documentReference, DocumentReference classReference)
+    {
+        BaseObject object = mock(BaseObject.class);
+        when(object.getId()).thenReturn(id);
+        when(object.getDocumentReference()).thenReturn(documentReference);
+        when(object.getXClassReference()).thenReturn(classReference);
+        when(object.getXClass(this.xcontext)).thenReturn(new BaseClass());
+        return object;
+    }
+
+    private Query<Object[]> mockBulkPropertyNamesQuery(Object[]... results)
+    {
+        Query<Object[]> query = mock(Query.class);
+        when(this.session.createQuery("select prop.id.id, prop.id.name, prop.classType "
+            + "from BaseProperty as prop where prop.id.id in "
+            + "(select bobject.id from BaseObject as bobject where bobject.name = :name)", Object[].class))
+                .thenReturn(query);
+        when(query.list()).thenReturn(Arrays.asList(results));
+        return query;
+    }
+
+    private Query<BaseProperty> mockBulkPropertiesQuery(Class<? extends BaseProperty> type, BaseProperty... results)
+    {
+        PersistentClass binding = mock(PersistentClass.class);
+        when(this.hibernateStore.getConfigurationMetadata().getEntityBinding(type.getName())).thenReturn(binding);
+
+        Query<BaseProperty> query = mock(Query.class);
+        when(this.session.createQuery("select prop from " + type.getName() + " as prop where prop.classType = "
+            + ":classType and prop.id.id in (select bobject.id from BaseObject as bobject where bobject.name = :name)",
+            BaseProperty.class)).thenReturn(query);
+        when(query.list()).thenReturn(Arrays.asList(results));
+        return query;
+    }
+
+    private StringProperty createStringProperty(long id, String name, String value)
+    {
+        StringProperty property = new StringProperty();
+        property.setId(id);
+        property.setName(name);
+        property.setValue(value);
+        return property;
+    }
+
+    @Test
+    void loadXWikiCollectionsInBulk() throws Exception
+    {
+        DocumentReference documentReference = new DocumentReference("wiki", "Space", "Page");
+        DocumentReference classReference = new DocumentReference("wiki", "Space", "Class");
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getFullName()).thenReturn("Space.Page");
+        BaseObject object1 = mockObject(1L, documentReference, classReference);
+        BaseObject object2 = mockObject(2L, documentReference, classReference);
+        when(this.hibernateStore.getConfigurationMetadata()).thenReturn(mock(Metadata.class));
+
+        String stringType = StringProperty.class.getName();
+        Query<Object[]> namesQuery = mockBulkPropertyNamesQuery(new Object[] { 1L, "title", stringType },
+            new Object[] { 2L, "title", stringType });
+        StringProperty title1 = createStringProperty(1L, "title", "first");
+        StringProperty title2 = createStringProperty(2L, "title", null);
+        Query<BaseProperty> propertiesQuery = mockBulkPropertiesQuery(StringProperty.class, title1, title2);
+
+        this.store.loadXWikiCollectionsInBulk(Arrays.asList(object1, object2), document, this.session, this.xcontext);
+
+        verify(namesQuery).setParameter("name", "Space.Page");
+        verify(propertiesQuery).setParameter("classType", stringType);
+        verify(propertiesQuery).setParameter("name", "Space.Page");
+
+        verify(object1).addField("title", title1);
+        verify(object2).addField("title", title2);
+        assertEquals("first", title1.getValue());
+        // Empty strings are stored as NULL by some databases
+        assertEquals("", title2.getValue());
+
+        // The properties are not loaded again one object at a time
+        verify(this.session, never()).createQuery(
+            "select prop.name, prop.classType from BaseProperty as prop where prop.id.id = :id", Object[].class);
+        verify(this.session, never()).load(any(BaseProperty.class), any(BaseProperty.class));
+    }
+
+    @Test
+    void loadXWikiCollectionsInBulkWithPropertyTypeMismatch() throws Exception
+    {
+        DocumentReference documentReference = new DocumentReference("wiki", "Space", "Page");
+        DocumentReference classReference = new DocumentReference("wiki", "Space", "Class");
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getFullName()).thenReturn("Space.Page");
+        BaseObject object = mockObject(1L, documentReference, classReference);
+        when(this.hibernateStore.getConfigurationMetadata()).thenReturn(mock(Metadata.class));
+
+        // The description is declared as a large string but stored in the string table
+        String stringType = StringProperty.class.getName();
+        String largeStringType = LargeStringProperty.class.getName();
+        mockBulkPropertyNamesQuery(new Object[] { 1L, "title", stringType },
+            new Object[] { 1L, "description", largeStringType });
+        StringProperty title = createStringProperty(1L, "title", "value");
+        mockBulkPropertiesQuery(StringProperty.class, title);
+        mockBulkPropertiesQuery(LargeStringProperty.class);
+
+        this.store.loadXWikiCollectionsInBulk(Collections.singletonList(object), document, this.session,
+            this.xcontext);
+
+        verify(object).addField("title", title);
+        // Only the missing property is loaded on its own
+        verify(object).addField(eq("description"), any(LargeStringProperty.class));
+        verify(this.session, times(1)).load(any(LargeStringProperty.class), any(LargeStringProperty.class));
+        verify(this.session, never()).load(any(StringProperty.class), any(StringProperty.class));
+        verify(this.session, never()).createQuery(
+            "select prop.name, prop.classType from BaseProperty as prop where prop.id.id = :id", Object[].class);
+    }
 }
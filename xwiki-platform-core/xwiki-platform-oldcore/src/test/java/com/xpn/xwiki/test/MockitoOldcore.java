@@ -480,6 +480,7 @@ public XWikiDocument answer(InvocationOnMock invocation) throws Throwable
                 return document;
             }
         });
+        when(getMockStore().loadXWikiDocs(any(), anyXWikiContext())).thenCallRealMethod();
         when(getMockStore().exists(anyXWikiDocument(), anyXWikiContext())).then(new Answer<Boolean>()
         {
             @Override
@@ -72,6 +72,7 @@ public void setup(MockitoComponentManager componentManager) throws Exception
         when(userDocument.getDocumentReference()).thenReturn(userReference);
         when(userDocument.getDocumentReferenceWithLocale()).thenReturn(userReference);
         when(userDocument.clone()).thenReturn(userDocument);
+        when(userDocument.lazyClone()).thenReturn(userDocument);
         componentManager.registerMockComponent(ContextualLocalizationManager.class, "default");
     }
 
@@ -1550,6 +1550,7 @@ public void newDocumentWebHomeFromURLTemplateProviderSpecifiedWithSaveAndEdit()
         when(document.getDefaultEditMode(this.context)).thenReturn("edit");
         when(document.getDefaultLocale()).thenReturn(Locale.ROOT);
         when(document.clone()).thenReturn(document);
+        when(document.lazyClone()).thenReturn(document);
 
         // Mock the XWiki context.
         when(this.context.getWiki().getLocalePreference(this.context)).thenReturn(Locale.FRENCH);
@@ -20,13 +20,17 @@
 package com.xpn.xwiki.web;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.Date;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -54,6 +58,7 @@
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -613,6 +618,118 @@ public void downloadWhenEmptyRange() throws XWikiException, IOException
         verifyResponseExpectations(d.getTime(), this.fileContent.length);
     }
 
+    @Test
+    public void downloadWhenMultipleRanges() throws XWikiException, IOException
+    {
+        Date d = new Date();
+        createAttachment(d, DEFAULT_FILE_NAME);
+        setRequestExpectations(DEFAULT_URI, null, null, "bytes=0-1, 4-5", -1L, DEFAULT_FILE_NAME);
+
+        assertNull(this.action.render(this.oldcore.getXWikiContext()));
+
+        verify(this.response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        verify(this.response).setContentType(startsWith("multipart/byteranges; boundary="));
+        verify(this.response, times(0)).setHeader(eq("Content-Range"), any());
+        verifyOutputExpectations(0, 2);
+        verifyOutputExpectations(4, 6);
+    }
+
+    @Test
+    public void downloadWhenRangeFromFileChannel() throws XWikiException, IOException
+    {
+        File file = new File(this.oldcore.getTemporaryDirectory(), "file.txt");
+        FileUtils.writeByteArrayToFile(file, this.fileContent);
+
+        XWikiAttachment filetxt = new XWikiAttachment(this.document, DEFAULT_FILE_NAME);
+        XWikiAttachmentContent content = mock(XWikiAttachmentContent.class);
+        when(content.getAttachment()).thenReturn(filetxt);
+        when(content.getLongSize()).thenReturn((long) this.fileContent.length);
+        when(content.getContentChannel()).thenReturn(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+        filetxt.setAttachment_content(content);
+        Date d = new Date();
+        filetxt.setDate(d);
+        this.document.getAttachmentList().add(filetxt);
+
+        setRequestExpectations(DEFAULT_URI, null, null, "bytes=3-7", -1L, DEFAULT_FILE_NAME);
+
+        assertNull(this.action.render(this.oldcore.getXWikiContext()));
+
+        verify(this.response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        verify(this.response).setHeader("Content-Range", "bytes 3-7/" + this.fileContent.length);
+        verifyResponseExpectations(d.getTime(), 5);
+        verifyOutputExpectations(3, 8);
+        verify(content, times(0)).getContentInputStream();
+    }
+
+    @Test
+    public void downloadWhenIfRangeMatches() throws XWikiException, IOException
+    {
+        Date d = new Date();
+        createAttachment(d, DEFAULT_FILE_NAME);
+        setRequestExpectations(DEFAULT_URI, null, null, "bytes=3-7", -1L, DEFAULT_FILE_NAME);
+        when(this.request.getHeader("If-Range")).thenReturn(getEntityTag(d));
+
+        assertNull(this.action.render(this.oldcore.getXWikiContext()));
+
+        verify(this.response).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        verifyResponseExpectations(d.getTime(), 5);
+        verifyOutputExpectations(3, 8);
+    }
+
+    @Test
+    public void downloadWhenIfRangeDoesNotMatch() throws XWikiException, IOException
+    {
+        Date d = new Date();
+        createAttachment(d, DEFAULT_FILE_NAME);
+        setRequestExpectations(DEFAULT_URI, null, null, "bytes=3-7", -1L, DEFAULT_FILE_NAME);
+        when(this.request.getHeader("If-Range")).thenReturn("\"1.1-0-14\"");
+
+        assertNull(this.action.render(this.oldcore.getXWikiContext()));
+
+        verify(this.response, times(0)).setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+        verifyResponseExpectations(d.getTime(), this.fileContent.length);
+        verifyOutputExpectations(0, this.fileContent.length);
+    }
+
+    @Test
+    public void downloadWhenIfNoneMatch() throws XWikiException, IOException
+    {
+        Date d = new Date();
+        createAttachment(d, DEFAULT_FILE_NAME);
+        setRequestExpectations(DEFAULT_URI, null, null, null, -1L, DEFAULT_FILE_NAME);
+        when(this.request.getHeader("If-None-Match")).thenReturn("\"other\", " + getEntityTag(d));
+
+        assertNull(this.action.render(this.oldcore.getXWikiContext()));
+
+        verify(this.response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(this.out, times(0)).write(any(byte[].class), anyInt(), anyInt());
+    }
+
+    @Test
+    public void downloadWhenIfNoneMatchDoesNotLoadContent() throws XWikiException, IOException
+    {
+        XWikiAttachment filetxt = new XWikiAttachment(this.document, DEFAULT_FILE_NAME);
+        filetxt.setLongSize(this.fileContent.length);
+        Date d = new Date();
+        filetxt.setDate(d);
+        this.document.getAttachmentList().add(filetxt);
+        setRequestExpectations(DEFAULT_URI, null, null, null, -1L, DEFAULT_FILE_NAME);
+        when(this.request.getHeader("If-None-Match")).thenReturn(getEntityTag(d));
+
+        assertNull(this.action.render(this.oldcore.getXWikiContext()));
+
+        verify(this.response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(this.response).setHeader("ETag", getEntityTag(d));
+        // The entity tag is computed from the attachment metadata
+        assertNull(filetxt.getAttachment_content());
+    }
+
+    private String getEntityTag(Date d)
+    {
+        String version = this.document.getAttachment(DEFAULT_FILE_NAME).getVersion();
+        return "\"" + version + '-' + d.getTime() + '-' + this.fileContent.length + "\"";
+    }
+
     private void createAttachment(Date d, String name) throws IOException
     {
         XWikiAttachment filetxt = new XWikiAttachment(this.document, name);
@@ -37,6 +37,8 @@
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 
 /**
@@ -63,6 +65,7 @@ public void configure() throws Exception
     {
         when(this.authorization.hasAccess(Right.VIEW, authorized)).thenReturn(true);
         when(this.authorization.hasAccess(Right.VIEW, unauthorized)).thenReturn(false);
+        when(this.authorization.filterAccessible(eq(Right.VIEW), any())).thenCallRealMethod();
     }
 
     @Test
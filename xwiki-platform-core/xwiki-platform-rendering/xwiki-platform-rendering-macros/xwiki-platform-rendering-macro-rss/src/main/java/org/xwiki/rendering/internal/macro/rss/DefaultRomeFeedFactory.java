@@ -19,14 +19,40 @@
  */
 package org.xwiki.rendering.internal.macro.rss;
 
-import javax.net.ssl.HttpsURLConnection;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.SocketTimeoutException;
 import java.net.URLConnection;
 import java.text.MessageFormat;
+import java.time.Clock;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
 import org.xwiki.rendering.macro.MacroExecutionException;
 import org.xwiki.rendering.macro.rss.RssMacroParameters;
-import org.apache.commons.lang3.StringUtils;
 
 import com.sun.syndication.feed.synd.SyndFeed;
 import com.sun.syndication.io.SyndFeedInput;
@@ -34,20 +60,145 @@
 
 /**
  * Factory implementation using Rome to return the feed's data.
+ * <p>
+ * The parsed feeds are cached and, once {@link RssMacroConfiguration#getRefreshDelay()} is expired, revalidated in the
+ * background (using the {@code ETag} and {@code Last-Modified} headers sent by the server) while the cached version
+ * keeps being returned. Concurrent requests for a feed which is not cached yet share the same download.
  *
  * @version $Id$
  * @since 1.9
  */
-public class DefaultRomeFeedFactory implements RomeFeedFactory
+@Component
+@Singleton
+public class DefaultRomeFeedFactory implements RomeFeedFactory, Initializable, Disposable
 {
     /**
      * The maximum number of milliseconds to wait when inquiring the RSS feed provider.
      */
     private static final int TIMEOUT_MILLISECONDS = 5000;
+
+    /**
+     * The maximum number of milliseconds to wait for the RSS feed provider to send the feed.
+     */
+    private static final int READ_TIMEOUT_MILLISECONDS = 30000;
+
     private static final String USER_AGENT_HEADER = "User-Agent";
     private static final String VERSION = DefaultRomeFeedFactory.class.getPackage().getImplementationVersion();
     private static final String USER_AGENT = "XWiki/" + VERSION;
 
+    private static final String PROCESSING_ERROR_MESSAGE = "Error processing [{0}] : {1}";
+
+    private static final String ETAG_HEADER = "ETag";
+
+    private static final String LAST_MODIFIED_HEADER = "Last-Modified";
+
+    /**
+     * The maximum number of feeds kept in the cache.
+     */
+    private static final int CACHE_SIZE = 100;
+
+    /**
+     * The maximum number of feeds refreshed at the same time.
+     */
+    private static final int REFRESH_THREADS = 2;
+
+    private static final class CachedFeed
+    {
+        private final SyndFeed feed;
+
+        private final String etag;
+
+        private final String lastModified;
+
+        private final AtomicBoolean refreshing = new AtomicBoolean();
+
+        private volatile long expiration;
+
+        CachedFeed(SyndFeed feed, String etag, String lastModified, long expiration)
+        {
+            this.feed = feed;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.expiration = expiration;
+        }
+
+        boolean isExpired(long now)
+        {
+            return now >= this.expiration;
+        }
+    }
+
+    private static final class FeedCache extends LinkedHashMap<String, CachedFeed>
+    {
+        private static final long serialVersionUID = 1L;
+
+        FeedCache()
+        {
+            super(16, 0.75F, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedFeed> eldest)
+        {
+            return size() > CACHE_SIZE;
+        }
+    }
+
+    @Inject
+    private RssMacroConfiguration configuration;
+
+    @Inject
+    private Logger logger;
+
+    private final Map<String, CachedFeed> cache = Collections.synchronizedMap(new FeedCache());
+
+    /**
+     * The feeds being downloaded.
+     */
+    private final ConcurrentMap<String, CompletableFuture<CachedFeed>> downloads = new ConcurrentHashMap<>();
+
+    private ExecutorService refreshExecutor;
+
+    /**
+     * The source of the current time used to expire the cached feeds.
+     */
+    private Clock clock = Clock.systemUTC();
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        BasicThreadFactory factory = new BasicThreadFactory.Builder().namingPattern("XWiki RSS feed refresh thread %d")
+            .daemon(true).priority(Thread.MIN_PRIORITY).build();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS, 60L, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), factory);
+        executor.allowCoreThreadTimeOut(true);
+        this.refreshExecutor = executor;
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.refreshExecutor.shutdownNow();
+        this.cache.clear();
+    }
+
+    /**
+     * @param clock the source of the current time used to expire the cached feeds
+     */
+    void setClock(Clock clock)
+    {
+        this.clock = clock;
+    }
+
+    /**
+     * @param refreshExecutor the executor used to refresh the expired feeds in the background
+     */
+    void setRefreshExecutor(ExecutorService refreshExecutor)
+    {
+        this.refreshExecutor.shutdownNow();
+        this.refreshExecutor = refreshExecutor;
+    }
+
     @Override
     public SyndFeed createFeed(RssMacroParameters parameters) throws MacroExecutionException
     {
@@ -55,28 +206,142 @@ public SyndFeed createFeed(RssMacroParameters parameters) throws MacroExecutionE
             throw new MacroExecutionException("The required 'feed' parameter is missing");
         }
 
+        int refreshDelay = this.configuration.getRefreshDelay();
+        if (refreshDelay <= 0) {
+            return download(parameters, null, 0).feed;
+        }
+
+        String key = getCacheKey(parameters);
+        CachedFeed cachedFeed = this.cache.get(key);
+        if (cachedFeed == null) {
+            cachedFeed = getFeed(key, parameters, null, refreshDelay);
+        } else if (cachedFeed.isExpired(this.clock.millis()) && cachedFeed.refreshing.compareAndSet(false, true)) {
+            // Keep returning the current version of the feed while it's being refreshed
+            refresh(key, parameters, cachedFeed, refreshDelay);
+        }
+
+        return cachedFeed.feed;
+    }
+
+    private String getCacheKey(RssMacroParameters parameters)
+    {
+        return parameters.getFeed() + '\n' + StringUtils.defaultString(parameters.getEncoding());
+    }
+
+    private void refresh(String key, RssMacroParameters parameters, CachedFeed cachedFeed, int refreshDelay)
+    {
+        try {
+            this.refreshExecutor.execute(() -> {
+                try {
+                    getFeed(key, parameters, cachedFeed, refreshDelay);
+                } catch (MacroExecutionException e) {
+                    this.logger.warn("Failed to refresh the feed [{}]: {}", parameters.getFeedURL(),
+                        ExceptionUtils.getRootCauseMessage(e));
+
+                    // Try again later
+                    cachedFeed.expiration = getExpiration(refreshDelay);
+                } finally {
+                    cachedFeed.refreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // The component is being disposed
+            cachedFeed.refreshing.set(false);
+        }
+    }
+
+    private CachedFeed getFeed(String key, RssMacroParameters parameters, CachedFeed cachedFeed, int refreshDelay)
+        throws MacroExecutionException
+    {
+        CompletableFuture<CachedFeed> download = new CompletableFuture<>();
+        CompletableFuture<CachedFeed> currentDownload = this.downloads.putIfAbsent(key, download);
+        if (currentDownload != null) {
+            // The feed is already being downloaded
+            return waitForDownload(currentDownload, parameters);
+        }
+
+        try {
+            CachedFeed newCachedFeed = download(parameters, cachedFeed, refreshDelay);
+
+            this.cache.put(key, newCachedFeed);
+            download.complete(newCachedFeed);
+
+            return newCachedFeed;
+        } catch (MacroExecutionException | RuntimeException e) {
+            download.completeExceptionally(e);
+
+            throw e;
+        } finally {
+            this.downloads.remove(key, download);
+        }
+    }
+
+    private CachedFeed waitForDownload(CompletableFuture<CachedFeed> download, RssMacroParameters parameters)
+        throws MacroExecutionException
+    {
+        try {
+            return download.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new MacroExecutionException(
+                MessageFormat.format("Interrupted while waiting for [{0}]", parameters.getFeedURL()), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MacroExecutionException) {
+                throw (MacroExecutionException) e.getCause();
+            }
+
+            throw new MacroExecutionException(MessageFormat.format(PROCESSING_ERROR_MESSAGE,
+                parameters.getFeedURL(), e.getCause().getMessage()), e.getCause());
+        }
+    }
+
+    private CachedFeed download(RssMacroParameters parameters, CachedFeed cachedFeed, int refreshDelay)
+        throws MacroExecutionException
+    {
         SyndFeedInput syndFeedInput = new SyndFeedInput();
 
         SyndFeed feed;
+        String etag = null;
+        String lastModified = null;
         try {
-            if (StringUtils.startsWith(parameters.getFeed().toLowerCase(), "https")) {
-                HttpsURLConnection httpsURLConnection = (HttpsURLConnection) parameters.getFeedURL().openConnection();
-                httpsURLConnection.setConnectTimeout(TIMEOUT_MILLISECONDS);
-                httpsURLConnection.setRequestProperty(USER_AGENT_HEADER, USER_AGENT);
-                feed = syndFeedInput.build(new XmlReader(httpsURLConnection.getInputStream(), true,
-                    parameters.getEncoding()));
-            } else {
-                URLConnection httpURLConnection = parameters.getFeedURL().openConnection();
-                httpURLConnection.setConnectTimeout(TIMEOUT_MILLISECONDS);
-                httpURLConnection.setRequestProperty(USER_AGENT_HEADER, USER_AGENT);
-                feed = syndFeedInput.build(new XmlReader(httpURLConnection.getInputStream(), true,
-                    parameters.getEncoding()));
+            URLConnection connection = parameters.getFeedURL().openConnection();
+            connection.setConnectTimeout(TIMEOUT_MILLISECONDS);
+            connection.setReadTimeout(READ_TIMEOUT_MILLISECONDS);
+            connection.setRequestProperty(USER_AGENT_HEADER, USER_AGENT);
+
+            // Also covers HTTPS
+            if (connection instanceof HttpURLConnection) {
+                if (cachedFeed != null) {
+                    // Ask the server to only send the feed if it changed
+                    if (cachedFeed.etag != null) {
+                        connection.setRequestProperty("If-None-Match", cachedFeed.etag);
+                    }
+                    if (cachedFeed.lastModified != null) {
+                        connection.setRequestProperty("If-Modified-Since", cachedFeed.lastModified);
+                    }
+
+                    if (((HttpURLConnection) connection).getResponseCode() == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                        return new CachedFeed(cachedFeed.feed,
+                            StringUtils.defaultIfEmpty(connection.getHeaderField(ETAG_HEADER), cachedFeed.etag),
+                            StringUtils.defaultIfEmpty(connection.getHeaderField(LAST_MODIFIED_HEADER),
+                                cachedFeed.lastModified),
+                            getExpiration(refreshDelay));
+                    }
+                }
+
+                etag = connection.getHeaderField(ETAG_HEADER);
+                lastModified = connection.getHeaderField(LAST_MODIFIED_HEADER);
+            }
+
+            try (InputStream stream = connection.getInputStream()) {
+                feed = syndFeedInput.build(new XmlReader(stream, true, parameters.getEncoding()));
             }
         } catch (SocketTimeoutException ex) {
             throw new MacroExecutionException(MessageFormat.format("Connection timeout when trying to reach [{0}]",
                 parameters.getFeedURL()));
         } catch (Exception ex) {
-            throw new MacroExecutionException(MessageFormat.format("Error processing [{0}] : {1}",
+            throw new MacroExecutionException(MessageFormat.format(PROCESSING_ERROR_MESSAGE,
                 parameters.getFeedURL(), ex.getMessage()), ex);
         }
         if (feed == null) {
@@ -84,6 +349,11 @@ public SyndFeed createFeed(RssMacroParameters parameters) throws MacroExecutionE
                 parameters.getFeedURL()));
         }
 
-        return feed;
+        return new CachedFeed(feed, etag, lastModified, getExpiration(refreshDelay));
+    }
+
+    private long getExpiration(int refreshDelay)
+    {
+        return this.clock.millis() + refreshDelay * 1000L;
     }
 }
@@ -104,7 +104,8 @@ public class RssMacro extends AbstractBoxMacro<RssMacroParameters>
     /**
      * Create a Feed object from a feed specified as a URL.
      */
-    private RomeFeedFactory romeFeedFactory = new DefaultRomeFeedFactory();
+    @Inject
+    private RomeFeedFactory romeFeedFactory;
 
     /**
      * Create and initialize the descriptor of the macro.
@@ -181,6 +182,10 @@ protected String getClassProperty()
     public List<Block> execute(RssMacroParameters parameters, String content, MacroTransformationContext context)
         throws MacroExecutionException
     {
+        if (StringUtils.isEmpty(parameters.getFeed())) {
+            throw new MacroExecutionException("The required 'feed' parameter is missing");
+        }
+
         List<Block> result;
         SyndFeed feed = this.romeFeedFactory.createFeed(parameters);
 
@@ -0,0 +1,241 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rendering.internal.macro.rss;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.xwiki.rendering.macro.rss.RssMacroParameters;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.syndication.feed.synd.SyndFeed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link DefaultRomeFeedFactory}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class DefaultRomeFeedFactoryTest
+{
+    private static final String ETAG = "\"1\"";
+
+    @InjectMockComponents
+    private DefaultRomeFeedFactory factory;
+
+    @MockComponent
+    private RssMacroConfiguration configuration;
+
+    private HttpServer server;
+
+    private byte[] content;
+
+    private volatile String etag = ETAG;
+
+    private volatile CountDownLatch responseLatch;
+
+    private final List<String> receivedETags = Collections.synchronizedList(new ArrayList<>());
+
+    private final Semaphore receivedRequests = new Semaphore(0);
+
+    private final Instant start = Instant.now();
+
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
+
+    private RssMacroParameters parameters;
+
+    @BeforeEach
+    public void beforeEach() throws Exception
+    {
+        this.content = Files.readAllBytes(Paths.get(getClass().getResource("/feed1.xml").toURI()));
+
+        setClock(Duration.ZERO);
+        this.factory.setRefreshExecutor(this.refreshExecutor);
+
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/feed", this::handle);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+        this.server.start();
+
+        this.parameters = new RssMacroParameters();
+        this.parameters.setFeed("http://localhost:" + this.server.getAddress().getPort() + "/feed");
+
+        when(this.configuration.getRefreshDelay()).thenReturn(300);
+    }
+
+    @AfterEach
+    public void afterEach()
+    {
+        this.server.stop(0);
+        this.refreshExecutor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        String currentETag = this.etag;
+        CountDownLatch latch = this.responseLatch;
+        String requestETag = exchange.getRequestHeaders().getFirst("If-None-Match");
+        this.receivedETags.add(requestETag);
+        this.receivedRequests.release();
+
+        if (latch != null) {
+            try {
+                latch.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        exchange.getResponseHeaders().set("ETag", currentETag);
+        if (currentETag.equals(requestETag)) {
+            exchange.sendResponseHeaders(304, -1);
+        } else {
+            exchange.getResponseHeaders().set("Content-Type", "application/rss+xml");
+            exchange.sendResponseHeaders(200, this.content.length);
+            try (OutputStream stream = exchange.getResponseBody()) {
+                stream.write(this.content);
+            }
+        }
+        exchange.close();
+    }
+
+    private void setClock(Duration elapsed)
+    {
+        this.factory.setClock(Clock.fixed(this.start.plus(elapsed), ZoneOffset.UTC));
+    }
+
+    private void waitForRefresh() throws Exception
+    {
+        // The refresh executor has a single thread so this task is executed after the pending refresh
+        this.refreshExecutor.submit(() -> null).get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void createFeedIsCached() throws Exception
+    {
+        SyndFeed feed = this.factory.createFeed(this.parameters);
+
+        assertEquals("Lift Off News", feed.getTitle());
+        assertSame(feed, this.factory.createFeed(this.parameters));
+        assertEquals(1, this.receivedETags.size());
+    }
+
+    @Test
+    public void createFeedWithoutCache() throws Exception
+    {
+        when(this.configuration.getRefreshDelay()).thenReturn(0);
+
+        assertNotSame(this.factory.createFeed(this.parameters), this.factory.createFeed(this.parameters));
+        assertEquals(Collections.nCopies(2, null), this.receivedETags);
+    }
+
+    @Test
+    public void expiredFeedIsRevalidatedInTheBackground() throws Exception
+    {
+        when(this.configuration.getRefreshDelay()).thenReturn(1);
+
+        SyndFeed feed = this.factory.createFeed(this.parameters);
+
+        // Not expired yet
+        setClock(Duration.ofMillis(999));
+        assertSame(feed, this.factory.createFeed(this.parameters));
+        waitForRefresh();
+        assertEquals(1, this.receivedETags.size());
+
+        setClock(Duration.ofSeconds(1));
+
+        // The stale feed is returned while it's being revalidated
+        this.responseLatch = new CountDownLatch(1);
+        assertSame(feed, this.factory.createFeed(this.parameters));
+        // Only one revalidation at a time
+        assertSame(feed, this.factory.createFeed(this.parameters));
+        this.responseLatch.countDown();
+
+        // Not modified
+        waitForRefresh();
+        assertEquals(Arrays.asList(null, ETAG), this.receivedETags);
+        assertSame(feed, this.factory.createFeed(this.parameters));
+
+        // Modified
+        this.responseLatch = null;
+        this.etag = "\"2\"";
+        setClock(Duration.ofSeconds(2));
+        assertSame(feed, this.factory.createFeed(this.parameters));
+
+        waitForRefresh();
+        assertEquals(Arrays.asList(null, ETAG, ETAG), this.receivedETags);
+
+        SyndFeed newFeed = this.factory.createFeed(this.parameters);
+        assertNotSame(feed, newFeed);
+        assertEquals("Lift Off News", newFeed.getTitle());
+        assertEquals(3, this.receivedETags.size());
+    }
+
+    @Test
+    public void concurrentDownloadsAreShared() throws Exception
+    {
+        this.responseLatch = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<SyndFeed> feed1 = executor.submit(() -> this.factory.createFeed(this.parameters));
+            assertTrue(this.receivedRequests.tryAcquire(10, TimeUnit.SECONDS));
+            // The second request either waits for the pending download or gets the feed it cached
+            Future<SyndFeed> feed2 = executor.submit(() -> this.factory.createFeed(this.parameters));
+
+            this.responseLatch.countDown();
+
+            assertSame(feed1.get(10, TimeUnit.SECONDS), feed2.get(10, TimeUnit.SECONDS));
+            assertEquals(1, this.receivedETags.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
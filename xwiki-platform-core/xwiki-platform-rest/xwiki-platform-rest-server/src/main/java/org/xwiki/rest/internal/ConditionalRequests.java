@@ -0,0 +1,183 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal;
+
+import java.util.Collection;
+import java.util.Date;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response.Status;
+
+import com.xpn.xwiki.XWikiContext;
+
+/**
+ * Helper to support the HTTP conditional requests (see RFC 7232) on the resources exposing a versioned entity, so
+ * that clients polling a resource are answered with a cheap {@code 304 Not Modified} when the entity did not change
+ * and clients updating a resource can make sure they don't overwrite a concurrent modification.
+ *
+ * @version $Id$
+ * @since 12.8RC1
+ */
+public final class ConditionalRequests
+{
+    private static final String ANY = "*";
+
+    private static final String WEAK_PREFIX = "W/";
+
+    private static final char QUOTE = '"';
+
+    private ConditionalRequests()
+    {
+        // Utility class
+    }
+
+    /**
+     * @param version the version of the entity
+     * @param date the date of the version, used to distinguish entities deleted and created again
+     * @return the entity tag (without the quotes) of the passed entity version
+     */
+    public static String getEntityTag(String version, Date date)
+    {
+        StringBuilder tag = new StringBuilder(version);
+        if (date != null) {
+            tag.append('-').append(date.getTime());
+        }
+
+        return tag.toString();
+    }
+
+    /**
+     * @param tag the entity tag (without the quotes) of the entity, see {@link #getEntityTag(String, Date)}
+     * @param values other values embedded in the representation of the entity which can change independently of the
+     *            entity version (e.g. the locales of the translations of a page)
+     * @return the entity tag (without the quotes) of the representation of the entity
+     */
+    public static String addToEntityTag(String tag, Collection<?> values)
+    {
+        StringBuilder result = new StringBuilder(tag);
+        for (Object value : values) {
+            result.append('-').append(value);
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * Add the validators of the entity to the response and stop the request with a {@code 304 Not Modified} status if
+     * the client already has the current version of the entity. This should be called before computing the
+     * representation of the entity.
+     *
+     * @param xcontext the XWiki context holding the current request and response
+     * @param tag the current entity tag, see {@link #getEntityTag(String, Date)}
+     * @param lastModified the date of the last modification of the entity, or {@code null} if it's not reliable
+     * @throws WebApplicationException with a {@code 304 Not Modified} status when the entity did not change
+     */
+    public static void evaluateGet(XWikiContext xcontext, String tag, Date lastModified)
+    {
+        HttpServletResponse response = xcontext.getResponse();
+        if (response != null) {
+            response.setHeader(HttpHeaders.ETAG, QUOTE + tag + QUOTE);
+            // The same URL can serve several media types (XML, JSON) with the same tag
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            if (lastModified != null) {
+                response.setDateHeader(HttpHeaders.LAST_MODIFIED, lastModified.getTime());
+            }
+        }
+
+        HttpServletRequest request = xcontext.getRequest();
+        if (request != null && isNotModified(request, tag, lastModified)) {
+            throw new WebApplicationException(Status.NOT_MODIFIED);
+        }
+    }
+
+    /**
+     * Stop the request with a {@code 412 Precondition Failed} status if the client requested the modification of a
+     * version of the entity which is not the current one anymore.
+     *
+     * @param xcontext the XWiki context holding the current request
+     * @param tag the current entity tag, see {@link #getEntityTag(String, Date)}, or {@code null} if the entity does
+     *            not exist yet
+     * @throws WebApplicationException with a {@code 412 Precondition Failed} status when the entity was modified
+     */
+    public static void evaluateUpdate(XWikiContext xcontext, String tag)
+    {
+        HttpServletRequest request = xcontext.getRequest();
+        if (request != null) {
+            String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+            // Weak tags never match for an update (strong comparison)
+            if (ifMatch != null && (tag == null || !matches(ifMatch, tag, false))) {
+                throw new WebApplicationException(Status.PRECONDITION_FAILED);
+            }
+        }
+    }
+
+    private static boolean isNotModified(HttpServletRequest request, String tag, Date lastModified)
+    {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // If-Modified-Since must be ignored when If-None-Match is present
+            return matches(ifNoneMatch, tag, true);
+        }
+
+        if (lastModified != null) {
+            long ifModifiedSince;
+            try {
+                ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            } catch (IllegalArgumentException e) {
+                // Invalid dates must be ignored
+                return false;
+            }
+
+            // The HTTP dates don't hold the milliseconds
+            return ifModifiedSince >= 0 && lastModified.getTime() / 1000 <= ifModifiedSince / 1000;
+        }
+
+        return false;
+    }
+
+    private static boolean matches(String header, String tag, boolean weak)
+    {
+        for (String value : header.split(",")) {
+            String candidate = value.trim();
+
+            if (candidate.equals(ANY)) {
+                return true;
+            }
+
+            if (candidate.startsWith(WEAK_PREFIX)) {
+                if (!weak) {
+                    continue;
+                }
+                candidate = candidate.substring(WEAK_PREFIX.length());
+            }
+
+            if (candidate.length() >= 2 && candidate.charAt(0) == QUOTE
+                && candidate.charAt(candidate.length() - 1) == QUOTE
+                && candidate.substring(1, candidate.length() - 1).equals(tag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.core.UriInfo;
+
+import org.xwiki.rest.Relations;
+import org.xwiki.rest.model.jaxb.Link;
+import org.xwiki.rest.model.jaxb.LinkCollection;
+import org.xwiki.rest.model.jaxb.ObjectFactory;
+
+/**
+ * Helper to walk large lists of entities with an opaque cursor instead of an offset. The cursor holds the identifier of
+ * the last entity of the previous range so that the database can directly seek the next range (using the primary key
+ * index) instead of counting all the entities located before the offset.
+ * <p>
+ * The cursor mode is enabled by passing the {@value #CURSOR_PARAMETER} query parameter (empty for the first range). The
+ * entities are then sorted by identifier (requesting another order is rejected) and, when the range is full, a link
+ * with the {@link Relations#NEXT} relation pointing to the next range is added to the returned representation. The
+ * entities of a range are created while the representation is written, see
+ * {@link org.xwiki.rest.internal.representations.StreamingCollection}.
+ *
+ * @version $Id$
+ * @since 12.8RC1
+ */
+public final class KeysetPagination
+{
+    /**
+     * The name of the query parameter holding the cursor.
+     */
+    public static final String CURSOR_PARAMETER = "cursor";
+
+    private final boolean enabled;
+
+    private final Long cursor;
+
+    private Long last;
+
+    /**
+     * @param uriInfo the current request
+     * @throws WebApplicationException when the passed cursor is invalid
+     */
+    public KeysetPagination(UriInfo uriInfo)
+    {
+        String value = uriInfo.getQueryParameters().getFirst(CURSOR_PARAMETER);
+
+        this.enabled = value != null;
+        this.cursor = this.enabled && !value.isEmpty() ? decode(value) : null;
+    }
+
+    private static Long decode(String value)
+    {
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new WebApplicationException(e, Status.BAD_REQUEST);
+        }
+    }
+
+    private static String encode(long value)
+    {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return {@code true} if the cursor mode was requested
+     */
+    public boolean isEnabled()
+    {
+        return this.enabled;
+    }
+
+    /**
+     * @return the identifier of the last entity of the previous range, {@code null} for the first range
+     */
+    public Long getCursor()
+    {
+        return this.cursor;
+    }
+
+    /**
+     * @param id the identifier of the last entity returned by the query
+     */
+    public void setLast(long id)
+    {
+        this.last = id;
+    }
+
+    /**
+     * Add a link to the next range to the passed representation if the current range is full.
+     *
+     * @param collection the representation of the current range
+     * @param count the number of entities returned by the query
+     * @param limit the maximum number of entities in a range
+     * @param objectFactory the factory used to create the link
+     * @param uriInfo the current request
+     */
+    public void addNextLink(LinkCollection collection, int count, int limit, ObjectFactory objectFactory,
+        UriInfo uriInfo)
+    {
+        if (this.enabled && this.last != null && limit > 0 && count >= limit) {
+            Link link = objectFactory.createLink();
+            link.setHref(uriInfo.getRequestUriBuilder().replaceQueryParam(CURSOR_PARAMETER, encode(this.last))
+                .build().toString());
+            link.setRel(Relations.NEXT);
+
+            collection.getLinks().add(link);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.representations;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.xwiki.rest.model.jaxb.Link;
+
+/**
+ * A collection representation whose elements are created while they are written to the response, so that a large
+ * collection doesn't have to be fully built in memory. The links of the collection are known in advance.
+ *
+ * @version $Id$
+ * @since 12.8RC1
+ * @see StreamingCollectionWriter
+ */
+public interface StreamingCollection
+{
+    /**
+     * @return the links of the collection
+     */
+    List<Link> getLinks();
+
+    /**
+     * @return the name of the XML element representing the collection (e.g. "pages")
+     */
+    String getCollectionName();
+
+    /**
+     * @return the name of the XML element representing each element of the collection (e.g. "pageSummary")
+     */
+    String getElementName();
+
+    /**
+     * @return the name of the JSON property holding the elements of the collection (e.g. "pageSummaries")
+     */
+    String getElementsPropertyName();
+
+    /**
+     * @return the elements of the collection, which can only be iterated once
+     */
+    Iterator<?> getElements();
+}
@@ -0,0 +1,185 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.representations;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBElement;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.restlet.ext.jackson.JacksonRepresentation;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+import org.xwiki.rest.XWikiRestComponent;
+import org.xwiki.rest.model.jaxb.Link;
+import org.xwiki.rest.model.jaxb.ObjectFactory;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Write a {@link StreamingCollection} to the response one element at a time, producing the same XML or JSON as the
+ * one produced for the corresponding JAXB model.
+ *
+ * @version $Id$
+ * @since 12.8RC1
+ */
+@Component
+@Named("org.xwiki.rest.internal.representations.StreamingCollectionWriter")
+@Provider
+@Produces({ MediaType.APPLICATION_XML, MediaType.TEXT_XML, MediaType.APPLICATION_JSON })
+@Singleton
+public class StreamingCollectionWriter
+    implements MessageBodyWriter<StreamingCollection>, XWikiRestComponent, Initializable
+{
+    private static final String NAMESPACE = "http://www.xwiki.org";
+
+    private static final QName LINK = new QName(NAMESPACE, "link");
+
+    private static final String ENCODING = StandardCharsets.UTF_8.name();
+
+    private JAXBContext jaxbContext;
+
+    private ObjectMapper objectMapper;
+
+    private XMLOutputFactory xmlOutputFactory;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            this.jaxbContext = JAXBContext.newInstance(ObjectFactory.class);
+        } catch (JAXBException e) {
+            throw new InitializationException("Failed to create the JAXB context of the REST model", e);
+        }
+
+        // Use the same JSON configuration as the one used for the non streamed representations.
+        this.objectMapper = new JacksonRepresentation<>(new Object()).getObjectMapper();
+
+        this.xmlOutputFactory = XMLOutputFactory.newInstance();
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return StreamingCollection.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public long getSize(StreamingCollection collection, Class<?> type, Type genericType, Annotation[] annotations,
+        MediaType mediaType)
+    {
+        // Unknown
+        return -1;
+    }
+
+    @Override
+    public void writeTo(StreamingCollection collection, Class<?> type, Type genericType, Annotation[] annotations,
+        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+        throws IOException, WebApplicationException
+    {
+        if (MediaType.APPLICATION_JSON_TYPE.isCompatible(mediaType)) {
+            writeJSON(collection, entityStream);
+        } else {
+            try {
+                writeXML(collection, entityStream);
+            } catch (XMLStreamException | JAXBException e) {
+                throw new IOException(
+                    String.format("Failed to write the [%s] collection", collection.getCollectionName()), e);
+            }
+        }
+    }
+
+    private void writeJSON(StreamingCollection collection, OutputStream entityStream) throws IOException
+    {
+        JsonGenerator generator = this.objectMapper.getFactory().createGenerator(entityStream, JsonEncoding.UTF8);
+        // The response stream is closed by the container.
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        generator.writeStartObject();
+        generator.writeFieldName("links");
+        this.objectMapper.writeValue(generator, collection.getLinks());
+        generator.writeArrayFieldStart(collection.getElementsPropertyName());
+        for (Iterator<?> it = collection.getElements(); it.hasNext();) {
+            this.objectMapper.writeValue(generator, it.next());
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+
+        generator.close();
+    }
+
+    private void writeXML(StreamingCollection collection, OutputStream entityStream)
+        throws XMLStreamException, JAXBException
+    {
+        XMLStreamWriter writer = this.xmlOutputFactory.createXMLStreamWriter(entityStream, ENCODING);
+
+        Marshaller marshaller = this.jaxbContext.createMarshaller();
+        marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+
+        writer.writeStartDocument(ENCODING, "1.0");
+        writer.setDefaultNamespace(NAMESPACE);
+        writer.writeStartElement(NAMESPACE, collection.getCollectionName());
+        writer.writeDefaultNamespace(NAMESPACE);
+
+        for (Link link : collection.getLinks()) {
+            marshaller.marshal(new JAXBElement<>(LINK, Link.class, link), writer);
+        }
+
+        QName elementName = new QName(NAMESPACE, collection.getElementName());
+        for (Iterator<?> it = collection.getElements(); it.hasNext();) {
+            marshal(it.next(), elementName, marshaller, writer);
+        }
+
+        writer.writeEndElement();
+        writer.writeEndDocument();
+
+        // Doesn't close the response stream.
+        writer.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void marshal(T element, QName elementName, Marshaller marshaller, XMLStreamWriter writer)
+        throws JAXBException
+    {
+        marshaller.marshal(new JAXBElement<>(elementName, (Class<T>) element.getClass(), element), writer);
+    }
+}
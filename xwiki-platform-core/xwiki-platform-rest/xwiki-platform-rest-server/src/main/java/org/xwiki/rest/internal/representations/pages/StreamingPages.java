@@ -0,0 +1,80 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.representations.pages;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.xwiki.rest.internal.representations.StreamingCollection;
+import org.xwiki.rest.model.jaxb.PageSummary;
+import org.xwiki.rest.model.jaxb.Pages;
+
+/**
+ * {@link Pages} whose elements are created while they are written to the response.
+ *
+ * @version $Id$
+ * @since 12.8RC1
+ */
+public class StreamingPages extends Pages implements StreamingCollection
+{
+    private final Iterator<PageSummary> elements;
+
+    /**
+     * @param elements the elements of the collection, created on demand
+     */
+    public StreamingPages(Stream<PageSummary> elements)
+    {
+        this.elements = elements.iterator();
+    }
+
+    @Override
+    public List<PageSummary> getPageSummaries()
+    {
+        // Make sure the elements are available to the code not aware of the streaming.
+        this.elements.forEachRemaining(super.getPageSummaries()::add);
+
+        return super.getPageSummaries();
+    }
+
+    @Override
+    public String getCollectionName()
+    {
+        return "pages";
+    }
+
+    @Override
+    public String getElementName()
+    {
+        return "pageSummary";
+    }
+
+    @Override
+    public String getElementsPropertyName()
+    {
+        return "pageSummaries";
+    }
+
+    @Override
+    public Iterator<?> getElements()
+    {
+        return this.elements;
+    }
+}
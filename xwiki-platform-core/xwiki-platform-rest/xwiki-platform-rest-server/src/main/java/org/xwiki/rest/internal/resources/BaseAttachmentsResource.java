@@ -21,6 +21,7 @@
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -30,6 +31,7 @@
 import java.util.function.Predicate;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -46,9 +48,11 @@
 import org.xwiki.query.QueryFilter;
 import org.xwiki.rest.XWikiResource;
 import org.xwiki.rest.XWikiRestException;
+import org.xwiki.rest.internal.KeysetPagination;
 import org.xwiki.rest.internal.ModelFactory;
 import org.xwiki.rest.internal.RangeIterable;
 import org.xwiki.rest.internal.Utils;
+import org.xwiki.rest.internal.representations.attachments.StreamingAttachments;
 import org.xwiki.rest.model.jaxb.Attachment;
 import org.xwiki.rest.model.jaxb.Attachments;
 
@@ -141,14 +145,36 @@ protected Attachments getAttachments(EntityReference scope, Map<String, String>
 
         Attachments attachments = objectFactory.createAttachments();
 
+        KeysetPagination pagination = new KeysetPagination(this.uriInfo);
+
         try {
             xcontext.setWikiId(scope.extractReference(EntityType.WIKI).getName());
 
-            List<Object> queryResults = getAttachmentsQuery(scope, filters).setLimit(limit).setOffset(offset).execute();
-            attachments.withAttachments(queryResults.stream().map(this::processAttachmentsQueryResult)
+            Query query = getAttachmentsQuery(scope, filters, pagination).setLimit(limit);
+            if (!pagination.isEnabled()) {
+                query.setOffset(offset);
+            }
+
+            List<Object> queryResults = query.execute();
+            URI baseUri = this.uriInfo.getBaseUri();
+            String wiki = xcontext.getWikiId();
+            Stream<Attachment> restAttachments = queryResults.stream()
+                .map(queryResult -> processAttachmentsQueryResult(queryResult, wiki))
                 .filter(getFileTypeFilter(filters.getOrDefault(FILTER_FILE_TYPES, "")))
-                .map(xwikiAttachment -> toRestAttachment(xwikiAttachment, withPrettyNames))
-                .collect(Collectors.toList()));
+                .map(xwikiAttachment -> toRestAttachment(xwikiAttachment, wiki, baseUri, withPrettyNames));
+            if (pagination.isEnabled()) {
+                if (!queryResults.isEmpty()) {
+                    Object[] lastResult = (Object[]) queryResults.get(queryResults.size() - 1);
+                    pagination.setLast((Long) lastResult[4]);
+                }
+
+                // Create the attachments while they are written instead of keeping them all in memory
+                attachments = new StreamingAttachments(restAttachments);
+            } else {
+                attachments.withAttachments(restAttachments.collect(Collectors.toList()));
+            }
+
+            pagination.addNextLink(attachments, queryResults.size(), limit, objectFactory, this.uriInfo);
         } catch (QueryException e) {
             throw new XWikiRestException(e);
         } finally {
@@ -158,10 +184,14 @@ protected Attachments getAttachments(EntityReference scope, Map<String, String>
         return attachments;
     }
 
-    private Query getAttachmentsQuery(EntityReference scope, Map<String, String> filters) throws QueryException
+    private Query getAttachmentsQuery(EntityReference scope, Map<String, String> filters,
+        KeysetPagination pagination) throws QueryException
     {
-        StringBuilder statement = new StringBuilder().append("select doc.space, doc.name, doc.version, attachment")
-            .append(" from XWikiDocument as doc, XWikiAttachment as attachment");
+        StringBuilder statement = new StringBuilder().append("select doc.space, doc.name, doc.version, attachment");
+        if (pagination.isEnabled()) {
+            statement.append(", attachment.id");
+        }
+        statement.append(" from XWikiDocument as doc, XWikiAttachment as attachment");
 
         Map<String, String> exactParams = new HashMap<>();
         Map<String, String> prefixParams = new HashMap<>();
@@ -188,10 +218,22 @@ private Query getAttachmentsQuery(EntityReference scope, Map<String, String> fil
         // We need to handle the file type filter separately.
         applyFileTypeFilter(filters, whereClause, suffixParams, containsParams);
 
+        if (pagination.getCursor() != null) {
+            whereClause.add("attachment.id > :cursor");
+        }
+
         statement.append(" where ").append(StringUtils.join(whereClause, " and "));
 
+        if (pagination.isEnabled()) {
+            statement.append(" order by attachment.id");
+        }
+
         Query query = queryManager.createQuery(statement.toString(), Query.HQL);
 
+        if (pagination.getCursor() != null) {
+            query.bindValue("cursor", pagination.getCursor());
+        }
+
         // Bind the query parameter values.
         for (Map.Entry<String, String> entry : exactParams.entrySet()) {
             query.bindValue(entry.getKey(), entry.getValue());
@@ -280,7 +322,7 @@ private Set<String> getAcceptedFileNameExtensions(String fileTypesFilter)
             .map(String::toUpperCase).collect(Collectors.toSet());
     }
 
-    private XWikiAttachment processAttachmentsQueryResult(Object queryResult)
+    private XWikiAttachment processAttachmentsQueryResult(Object queryResult, String wiki)
     {
         Object[] fields = (Object[]) queryResult;
         List<String> pageSpaces = Utils.getSpacesFromSpaceId((String) fields[0]);
@@ -288,8 +330,7 @@ private XWikiAttachment processAttachmentsQueryResult(Object queryResult)
         String pageVersion = (String) fields[2];
         XWikiAttachment attachment = (XWikiAttachment) fields[3];
 
-        XWikiContext xcontext = this.xcontextProvider.get();
-        DocumentReference documentReference = new DocumentReference(xcontext.getWikiId(), pageSpaces, pageName);
+        DocumentReference documentReference = new DocumentReference(wiki, pageSpaces, pageName);
         XWikiDocument document = new XWikiDocument(documentReference);
         document.setVersion(pageVersion);
         attachment.setDoc(document, false);
@@ -329,12 +370,21 @@ private boolean hasAcceptedMediaType(XWikiAttachment attachment, Set<String> acc
         return acceptedMediaTypes.stream().anyMatch(acceptedMediaType -> detectedMediaType.contains(acceptedMediaType));
     }
 
-    private Attachment toRestAttachment(XWikiAttachment xwikiAttachment, Boolean withPrettyNames)
+    private Attachment toRestAttachment(XWikiAttachment xwikiAttachment, String wiki, URI baseUri,
+        Boolean withPrettyNames)
     {
         XWikiContext xcontext = this.xcontextProvider.get();
-        com.xpn.xwiki.api.Attachment apiAttachment = new com.xpn.xwiki.api.Attachment(
-            new Document(xwikiAttachment.getDoc(), xcontext), xwikiAttachment, xcontext);
-        return this.modelFactory.toRestAttachment(this.uriInfo.getBaseUri(), apiAttachment, withPrettyNames, false);
+        // The attachments can be streamed after the request wiki has been restored
+        String currentWiki = xcontext.getWikiId();
+        try {
+            xcontext.setWikiId(wiki);
+
+            com.xpn.xwiki.api.Attachment apiAttachment = new com.xpn.xwiki.api.Attachment(
+                new Document(xwikiAttachment.getDoc(), xcontext), xwikiAttachment, xcontext);
+            return this.modelFactory.toRestAttachment(baseUri, apiAttachment, withPrettyNames, false);
+        } finally {
+            xcontext.setWikiId(currentWiki);
+        }
     }
 
     protected Attachments getAttachmentsForDocument(Document doc, int start, int number, Boolean withPrettyNames)
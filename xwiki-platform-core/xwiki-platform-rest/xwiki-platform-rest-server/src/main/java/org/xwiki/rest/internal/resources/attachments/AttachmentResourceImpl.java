@@ -30,6 +30,7 @@
 
 import org.xwiki.component.annotation.Component;
 import org.xwiki.rest.XWikiRestException;
+import org.xwiki.rest.internal.ConditionalRequests;
 import org.xwiki.rest.internal.Utils;
 import org.xwiki.rest.internal.resources.BaseAttachmentsResource;
 import org.xwiki.rest.resources.attachments.AttachmentResource;
@@ -64,6 +65,11 @@ public Response getAttachment(String wikiName, String spaceName, String pageName
                 throw new WebApplicationException(Status.NOT_FOUND);
             }
 
+            // Check the validators before loading the attachment content
+            ConditionalRequests.evaluateGet(this.xcontextProvider.get(),
+                ConditionalRequests.getEntityTag(xwikiAttachment.getVersion(), xwikiAttachment.getDate()),
+                xwikiAttachment.getDate());
+
             return Response.ok().type(xwikiAttachment.getMimeType()).entity(xwikiAttachment.getContent()).build();
         } catch (XWikiException e) {
             throw new XWikiRestException(e);
@@ -83,6 +89,10 @@ public Response putAttachment(String wikiName, String spaceName, String pageName
                 throw new WebApplicationException(Status.UNAUTHORIZED);
             }
 
+            com.xpn.xwiki.api.Attachment currentAttachment = doc.getAttachment(attachmentName);
+            ConditionalRequests.evaluateUpdate(this.xcontextProvider.get(), currentAttachment != null
+                ? ConditionalRequests.getEntityTag(currentAttachment.getVersion(), currentAttachment.getDate()) : null);
+
             // Attach the file.
             InputStream inputStream = new ByteArrayInputStream(content != null ? content : new byte[0]);
             AttachmentInfo attachmentInfo = storeAndRetrieveAttachment(doc, attachmentName, inputStream, false);
@@ -19,23 +19,31 @@
  */
 package org.xwiki.rest.internal.resources.objects;
 
+import java.net.URI;
 import java.util.List;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
 
 import org.xwiki.component.annotation.Component;
 import org.xwiki.query.Query;
 import org.xwiki.rest.XWikiResource;
 import org.xwiki.rest.XWikiRestException;
 import org.xwiki.rest.internal.DomainObjectFactory;
+import org.xwiki.rest.internal.KeysetPagination;
 import org.xwiki.rest.internal.Utils;
+import org.xwiki.rest.internal.representations.objects.StreamingObjects;
 import org.xwiki.rest.model.jaxb.ObjectSummary;
 import org.xwiki.rest.model.jaxb.Objects;
 import org.xwiki.rest.resources.objects.AllObjectsForClassNameResource;
 import org.xwiki.security.authorization.ContextualAuthorizationManager;
 import org.xwiki.security.authorization.Right;
 
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.api.Document;
 import com.xpn.xwiki.doc.XWikiDocument;
 import com.xpn.xwiki.objects.BaseObject;
@@ -54,49 +62,98 @@ public class AllObjectsForClassNameResourceImpl extends XWikiResource implements
     public Objects getObjects(String wikiName, String className, Integer start, Integer number, String order,
             Boolean withPrettyNames) throws XWikiRestException
     {
-        String database = Utils.getXWikiContext(componentManager).getWikiId();
+        KeysetPagination pagination = new KeysetPagination(uriInfo);
+        if (pagination.isEnabled() && "date".equals(order)) {
+            // The cursor relies on the object identifier order
+            throw new WebApplicationException(
+                Response.status(Status.BAD_REQUEST).entity("The date order is not supported with a cursor.").build());
+        }
+
+        XWikiContext xcontext = Utils.getXWikiContext(componentManager);
+        String database = xcontext.getWikiId();
 
         try {
             Objects objects = new Objects();
 
-            Utils.getXWikiContext(componentManager).setWikiId(wikiName);
+            xcontext.setWikiId(wikiName);
 
-            String query = "select doc, obj from BaseObject as obj, XWikiDocument as doc "
+            String query = "select doc, obj, obj.id from BaseObject as obj, XWikiDocument as doc "
                 + "where obj.name=doc.fullName and obj.className=:className";
-            if ("date".equals(order)) {
+            if (pagination.getCursor() != null) {
+                query += " and obj.id > :cursor";
+            }
+            if (pagination.isEnabled()) {
+                query += " order by obj.id";
+            } else if ("date".equals(order)) {
                 query += " order by doc.date desc";
             }
 
-            List<Object> queryResult = null;
-            queryResult =
-                    queryManager.createQuery(query, Query.XWQL).bindValue("className", className).setLimit(number)
-                            .setOffset(start).execute();
-
-            for (Object object : queryResult) {
-                Object[] fields = (Object[]) object;
-                XWikiDocument xwikiDocument = (XWikiDocument) fields[0];
-                xwikiDocument.setDatabase(wikiName);
-
-                if (authorization.hasAccess(Right.VIEW, xwikiDocument.getDocumentReference())) {
-
-                    Document doc = new Document(xwikiDocument, Utils.getXWikiContext(componentManager));
+            Query xwikiQuery =
+                queryManager.createQuery(query, Query.XWQL).bindValue("className", className).setLimit(number);
+            if (pagination.isEnabled()) {
+                if (pagination.getCursor() != null) {
+                    xwikiQuery.bindValue("cursor", pagination.getCursor());
+                }
+            } else {
+                xwikiQuery.setOffset(start);
+            }
 
-                    BaseObject xwikiObject = (BaseObject) fields[1];
+            List<Object> queryResult = xwikiQuery.execute();
 
-                    ObjectSummary objectSummary = DomainObjectFactory
-                        .createObjectSummary(objectFactory, uriInfo.getBaseUri(), Utils.getXWikiContext(
-                            componentManager), doc, xwikiObject, false, Utils.getXWikiApi(componentManager),
-                            withPrettyNames);
+            URI baseUri = uriInfo.getBaseUri();
+            if (pagination.isEnabled()) {
+                if (!queryResult.isEmpty()) {
+                    pagination.setLast((Long) ((Object[]) queryResult.get(queryResult.size() - 1))[2]);
+                }
 
-                    objects.getObjectSummaries().add(objectSummary);
+                // Create the object summaries while they are written instead of keeping them all in memory
+                objects = new StreamingObjects(queryResult.stream().map(result -> {
+                    String currentWiki = xcontext.getWikiId();
+                    try {
+                        xcontext.setWikiId(wikiName);
+                        return createObjectSummary((Object[]) result, wikiName, baseUri, withPrettyNames);
+                    } catch (XWikiException e) {
+                        throw new WebApplicationException(e);
+                    } finally {
+                        xcontext.setWikiId(currentWiki);
+                    }
+                }).filter(objectSummary -> objectSummary != null));
+            } else {
+                for (Object result : queryResult) {
+                    ObjectSummary objectSummary =
+                        createObjectSummary((Object[]) result, wikiName, baseUri, withPrettyNames);
+                    if (objectSummary != null) {
+                        objects.getObjectSummaries().add(objectSummary);
+                    }
                 }
             }
 
+            pagination.addNextLink(objects, queryResult.size(), number, objectFactory, uriInfo);
+
             return objects;
         } catch (Exception e) {
             throw new XWikiRestException(e);
         } finally {
-            Utils.getXWikiContext(componentManager).setWikiId(database);
+            xcontext.setWikiId(database);
         }
     }
+
+    private ObjectSummary createObjectSummary(Object[] fields, String wikiName, URI baseUri, Boolean withPrettyNames)
+        throws XWikiException
+    {
+        XWikiDocument xwikiDocument = (XWikiDocument) fields[0];
+        xwikiDocument.setDatabase(wikiName);
+
+        if (!authorization.hasAccess(Right.VIEW, xwikiDocument.getDocumentReference())) {
+            return null;
+        }
+
+        Document doc = new Document(xwikiDocument, Utils.getXWikiContext(componentManager));
+
+        BaseObject xwikiObject = (BaseObject) fields[1];
+
+        return DomainObjectFactory.createObjectSummary(objectFactory, baseUri,
+            Utils.getXWikiContext(componentManager), doc, xwikiObject, false, Utils.getXWikiApi(componentManager),
+            withPrettyNames);
+    }
 }
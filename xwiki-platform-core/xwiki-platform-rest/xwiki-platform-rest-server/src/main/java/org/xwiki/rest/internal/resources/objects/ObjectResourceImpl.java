@@ -27,6 +27,7 @@
 
 import org.xwiki.component.annotation.Component;
 import org.xwiki.rest.XWikiRestException;
+import org.xwiki.rest.internal.ConditionalRequests;
 import org.xwiki.rest.internal.ModelFactory;
 import org.xwiki.rest.model.jaxb.Object;
 import org.xwiki.rest.resources.objects.ObjectResource;
@@ -64,6 +65,10 @@ public Object getObject(String wikiName, String spaceName, String pageName, Stri
                 throw new WebApplicationException(Status.NOT_FOUND);
             }
 
+            // The objects are versioned with the document
+            ConditionalRequests.evaluateGet(this.xcontextProvider.get(),
+                ConditionalRequests.getEntityTag(doc.getVersion(), doc.getDate()), doc.getDate());
+
             return this.factory.toRestObject(this.uriInfo.getBaseUri(), doc, baseObject, false, withPrettyNames);
         } catch (XWikiException e) {
             throw new XWikiRestException(e);
@@ -88,6 +93,9 @@ public Response updateObject(String wikiName, String spaceName, String pageName,
                 throw new WebApplicationException(Status.NOT_FOUND);
             }
 
+            ConditionalRequests.evaluateUpdate(this.xcontextProvider.get(),
+                ConditionalRequests.getEntityTag(doc.getVersion(), doc.getDate()));
+
             this.factory.toObject(xwikiObject, restObject);
 
             doc.save("", Boolean.TRUE.equals(minorRevision));
@@ -24,6 +24,7 @@
 import javax.ws.rs.core.Response.Status;
 
 import org.xwiki.rest.XWikiResource;
+import org.xwiki.rest.internal.ConditionalRequests;
 import org.xwiki.rest.internal.ModelFactory;
 import org.xwiki.rest.model.jaxb.Page;
 
@@ -51,6 +52,9 @@ public Response putPage(DocumentInfo documentInfo, Page page, Boolean minorRevis
     {
         Document doc = documentInfo.getDocument();
 
+        // Make sure the client is not overwriting a modification it does not know about
+        ConditionalRequests.evaluateUpdate(this.xcontextProvider.get(), doc.isNew() ? null : getEntityTag(doc));
+
         // Save the document only if there is actually something to do if the document does not exist
         if (this.factory.toDocument(doc, page) || doc.isNew()) {
             doc.save(page.getComment(), Boolean.TRUE.equals(minorRevision));
@@ -68,6 +72,17 @@ public Response putPage(DocumentInfo documentInfo, Page page, Boolean minorRevis
         }
     }
 
+    /**
+     * @param doc the page
+     * @return the entity tag of the representation of the page, which also lists the translations of the page
+     * @throws XWikiException if retrieving the translations of the page fails
+     */
+    protected String getEntityTag(Document doc) throws XWikiException
+    {
+        return ConditionalRequests.addToEntityTag(ConditionalRequests.getEntityTag(doc.getVersion(), doc.getDate()),
+            doc.getTranslationLocales());
+    }
+
     void deletePage(DocumentInfo documentInfo) throws XWikiException
     {
         Document doc = documentInfo.getDocument();
@@ -26,6 +26,7 @@
 
 import org.xwiki.component.annotation.Component;
 import org.xwiki.rest.XWikiRestException;
+import org.xwiki.rest.internal.ConditionalRequests;
 import org.xwiki.rest.model.jaxb.Page;
 import org.xwiki.rest.resources.pages.PageResource;
 
@@ -48,6 +49,10 @@ public Page getPage(String wikiName, String spaceName, String pageName, Boolean
 
             Document doc = documentInfo.getDocument();
 
+            // The translations of the page can change without the page being modified so there is no reliable last
+            // modification date for the representation
+            ConditionalRequests.evaluateGet(this.xcontextProvider.get(), getEntityTag(doc), null);
+
             URI baseUri = uriInfo.getBaseUri();
 
             Page page =
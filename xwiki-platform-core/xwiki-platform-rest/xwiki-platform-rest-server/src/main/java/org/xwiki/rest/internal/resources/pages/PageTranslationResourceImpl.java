@@ -24,6 +24,7 @@
 
 import org.xwiki.component.annotation.Component;
 import org.xwiki.rest.XWikiRestException;
+import org.xwiki.rest.internal.ConditionalRequests;
 import org.xwiki.rest.model.jaxb.Page;
 import org.xwiki.rest.resources.pages.PageTranslationResource;
 
@@ -46,6 +47,10 @@ public Page getPageTranslation(String wikiName, String spaceName, String pageNam
 
             Document doc = documentInfo.getDocument();
 
+            // The translations of the page can change without the page being modified so there is no reliable last
+            // modification date for the representation
+            ConditionalRequests.evaluateGet(this.xcontextProvider.get(), getEntityTag(doc), null);
+
             return this.factory.toRestPage(this.uriInfo.getBaseUri(), this.uriInfo.getAbsolutePath(), doc, false,
                 withPrettyNames, false, false, false);
         } catch (XWikiException e) {
@@ -19,12 +19,14 @@
  */
 package org.xwiki.rest.internal.resources.pages;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Pattern;
 
 import javax.inject.Named;
 
 import org.xwiki.component.annotation.Component;
+import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.query.Query;
 import org.xwiki.query.QueryFilter;
 import org.xwiki.rest.XWikiResource;
@@ -75,6 +77,13 @@ public Pages getPages(String wikiName, String spaceName, Integer start, Integer
                 }
             }
 
+            // Load all the pages at once so that the following calls are served from the document cache
+            List<DocumentReference> pageReferences = new ArrayList<>(pageNames.size());
+            for (String pageName : pageNames) {
+                pageReferences.add(new DocumentReference(wikiName, spaces, pageName));
+            }
+            Utils.getXWikiApi(componentManager).getDocuments(pageReferences);
+
             for (String pageName : pageNames) {
                 String pageFullName = Utils.getPageId(wikiName, spaces, pageName);
 
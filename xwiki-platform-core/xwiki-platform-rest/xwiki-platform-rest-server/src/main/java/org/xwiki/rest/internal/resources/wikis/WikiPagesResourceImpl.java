@@ -19,6 +19,7 @@
  */
 package org.xwiki.rest.internal.resources.wikis;
 
+import java.net.URI;
 import java.net.URL;
 import java.util.Formatter;
 import java.util.HashMap;
@@ -33,7 +34,9 @@
 import org.xwiki.rest.Relations;
 import org.xwiki.rest.XWikiResource;
 import org.xwiki.rest.XWikiRestException;
+import org.xwiki.rest.internal.KeysetPagination;
 import org.xwiki.rest.internal.Utils;
+import org.xwiki.rest.internal.representations.pages.StreamingPages;
 import org.xwiki.rest.model.jaxb.Link;
 import org.xwiki.rest.model.jaxb.PageSummary;
 import org.xwiki.rest.model.jaxb.Pages;
@@ -58,6 +61,8 @@ public Pages getPages(String wikiName, Integer start, String name, String space,
 
         Pages pages = objectFactory.createPages();
 
+        KeysetPagination pagination = new KeysetPagination(uriInfo);
+
         /* This try is just needed for executing the finally clause. */
         try {
             Map<String, String> filters = new HashMap<String, String>();
@@ -73,7 +78,11 @@ public Pages getPages(String wikiName, Integer start, String name, String space,
 
             /* Build the query */
             Formatter f = new Formatter();
-            f.format("select doc from XWikiDocument as doc");
+            if (pagination.isEnabled()) {
+                f.format("select doc, doc.id from XWikiDocument as doc");
+            } else {
+                f.format("select doc from XWikiDocument as doc");
+            }
 
             if (filters.keySet().size() > 0) {
                 f.format(" where (");
@@ -102,12 +111,27 @@ public Pages getPages(String wikiName, Integer start, String name, String space,
                 f.format(")");
             }
 
+            if (pagination.getCursor() != null) {
+                f.format(filters.isEmpty() ? " where " : " and ");
+                f.format("doc.id > :cursor");
+            }
+            if (pagination.isEnabled()) {
+                f.format(" order by doc.id");
+            }
+
             String queryString = f.toString();
 
             /* Execute the query by filling the parameters */
             List<Object> queryResult = null;
             try {
-                Query query = queryManager.createQuery(queryString, Query.XWQL).setLimit(number).setOffset(start);
+                Query query = queryManager.createQuery(queryString, Query.XWQL).setLimit(number);
+                if (pagination.isEnabled()) {
+                    if (pagination.getCursor() != null) {
+                        query.bindValue("cursor", pagination.getCursor());
+                    }
+                } else {
+                    query.setOffset(start);
+                }
                 for (String param : filters.keySet()) {
                     query.bindValue(param, String.format("%%%s%%", filters.get(param).toUpperCase()));
                 }
@@ -118,45 +142,61 @@ public Pages getPages(String wikiName, Integer start, String name, String space,
             }
 
             /* Get the results and populate the returned representation */
-            for (Object object : queryResult) {
-                XWikiDocument xwikiDocument = (XWikiDocument) object;
-                xwikiDocument.setDatabase(wikiName);
-
-                Document doc = new Document(xwikiDocument, Utils.getXWikiContext(componentManager));
-
-                /*
-                 * We manufacture page summaries in place because we don't have all the data for calling the
-                 * DomainObjectFactory method (doing so would require to retrieve an actual Document)
-                 */
-                PageSummary pageSummary = objectFactory.createPageSummary();
-                pageSummary.setId(doc.getPrefixedFullName());
-                pageSummary.setFullName(doc.getFullName());
-                pageSummary.setWiki(wikiName);
-                pageSummary.setSpace(doc.getSpace());
-                pageSummary.setName(doc.getDocumentReference().getName());
-                pageSummary.setTitle(doc.getTitle());
-                pageSummary.setParent(doc.getParent());
-
-                URL absoluteUrl = Utils.getXWikiContext(componentManager).getURLFactory().createExternalURL(
-                    doc.getSpace(), doc.getDocumentReference().getName(), "view", null, null,
-                    Utils.getXWikiContext(componentManager));
-                pageSummary.setXwikiAbsoluteUrl(absoluteUrl.toString());
-                pageSummary.setXwikiRelativeUrl(Utils.getXWikiContext(componentManager).getURLFactory().getURL(
-                    absoluteUrl, Utils.getXWikiContext(componentManager)));
-
-                String pageUri = Utils.createURI(uriInfo.getBaseUri(), PageResource.class, doc.getWiki(),
-                    Utils.getSpacesFromSpaceId(doc.getSpace()), doc.getDocumentReference().getName()).toString();
-                Link pageLink = objectFactory.createLink();
-                pageLink.setHref(pageUri);
-                pageLink.setRel(Relations.PAGE);
-                pageSummary.getLinks().add(pageLink);
-
-                pages.getPageSummaries().add(pageSummary);
+            URI baseUri = uriInfo.getBaseUri();
+            if (pagination.isEnabled()) {
+                if (!queryResult.isEmpty()) {
+                    pagination.setLast((Long) ((Object[]) queryResult.get(queryResult.size() - 1))[1]);
+                }
+
+                // Create the page summaries while they are written instead of keeping them all in memory
+                pages = new StreamingPages(queryResult.stream()
+                    .map(result -> createPageSummary((XWikiDocument) ((Object[]) result)[0], wikiName, baseUri)));
+            } else {
+                for (Object result : queryResult) {
+                    pages.getPageSummaries().add(createPageSummary((XWikiDocument) result, wikiName, baseUri));
+                }
             }
+
+            pagination.addNextLink(pages, queryResult.size(), number, objectFactory, uriInfo);
         } finally {
             Utils.getXWikiContext(componentManager).setWikiId(database);
         }
 
         return pages;
     }
+
+    private PageSummary createPageSummary(XWikiDocument xwikiDocument, String wikiName, URI baseUri)
+    {
+        xwikiDocument.setDatabase(wikiName);
+
+        Document doc = new Document(xwikiDocument, Utils.getXWikiContext(componentManager));
+
+        /*
+         * We manufacture page summaries in place because we don't have all the data for calling the DomainObjectFactory
+         * method (doing so would require to retrieve an actual Document)
+         */
+        PageSummary pageSummary = objectFactory.createPageSummary();
+        pageSummary.setId(doc.getPrefixedFullName());
+        pageSummary.setFullName(doc.getFullName());
+        pageSummary.setWiki(wikiName);
+        pageSummary.setSpace(doc.getSpace());
+        pageSummary.setName(doc.getDocumentReference().getName());
+        pageSummary.setTitle(doc.getTitle());
+        pageSummary.setParent(doc.getParent());
+
+        URL absoluteUrl = Utils.getXWikiContext(componentManager).getURLFactory().createExternalURL(doc.getSpace(),
+            doc.getDocumentReference().getName(), "view", null, null, Utils.getXWikiContext(componentManager));
+        pageSummary.setXwikiAbsoluteUrl(absoluteUrl.toString());
+        pageSummary.setXwikiRelativeUrl(Utils.getXWikiContext(componentManager).getURLFactory().getURL(absoluteUrl,
+            Utils.getXWikiContext(componentManager)));
+
+        String pageUri = Utils.createURI(baseUri, PageResource.class, doc.getWiki(),
+            Utils.getSpacesFromSpaceId(doc.getSpace()), doc.getDocumentReference().getName()).toString();
+        Link pageLink = objectFactory.createLink();
+        pageLink.setHref(pageUri);
+        pageLink.setRel(Relations.PAGE);
+        pageSummary.getLinks().add(pageLink);
+
+        return pageSummary;
+    }
 }
@@ -0,0 +1,159 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Locale;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Response.Status;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.web.XWikiRequest;
+import com.xpn.xwiki.web.XWikiResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link ConditionalRequests}.
+ *
+ * @version $Id$
+ */
+public class ConditionalRequestsTest
+{
+    private static final Date DATE = new Date(1600000000123L);
+
+    private static final String TAG = ConditionalRequests.getEntityTag("1.3", DATE);
+
+    private XWikiContext xcontext = new XWikiContext();
+
+    private XWikiRequest request = mock(XWikiRequest.class);
+
+    private XWikiResponse response = mock(XWikiResponse.class);
+
+    @BeforeEach
+    public void setUp()
+    {
+        this.xcontext.setRequest(this.request);
+        this.xcontext.setResponse(this.response);
+        when(this.request.getDateHeader("If-Modified-Since")).thenReturn(-1L);
+    }
+
+    private void assertStatus(Status status, Runnable evaluation)
+    {
+        WebApplicationException exception = assertThrows(WebApplicationException.class, evaluation::run);
+        assertEquals(status.getStatusCode(), exception.getResponse().getStatus());
+    }
+
+    @Test
+    public void getEntityTag()
+    {
+        assertEquals("1.3-1600000000123", TAG);
+        assertEquals("1.1", ConditionalRequests.getEntityTag("1.1", null));
+    }
+
+    @Test
+    public void addToEntityTag()
+    {
+        assertEquals("1.3-1600000000123-fr-de",
+            ConditionalRequests.addToEntityTag(TAG, Arrays.asList(Locale.FRENCH, Locale.GERMAN)));
+        assertEquals(TAG, ConditionalRequests.addToEntityTag(TAG, Collections.emptyList()));
+    }
+
+    @Test
+    public void evaluateGetWithoutConditions()
+    {
+        ConditionalRequests.evaluateGet(this.xcontext, TAG, DATE);
+
+        verify(this.response).setHeader("ETag", "\"1.3-1600000000123\"");
+        verify(this.response).setDateHeader("Last-Modified", DATE.getTime());
+        verify(this.response).addHeader("Vary", "Accept");
+    }
+
+    @Test
+    public void evaluateGetWithoutLastModified()
+    {
+        when(this.request.getDateHeader("If-Modified-Since")).thenReturn(DATE.getTime());
+
+        // If-Modified-Since is ignored when there is no reliable last modification date
+        ConditionalRequests.evaluateGet(this.xcontext, TAG, null);
+
+        verify(this.response, never()).setDateHeader(eq("Last-Modified"), anyLong());
+    }
+
+    @Test
+    public void evaluateGetWithIfNoneMatch()
+    {
+        when(this.request.getHeader("If-None-Match")).thenReturn("\"1.2-1500000000000\", W/\"1.3-1600000000123\"");
+        assertStatus(Status.NOT_MODIFIED, () -> ConditionalRequests.evaluateGet(this.xcontext, TAG, DATE));
+
+        when(this.request.getHeader("If-None-Match")).thenReturn("\"1.2-1500000000000\"");
+        // If-Modified-Since is ignored when If-None-Match is present
+        when(this.request.getDateHeader("If-Modified-Since")).thenReturn(DATE.getTime());
+        ConditionalRequests.evaluateGet(this.xcontext, TAG, DATE);
+    }
+
+    @Test
+    public void evaluateGetWithIfModifiedSince()
+    {
+        // The HTTP dates don't have the milliseconds
+        when(this.request.getDateHeader("If-Modified-Since")).thenReturn(1600000000000L);
+        assertStatus(Status.NOT_MODIFIED, () -> ConditionalRequests.evaluateGet(this.xcontext, TAG, DATE));
+
+        when(this.request.getDateHeader("If-Modified-Since")).thenReturn(1599999999000L);
+        ConditionalRequests.evaluateGet(this.xcontext, TAG, DATE);
+
+        when(this.request.getDateHeader("If-Modified-Since")).thenThrow(new IllegalArgumentException());
+        ConditionalRequests.evaluateGet(this.xcontext, TAG, DATE);
+    }
+
+    @Test
+    public void evaluateUpdate()
+    {
+        // No condition
+        ConditionalRequests.evaluateUpdate(this.xcontext, TAG);
+        ConditionalRequests.evaluateUpdate(this.xcontext, null);
+
+        when(this.request.getHeader("If-Match")).thenReturn("\"1.3-1600000000123\"");
+        ConditionalRequests.evaluateUpdate(this.xcontext, TAG);
+        assertStatus(Status.PRECONDITION_FAILED, () -> ConditionalRequests.evaluateUpdate(this.xcontext, "1.4"));
+        assertStatus(Status.PRECONDITION_FAILED, () -> ConditionalRequests.evaluateUpdate(this.xcontext, null));
+
+        // Weak tags are not allowed
+        when(this.request.getHeader("If-Match")).thenReturn("W/\"1.3-1600000000123\"");
+        assertStatus(Status.PRECONDITION_FAILED, () -> ConditionalRequests.evaluateUpdate(this.xcontext, TAG));
+
+        when(this.request.getHeader("If-Match")).thenReturn("*");
+        ConditionalRequests.evaluateUpdate(this.xcontext, TAG);
+        assertStatus(Status.PRECONDITION_FAILED, () -> ConditionalRequests.evaluateUpdate(this.xcontext, null));
+    }
+}
@@ -22,6 +22,7 @@
 import java.net.URI;
 
 import javax.inject.Named;
+import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.UriInfo;
 
 import org.apache.commons.lang3.reflect.FieldUtils;
@@ -76,6 +77,7 @@
     public void setUp() throws Exception
     {
         when(this.uriInfo.getBaseUri()).thenReturn(new URI("https://test/"));
+        when(this.uriInfo.getQueryParameters()).thenReturn(mock(MultivaluedMap.class));
 
         this.xcontext = this.oldCore.getXWikiContext();
         this.xwiki = this.oldCore.getSpyXWiki();
@@ -0,0 +1,149 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.resources.objects;
+
+import java.net.URI;
+import java.util.Collections;
+import java.util.List;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.UriBuilder;
+import javax.ws.rs.core.UriInfo;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.rest.Relations;
+import org.xwiki.rest.internal.representations.objects.StreamingObjects;
+import org.xwiki.rest.model.jaxb.Objects;
+import org.xwiki.security.authorization.ContextualAuthorizationManager;
+import org.xwiki.security.authorization.Right;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.objects.BaseObject;
+import com.xpn.xwiki.test.MockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.InjectMockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link AllObjectsForClassNameResourceImpl}.
+ *
+ * @version $Id$
+ */
+@OldcoreTest
+public class AllObjectsForClassNameResourceImplTest
+{
+    @InjectMockComponents
+    private AllObjectsForClassNameResourceImpl allObjectsResource;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    private ContextualAuthorizationManager authorization;
+
+    @InjectMockitoOldcore
+    private MockitoOldcore oldCore;
+
+    @Mock
+    private UriInfo uriInfo;
+
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        when(this.uriInfo.getBaseUri()).thenReturn(new URI("https://test/"));
+        FieldUtils.writeField(this.allObjectsResource, "uriInfo", this.uriInfo, true);
+
+        MultivaluedMap<String, String> parameters = mock(MultivaluedMap.class);
+        // "10" encoded
+        when(parameters.getFirst("cursor")).thenReturn("MTA");
+        when(this.uriInfo.getQueryParameters()).thenReturn(parameters);
+    }
+
+    @Test
+    public void getObjectsWithCursor() throws Exception
+    {
+        UriBuilder uriBuilder = mock(UriBuilder.class);
+        when(this.uriInfo.getRequestUriBuilder()).thenReturn(uriBuilder);
+        // "42" encoded
+        when(uriBuilder.replaceQueryParam("cursor", "NDI")).thenReturn(uriBuilder);
+        when(uriBuilder.build()).thenReturn(new URI("https://test/rest/wikis/test/classes/XWiki.MyClass/objects"
+            + "?cursor=NDI"));
+
+        Query query = mock(Query.class);
+        when(this.queryManager.createQuery("select doc, obj, obj.id from BaseObject as obj, XWikiDocument as doc "
+            + "where obj.name=doc.fullName and obj.className=:className and obj.id > :cursor order by obj.id",
+            Query.XWQL)).thenReturn(query);
+        when(query.bindValue("className", "XWiki.MyClass")).thenReturn(query);
+        when(query.setLimit(1)).thenReturn(query);
+
+        DocumentReference documentReference = new DocumentReference("test", "Space", "Page");
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getDocumentReference()).thenReturn(documentReference);
+        List<Object> results = Collections.singletonList(new Object[] {document, mock(BaseObject.class), 42L});
+        when(query.execute()).thenReturn(results);
+
+        Objects objects = this.allObjectsResource.getObjects("test", "XWiki.MyClass", 0, 1, "", false);
+
+        verify(query).bindValue("cursor", 10L);
+        verify(query, never()).setOffset(anyInt());
+        assertEquals(1, objects.getLinks().size());
+        assertEquals(Relations.NEXT, objects.getLinks().get(0).getRel());
+        assertEquals("https://test/rest/wikis/test/classes/XWiki.MyClass/objects?cursor=NDI",
+            objects.getLinks().get(0).getHref());
+
+        // The object summaries are created only when they are written
+        assertTrue(objects instanceof StreamingObjects);
+        verify(this.authorization, never()).hasAccess(any(), any());
+
+        // The objects of the documents the current user is not allowed to view are skipped
+        assertEquals(Collections.emptyList(), objects.getObjectSummaries());
+        verify(this.authorization).hasAccess(Right.VIEW, documentReference);
+    }
+
+    @Test
+    public void getObjectsWithCursorAndDateOrder() throws Exception
+    {
+        WebApplicationException exception = assertThrows(WebApplicationException.class,
+            () -> this.allObjectsResource.getObjects("test", "XWiki.MyClass", 0, 1, "date", false));
+
+        assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), exception.getResponse().getStatus());
+        verify(this.queryManager, never()).createQuery(anyString(), anyString());
+    }
+}
@@ -19,13 +19,18 @@
  */
 package org.xwiki.rest.internal.resources.wikis;
 
+import java.net.URI;
 import java.util.Collections;
 import java.util.List;
 
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriBuilder;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.xwiki.model.reference.SpaceReference;
 import org.xwiki.query.Query;
+import org.xwiki.rest.Relations;
 import org.xwiki.rest.internal.resources.AbstractAttachmentsResourceTest;
 import org.xwiki.rest.model.jaxb.Attachment;
 import org.xwiki.rest.model.jaxb.Attachments;
@@ -36,8 +41,11 @@
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -86,4 +94,48 @@ public void getAttachments() throws Exception
 
         assertEquals(Collections.singletonList(attachment), attachments.getAttachments());
     }
+
+    @Test
+    public void getAttachmentsWithCursor() throws Exception
+    {
+        MultivaluedMap<String, String> parameters = mock(MultivaluedMap.class);
+        // "10" encoded
+        when(parameters.getFirst("cursor")).thenReturn("MTA");
+        when(this.uriInfo.getQueryParameters()).thenReturn(parameters);
+
+        UriBuilder uriBuilder = mock(UriBuilder.class);
+        when(this.uriInfo.getRequestUriBuilder()).thenReturn(uriBuilder);
+        // "42" encoded
+        when(uriBuilder.replaceQueryParam("cursor", "NDI")).thenReturn(uriBuilder);
+        when(uriBuilder.build()).thenReturn(new URI("https://test/rest/wikis/test/attachments?cursor=NDI"));
+
+        Query query = mock(Query.class);
+        when(this.queryManager.createQuery("select doc.space, doc.name, doc.version, attachment, attachment.id"
+            + " from XWikiDocument as doc, XWikiAttachment as attachment"
+            + " where attachment.docId = doc.id and attachment.id > :cursor order by attachment.id", Query.HQL))
+                .thenReturn(query);
+        when(query.setLimit(1)).thenReturn(query);
+
+        XWikiAttachment xwikiAttachment = mock(XWikiAttachment.class);
+        List<Object> results =
+            Collections.singletonList(new Object[] {"Path.To", "Page", "1.3", xwikiAttachment, 42L});
+        when(query.execute()).thenReturn(results);
+
+        when(this.defaultSpaceReferenceResover.resolve(eq("Path.To"), any()))
+            .thenReturn(new SpaceReference("test", "Path", "To"));
+
+        Attachment attachment = mock(Attachment.class);
+        when(this.modelFactory.toRestAttachment(eq(this.uriInfo.getBaseUri()), any(), eq(true), eq(false)))
+            .thenReturn(attachment);
+
+        Attachments attachments =
+            this.wikiAttachmentsResource.getAttachments("test", "", "", "", "", "", 0, 1, true);
+
+        verify(query).bindValue("cursor", 10L);
+        verify(query, never()).setOffset(anyInt());
+        assertEquals(Collections.singletonList(attachment), attachments.getAttachments());
+        assertEquals(1, attachments.getLinks().size());
+        assertEquals(Relations.NEXT, attachments.getLinks().get(0).getRel());
+        assertEquals("https://test/rest/wikis/test/attachments?cursor=NDI", attachments.getLinks().get(0).getHref());
+    }
 }
@@ -0,0 +1,160 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.rest.internal.resources.wikis;
+
+import java.net.URI;
+import java.net.URL;
+import java.util.Collections;
+import java.util.List;
+
+import javax.inject.Named;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.UriBuilder;
+import javax.ws.rs.core.UriInfo;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReferenceSerializer;
+import org.xwiki.query.Query;
+import org.xwiki.query.QueryManager;
+import org.xwiki.rest.Relations;
+import org.xwiki.rest.internal.representations.pages.StreamingPages;
+import org.xwiki.rest.model.jaxb.PageSummary;
+import org.xwiki.rest.model.jaxb.Pages;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.test.MockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.InjectMockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
+import com.xpn.xwiki.web.XWikiURLFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for {@link WikiPagesResourceImpl}.
+ *
+ * @version $Id$
+ */
+@OldcoreTest
+public class WikiPagesResourceImplTest
+{
+    @InjectMockComponents
+    private WikiPagesResourceImpl wikiPagesResource;
+
+    @MockComponent
+    private QueryManager queryManager;
+
+    @MockComponent
+    private EntityReferenceSerializer<String> defaultEntityReferenceSerializer;
+
+    @MockComponent
+    @Named("local")
+    private EntityReferenceSerializer<String> localEntityReferenceSerializer;
+
+    @InjectMockitoOldcore
+    private MockitoOldcore oldCore;
+
+    @Mock
+    private UriInfo uriInfo;
+
+    private XWikiURLFactory urlFactory = mock(XWikiURLFactory.class);
+
+    private XWikiContext xcontext;
+
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        when(this.uriInfo.getBaseUri()).thenReturn(new URI("https://test/"));
+        FieldUtils.writeField(this.wikiPagesResource, "uriInfo", this.uriInfo, true);
+
+        this.xcontext = this.oldCore.getXWikiContext();
+        this.xcontext.setURLFactory(this.urlFactory);
+    }
+
+    @Test
+    public void getPagesWithCursor() throws Exception
+    {
+        MultivaluedMap<String, String> parameters = mock(MultivaluedMap.class);
+        // "10" encoded
+        when(parameters.getFirst("cursor")).thenReturn("MTA");
+        when(this.uriInfo.getQueryParameters()).thenReturn(parameters);
+
+        UriBuilder uriBuilder = mock(UriBuilder.class);
+        when(this.uriInfo.getRequestUriBuilder()).thenReturn(uriBuilder);
+        // "42" encoded
+        when(uriBuilder.replaceQueryParam("cursor", "NDI")).thenReturn(uriBuilder);
+        when(uriBuilder.build()).thenReturn(new URI("https://test/rest/wikis/test/pages?cursor=NDI"));
+
+        Query query = mock(Query.class);
+        when(this.queryManager.createQuery(
+            "select doc, doc.id from XWikiDocument as doc where doc.id > :cursor order by doc.id", Query.XWQL))
+                .thenReturn(query);
+        when(query.setLimit(1)).thenReturn(query);
+
+        DocumentReference documentReference = new DocumentReference("test", "Space", "Page");
+        XWikiDocument document = mock(XWikiDocument.class);
+        when(document.getDocumentReference()).thenReturn(documentReference);
+        when(document.getSpace()).thenReturn("Space");
+        when(document.getTitle()).thenReturn("Title");
+        List<Object> results = Collections.singletonList(new Object[] {document, 42L});
+        when(query.execute()).thenReturn(results);
+
+        when(this.defaultEntityReferenceSerializer.serialize(documentReference)).thenReturn("test:Space.Page");
+        when(this.localEntityReferenceSerializer.serialize(documentReference)).thenReturn("Space.Page");
+        URL url = new URL("https://test/bin/view/Space/Page");
+        when(this.urlFactory.createExternalURL("Space", "Page", "view", null, null, this.xcontext)).thenReturn(url);
+        when(this.urlFactory.getURL(url, this.xcontext)).thenReturn("/bin/view/Space/Page");
+
+        Pages pages = this.wikiPagesResource.getPages("test", 0, "", "", "", 1);
+
+        verify(query).bindValue("cursor", 10L);
+        verify(query, never()).setOffset(anyInt());
+        assertEquals(1, pages.getLinks().size());
+        assertEquals(Relations.NEXT, pages.getLinks().get(0).getRel());
+        assertEquals("https://test/rest/wikis/test/pages?cursor=NDI", pages.getLinks().get(0).getHref());
+
+        // The page summaries are created only when they are written
+        assertTrue(pages instanceof StreamingPages);
+        verify(this.urlFactory, never()).createExternalURL(any(), any(), any(), any(), any(), any());
+
+        assertEquals(1, pages.getPageSummaries().size());
+        PageSummary pageSummary = pages.getPageSummaries().get(0);
+        assertEquals("test:Space.Page", pageSummary.getId());
+        assertEquals("Space.Page", pageSummary.getFullName());
+        assertEquals("test", pageSummary.getWiki());
+        assertEquals("Page", pageSummary.getName());
+        assertEquals("Title", pageSummary.getTitle());
+        assertEquals("https://test/bin/view/Space/Page", pageSummary.getXwikiAbsoluteUrl());
+        assertEquals("/bin/view/Space/Page", pageSummary.getXwikiRelativeUrl());
+    }
+}
@@ -108,6 +108,14 @@ public void commit() throws SolrServerException, IOException
         this.server.commit();
     }
 
+    @Override
+    public void commit(boolean waitSearcher, boolean softCommit) throws SolrServerException, IOException
+    {
+        this.logger.debug("Commit changes to Solr (waitSearcher: {}, softCommit: {})", waitSearcher, softCommit);
+
+        this.server.commit(true, waitSearcher, softCommit);
+    }
+
     @Override
     public void rollback() throws SolrServerException, IOException
     {
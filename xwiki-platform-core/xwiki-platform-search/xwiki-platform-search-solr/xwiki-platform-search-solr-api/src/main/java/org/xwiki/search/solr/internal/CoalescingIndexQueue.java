@@ -0,0 +1,363 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.xwiki.model.reference.EntityReference;
+
+/**
+ * A FIFO blocking queue of index operations which collapses the pending operations made useless by a new one.
+ * <p>
+ * The following rules are applied when a new entry is added:
+ * <ul>
+ * <li>the new entry is dropped when the most recent pending entry applying to the same reference (or a recursive entry
+ * applying to one of its parents) performs the same operation</li>
+ * <li>otherwise the pending entries targeting the same reference (or one of its children when the new entry is
+ * recursive) are discarded when the new entry covers them: a delete operation covers any other operation while an
+ * index operation only covers other index operations (a pending delete still needs to be applied to remove the
+ * entities which don't exist anymore)</li>
+ * </ul>
+ * Entries without reference are never coalesced.
+ *
+ * @param <E> the type of the entries
+ * @version $Id$
+ * @since 12.8RC1
+ */
+public class CoalescingIndexQueue<E extends CoalescingIndexQueue.Entry>
+{
+    /**
+     * An entry of the queue.
+     *
+     * @version $Id$
+     */
+    public abstract static class Entry
+    {
+        private long sequence;
+
+        private boolean discarded;
+
+        /**
+         * @return the reference of the entity targeted by the operation, {@code null} if the entry should not be
+         *         coalesced
+         */
+        protected abstract EntityReference getReference();
+
+        /**
+         * @return the operation to perform
+         */
+        protected abstract IndexOperation getOperation();
+
+        /**
+         * @return {@code true} if the operation should also be applied to the children of the reference
+         */
+        protected boolean isRecursive()
+        {
+            return false;
+        }
+    }
+
+    private final int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = this.lock.newCondition();
+
+    private final Condition notFull = this.lock.newCondition();
+
+    /**
+     * The entries in the order they were added, including the discarded ones which are skipped when taken.
+     */
+    private final Deque<E> entries = new ArrayDeque<>();
+
+    /**
+     * The most recent pending entry for each reference.
+     */
+    private final Map<EntityReference, E> lastEntries = new HashMap<>();
+
+    /**
+     * The number of pending entries which are not discarded.
+     */
+    private int size;
+
+    private long sequence;
+
+    private long coalescedCount;
+
+    /**
+     * Create a queue with no capacity limit.
+     */
+    public CoalescingIndexQueue()
+    {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param capacity the maximum number of pending entries
+     */
+    public CoalescingIndexQueue(int capacity)
+    {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Add an entry to the queue, waiting if necessary for space to become available.
+     *
+     * @param entry the entry to add
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void put(E entry) throws InterruptedException
+    {
+        this.lock.lockInterruptibly();
+        try {
+            while (!isRedundant(entry)) {
+                if (this.size < this.capacity) {
+                    enqueue(entry);
+
+                    break;
+                }
+
+                this.notFull.await();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Add an entry to the queue if it's possible to do so immediately.
+     *
+     * @param entry the entry to add
+     * @return {@code true} if the entry was added (or was not needed), {@code false} if the queue is full
+     */
+    public boolean offer(E entry)
+    {
+        this.lock.lock();
+        try {
+            if (!isRedundant(entry)) {
+                if (this.size >= this.capacity) {
+                    return false;
+                }
+
+                enqueue(entry);
+            }
+
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieve and remove the oldest entry, waiting if necessary until an entry becomes available.
+     *
+     * @return the oldest entry
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public E take() throws InterruptedException
+    {
+        this.lock.lockInterruptibly();
+        try {
+            while (this.size == 0) {
+                this.notEmpty.await();
+            }
+
+            return dequeue();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieve and remove the oldest entry.
+     *
+     * @return the oldest entry or {@code null} if the queue is empty
+     */
+    public E poll()
+    {
+        this.lock.lock();
+        try {
+            return this.size > 0 ? dequeue() : null;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Remove all the entries.
+     */
+    public void clear()
+    {
+        this.lock.lock();
+        try {
+            this.entries.clear();
+            this.lastEntries.clear();
+            this.size = 0;
+
+            this.notFull.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of pending entries
+     */
+    public int size()
+    {
+        this.lock.lock();
+        try {
+            return this.size;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of entries which were dropped or discarded since the queue was created
+     */
+    public long getCoalescedCount()
+    {
+        this.lock.lock();
+        try {
+            return this.coalescedCount;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private boolean isRedundant(E entry)
+    {
+        EntityReference reference = entry.getReference();
+        if (reference == null) {
+            return false;
+        }
+
+        // Find the most recent pending entry applying to the reference
+        E latest = null;
+        for (EntityReference current = reference; current != null; current = current.getParent()) {
+            E pending = this.lastEntries.get(current);
+            if (pending != null && (current == reference || pending.isRecursive())
+                && (latest == null || pending.sequence > latest.sequence)) {
+                latest = pending;
+            }
+        }
+
+        if (latest == null || latest.getOperation() != entry.getOperation()) {
+            return false;
+        }
+
+        // A recursive entry is only covered by a recursive entry on the same reference which is more recent than any
+        // pending entry targeting a child
+        if (entry.isRecursive() && (!latest.isRecursive() || !reference.equals(latest.getReference())
+            || hasMoreRecentChildEntry(reference, latest.sequence))) {
+            return false;
+        }
+
+        ++this.coalescedCount;
+
+        return true;
+    }
+
+    private boolean hasMoreRecentChildEntry(EntityReference reference, long sequence)
+    {
+        for (E pending : this.entries) {
+            if (!pending.discarded && pending.sequence > sequence && pending.getReference() != null
+                && pending.getReference().hasParent(reference)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void enqueue(E entry)
+    {
+        EntityReference reference = entry.getReference();
+
+        if (reference != null) {
+            // Discard the pending entries made useless by the new one
+            if (entry.isRecursive()) {
+                for (E pending : this.entries) {
+                    if (!pending.discarded && pending.getReference() != null
+                        && (reference.equals(pending.getReference()) || pending.getReference().hasParent(reference))
+                        && isCoveredBy(pending, entry)) {
+                        discard(pending);
+                    }
+                }
+            } else {
+                E pending = this.lastEntries.get(reference);
+                if (pending != null && isCoveredBy(pending, entry)) {
+                    discard(pending);
+                }
+            }
+
+            this.lastEntries.put(reference, entry);
+        }
+
+        entry.sequence = this.sequence++;
+        this.entries.add(entry);
+        ++this.size;
+
+        this.notEmpty.signal();
+    }
+
+    private boolean isCoveredBy(E pending, E entry)
+    {
+        // A non recursive entry does not cover a recursive one
+        if (pending.isRecursive() && !entry.isRecursive() && pending.getReference().equals(entry.getReference())) {
+            return false;
+        }
+
+        return entry.getOperation() == IndexOperation.DELETE || pending.getOperation() == IndexOperation.INDEX;
+    }
+
+    private void discard(E pending)
+    {
+        pending.discarded = true;
+        this.lastEntries.remove(pending.getReference(), pending);
+        --this.size;
+        ++this.coalescedCount;
+
+        this.notFull.signal();
+    }
+
+    private E dequeue()
+    {
+        E entry;
+        do {
+            entry = this.entries.poll();
+        } while (entry.discarded);
+
+        if (entry.getReference() != null) {
+            this.lastEntries.remove(entry.getReference(), entry);
+        }
+        --this.size;
+
+        this.notFull.signal();
+
+        return entry;
+    }
+}
@@ -124,6 +124,62 @@ public class DefaultSolrConfiguration implements SolrConfiguration
      */
     public static final int SOLR_INDEXER_QUEUE_CAPACITY_DEFAULT = 100000;
 
+    /**
+     * The name of the configuration property containing the maximum time a document can wait in the batch.
+     * 
+     * @since 12.8RC1
+     */
+    public static final String SOLR_INDEXER_BATCH_MAXDELAY_PROPERTY = "solr.indexer.batch.maxDelay";
+
+    /**
+     * The default maximum time (in milliseconds) a document can wait in the batch.
+     * 
+     * @since 12.8RC1
+     */
+    public static final int SOLR_INDEXER_BATCH_MAXDELAY_DEFAULT = 1000;
+
+    /**
+     * The name of the configuration property containing the number of metadata extraction threads.
+     * 
+     * @since 12.8RC1
+     */
+    public static final String SOLR_INDEXER_EXTRACTION_THREADS_PROPERTY = "solr.indexer.extraction.threads";
+
+    /**
+     * The default number of metadata extraction threads.
+     * 
+     * @since 12.8RC1
+     */
+    public static final int SOLR_INDEXER_EXTRACTION_THREADS_DEFAULT = 2;
+
+    /**
+     * The name of the configuration property containing the minimum time between two commits.
+     * 
+     * @since 12.8RC1
+     */
+    public static final String SOLR_INDEXER_COMMIT_INTERVAL_PROPERTY = "solr.indexer.commit.interval";
+
+    /**
+     * The default minimum time (in milliseconds) between two commits.
+     * 
+     * @since 12.8RC1
+     */
+    public static final int SOLR_INDEXER_COMMIT_INTERVAL_DEFAULT = 1000;
+
+    /**
+     * The name of the configuration property indicating if intermediate commits should be soft commits.
+     * 
+     * @since 12.8RC1
+     */
+    public static final String SOLR_INDEXER_COMMIT_SOFT_PROPERTY = "solr.indexer.commit.soft";
+
+    /**
+     * Indicate if intermediate commits should be soft commits by default.
+     * 
+     * @since 12.8RC1
+     */
+    public static final boolean SOLR_INDEXER_COMMIT_SOFT_DEFAULT = true;
+
     /**
      * The name of the configuration property indicating if a synchronization should be run at startup.
      */
@@ -200,6 +256,33 @@ public int getIndexerQueueCapacity()
             SOLR_INDEXER_QUEUE_CAPACITY_DEFAULT);
     }
 
+    @Override
+    public int getIndexerBatchMaxDelay()
+    {
+        return this.configuration.getProperty(SOLR_INDEXER_BATCH_MAXDELAY_PROPERTY,
+            SOLR_INDEXER_BATCH_MAXDELAY_DEFAULT);
+    }
+
+    @Override
+    public int getIndexerExtractionThreads()
+    {
+        return this.configuration.getProperty(SOLR_INDEXER_EXTRACTION_THREADS_PROPERTY,
+            SOLR_INDEXER_EXTRACTION_THREADS_DEFAULT);
+    }
+
+    @Override
+    public int getIndexerCommitInterval()
+    {
+        return this.configuration.getProperty(SOLR_INDEXER_COMMIT_INTERVAL_PROPERTY,
+            SOLR_INDEXER_COMMIT_INTERVAL_DEFAULT);
+    }
+
+    @Override
+    public boolean isIndexerSoftCommit()
+    {
+        return this.configuration.getProperty(SOLR_INDEXER_COMMIT_SOFT_PROPERTY, SOLR_INDEXER_COMMIT_SOFT_DEFAULT);
+    }
+
     @Override
     public boolean synchronizeAtStartup()
     {
@@ -19,13 +19,21 @@
  */
 package org.xwiki.search.solr.internal;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.solr.common.SolrInputDocument;
 import org.slf4j.Logger;
 import org.xwiki.component.annotation.Component;
@@ -44,6 +52,7 @@
 import org.xwiki.job.JobExecutor;
 import org.xwiki.model.EntityType;
 import org.xwiki.model.reference.EntityReference;
+import org.xwiki.search.solr.internal.api.FieldUtils;
 import org.xwiki.search.solr.internal.api.SolrConfiguration;
 import org.xwiki.search.solr.internal.api.SolrIndexer;
 import org.xwiki.search.solr.internal.api.SolrIndexerException;
@@ -61,7 +70,13 @@
  * <p>
  * This implementation does not directly process the given leaf-references, but adds them to a processing queue, in the
  * order they were received. The {@link Runnable} part of this implementation is the one that sequentially reads and
- * processes the queue.
+ * processes the queue. Pending operations made useless by a more recent one are collapsed (see
+ * {@link CoalescingIndexQueue}).
+ * <p>
+ * The metadata of the entities to index is extracted in parallel by a bounded pool of threads but the resulting
+ * documents are sent to Solr in the order the entries were read from the queue, so that the operations applied to a
+ * given reference are never reordered. The documents are sent in batches bounded in size, length and time, and the
+ * changes are (soft) committed regularly while the queue is not empty and (hard) committed when it becomes empty.
  * 
  * @version $Id$
  * @since 5.1M2
@@ -79,7 +94,7 @@ public class DefaultSolrIndexer implements SolrIndexer, Initializable, Disposabl
      * 
      * @version $Id$
      */
-    private static class IndexQueueEntry
+    private static class IndexQueueEntry extends CoalescingIndexQueue.Entry
     {
         /**
          * The reference of the entity to index.
@@ -116,6 +131,18 @@ public IndexQueueEntry(String deleteQuery, IndexOperation operation)
             this.operation = operation;
         }
 
+        @Override
+        protected EntityReference getReference()
+        {
+            return this.reference;
+        }
+
+        @Override
+        protected IndexOperation getOperation()
+        {
+            return this.operation;
+        }
+
         @Override
         public String toString()
         {
@@ -140,12 +167,48 @@ public String toString()
         }
     }
 
+    /**
+     * Entry read from the index queue, waiting to be applied to the Solr index.
+     * 
+     * @version $Id$
+     */
+    private static class PendingEntry
+    {
+        /**
+         * The entry read from the index queue.
+         */
+        public IndexQueueEntry queueEntry;
+
+        /**
+         * The document being extracted, {@code null} if the operation is not an index operation.
+         */
+        public Future<LengthSolrInputDocument> document;
+
+        /**
+         * @param queueEntry the entry read from the index queue
+         * @param document the document being extracted
+         */
+        PendingEntry(IndexQueueEntry queueEntry, Future<LengthSolrInputDocument> document)
+        {
+            this.queueEntry = queueEntry;
+            this.document = document;
+        }
+
+        /**
+         * @return {@code true} if the entry can be applied without waiting
+         */
+        public boolean isReady()
+        {
+            return this.document == null || this.document.isDone();
+        }
+    }
+
     /**
      * Resolve queue entry.
      * 
      * @version $Id$
      */
-    private static class ResolveQueueEntry
+    private static class ResolveQueueEntry extends CoalescingIndexQueue.Entry
     {
         /**
          * The reference of the entity to index.
@@ -173,6 +236,24 @@ public ResolveQueueEntry(EntityReference reference, boolean recurse, IndexOperat
             this.recurse = recurse;
             this.operation = operation;
         }
+
+        @Override
+        protected EntityReference getReference()
+        {
+            return this.reference;
+        }
+
+        @Override
+        protected IndexOperation getOperation()
+        {
+            return this.operation;
+        }
+
+        @Override
+        protected boolean isRecursive()
+        {
+            return this.recurse;
+        }
     }
 
     /**
@@ -245,6 +326,11 @@ public void runInternal()
     private static final IndexQueueEntry INDEX_QUEUE_ENTRY_STOP =
         new IndexQueueEntry((String) null, IndexOperation.STOP);
 
+    /**
+     * The minimum duration (in milliseconds) of the sample used to calculate the throughput.
+     */
+    private static final long THROUGHPUT_SAMPLE_DURATION = 1000L;
+
     /**
      * Logging framework.
      */
@@ -287,12 +373,12 @@ public void runInternal()
     /**
      * The queue of index operation to perform.
      */
-    private BlockingQueue<IndexQueueEntry> indexQueue;
+    private CoalescingIndexQueue<IndexQueueEntry> indexQueue;
 
     /**
      * The queue of resolve references and add them to the index queue.
      */
-    private BlockingQueue<ResolveQueueEntry> resolveQueue;
+    private CoalescingIndexQueue<ResolveQueueEntry> resolveQueue;
 
     /**
      * Thread in which the indexUpdater will be executed.
@@ -310,16 +396,81 @@ public void runInternal()
     private boolean disposed;
 
     /**
-     * The size of the not yet sent batch.
+     * The number of entries read from the index queue but not yet committed.
      */
     private volatile int batchSize;
 
+    /**
+     * The threads used to extract the metadata of the entities to index.
+     */
+    private ExecutorService extractionExecutor;
+
+    /**
+     * The maximum number of entries that can be extracted at the same time.
+     */
+    private int maxPendingEntries;
+
+    /**
+     * The entries read from the index queue and not yet applied, in the order they were read. Only accessed by the
+     * index thread.
+     */
+    private final Deque<PendingEntry> pendingEntries = new ArrayDeque<>();
+
+    /**
+     * The documents not yet sent to Solr. Only accessed by the index thread.
+     */
+    private final List<SolrInputDocument> batch = new ArrayList<>();
+
+    /**
+     * The length of the documents not yet sent to Solr.
+     */
+    private int batchLength;
+
+    /**
+     * The date (in milliseconds) when the first document of the current batch was added.
+     */
+    private long batchStart;
+
+    /**
+     * The date (in milliseconds) of the last commit, or of the beginning of the current batch if no commit was done
+     * since then.
+     */
+    private long lastCommit;
+
+    /**
+     * The number of operations applied to the Solr index.
+     */
+    private volatile long processedCount;
+
+    /**
+     * The number of operations applied per second during the last sample.
+     */
+    private volatile double throughput;
+
+    /**
+     * The date (in milliseconds) when the current throughput sample started.
+     */
+    private long throughputSampleStart;
+
+    /**
+     * The number of operations applied when the current throughput sample started.
+     */
+    private long throughputSampleCount;
+
     @Override
     public void initialize() throws InitializationException
     {
         // Initialize the queues before starting the threads.
-        this.resolveQueue = new LinkedBlockingQueue<>();
-        this.indexQueue = new LinkedBlockingQueue<>(this.configuration.getIndexerQueueCapacity());
+        // Pending operations made useless by more recent ones (e.g. several saves of the same document) are collapsed
+        this.resolveQueue = new CoalescingIndexQueue<>();
+        this.indexQueue = new CoalescingIndexQueue<>(this.configuration.getIndexerQueueCapacity());
+
+        // Create the metadata extraction threads
+        int extractionThreads = Math.max(1, this.configuration.getIndexerExtractionThreads());
+        this.maxPendingEntries = extractionThreads * 2;
+        BasicThreadFactory factory = new BasicThreadFactory.Builder().namingPattern("XWiki Solr extraction thread %d")
+            .daemon(true).priority(Thread.NORM_PRIORITY - 1).build();
+        this.extractionExecutor = Executors.newFixedThreadPool(extractionThreads, factory);
 
         // Launch the resolve thread
         this.resolveThread = new Thread(new Resolver());
@@ -378,6 +529,8 @@ public void run()
             }
         }
 
+        stopExtraction();
+
         this.logger.debug("Stop SOLR indexer thread");
     }
 
@@ -390,7 +543,10 @@ public void run()
      */
     private boolean processBatch(IndexQueueEntry queueEntry)
     {
-        int length = 0;
+        // Don't take into account the time spent waiting for the queue in the commit interval and the throughput
+        this.lastCommit = System.currentTimeMillis();
+        this.throughputSampleStart = this.lastCommit;
+        this.throughputSampleCount = this.processedCount;
 
         for (IndexQueueEntry batchEntry = queueEntry; batchEntry != null; batchEntry = this.indexQueue.poll()) {
             if (batchEntry == INDEX_QUEUE_ENTRY_STOP) {
@@ -398,57 +554,192 @@ private boolean processBatch(IndexQueueEntry queueEntry)
                 return false;
             }
 
-            IndexOperation operation = batchEntry.operation;
+            ++this.batchSize;
+
+            // Extract the document in the background and remember the entry to apply the operations in order
+            Future<LengthSolrInputDocument> document = null;
+            if (IndexOperation.INDEX.equals(batchEntry.operation)) {
+                document = extract(batchEntry.reference);
+            }
+            this.pendingEntries.add(new PendingEntry(batchEntry, document));
+
+            // Apply the entries which are ready and wait for the oldest one when too many extractions are in progress
+            applyPendingEntries(this.pendingEntries.size() >= this.maxPendingEntries);
+
+            // Make the index changes available to queries regularly, without waiting for the queue to be empty
+            if (System.currentTimeMillis() - this.lastCommit >= this.configuration.getIndexerCommitInterval()) {
+                sendBatch();
+                commit(false, this.configuration.isIndexerSoftCommit());
+            }
+        }
+
+        // Apply and commit what's left
+        while (!this.pendingEntries.isEmpty()) {
+            applyPendingEntries(true);
+        }
+        sendBatch();
+        if (this.batchSize > 0) {
+            commit(true, false);
+        }
 
-            // For the current contiguous operations queue, group the changes
+        return true;
+    }
+
+    /**
+     * @param reference the reference of the entity to extract
+     * @return the document being extracted
+     */
+    private Future<LengthSolrInputDocument> extract(EntityReference reference)
+    {
+        return this.extractionExecutor.submit(() -> {
             try {
                 this.ecim.initialize(new ExecutionContext());
 
-                if (IndexOperation.INDEX.equals(operation)) {
-                    LengthSolrInputDocument solrDocument = getSolrDocument(batchEntry.reference);
-                    if (solrDocument != null) {
-                        solrInstance.add(solrDocument);
-                        length += solrDocument.getLength();
-                        ++this.batchSize;
-                    }
-                } else if (IndexOperation.DELETE.equals(operation)) {
-                    if (batchEntry.reference == null) {
-                        solrInstance.deleteByQuery(batchEntry.deleteQuery);
-                    } else {
-                        solrInstance.delete(this.solrRefereceResolver.getId(batchEntry.reference));
+                return getSolrDocument(reference);
+            } finally {
+                this.execution.removeContext();
+            }
+        });
+    }
+
+    /**
+     * Cancel the extractions in progress and stop the extraction threads.
+     */
+    private void stopExtraction()
+    {
+        for (PendingEntry pendingEntry : this.pendingEntries) {
+            if (pendingEntry.document != null) {
+                pendingEntry.document.cancel(true);
+            }
+        }
+        this.pendingEntries.clear();
+
+        this.extractionExecutor.shutdownNow();
+    }
+
+    /**
+     * Apply the pending entries which are ready, in the order they were read from the queue.
+     * 
+     * @param waitForOldest {@code true} if the oldest pending entry should be applied even if it's not ready yet
+     */
+    private void applyPendingEntries(boolean waitForOldest)
+    {
+        boolean wait = waitForOldest;
+        for (PendingEntry pendingEntry = this.pendingEntries.peek(); pendingEntry != null
+            && (wait || pendingEntry.isReady()); pendingEntry = this.pendingEntries.peek()) {
+            this.pendingEntries.poll();
+            apply(pendingEntry);
+            wait = false;
+        }
+
+        // Don't let documents wait in the batch forever when the extraction is slow
+        if (!this.batch.isEmpty()
+            && System.currentTimeMillis() - this.batchStart >= this.configuration.getIndexerBatchMaxDelay()) {
+            sendBatch();
+        }
+    }
+
+    /**
+     * @param pendingEntry the entry to apply to the Solr index
+     */
+    private void apply(PendingEntry pendingEntry)
+    {
+        IndexQueueEntry batchEntry = pendingEntry.queueEntry;
+
+        try {
+            if (IndexOperation.INDEX.equals(batchEntry.operation)) {
+                LengthSolrInputDocument solrDocument = pendingEntry.document.get();
+                if (solrDocument != null) {
+                    if (this.batch.isEmpty()) {
+                        this.batchStart = System.currentTimeMillis();
                     }
+                    this.batch.add(solrDocument);
+                    this.batchLength += solrDocument.getLength();
 
-                    ++this.batchSize;
+                    if (shouldSend(this.batchLength, this.batch.size())) {
+                        sendBatch();
+                    }
                 }
-            } catch (Throwable e) {
-                this.logger.error("Failed to process entry [{}]", batchEntry, e);
-            } finally {
-                this.execution.removeContext();
+            } else if (IndexOperation.DELETE.equals(batchEntry.operation)) {
+                // Send the previous documents first to not change the order of the operations
+                sendBatch();
+
+                delete(batchEntry);
             }
+        } catch (ExecutionException e) {
+            this.logger.error("Failed to process entry [{}]", batchEntry, e.getCause());
+        } catch (InterruptedException e) {
+            this.logger.warn("The SOLR index thread has been interrupted while processing entry [{}]", batchEntry);
+
+            Thread.currentThread().interrupt();
+        } catch (Throwable e) {
+            this.logger.error("Failed to process entry [{}]", batchEntry, e);
+        }
+    }
 
-            // Commit the index changes so that they become available to queries. This is a costly operation and that is
-            // the reason why we perform it at the end of the batch.
-            if (shouldCommit(length, this.batchSize)) {
-                commit();
-                length = 0;
+    /**
+     * @param batchEntry the delete operation to apply
+     * @throws Exception when failing to delete the entries
+     */
+    private void delete(IndexQueueEntry batchEntry) throws Exception
+    {
+        try {
+            this.ecim.initialize(new ExecutionContext());
+
+            if (batchEntry.reference == null) {
+                this.solrInstance.deleteByQuery(batchEntry.deleteQuery);
+            } else {
+                this.solrInstance.delete(this.solrRefereceResolver.getId(batchEntry.reference));
             }
+
+            updateStatistics(1);
+        } finally {
+            this.execution.removeContext();
         }
+    }
 
-        // Commit what's left
-        if (this.batchSize > 0) {
-            commit();
+    /**
+     * Send the current batch of documents to Solr.
+     */
+    private void sendBatch()
+    {
+        if (this.batch.isEmpty()) {
+            return;
         }
 
-        return true;
+        try {
+            this.solrInstance.add(this.batch);
+        } catch (Exception e) {
+            this.logger.warn("Failed to send a batch of [{}] documents to the Solr server, sending them one by one: {}",
+                this.batch.size(), ExceptionUtils.getRootCauseMessage(e));
+
+            // Isolate the documents responsible for the failure
+            for (SolrInputDocument solrDocument : this.batch) {
+                try {
+                    this.solrInstance.add(solrDocument);
+                } catch (Exception ex) {
+                    this.logger.error("Failed to send document [{}] to the Solr server", solrDocument.get(FieldUtils.ID),
+                        ex);
+                }
+            }
+        }
+
+        updateStatistics(this.batch.size());
+
+        this.batch.clear();
+        this.batchLength = 0;
     }
 
     /**
      * Commit.
+     * 
+     * @param waitSearcher {@code true} to wait for the changes to be available to queries
+     * @param softCommit {@code true} to make the changes visible without flushing them to the stable storage
      */
-    private void commit()
+    private void commit(boolean waitSearcher, boolean softCommit)
     {
         try {
-            solrInstance.commit();
+            solrInstance.commit(waitSearcher, softCommit);
         } catch (Exception e) {
             this.logger.error("Failed to commit index changes to the Solr server. Rolling back.", e);
 
@@ -460,17 +751,19 @@ private void commit()
             }
         }
 
-        this.batchSize = 0;
+        // The entries which are still being extracted are not committed yet
+        this.batchSize = this.pendingEntries.size();
+        this.lastCommit = System.currentTimeMillis();
     }
 
     /**
-     * Check various constraints to know if the batch should be committed.
+     * Check various constraints to know if the batch should be sent.
      * 
      * @param length the current length
      * @param size the current size
      * @return true if the batch should be sent
      */
-    private boolean shouldCommit(int length, int size)
+    private boolean shouldSend(int length, int size)
     {
         // If the length is above the configured maximum
         if (length >= this.configuration.getIndexerBatchMaxLengh()) {
@@ -481,6 +774,23 @@ private boolean shouldCommit(int length, int size)
         return size >= this.configuration.getIndexerBatchSize();
     }
 
+    /**
+     * @param count the number of operations which were just applied
+     */
+    private void updateStatistics(int count)
+    {
+        this.processedCount += count;
+
+        long now = System.currentTimeMillis();
+        long duration = now - this.throughputSampleStart;
+        if (duration >= THROUGHPUT_SAMPLE_DURATION) {
+            this.throughput = (this.processedCount - this.throughputSampleCount) * 1000D / duration;
+
+            this.throughputSampleStart = now;
+            this.throughputSampleCount = this.processedCount;
+        }
+    }
+
     /**
      * @param reference the reference to extract metadata from.
      * @return the {@link SolrInputDocument} containing extracted metadata from the passed reference; {@code null} if
@@ -555,6 +865,18 @@ public int getQueueSize()
         return this.indexQueue.size() + this.resolveQueue.size() + this.batchSize;
     }
 
+    @Override
+    public long getProcessedCount()
+    {
+        return this.processedCount;
+    }
+
+    @Override
+    public double getThroughput()
+    {
+        return this.throughput;
+    }
+
     @Override
     public IndexerJob startIndex(IndexerRequest request) throws SolrIndexerException
     {
@@ -19,6 +19,7 @@
  */
 package org.xwiki.search.solr.internal;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
@@ -29,6 +30,7 @@
 import javax.inject.Singleton;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.xwiki.bridge.event.DocumentCreatedEvent;
 import org.xwiki.bridge.event.DocumentDeletedEvent;
@@ -36,8 +38,10 @@
 import org.xwiki.bridge.event.WikiDeletedEvent;
 import org.xwiki.component.annotation.Component;
 import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
 import org.xwiki.model.reference.WikiReference;
 import org.xwiki.observation.EventListener;
+import org.xwiki.observation.ObservationContext;
 import org.xwiki.observation.event.Event;
 import org.xwiki.search.solr.internal.api.SolrIndexer;
 
@@ -49,6 +53,8 @@
 import com.xpn.xwiki.internal.event.AttachmentAddedEvent;
 import com.xpn.xwiki.internal.event.AttachmentDeletedEvent;
 import com.xpn.xwiki.internal.event.AttachmentUpdatedEvent;
+import com.xpn.xwiki.internal.event.DocumentsBatchSavedEvent;
+import com.xpn.xwiki.internal.event.DocumentsBatchSavingEvent;
 import com.xpn.xwiki.internal.event.EntityEvent;
 import com.xpn.xwiki.internal.event.XObjectAddedEvent;
 import com.xpn.xwiki.internal.event.XObjectDeletedEvent;
@@ -75,7 +81,7 @@ public class SolrIndexEventListener implements EventListener
         new DocumentCreatedEvent(), new DocumentDeletedEvent(), new AttachmentAddedEvent(),
         new AttachmentDeletedEvent(), new AttachmentUpdatedEvent(), new XObjectAddedEvent(), new XObjectDeletedEvent(),
         new XObjectUpdatedEvent(), new XObjectPropertyAddedEvent(), new XObjectPropertyDeletedEvent(),
-        new XObjectPropertyUpdatedEvent(), new WikiDeletedEvent());
+        new XObjectPropertyUpdatedEvent(), new WikiDeletedEvent(), DocumentsBatchSavedEvent.EVENT);
 
     /**
      * Logging framework.
@@ -91,6 +97,15 @@ public class SolrIndexEventListener implements EventListener
     @Inject
     private Provider<SolrIndexer> solrIndexer;
 
+    @Inject
+    private ObservationContext observationContext;
+
+    /**
+     * The operations delayed until the end of the batch of documents being saved in the current thread. The indexer
+     * cannot see the documents before the transaction of the batch is committed.
+     */
+    private final ThreadLocal<List<Pair<EntityReference, IndexOperation>>> batchOperations = new ThreadLocal<>();
+
     @Override
     public List<Event> getEvents()
     {
@@ -107,7 +122,9 @@ public String getName()
     public void onEvent(Event event, Object source, Object data)
     {
         try {
-            if (event instanceof DocumentUpdatedEvent) {
+            if (event instanceof DocumentsBatchSavedEvent) {
+                flushBatchOperations();
+            } else if (event instanceof DocumentUpdatedEvent) {
                 XWikiDocument document = (XWikiDocument) source;
                 if (Locale.ROOT.equals(document.getLocale())) {
                     // Index all the translations of a document when its default translation has been updated because
@@ -115,7 +132,7 @@ public void onEvent(Event event, Object source, Object data)
                     indexTranslations(document, (XWikiContext) data);
                 } else {
                     // Index only the updated translation.
-                    this.solrIndexer.get().index(document.getDocumentReferenceWithLocale(), false);
+                    index(document.getDocumentReferenceWithLocale());
                 }
             } else if (event instanceof DocumentCreatedEvent) {
                 XWikiDocument document = (XWikiDocument) source;
@@ -126,7 +143,7 @@ public void onEvent(Event event, Object source, Object data)
                     // anyway)
                     indexTranslations(document, (XWikiContext) data);
                 } else {
-                    this.solrIndexer.get().index(document.getDocumentReferenceWithLocale(), false);
+                    index(document.getDocumentReferenceWithLocale());
                 }
             } else if (event instanceof DocumentDeletedEvent) {
                 XWikiDocument document = ((XWikiDocument) source).getOriginalDocument();
@@ -140,41 +157,40 @@ public void onEvent(Event event, Object source, Object data)
                 // document from the Solr index) and we're going to have deleted documents that are still in the Solr
                 // index. These documents will be filtered from the search results but not from the facet counts.
                 // See XWIKI-10003: Cache problem with Solr facet filter results count
-                this.solrIndexer.get().delete(
-                    new DocumentReference(document.getDocumentReference(), document.getRealLocale()), false);
+                delete(new DocumentReference(document.getDocumentReference(), document.getRealLocale()));
             } else if (event instanceof AttachmentUpdatedEvent || event instanceof AttachmentAddedEvent) {
                 XWikiDocument document = (XWikiDocument) source;
                 String fileName = ((AbstractAttachmentEvent) event).getName();
                 XWikiAttachment attachment = document.getAttachment(fileName);
 
-                this.solrIndexer.get().index(attachment.getReference(), false);
+                index(attachment.getReference());
             } else if (event instanceof AttachmentDeletedEvent) {
                 XWikiDocument document = ((XWikiDocument) source).getOriginalDocument();
                 String fileName = ((AbstractAttachmentEvent) event).getName();
                 XWikiAttachment attachment = document.getAttachment(fileName);
 
-                this.solrIndexer.get().delete(attachment.getReference(), false);
+                delete(attachment.getReference());
             } else if (event instanceof XObjectUpdatedEvent || event instanceof XObjectAddedEvent) {
                 EntityEvent entityEvent = (EntityEvent) event;
 
-                this.solrIndexer.get().index(entityEvent.getReference(), false);
+                index(entityEvent.getReference());
             } else if (event instanceof XObjectDeletedEvent) {
                 EntityEvent entityEvent = (EntityEvent) event;
 
-                this.solrIndexer.get().delete(entityEvent.getReference(), false);
+                delete(entityEvent.getReference());
             } else if (event instanceof XObjectPropertyUpdatedEvent || event instanceof XObjectPropertyAddedEvent) {
                 EntityEvent entityEvent = (EntityEvent) event;
 
-                this.solrIndexer.get().index(entityEvent.getReference(), false);
+                index(entityEvent.getReference());
             } else if (event instanceof XObjectPropertyDeletedEvent) {
                 EntityEvent entityEvent = (EntityEvent) event;
 
-                this.solrIndexer.get().delete(entityEvent.getReference(), false);
+                delete(entityEvent.getReference());
             } else if (event instanceof WikiDeletedEvent) {
                 String wikiName = (String) source;
                 WikiReference wikiReference = new WikiReference(wikiName);
 
-                this.solrIndexer.get().delete(wikiReference, false);
+                delete(wikiReference);
             }
         } catch (Exception e) {
             this.logger.error("Failed to handle event [{}] with source [{}]", event, source.toString(), e);
@@ -192,19 +208,64 @@ public void onEvent(Event event, Object source, Object data)
      */
     private void indexTranslations(XWikiDocument document, XWikiContext xcontext)
     {
-        SolrIndexer indexer = this.solrIndexer.get();
-
         // Index the default translation.
         DocumentReference documentReferenceWithoutLocale = document.getDocumentReference();
-        indexer.index(documentReferenceWithoutLocale, false);
+        index(documentReferenceWithoutLocale);
 
         try {
             // Index the rest of the available translations.
             document.getTranslationLocales(xcontext).stream()
-                .forEach(locale -> indexer.index(new DocumentReference(documentReferenceWithoutLocale, locale), false));
+                .forEach(locale -> index(new DocumentReference(documentReferenceWithoutLocale, locale)));
         } catch (XWikiException e) {
             this.logger.warn("Failed to index the translations of [{}]. Root cause is [{}].",
                 documentReferenceWithoutLocale, ExceptionUtils.getRootCauseMessage(e));
         }
     }
+
+    private void index(EntityReference reference)
+    {
+        if (!delay(reference, IndexOperation.INDEX)) {
+            this.solrIndexer.get().index(reference, false);
+        }
+    }
+
+    private void delete(EntityReference reference)
+    {
+        if (!delay(reference, IndexOperation.DELETE)) {
+            this.solrIndexer.get().delete(reference, false);
+        }
+    }
+
+    private boolean delay(EntityReference reference, IndexOperation operation)
+    {
+        if (this.observationContext.isIn(DocumentsBatchSavingEvent.EVENT)) {
+            List<Pair<EntityReference, IndexOperation>> operations = this.batchOperations.get();
+            if (operations == null) {
+                operations = new ArrayList<>();
+                this.batchOperations.set(operations);
+            }
+            operations.add(Pair.of(reference, operation));
+
+            return true;
+        }
+
+        return false;
+    }
+
+    private void flushBatchOperations()
+    {
+        List<Pair<EntityReference, IndexOperation>> operations = this.batchOperations.get();
+        this.batchOperations.remove();
+
+        if (operations != null) {
+            SolrIndexer indexer = this.solrIndexer.get();
+            for (Pair<EntityReference, IndexOperation> operation : operations) {
+                if (operation.getValue() == IndexOperation.DELETE) {
+                    indexer.delete(operation.getKey(), false);
+                } else {
+                    indexer.index(operation.getKey(), false);
+                }
+            }
+        }
+    }
 }
@@ -98,6 +98,30 @@
      */
     int getIndexerQueueCapacity();
 
+    /**
+     * @return the maximum time (in milliseconds) a document can wait in the batch before the batch is sent to Solr
+     * @since 12.8RC1
+     */
+    int getIndexerBatchMaxDelay();
+
+    /**
+     * @return the number of threads used to extract the metadata of the entities to index
+     * @since 12.8RC1
+     */
+    int getIndexerExtractionThreads();
+
+    /**
+     * @return the minimum time (in milliseconds) between two commits while the indexer queue is not empty
+     * @since 12.8RC1
+     */
+    int getIndexerCommitInterval();
+
+    /**
+     * @return true if the commits performed while the indexer queue is not empty should be soft commits
+     * @since 12.8RC1
+     */
+    boolean isIndexerSoftCommit();
+
     /**
      * @return true if a full synchronization job between the database and SOLR index should be run when XWiki starts
      * @since 6.1M2
@@ -60,6 +60,18 @@
      */
     int getQueueSize();
 
+    /**
+     * @return the number of index and delete operations applied to the Solr index since the indexer was started
+     * @since 12.8RC1
+     */
+    long getProcessedCount();
+
+    /**
+     * @return the number of index and delete operations applied per second, measured during the last indexing activity
+     * @since 12.8RC1
+     */
+    double getThroughput();
+
     /**
      * Start an indexing with specific criteria.
      * 
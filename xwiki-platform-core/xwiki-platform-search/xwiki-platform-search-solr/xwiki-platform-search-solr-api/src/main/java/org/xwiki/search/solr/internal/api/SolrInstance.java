@@ -118,6 +118,20 @@ public interface SolrInstance extends Initializable
      */
     void commit() throws SolrServerException, IOException;
 
+    /**
+     * Commit the recent (uncommitted) changes to the Solr server.
+     * 
+     * @param waitSearcher {@code true} to wait for the new searcher to be registered before returning
+     * @param softCommit {@code true} to make the changes visible without flushing them to the stable storage
+     * @throws SolrServerException if problems occur.
+     * @throws IOException if problems occur.
+     * @since 12.8RC1
+     */
+    default void commit(boolean waitSearcher, boolean softCommit) throws SolrServerException, IOException
+    {
+        commit();
+    }
+
     /**
      * Cancel the local uncommitted changes that were not yet pushed to the Solr server.
      * 
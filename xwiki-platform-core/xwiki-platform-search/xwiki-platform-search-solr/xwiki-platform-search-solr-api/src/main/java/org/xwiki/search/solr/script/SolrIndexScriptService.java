@@ -42,6 +42,7 @@
 import org.xwiki.security.authorization.AccessDeniedException;
 import org.xwiki.security.authorization.AuthorizationManager;
 import org.xwiki.security.authorization.Right;
+import org.xwiki.stability.Unstable;
 
 import com.xpn.xwiki.XWikiContext;
 
@@ -191,6 +192,26 @@ public int getQueueSize()
         return this.solrIndexer.getQueueSize();
     }
 
+    /**
+     * @return the number of index and delete operations applied to the Solr index since the indexer was started
+     * @since 12.8RC1
+     */
+    @Unstable
+    public long getProcessedCount()
+    {
+        return this.solrIndexer.getProcessedCount();
+    }
+
+    /**
+     * @return the number of index and delete operations applied per second, measured during the last indexing activity
+     * @since 12.8RC1
+     */
+    @Unstable
+    public double getThroughput()
+    {
+        return this.solrIndexer.getThroughput();
+    }
+
     /**
      * Extract a {@link DocumentReference} from the given {@link SolrDocument} (e.g. search result).
      * 
@@ -0,0 +1,214 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal;
+
+import org.junit.jupiter.api.Test;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.SpaceReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Validate {@link CoalescingIndexQueue}.
+ *
+ * @version $Id$
+ */
+public class CoalescingIndexQueueTest
+{
+    private static final SpaceReference SPACE = new SpaceReference("wiki", "Space");
+
+    private static final DocumentReference DOCUMENT1 = new DocumentReference("Page1", SPACE);
+
+    private static final DocumentReference DOCUMENT2 = new DocumentReference("Page2", SPACE);
+
+    private static class TestEntry extends CoalescingIndexQueue.Entry
+    {
+        private final EntityReference reference;
+
+        private final IndexOperation operation;
+
+        private final boolean recurse;
+
+        TestEntry(EntityReference reference, IndexOperation operation, boolean recurse)
+        {
+            this.reference = reference;
+            this.operation = operation;
+            this.recurse = recurse;
+        }
+
+        @Override
+        protected EntityReference getReference()
+        {
+            return this.reference;
+        }
+
+        @Override
+        protected IndexOperation getOperation()
+        {
+            return this.operation;
+        }
+
+        @Override
+        protected boolean isRecursive()
+        {
+            return this.recurse;
+        }
+    }
+
+    private CoalescingIndexQueue<TestEntry> queue = new CoalescingIndexQueue<>();
+
+    private TestEntry add(EntityReference reference, IndexOperation operation, boolean recurse)
+    {
+        TestEntry entry = new TestEntry(reference, operation, recurse);
+
+        assertTrue(this.queue.offer(entry));
+
+        return entry;
+    }
+
+    @Test
+    public void duplicateIndex()
+    {
+        TestEntry entry = add(DOCUMENT1, IndexOperation.INDEX, false);
+        add(DOCUMENT1, IndexOperation.INDEX, false);
+        add(DOCUMENT1, IndexOperation.INDEX, false);
+
+        assertEquals(1, this.queue.size());
+        assertEquals(2, this.queue.getCoalescedCount());
+        assertSame(entry, this.queue.poll());
+        assertNull(this.queue.poll());
+    }
+
+    @Test
+    public void deleteAfterIndex()
+    {
+        add(DOCUMENT1, IndexOperation.INDEX, false);
+        TestEntry other = add(DOCUMENT2, IndexOperation.INDEX, false);
+        TestEntry delete = add(DOCUMENT1, IndexOperation.DELETE, false);
+
+        assertEquals(2, this.queue.size());
+        assertSame(other, this.queue.poll());
+        assertSame(delete, this.queue.poll());
+        assertNull(this.queue.poll());
+    }
+
+    @Test
+    public void indexAfterDelete()
+    {
+        // The delete is still needed in case the entity does not exist anymore
+        TestEntry delete = add(DOCUMENT1, IndexOperation.DELETE, false);
+        TestEntry index = add(DOCUMENT1, IndexOperation.INDEX, false);
+
+        assertEquals(2, this.queue.size());
+        assertSame(delete, this.queue.poll());
+        assertSame(index, this.queue.poll());
+    }
+
+    @Test
+    public void indexAfterRecursiveIndexOfParent()
+    {
+        TestEntry space = add(SPACE, IndexOperation.INDEX, true);
+        add(DOCUMENT1, IndexOperation.INDEX, false);
+
+        assertEquals(1, this.queue.size());
+        assertSame(space, this.queue.poll());
+    }
+
+    @Test
+    public void indexAfterDeleteAfterRecursiveIndexOfParent()
+    {
+        TestEntry space = add(SPACE, IndexOperation.INDEX, true);
+        TestEntry delete = add(DOCUMENT1, IndexOperation.DELETE, false);
+        TestEntry index = add(DOCUMENT1, IndexOperation.INDEX, false);
+
+        assertEquals(3, this.queue.size());
+        assertSame(space, this.queue.poll());
+        assertSame(delete, this.queue.poll());
+        assertSame(index, this.queue.poll());
+    }
+
+    @Test
+    public void recursiveIndexOfParentAfterIndex()
+    {
+        add(DOCUMENT1, IndexOperation.INDEX, false);
+        TestEntry delete = add(DOCUMENT2, IndexOperation.DELETE, false);
+        TestEntry space = add(SPACE, IndexOperation.INDEX, true);
+
+        assertEquals(2, this.queue.size());
+        assertSame(delete, this.queue.poll());
+        assertSame(space, this.queue.poll());
+    }
+
+    @Test
+    public void recursiveDeleteOfParentAfterIndex()
+    {
+        add(DOCUMENT1, IndexOperation.INDEX, false);
+        add(DOCUMENT2, IndexOperation.DELETE, false);
+        TestEntry space = add(SPACE, IndexOperation.DELETE, true);
+
+        assertEquals(1, this.queue.size());
+        assertSame(space, this.queue.poll());
+    }
+
+    @Test
+    public void recursiveIndexAfterRecursiveIndexAndChildDelete()
+    {
+        add(SPACE, IndexOperation.INDEX, true);
+        TestEntry delete = add(DOCUMENT1, IndexOperation.DELETE, false);
+        TestEntry space = add(SPACE, IndexOperation.INDEX, true);
+
+        // The second recursive index must stay after the delete
+        assertEquals(2, this.queue.size());
+        assertSame(delete, this.queue.poll());
+        assertSame(space, this.queue.poll());
+    }
+
+    @Test
+    public void entriesWithoutReferenceAreNotCoalesced()
+    {
+        add(null, IndexOperation.DELETE, false);
+        add(null, IndexOperation.DELETE, false);
+
+        assertEquals(2, this.queue.size());
+    }
+
+    @Test
+    public void capacity() throws InterruptedException
+    {
+        this.queue = new CoalescingIndexQueue<>(1);
+
+        TestEntry entry = add(DOCUMENT1, IndexOperation.INDEX, false);
+        // Redundant entries are accepted even when the queue is full
+        assertTrue(this.queue.offer(new TestEntry(DOCUMENT1, IndexOperation.INDEX, false)));
+        assertFalse(this.queue.offer(new TestEntry(DOCUMENT2, IndexOperation.INDEX, false)));
+
+        assertSame(entry, this.queue.take());
+        assertTrue(this.queue.offer(new TestEntry(DOCUMENT2, IndexOperation.INDEX, false)));
+
+        this.queue.clear();
+        assertEquals(0, this.queue.size());
+        assertNull(this.queue.poll());
+    }
+}
@@ -85,6 +85,42 @@ public void getIndexerQueueCapacity()
 
     }
 
+    @Test
+    public void getIndexerBatchMaxDelay()
+    {
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_INDEXER_BATCH_MAXDELAY_PROPERTY,
+            DefaultSolrConfiguration.SOLR_INDEXER_BATCH_MAXDELAY_DEFAULT)).thenReturn(42);
+
+        assertEquals(42, this.configuration.getIndexerBatchMaxDelay());
+    }
+
+    @Test
+    public void getIndexerExtractionThreads()
+    {
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_INDEXER_EXTRACTION_THREADS_PROPERTY,
+            DefaultSolrConfiguration.SOLR_INDEXER_EXTRACTION_THREADS_DEFAULT)).thenReturn(42);
+
+        assertEquals(42, this.configuration.getIndexerExtractionThreads());
+    }
+
+    @Test
+    public void getIndexerCommitInterval()
+    {
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_INDEXER_COMMIT_INTERVAL_PROPERTY,
+            DefaultSolrConfiguration.SOLR_INDEXER_COMMIT_INTERVAL_DEFAULT)).thenReturn(42);
+
+        assertEquals(42, this.configuration.getIndexerCommitInterval());
+    }
+
+    @Test
+    public void isIndexerSoftCommit()
+    {
+        when(this.source.getProperty(DefaultSolrConfiguration.SOLR_INDEXER_COMMIT_SOFT_PROPERTY,
+            DefaultSolrConfiguration.SOLR_INDEXER_COMMIT_SOFT_DEFAULT)).thenReturn(false);
+
+        assertFalse(this.configuration.isIndexerSoftCommit());
+    }
+
     @Test
     public void synchronizeAtStartup()
     {
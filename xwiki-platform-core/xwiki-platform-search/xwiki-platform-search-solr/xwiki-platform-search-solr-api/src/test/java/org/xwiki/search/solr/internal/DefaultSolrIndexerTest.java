@@ -0,0 +1,239 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.search.solr.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Named;
+
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.xwiki.model.reference.DocumentReference;
+import org.xwiki.model.reference.WikiReference;
+import org.xwiki.search.solr.internal.api.SolrConfiguration;
+import org.xwiki.search.solr.internal.api.SolrInstance;
+import org.xwiki.search.solr.internal.metadata.LengthSolrInputDocument;
+import org.xwiki.search.solr.internal.metadata.SolrMetadataExtractor;
+import org.xwiki.search.solr.internal.reference.SolrReferenceResolver;
+import org.xwiki.test.annotation.BeforeComponent;
+import org.xwiki.test.junit5.mockito.ComponentTest;
+import org.xwiki.test.junit5.mockito.InjectMockComponents;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate {@link DefaultSolrIndexer}.
+ *
+ * @version $Id$
+ */
+@ComponentTest
+public class DefaultSolrIndexerTest
+{
+    private static final long TIMEOUT = 10000L;
+
+    private static final DocumentReference BLOCKING = new DocumentReference("wiki", "Space", "Blocking");
+
+    private static final WikiReference MARKER = new WikiReference("marker");
+
+    private static final DocumentReference DOCUMENT1 = new DocumentReference("wiki", "Space", "Page1");
+
+    private static final DocumentReference DOCUMENT2 = new DocumentReference("wiki", "Space", "Page2");
+
+    private static final DocumentReference DOCUMENT3 = new DocumentReference("wiki", "Space", "Page3");
+
+    @MockComponent
+    private SolrConfiguration configuration;
+
+    @MockComponent
+    private SolrInstance solrInstance;
+
+    @MockComponent
+    private SolrReferenceResolver resolver;
+
+    @MockComponent
+    @Named("document")
+    private SolrMetadataExtractor extractor;
+
+    @InjectMockComponents
+    private DefaultSolrIndexer indexer;
+
+    private LengthSolrInputDocument solrDocument1 = solrDocument("page1");
+
+    private LengthSolrInputDocument solrDocument2 = solrDocument("page2");
+
+    private LengthSolrInputDocument solrDocument3 = solrDocument("page3");
+
+    /**
+     * The batches of documents sent to Solr.
+     */
+    private List<List<SolrInputDocument>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeComponent
+    public void beforeComponent() throws Exception
+    {
+        when(this.configuration.getIndexerQueueCapacity()).thenReturn(100);
+        when(this.configuration.getIndexerExtractionThreads()).thenReturn(2);
+        when(this.configuration.getIndexerBatchSize()).thenReturn(10);
+        when(this.configuration.getIndexerBatchMaxLengh()).thenReturn(10000);
+        when(this.configuration.getIndexerBatchMaxDelay()).thenReturn(60000);
+        when(this.configuration.getIndexerCommitInterval()).thenReturn(60000);
+
+        when(this.extractor.getSolrDocument(DOCUMENT1)).thenReturn(this.solrDocument1);
+        when(this.extractor.getSolrDocument(DOCUMENT2)).thenReturn(this.solrDocument2);
+        when(this.extractor.getSolrDocument(DOCUMENT3)).thenReturn(this.solrDocument3);
+
+        doAnswer(invocation -> this.batches.add(new ArrayList<>(invocation.getArgument(0)))).when(this.solrInstance)
+            .add(anyList());
+    }
+
+    @AfterEach
+    public void afterEach() throws Exception
+    {
+        this.indexer.dispose();
+    }
+
+    private static LengthSolrInputDocument solrDocument(String id)
+    {
+        LengthSolrInputDocument solrDocument = new LengthSolrInputDocument();
+        solrDocument.setField("id", id);
+
+        return solrDocument;
+    }
+
+    /**
+     * Block the index thread till the references passed to the indexer after calling this method are in the index
+     * queue (see {@link #unblockIndexThread()}), so that they are handled in the same batch.
+     */
+    private void blockIndexThread() throws Exception
+    {
+        CountDownLatch resolved = new CountDownLatch(1);
+        when(this.resolver.getReferences(MARKER)).then(invocation -> {
+            resolved.countDown();
+            return Collections.emptyList();
+        });
+
+        when(this.resolver.getId(BLOCKING)).thenReturn("blocking");
+        doAnswer(invocation -> resolved.await(TIMEOUT, TimeUnit.MILLISECONDS)).when(this.solrInstance)
+            .delete("blocking");
+
+        this.indexer.delete(BLOCKING, false);
+    }
+
+    private void unblockIndexThread()
+    {
+        // The references are resolved in order so the previous ones are in the index queue when the marker is resolved
+        this.indexer.index(MARKER, true);
+    }
+
+    @Test
+    public void extractInParallelAndApplyInOrder() throws Exception
+    {
+        List<String> extracted = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch document2Extracted = new CountDownLatch(1);
+        when(this.extractor.getSolrDocument(DOCUMENT1)).then(invocation -> {
+            // Only works if the second document is extracted at the same time
+            assertTrue(document2Extracted.await(TIMEOUT, TimeUnit.MILLISECONDS));
+            extracted.add("page1");
+            return this.solrDocument1;
+        });
+        when(this.extractor.getSolrDocument(DOCUMENT2)).then(invocation -> {
+            extracted.add("page2");
+            document2Extracted.countDown();
+            return this.solrDocument2;
+        });
+
+        blockIndexThread();
+        this.indexer.index(DOCUMENT1, false);
+        this.indexer.index(DOCUMENT2, false);
+        unblockIndexThread();
+
+        verify(this.solrInstance, timeout(TIMEOUT)).commit(true, false);
+
+        // The documents are sent in the order they were indexed even if they were not extracted in that order
+        assertEquals(Arrays.asList("page2", "page1"), extracted);
+        assertEquals(Arrays.asList(Arrays.asList(this.solrDocument1, this.solrDocument2)), this.batches);
+        // The blocking delete and the two documents
+        assertEquals(3, this.indexer.getProcessedCount());
+    }
+
+    @Test
+    public void sendBatchWithFailure() throws Exception
+    {
+        doAnswer(invocation -> {
+            this.batches.add(new ArrayList<>(invocation.getArgument(0)));
+            throw new SolrServerException("batch error");
+        }).when(this.solrInstance).add(anyList());
+        doThrow(new SolrServerException("document error")).when(this.solrInstance).add(this.solrDocument2);
+
+        blockIndexThread();
+        this.indexer.index(DOCUMENT1, false);
+        this.indexer.index(DOCUMENT2, false);
+        this.indexer.index(DOCUMENT3, false);
+        unblockIndexThread();
+
+        verify(this.solrInstance, timeout(TIMEOUT)).commit(true, false);
+
+        // The documents are sent together then one by one when the batch is rejected
+        assertEquals(Arrays.asList(Arrays.asList(this.solrDocument1, this.solrDocument2, this.solrDocument3)),
+            this.batches);
+        InOrder inOrder = inOrder(this.solrInstance);
+        inOrder.verify(this.solrInstance).add(this.solrDocument1);
+        inOrder.verify(this.solrInstance).add(this.solrDocument2);
+        inOrder.verify(this.solrInstance).add(this.solrDocument3);
+        inOrder.verify(this.solrInstance).commit(true, false);
+    }
+
+    @Test
+    public void commitRegularly() throws Exception
+    {
+        when(this.configuration.getIndexerCommitInterval()).thenReturn(0);
+        when(this.configuration.isIndexerSoftCommit()).thenReturn(true);
+
+        this.indexer.index(DOCUMENT1, false);
+
+        verify(this.solrInstance, timeout(TIMEOUT)).commit(true, false);
+
+        // The changes are soft committed while the queue is not empty and hard committed once it's empty
+        InOrder inOrder = inOrder(this.solrInstance);
+        inOrder.verify(this.solrInstance).commit(false, true);
+        inOrder.verify(this.solrInstance).commit(true, false);
+        verify(this.solrInstance, never()).add(any(SolrInputDocument.class));
+        assertEquals(Arrays.asList(Arrays.asList(this.solrDocument1)), this.batches);
+    }
+}
@@ -29,15 +29,21 @@
 import org.xwiki.bridge.event.DocumentUpdatedEvent;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.EntityReference;
+import org.xwiki.model.reference.ObjectReference;
 import org.xwiki.observation.EventListener;
+import org.xwiki.observation.ObservationContext;
 import org.xwiki.search.solr.internal.api.SolrIndexer;
 import org.xwiki.test.mockito.MockitoComponentMockingRule;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.doc.XWikiDocument;
+import com.xpn.xwiki.internal.event.DocumentsBatchSavedEvent;
+import com.xpn.xwiki.internal.event.DocumentsBatchSavingEvent;
+import com.xpn.xwiki.internal.event.XObjectUpdatedEvent;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -107,4 +113,23 @@ public void onDocumentDefaultTranslationUpdated() throws Exception
         verify(this.indexer).index(new DocumentReference(documentReference, Locale.FRENCH), false);
         verify(this.indexer).index(new DocumentReference(documentReference, Locale.GERMAN), false);
     }
+
+    @Test
+    public void onDocumentsBatch() throws Exception
+    {
+        ObservationContext observationContext = this.mocker.getInstance(ObservationContext.class);
+        when(observationContext.isIn(DocumentsBatchSavingEvent.EVENT)).thenReturn(true);
+
+        ObjectReference objectReference =
+            new ObjectReference("XWiki.Class[0]", new DocumentReference("wiki", "Path", "Page"));
+        this.mocker.getComponentUnderTest().onEvent(new XObjectUpdatedEvent(objectReference), null, null);
+
+        // The indexer cannot see the batch before it's committed
+        verify(this.indexer, never()).index(any(EntityReference.class), any(Boolean.class));
+
+        when(observationContext.isIn(DocumentsBatchSavingEvent.EVENT)).thenReturn(false);
+        this.mocker.getComponentUnderTest().onEvent(DocumentsBatchSavedEvent.EVENT, null, null);
+
+        verify(this.indexer).index(objectReference, false);
+    }
 }
@@ -22,8 +22,10 @@
 import java.lang.reflect.Array;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Set;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -235,26 +237,36 @@ protected void filterResponse(QueryResponse response, List<DocumentReference> us
         SolrDocumentList results = response.getResults();
         long numFound = results.getNumFound();
 
-        // Since we are modifying the results collection, we need to iterate over its copy.
-        for (SolrDocument result : new ArrayList<SolrDocument>(results)) {
+        // Resolve all the results first so that the rights of each user are checked on all of them at once
+        List<SolrDocument> checkedResults = new ArrayList<>(results.size());
+        List<DocumentReference> checkedReferences = new ArrayList<>(results.size());
+        for (SolrDocument result : results) {
             try {
-                DocumentReference resultDocumentReference = this.solrDocumentReferenceResolver.resolve(result);
+                checkedReferences.add(this.solrDocumentReferenceResolver.resolve(result));
+                checkedResults.add(result);
+            } catch (Exception e) {
+                this.logger.warn("Skipping bad result: {}", result, e);
+            }
+        }
 
-                if (!isAllowed(resultDocumentReference, usersToCheck)) {
+        Set<DocumentReference> allowedReferences = new HashSet<>(checkedReferences);
+        for (DocumentReference user : usersToCheck) {
+            allowedReferences =
+                new HashSet<>(this.authorization.filterAccessible(Right.VIEW, user, allowedReferences));
+        }
 
-                    // Remove the current incompatible result.
-                    results.remove(result);
+        for (int i = 0; i < checkedResults.size(); ++i) {
+            if (!allowedReferences.contains(checkedReferences.get(i))) {
+                // Remove the current incompatible result.
+                results.remove(checkedResults.get(i));
 
-                    // Decrement the number of results.
-                    numFound--;
+                // Decrement the number of results.
+                numFound--;
 
-                    // FIXME: We should update maxScore as well when removing the top scored item. How do we do that?
-                    // Sorting based on score might be a not so expensive option.
+                // FIXME: We should update maxScore as well when removing the top scored item. How do we do that?
+                // Sorting based on score might be a not so expensive option.
 
-                    // FIXME: What about highlighting, facets and all the other data inside the QueryResponse?
-                }
-            } catch (Exception e) {
-                this.logger.warn("Skipping bad result: {}", result, e);
+                // FIXME: What about highlighting, facets and all the other data inside the QueryResponse?
             }
         }
 
@@ -265,15 +277,4 @@ protected void filterResponse(QueryResponse response, List<DocumentReference> us
         }
         results.setNumFound(numFound);
     }
-
-    protected boolean isAllowed(DocumentReference resultDocumentReference, List<DocumentReference> usersToCheck)
-    {
-        for (DocumentReference user : usersToCheck) {
-            if (!this.authorization.hasAccess(Right.VIEW, user, resultDocumentReference)) {
-                return false;
-            }
-        }
-
-        return true;
-    }
 }
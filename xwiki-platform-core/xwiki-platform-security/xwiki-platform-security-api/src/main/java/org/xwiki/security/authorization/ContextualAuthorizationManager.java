@@ -19,8 +19,13 @@
  */
 package org.xwiki.security.authorization;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import org.xwiki.component.annotation.Role;
 import org.xwiki.model.reference.EntityReference;
+import org.xwiki.stability.Unstable;
 
 /**
  * This API is for checking the access rights of current user in the current context. It replaces
@@ -80,4 +85,29 @@
      * @return {@code true} if the user has the specified right on the entity, {@code false} otherwise
      */
     boolean hasAccess(Right right, EntityReference entityReference);
+
+    /**
+     * Filter the entities on which the access identified by {@code right} would be allowed in the current context.
+     * The result is the same as calling {@link #hasAccess(Right, EntityReference)} for each entity, but
+     * implementations are free to share the work between the entities.
+     * This function should be used for interface matters, use {@link #checkAccess} at security checkpoints.
+     *
+     * @param <E> the type of the entity references
+     * @param right the right to check
+     * @param entityReferences the entities on which to check the right
+     * @return the entities on which the access is allowed, in the same order as the passed entities
+     * @since 12.8RC1
+     */
+    @Unstable
+    default <E extends EntityReference> List<E> filterAccessible(Right right, Collection<E> entityReferences)
+    {
+        List<E> accessibleReferences = new ArrayList<>(entityReferences.size());
+        for (E entityReference : entityReferences) {
+            if (hasAccess(right, entityReference)) {
+                accessibleReferences.add(entityReference);
+            }
+        }
+
+        return accessibleReferences;
+    }
 }
@@ -19,9 +19,13 @@
  */
 package org.xwiki.security.authorization;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -154,14 +158,63 @@ private boolean hasSecurityAccess(Right right, DocumentReference userReference,
             return false;
         }
 
-        if ((!right.isReadOnly() && xwikiBridge.isWikiReadOnly())
-            || (userReference == null && xwikiBridge.needsAuthentication(right))) {
+        if (isDeniedByContext(right, userReference)) {
             return false;
         }
 
         return evaluateSecurityAccess(right, userReference, entityReference, check);
     }
 
+    /**
+     * @param right the right to check
+     * @param userReference the user to check the right for
+     * @return true if the right is denied whatever the entity (read only wiki, guest user, etc.)
+     */
+    private boolean isDeniedByContext(Right right, DocumentReference userReference)
+    {
+        return (!right.isReadOnly() && xwikiBridge.isWikiReadOnly())
+            || (userReference == null && xwikiBridge.needsAuthentication(right));
+    }
+
+    @Override
+    public <E extends EntityReference> List<E> filterAccessible(Right right, DocumentReference userReference,
+        Collection<E> entityReferences)
+    {
+        if (isSuperAdmin(userReference)) {
+            return new ArrayList<>(entityReferences);
+        }
+
+        List<E> accessibleReferences = new ArrayList<>(entityReferences.size());
+
+        if (right == null || right == Right.ILLEGAL || isDeniedByContext(right, userReference)) {
+            return accessibleReferences;
+        }
+
+        UserSecurityReference user = securityReferenceFactory.newUserReference(userReference);
+
+        // The entities sharing the same closest ancestor holding rules share the same access, so settle it only once
+        Map<SecurityReference, SecurityAccess> settledAccesses = new HashMap<>();
+
+        for (E entityReference : entityReferences) {
+            try {
+                SecurityAccess securityAccess =
+                    getAccess(user, securityReferenceFactory.newEntityReference(entityReference), settledAccesses);
+
+                RuleState access = securityAccess.get(right);
+                logAccess(access, userReference, entityReference, right, "access inquiry", true);
+                if (access == RuleState.ALLOW) {
+                    accessibleReferences.add(entityReference);
+                }
+            } catch (Exception e) {
+                this.logger.error(String.format("Failed to load rights for user [%s] on [%s].",
+                    (userReference == null) ? AuthorizationException.NULL_USER : userReference,
+                    (entityReference == null) ? AuthorizationException.NULL_ENTITY : entityReference), e);
+            }
+        }
+
+        return accessibleReferences;
+    }
+
     private boolean evaluateSecurityAccess(Right right, DocumentReference userReference,
         EntityReference entityReference, boolean check)
         throws AuthorizationException
@@ -220,6 +273,22 @@ public Right register(RightDescription rightDescription, Set<Right> impliedByRig
      */
     private SecurityAccess getAccess(UserSecurityReference user, SecurityReference entity)
         throws AuthorizationException
+    {
+        return getAccess(user, entity, null);
+    }
+
+    /**
+     * Obtain the access for the user on the given entity and load it into the cache if unavailable.
+     *
+     * @param user The user identity.
+     * @param entity The entity.  May be of type DOCUMENT, WIKI, or SPACE.
+     * @param settledAccesses the accesses already settled for the user, indexed by the entity holding the rules they
+     *            have been settled for, null if there is no such accesses
+     * @return the cached access entry.
+     * @exception org.xwiki.security.authorization.AuthorizationException if an error occurs
+     */
+    private SecurityAccess getAccess(UserSecurityReference user, SecurityReference entity,
+        Map<SecurityReference, SecurityAccess> settledAccesses) throws AuthorizationException
     {
         for (SecurityReference ref = entity; ref != null; ref = ref.getParentSecurityReference()) {
             if (Right.getEnabledRights(ref.getSecurityType()).isEmpty()) {
@@ -228,16 +297,20 @@ private SecurityAccess getAccess(UserSecurityReference user, SecurityReference e
             }
             SecurityRuleEntry entry = securityCache.get(ref);
             if (entry == null) {
-                SecurityAccess access = securityCacheLoader.load(user, entity).getAccess();
+                SecurityAccess access = load(user, entity, settledAccesses);
 
                 this.logger.debug("1. Loaded a new entry for user {} on {} into cache: [{}]", user, entity, access);
 
                 return access;
             }
             if (!entry.isEmpty()) {
+                if (settledAccesses != null && settledAccesses.containsKey(ref)) {
+                    return settledAccesses.get(ref);
+                }
+
                 SecurityAccessEntry accessEntry = securityCache.get(user, ref);
                 if (accessEntry == null) {
-                    SecurityAccess access = securityCacheLoader.load(user, entity).getAccess();
+                    SecurityAccess access = load(user, entity, settledAccesses);
 
                     logger.debug("2. Loaded a new entry for user {} on {} into cache: [{}]", user, entity, access);
 
@@ -247,18 +320,36 @@ private SecurityAccess getAccess(UserSecurityReference user, SecurityReference e
 
                     logger.debug("3. Got entry for user {} on {} from cache: [{}]", user, entity, access);
 
+                    if (settledAccesses != null) {
+                        settledAccesses.put(ref, access);
+                    }
+
                     return access;
                 }
             } 
         }
 
-        SecurityAccess access = securityCacheLoader.load(user, entity).getAccess();
+        SecurityAccess access = load(user, entity, settledAccesses);
 
         logger.debug("4. Loaded a new default entry for user {} on {} into cache: [{}]", user, entity, access);
 
         return access;
     }
 
+    private SecurityAccess load(UserSecurityReference user, SecurityReference entity,
+        Map<SecurityReference, SecurityAccess> settledAccesses) throws AuthorizationException
+    {
+        SecurityAccessEntry accessEntry = securityCacheLoader.load(user, entity);
+
+        // The access is settled for the closest entity holding rules, so it's also the access of all the other
+        // entities inheriting their rules from that entity
+        if (settledAccesses != null && accessEntry.getReference() != null) {
+            settledAccesses.put(accessEntry.getReference(), accessEntry.getAccess());
+        }
+
+        return accessEntry.getAccess();
+    }
+
     /**
      * Log access conclusion.
      * @param access The ALLOW or DENY state
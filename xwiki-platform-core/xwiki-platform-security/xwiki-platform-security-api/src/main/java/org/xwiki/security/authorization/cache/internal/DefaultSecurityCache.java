@@ -25,8 +25,11 @@
 import java.util.Collection;
 import java.util.Deque;
 import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.inject.Inject;
@@ -41,18 +44,23 @@
 import org.xwiki.cache.eviction.EntryEvictionConfiguration;
 import org.xwiki.cache.eviction.LRUEvictionConfiguration;
 import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
 import org.xwiki.component.phase.Initializable;
 import org.xwiki.component.phase.InitializationException;
+import org.xwiki.management.JMXBeanRegistration;
 import org.xwiki.model.reference.EntityReferenceSerializer;
 import org.xwiki.security.GroupSecurityReference;
 import org.xwiki.security.SecurityReference;
 import org.xwiki.security.UserSecurityReference;
+import org.xwiki.security.authorization.AuthorizationManagerConfiguration;
 import org.xwiki.security.authorization.SecurityAccessEntry;
 import org.xwiki.security.authorization.SecurityEntry;
 import org.xwiki.security.authorization.SecurityRuleEntry;
 import org.xwiki.security.authorization.cache.ConflictingInsertionException;
 import org.xwiki.security.authorization.cache.ParentEntryEvictedException;
 import org.xwiki.security.authorization.cache.SecurityShadowEntry;
+import org.xwiki.security.authorization.cache.internal.jmx.JMXSecurityCache;
 
 /**
  * Default implementation of the security cache.
@@ -62,26 +70,26 @@
  */
 @Component
 @Singleton
-public class DefaultSecurityCache implements SecurityCache, Initializable
+public class DefaultSecurityCache implements SecurityCache, Initializable, Disposable
 {
-    /** Default capacity for security cache. */
-    private static final int DEFAULT_CAPACITY = 10000;
+    /** The name of the JMX MBean exposing the cache statistics. */
+    private static final String MBEAN_NAME = "name=security";
 
     /** Separator used for composing key for the cache. */
     private static final String KEY_CACHE_SEPARATOR = "@@";
 
+    /** The number of times a lock-free traversal of the entries is retried when it overlaps an invalidation. */
+    private static final int MAX_READ_ATTEMPTS = 3;
+
     /** Logger. **/
     @Inject
     private Logger logger;
 
-    /** Fair read-write lock used for fair scheduling of cache access. */
-    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock(true);
-
-    /** Fair read lock. */
-    private final Lock readLock = readWriteLock.readLock();
-
-    /** Fair write lock. */
-    private final Lock writeLock = readWriteLock.writeLock();
+    /**
+     * Fair lock used for fair scheduling of cache modifications. Reads don't lock: the entries are published to the
+     * cache only once fully linked to their parents, and disposed entries are never returned.
+     */
+    private final Lock writeLock = new ReentrantLock(true);
 
     private final ReadWriteLock invalidationReadWriteLock = new ReentrantReadWriteLock(true);
 
@@ -97,6 +105,29 @@ public class DefaultSecurityCache implements SecurityCache, Initializable
     @Inject
     private CacheManager cacheManager;
 
+    /** Provide the capacity of the cache. */
+    @Inject
+    private AuthorizationManagerConfiguration configuration;
+
+    /** Used to expose the cache statistics. */
+    @Inject
+    private JMXBeanRegistration jmxRegistration;
+
+    /** The number of entries found in the cache. */
+    private final LongAdder hits = new LongAdder();
+
+    /** The number of entries not found in the cache. */
+    private final LongAdder misses = new LongAdder();
+
+    /** The number of entries removed from the cache (evicted or invalidated). */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Incremented each time an entry is disposed. Readers walking the entry graph without lock compare it before and
+     * after the walk to detect that an invalidation happened meanwhile and that their result might be incomplete.
+     */
+    private final AtomicLong invalidationVersion = new AtomicLong();
+
     /** The cache instance. */
     private Cache<SecurityCacheEntry> cache;
 
@@ -112,7 +143,7 @@ private Cache<SecurityCacheEntry> newCache() throws InitializationException
         CacheConfiguration cacheConfig = new CacheConfiguration();
         cacheConfig.setConfigurationId("platform.security.authorization.cache");
         LRUEvictionConfiguration lru = new LRUEvictionConfiguration();
-        lru.setMaxEntries(DEFAULT_CAPACITY);
+        lru.setMaxEntries(this.configuration.getCacheCapacity());
         cacheConfig.put(EntryEvictionConfiguration.CONFIGURATIONID, lru);
         try {
             return cacheManager.createNewCache(cacheConfig);
@@ -126,6 +157,16 @@ private Cache<SecurityCacheEntry> newCache() throws InitializationException
     public void initialize() throws InitializationException
     {
         cache = newCache();
+
+        this.jmxRegistration.registerMBean(
+            new JMXSecurityCache(this.configuration.getCacheCapacity(), this.hits, this.misses, this.evictions),
+            MBEAN_NAME);
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.jmxRegistration.unregisterMBean(MBEAN_NAME);
     }
 
     /**
@@ -136,12 +177,12 @@ private class SecurityCacheEntry implements DisposableCacheValue
         /**
          * The cached security entry.
          */
-        private SecurityEntry entry;
+        private volatile SecurityEntry entry;
 
         /**
-         * Parents of this cached entry.
+         * Parents of this cached entry. Never modified once the entry is in the cache, only replaced.
          */
-        private Collection<SecurityCacheEntry> parents;
+        private volatile Collection<SecurityCacheEntry> parents;
 
         /**
          * Children of this cached entry.
@@ -151,7 +192,7 @@ private class SecurityCacheEntry implements DisposableCacheValue
         /**
          * True if this entry has been removed.
          */
-        private boolean disposed;
+        private volatile boolean disposed;
 
         /**
          * Create a new cache entry for a security rule, linking it to its parent.
@@ -311,6 +352,21 @@ private SecurityCacheEntry(SecurityEntry entry, Collection<GroupSecurityReferenc
          */
         private void addParentGroups(Collection<GroupSecurityReference> groups, SecurityReference parentReference)
             throws ParentEntryEvictedException
+        {
+            addParentGroups(this.parents, groups, parentReference);
+        }
+
+        /**
+         * Add provided groups to the passed parents, excluding the main parent reference.
+         *
+         * @param parents the parents to add the groups to
+         * @param groups the list of groups to add.
+         * @param parentReference the main parent reference to exclude.
+         * @throws ParentEntryEvictedException if the parents required are no more available in the cache.
+         */
+        private void addParentGroups(Collection<SecurityCacheEntry> parents,
+            Collection<GroupSecurityReference> groups, SecurityReference parentReference)
+            throws ParentEntryEvictedException
         {
             for (GroupSecurityReference group : groups) {
                 if (group.equals(parentReference)) {
@@ -323,7 +379,7 @@ private void addParentGroups(Collection<GroupSecurityReference> groups, Security
                     throw new ParentEntryEvictedException(String
                         .format("The parent with reference [%s] is no longer available in the cache", parentReference));
                 }
-                this.parents.add(parent);
+                parents.add(parent);
                 parent.addChild(this);
             }
         }
@@ -341,15 +397,18 @@ boolean updateParentGroups(Collection<GroupSecurityReference> groups) throws Par
             }
 
             if (groups != null && !groups.isEmpty()) {
+                // Build the new parents before publishing them since this entry is already visible to readers
+                Collection<SecurityCacheEntry> newParents;
                 if (this.parents == null) {
-                    this.parents = new ArrayList<>(groups.size());
-                    addParentGroups(groups, null);
+                    newParents = new ArrayList<>(groups.size());
+                    addParentGroups(newParents, groups, null);
                 } else {
                     SecurityCacheEntry parent = this.parents.iterator().next();
-                    this.parents = new ArrayList<>(groups.size() + 1);
-                    this.parents.add(parent);
-                    addParentGroups(groups, parent.entry.getReference());
+                    newParents = new ArrayList<>(groups.size() + 1);
+                    newParents.add(parent);
+                    addParentGroups(newParents, groups, parent.entry.getReference());
                 }
+                this.parents = newParents;
             }
 
             return true;
@@ -407,6 +466,8 @@ public void dispose()
         {
             if (!disposed) {
                 disposed = true;
+                DefaultSecurityCache.this.invalidationVersion.incrementAndGet();
+                DefaultSecurityCache.this.evictions.increment();
                 disconnectFromParents();
                 disposeChildren();
             }
@@ -568,12 +629,7 @@ private String getEntryKey(SecurityAccessEntry entry)
      */
     private SecurityCacheEntry getEntry(SecurityReference reference)
     {
-        readLock.lock();
-        try {
-            return cache.get(getEntryKey(reference));
-        } finally {
-            readLock.unlock();
-        }
+        return getCacheEntry(getEntryKey(reference));
     }
 
     /**
@@ -584,12 +640,7 @@ private SecurityCacheEntry getEntry(SecurityReference reference)
      */
     private SecurityCacheEntry getEntry(UserSecurityReference userReference, SecurityReference reference)
     {
-        readLock.lock();
-        try {
-            return cache.get(getEntryKey(userReference, reference));
-        } finally {
-            readLock.unlock();
-        }
+        return getCacheEntry(getEntryKey(userReference, reference));
     }
 
     /**
@@ -600,12 +651,21 @@ private SecurityCacheEntry getEntry(UserSecurityReference userReference, Securit
      */
     private SecurityCacheEntry getShadowEntry(SecurityReference userReference, SecurityReference wiki)
     {
-        readLock.lock();
-        try {
-            return cache.get(getShadowEntryKey(userReference, wiki));
-        } finally {
-            readLock.unlock();
-        }
+        return getCacheEntry(getShadowEntryKey(userReference, wiki));
+    }
+
+    /**
+     * Lock-free access to the cache.
+     *
+     * @param key the key of the entry
+     * @return the entry associated to the passed key, null if none is available in the cache or if it's being
+     *         disposed
+     */
+    private SecurityCacheEntry getCacheEntry(String key)
+    {
+        SecurityCacheEntry entry = this.cache.get(key);
+
+        return entry != null && !entry.disposed ? entry : null;
     }
 
     /**
@@ -805,11 +865,13 @@ public SecurityAccessEntry get(UserSecurityReference user, SecurityReference ent
     {
         SecurityCacheEntry entry = getEntry(user, entity);
         if (entry == null) {
+            this.misses.increment();
             if (logger.isDebugEnabled()) {
                 logger.debug("Miss read access entry for [{}].", getEntryKey(user, entity));
             }
             return null;
         }
+        this.hits.increment();
         if (logger.isDebugEnabled()) {
             logger.debug("Success read access entry for [{}].", getEntryKey(user, entity));
         }
@@ -821,11 +883,13 @@ public SecurityRuleEntry get(SecurityReference entity)
     {
         SecurityCacheEntry entry = getEntry(entity);
         if (entry == null) {
+            this.misses.increment();
             if (logger.isDebugEnabled()) {
                 logger.debug("Miss read rule entry for [{}].", getEntryKey(entity));
             }
             return null;
         }
+        this.hits.increment();
         if (logger.isDebugEnabled()) {
             logger.debug("Success read rule entry for [{}].", getEntryKey(entity));
         }
@@ -880,6 +944,20 @@ public void remove(SecurityReference entity)
 
     @Override
     public Collection<GroupSecurityReference> getImmediateGroupsFor(UserSecurityReference user)
+    {
+        for (int i = 0; i < MAX_READ_ATTEMPTS; ++i) {
+            long version = this.invalidationVersion.get();
+            Collection<GroupSecurityReference> groups = getImmediateGroupsForInternal(user);
+            if (groups == null || version == this.invalidationVersion.get()) {
+                return groups;
+            }
+        }
+
+        // Too many concurrent invalidations, let the loader reload the groups
+        return null;
+    }
+
+    private Collection<GroupSecurityReference> getImmediateGroupsForInternal(UserSecurityReference user)
     {
         Collection<GroupSecurityReference> groups = new HashSet<>();
 
@@ -890,7 +968,12 @@ public Collection<GroupSecurityReference> getImmediateGroupsFor(UserSecurityRefe
             return null;
         }
 
-        for (SecurityCacheEntry parent : userEntry.parents) {
+        Collection<SecurityCacheEntry> parents = userEntry.parents;
+        if (parents == null) {
+            return groups;
+        }
+
+        for (SecurityCacheEntry parent : parents) {
             // Add the parent group (if we have not already seen it)
             SecurityReference parentRef = parent.getEntry().getReference();
             if (parentRef instanceof GroupSecurityReference) {
@@ -902,6 +985,21 @@ public Collection<GroupSecurityReference> getImmediateGroupsFor(UserSecurityRefe
 
     @Override
     public Collection<GroupSecurityReference> getGroupsFor(UserSecurityReference user, SecurityReference entityWiki)
+    {
+        for (int i = 0; i < MAX_READ_ATTEMPTS; ++i) {
+            long version = this.invalidationVersion.get();
+            Collection<GroupSecurityReference> groups = getGroupsForInternal(user, entityWiki);
+            if (groups == null || version == this.invalidationVersion.get()) {
+                return groups;
+            }
+        }
+
+        // Too many concurrent invalidations, let the loader reload the groups
+        return null;
+    }
+
+    private Collection<GroupSecurityReference> getGroupsForInternal(UserSecurityReference user,
+        SecurityReference entityWiki)
     {
         Collection<GroupSecurityReference> groups = new HashSet<>();
 
@@ -920,7 +1018,10 @@ public Collection<GroupSecurityReference> getGroupsFor(UserSecurityReference use
         // Special case if the user is a shadow.
         if (entityWiki != null) {
             // We start with the parents of the original entry, and the parent of this shadow (excluding the original)
-            addParentsWhenEntryIsShadow(userEntry, user, groups, entriesToExplore);
+            if (!addParentsWhenEntryIsShadow(userEntry, user, groups, entriesToExplore)) {
+                // The original entry has been removed in the meantime
+                return null;
+            }
         } else {
             // We start with the current user
             entriesToExplore.add(userEntry);
@@ -948,15 +1049,21 @@ public Collection<GroupSecurityReference> getGroupsFor(UserSecurityReference use
         return groups;
     }
 
-    private void addParentsWhenEntryIsShadow(SecurityCacheEntry shadow, UserSecurityReference user,
+    private boolean addParentsWhenEntryIsShadow(SecurityCacheEntry shadow, UserSecurityReference user,
         Collection<GroupSecurityReference> groups, Deque<SecurityCacheEntry> entriesToExplore)
     {
+        // The original entry might have been removed since the shadow was found since there is no lock
         SecurityCacheEntry originalEntry = getEntry(user);
+        if (originalEntry == null) {
+            return false;
+        }
 
         // We add the parents of the original (but not the original, otherwise we could have the same group twice)
         addParentsToTheListOfEntriesToExplore(originalEntry.parents, groups, entriesToExplore);
         // And we add the parent groups of the shadow
         addParentsToTheListOfEntriesToExplore(shadow.parents, groups, entriesToExplore, originalEntry);
+
+        return true;
     }
 
     /**
@@ -283,14 +283,14 @@ private Collection<GroupSecurityReference> loadUserEntry(UserSecurityReference u
             // First we add the global groups containing that user/group
             // Check availability of the information from the user/group entry in the cache
             Collection<GroupSecurityReference> globalGroups = getSecurityCache().getGroupsFor(user, null);
-            Collection<GroupSecurityReference> immediateGroups;
-            if (globalGroups == null) {
+            // The cache is read without lock so the entry might have been removed in the meantime
+            Collection<GroupSecurityReference> immediateGroups =
+                globalGroups != null ? getSecurityCache().getImmediateGroupsFor(user) : null;
+            if (globalGroups == null || immediateGroups == null) {
                 // No luck, the global user does not seems to be in the cache, so we need to load it
                 globalGroups = new HashSet<>();
                 immediateGroups = loadUserGroups(user, userWiki, globalGroups);
                 loadUserEntry(user, immediateGroups);
-            } else {
-                immediateGroups = getSecurityCache().getImmediateGroupsFor(user);
             }
             groups.addAll(globalGroups);
 
@@ -0,0 +1,79 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.security.authorization.cache.internal.jmx;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implementation of the security cache JMX MBean.
+ *
+ * @version $Id$
+ * @since 12.8RC1
+ */
+public class JMXSecurityCache implements JMXSecurityCacheMBean
+{
+    private final int capacity;
+
+    private final LongAdder hits;
+
+    private final LongAdder misses;
+
+    private final LongAdder evictions;
+
+    /**
+     * Default constructor.
+     *
+     * @param capacity the maximum number of entries in the security cache
+     * @param hits the counter of cache hits
+     * @param misses the counter of cache misses
+     * @param evictions the counter of removed entries
+     */
+    public JMXSecurityCache(int capacity, LongAdder hits, LongAdder misses, LongAdder evictions)
+    {
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    @Override
+    public int getCapacity()
+    {
+        return this.capacity;
+    }
+
+    @Override
+    public long getHitCount()
+    {
+        return this.hits.sum();
+    }
+
+    @Override
+    public long getMissCount()
+    {
+        return this.misses.sum();
+    }
+
+    @Override
+    public long getEvictionCount()
+    {
+        return this.evictions.sum();
+    }
+}
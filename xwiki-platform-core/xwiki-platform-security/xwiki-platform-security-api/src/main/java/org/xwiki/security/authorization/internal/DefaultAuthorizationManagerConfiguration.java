@@ -48,6 +48,12 @@ public class DefaultAuthorizationManagerConfiguration extends AbstractSecurityCo
     /** Default hint for component manager. */
     private static final String DEFAULT_SETTLER = "default";
 
+    /** Key of the security cache capacity configuration. */
+    private static final String CACHE_CAPACITY = AUTHORIZATION + ".cache.capacity";
+
+    /** Default capacity for security cache. */
+    private static final int DEFAULT_CACHE_CAPACITY = 10000;
+
     /** Obtain configuration from the xwiki.properties file. */
     @Inject
     @Named("xwikiproperties")
@@ -58,4 +64,10 @@ public String getAuthorizationSettler()
     {
         return configuration.getProperty(SETTLER, DEFAULT_SETTLER);
     }
+
+    @Override
+    public int getCacheCapacity()
+    {
+        return configuration.getProperty(CACHE_CAPACITY, DEFAULT_CACHE_CAPACITY);
+    }
 }
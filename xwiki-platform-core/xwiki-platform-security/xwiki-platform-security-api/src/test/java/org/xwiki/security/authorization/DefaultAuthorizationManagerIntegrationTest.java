@@ -21,8 +21,10 @@
 package org.xwiki.security.authorization;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -32,6 +34,7 @@
 import org.mockito.stubbing.Answer;
 import org.xwiki.cache.CacheManager;
 import org.xwiki.cache.config.CacheConfiguration;
+import org.xwiki.management.JMXBeanRegistration;
 import org.xwiki.model.internal.DefaultModelConfiguration;
 import org.xwiki.model.internal.reference.DefaultEntityReferenceProvider;
 import org.xwiki.model.internal.reference.DefaultStringEntityReferenceResolver;
@@ -70,6 +73,7 @@
 import static org.hamcrest.CoreMatchers.notNullValue;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -128,6 +132,10 @@ public void initializeMocks() throws Exception
         cache = new TestCache<Object>();
         final CacheManager cacheManager = componentManager.registerMockComponent(CacheManager.class);
         when(cacheManager.createNewCache(any(CacheConfiguration.class))).thenReturn(cache);
+        componentManager.registerMockComponent(JMXBeanRegistration.class);
+        AuthorizationManagerConfiguration configuration =
+            componentManager.registerMockComponent(AuthorizationManagerConfiguration.class);
+        when(configuration.getCacheCapacity()).thenReturn(10000);
 
         xWikiBridge = componentManager.registerMockComponent(XWikiBridge.class);
         userBridge = componentManager.registerMockComponent(UserBridge.class);
@@ -760,6 +768,51 @@ public void testGroupCacheLoadingUserAfterGroupDoc() throws Exception
         assertThat(securityCache.get(securityReferenceFactory.newUserReference(getXUser("userA"))), nullValue());
     }
 
+    @Test
+    public void testFilterAccessible() throws Exception
+    {
+        initialiseWikiMock("inheritancePolicyForGlobalFullWikiAccess");
+
+        List<EntityReference> entities = Arrays.asList(getXDoc("any document", "any space"),
+            getXDoc("any document", "spaceAllowA"), getXDoc("docDenyA", "spaceAllowA"),
+            getXDoc("docAllowA", "any space"), getDoc("any document", "any space", "wikiAllowA"));
+
+        assertEquals(Arrays.asList(getXDoc("any document", "spaceAllowA"), getXDoc("docDenyA", "spaceAllowA"),
+            getXDoc("docAllowA", "any space"), getDoc("any document", "any space", "wikiAllowA")),
+            authorizationManager.filterAccessible(VIEW, getXUser("userA"), entities));
+
+        for (Right right : values()) {
+            List<EntityReference> expected = new ArrayList<>();
+            for (EntityReference entity : entities) {
+                if (authorizationManager.hasAccess(right, getXUser("userA"), entity)) {
+                    expected.add(entity);
+                }
+            }
+            assertEquals(expected, authorizationManager.filterAccessible(right, getXUser("userA"), entities));
+        }
+    }
+
+    @Test
+    public void testFilterAccessibleReusesAccessSettledForAncestor() throws Exception
+    {
+        initialiseWikiMock("inheritancePolicyForGlobalFullWikiAccess");
+
+        // The access settled on the space when loading the first document is reused for the documents without rules,
+        // but not for the document holding its own rules
+        List<EntityReference> entities = Arrays.asList(getXDoc("any document", "spaceAllowA"),
+            getXDoc("other document", "spaceAllowA"), getXDoc("docDenyA", "spaceAllowA"),
+            getXDoc("another document", "spaceAllowA"), getXDoc("other document", "any space"));
+
+        assertEquals(Arrays.asList(getXDoc("any document", "spaceAllowA"), getXDoc("other document", "spaceAllowA"),
+            getXDoc("another document", "spaceAllowA")),
+            authorizationManager.filterAccessible(VIEW, getXUser("userA"), entities));
+
+        // Same result once all the entries are in the cache
+        assertEquals(Arrays.asList(getXDoc("any document", "spaceAllowA"), getXDoc("other document", "spaceAllowA"),
+            getXDoc("another document", "spaceAllowA")),
+            authorizationManager.filterAccessible(VIEW, getXUser("userA"), entities));
+    }
+
     @Test
     public void testLoadUserInAnotherWikiAfterUserDoc() throws Exception
     {
@@ -23,6 +23,7 @@
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -59,6 +60,7 @@
 import org.xwiki.test.annotation.ComponentList;
 import org.xwiki.test.mockito.MockitoComponentMockingRule;
 
+import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.CoreMatchers.sameInstance;
@@ -862,4 +864,100 @@ public boolean keepAccess(SecurityAccessEntry entry)
             }
         });
     }
+
+    private String getRuleEntryKey(Map<String, SecurityEntry> entries, SecurityReference reference)
+    {
+        for (Map.Entry<String, SecurityEntry> entry : entries.entrySet()) {
+            if (entry.getValue() instanceof SecurityRuleEntry && entry.getValue().getReference() == reference) {
+                return entry.getKey();
+            }
+        }
+
+        return null;
+    }
+
+    private String getShadowEntryKey(Map<String, SecurityEntry> entries, SecurityReference reference,
+        SecurityReference wiki)
+    {
+        for (Map.Entry<String, SecurityEntry> entry : entries.entrySet()) {
+            if (entry.getValue() instanceof SecurityShadowEntry && entry.getValue().getReference() == reference
+                && ((SecurityShadowEntry) entry.getValue()).getWikiReference() == wiki) {
+                return entry.getKey();
+            }
+        }
+
+        return null;
+    }
+
+    @Test
+    public void testGetGroupsFor() throws Exception
+    {
+        InsertUsers();
+
+        assertThat(securityCache.getGroupsFor(groupXUserRef, null),
+            equalTo(new HashSet<>(Arrays.asList(xgroupRef))));
+        assertThat(securityCache.getGroupsFor(groupXUserRef, wikiRef),
+            equalTo(new HashSet<>(Arrays.asList(xgroupRef, groupRef))));
+        assertThat(securityCache.getImmediateGroupsFor(groupXUserRef),
+            equalTo(new HashSet<>(Arrays.asList(xgroupRef))));
+        assertThat(securityCache.getGroupsFor(aMissingUserRef, null), is(nullValue()));
+    }
+
+    @Test
+    public void testGetGroupsForShadowWhenOriginalEntryIsConcurrentlyRemoved() throws Exception
+    {
+        Map<String, SecurityEntry> entries = InsertUsers();
+
+        final String originalKey = getRuleEntryKey(entries, groupXUserRef);
+
+        // Simulate the eviction of the original entry right after its shadow has been found
+        cache.setGetListener(key -> {
+            if (key.equals(originalKey)) {
+                cache.setGetListener(null);
+                cache.remove(originalKey);
+            }
+        });
+
+        assertThat(securityCache.getGroupsFor(groupXUserRef, wikiRef), is(nullValue()));
+    }
+
+    @Test
+    public void testGetGroupsForRetriedWhenConcurrentlyInvalidated() throws Exception
+    {
+        Map<String, SecurityEntry> entries = InsertUsers();
+
+        final String groupShadowKey = getShadowEntryKey(entries, xgroupRef, wikiRef);
+        final String unrelatedKey = getRuleEntryKey(entries, anotherWikiUserRef);
+        final int[] lookups = new int[1];
+
+        // Simulate the invalidation of an unrelated entry while walking the groups
+        cache.setGetListener(key -> {
+            if (key.equals(groupShadowKey) && lookups[0]++ == 0) {
+                cache.remove(unrelatedKey);
+            }
+        });
+
+        assertThat(securityCache.getGroupsFor(groupXUserRef, wikiRef),
+            equalTo(new HashSet<>(Arrays.asList(xgroupRef, groupRef))));
+        assertThat(lookups[0], is(2));
+    }
+
+    @Test
+    public void testGetGroupsForWhenConstantlyInvalidated() throws Exception
+    {
+        Map<String, SecurityEntry> entries = InsertUsers();
+
+        final String groupShadowKey = getShadowEntryKey(entries, xgroupRef, wikiRef);
+        final Iterator<String> unrelatedKeys = Arrays.asList(getRuleEntryKey(entries, anotherWikiUserRef),
+            getRuleEntryKey(entries, anotherUserRef), getRuleEntryKey(entries, anotherXuserRef)).iterator();
+
+        cache.setGetListener(key -> {
+            if (key.equals(groupShadowKey) && unrelatedKeys.hasNext()) {
+                cache.remove(unrelatedKeys.next());
+            }
+        });
+
+        // Let the loader reload the groups
+        assertThat(securityCache.getGroupsFor(groupXUserRef, wikiRef), is(nullValue()));
+    }
 }
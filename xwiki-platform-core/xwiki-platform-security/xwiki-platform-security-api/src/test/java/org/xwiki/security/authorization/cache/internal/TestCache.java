@@ -22,6 +22,7 @@
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.xwiki.cache.Cache;
 import org.xwiki.cache.CacheEntry;
@@ -46,6 +47,7 @@
     private Map<String, T> cache = new HashMap<String, T>();
     private CacheEntryListener<T> listener;
     private String lastInsertedKey;
+    private Consumer<String> getListener;
 
     class TestCacheEntry implements CacheEntry<T>
     {
@@ -117,6 +119,9 @@ public void set(String key, T value)
     @Override
     public T get(String key)
     {
+        if (getListener != null) {
+            getListener.accept(key);
+        }
         return cache.get(key);
     }
 
@@ -170,4 +175,12 @@ public String getLastInsertedKey()
     {
         return lastInsertedKey;
     }
+
+    /**
+     * @param getListener called with the key before each lookup, to simulate concurrent modifications of the cache
+     */
+    public void setGetListener(Consumer<String> getListener)
+    {
+        this.getListener = getListener;
+    }
 }
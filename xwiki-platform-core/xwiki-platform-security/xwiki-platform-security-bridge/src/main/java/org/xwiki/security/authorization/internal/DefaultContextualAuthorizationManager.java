@@ -19,8 +19,12 @@
  */
 package org.xwiki.security.authorization.internal;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -122,6 +126,33 @@ private boolean hasAccess(Right right, DocumentReference user, EntityReference e
         return checkPreAccess(right) && this.authorizationManager.hasAccess(right, user, getFullReference(entity));
     }
 
+    @Override
+    public <E extends EntityReference> List<E> filterAccessible(Right right, Collection<E> entityReferences)
+    {
+        if (CONTENT_AUTHOR_RIGHTS.contains(right)) {
+            // The user to check depends on each entity
+            return ContextualAuthorizationManager.super.filterAccessible(right, entityReferences);
+        }
+
+        List<EntityReference> fullReferences = new ArrayList<>(entityReferences.size());
+        for (E entityReference : entityReferences) {
+            fullReferences.add(getFullReference(entityReference));
+        }
+
+        Set<EntityReference> accessibleFullReferences = new HashSet<>(this.authorizationManager
+            .filterAccessible(right, this.xcontextProvider.get().getUserReference(), fullReferences));
+
+        List<E> accessibleReferences = new ArrayList<>(accessibleFullReferences.size());
+        Iterator<EntityReference> fullReferencesIterator = fullReferences.iterator();
+        for (E entityReference : entityReferences) {
+            if (accessibleFullReferences.contains(fullReferencesIterator.next())) {
+                accessibleReferences.add(entityReference);
+            }
+        }
+
+        return accessibleReferences;
+    }
+
     private EntityReference getFullReference(EntityReference reference)
     {
         return reference != null ? this.resolver.resolve(reference, reference.getType()) : null;
@@ -119,22 +119,36 @@ protected String compress(String source, SxCompressor compressor, XWikiContext c
     {
         String output = super.compress(source, compressor, context);
 
-        // Save the source map generated by the compressor so that we can return it later when the source map is
-        // requested by the browser's developer tools.
+        applyCompressionMetadata(getCompressionMetadata(compressor), context);
+
+        return output;
+    }
+
+    @Override
+    protected String getCompressionMetadata(SxCompressor compressor)
+    {
+        // The source map generated by the compressor is needed whenever the compressed code is sent to the browser.
         if (compressor instanceof JsCompressor) {
-            String sourceMap = ((JsCompressor) compressor).getSourceMap();
-            if (sourceMap != null) {
-                // The browser's developer tools will attempt to load the source code when debugging the compressed
-                // code. The source code URL is specified in the source map.
-                sourceMap = fixSourceURL(sourceMap, context);
-                // Indicate the URL to the source map using the dedicated HTTP header. This is how the browser's
-                // developer tools will know how to download the source map.
-                // See https://developer.mozilla.org/en-US/docs/Tools/Debugger/How_to/Use_a_source_map
-                context.getResponse().setHeader("X-SourceMap", saveSourceMap(sourceMap, context));
-            }
+            return ((JsCompressor) compressor).getSourceMap();
         }
 
-        return output;
+        return null;
+    }
+
+    @Override
+    protected void applyCompressionMetadata(String sourceMap, XWikiContext context)
+    {
+        // Save the source map generated by the compressor so that we can return it later when the source map is
+        // requested by the browser's developer tools.
+        if (sourceMap != null) {
+            // The browser's developer tools will attempt to load the source code when debugging the compressed
+            // code. The source code URL is specified in the source map.
+            String fixedSourceMap = fixSourceURL(sourceMap, context);
+            // Indicate the URL to the source map using the dedicated HTTP header. This is how the browser's
+            // developer tools will know how to download the source map.
+            // See https://developer.mozilla.org/en-US/docs/Tools/Debugger/How_to/Use_a_source_map
+            context.getResponse().setHeader("X-SourceMap", saveSourceMap(fixedSourceMap, context));
+        }
     }
 
     /**
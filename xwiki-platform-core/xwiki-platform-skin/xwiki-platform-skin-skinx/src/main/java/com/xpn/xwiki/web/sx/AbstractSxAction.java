@@ -19,18 +19,27 @@
  */
 package com.xpn.xwiki.web.sx;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
+import org.xwiki.skinx.internal.CachedSkinExtensionContent;
+import org.xwiki.skinx.internal.SkinExtensionContentCache;
 
 import com.xpn.xwiki.XWikiContext;
 import com.xpn.xwiki.XWikiException;
 import com.xpn.xwiki.internal.debug.DebugConfiguration;
 import com.xpn.xwiki.web.Utils;
 import com.xpn.xwiki.web.XWikiAction;
+import com.xpn.xwiki.web.XWikiRequest;
 import com.xpn.xwiki.web.XWikiResponse;
 import com.xpn.xwiki.web.sx.SxSource.CachePolicy;
 
@@ -58,14 +67,40 @@ public abstract class AbstractSxAction extends XWikiAction
     /** What http header parameter is used to specify when the cache should expire. */
     private static final String CACHE_EXPIRES_HEADER = "Expires";
 
-    /** The response will be sent to the browser as a byte array in this character set. */
-    private static final String RESPONSE_CHARACTER_SET = "UTF-8";
+    /** What http header parameter is used to specify the entity tag of the content. */
+    private static final String ETAG_HEADER = "ETag";
+
+    /** What http header parameter is used by the browser to send the entity tags of the content it already has. */
+    private static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+
+    /** What http header parameter is used by the browser to send the last modification date of its content. */
+    private static final String IF_MODIFIED_SINCE_HEADER = "If-Modified-Since";
+
+    /** What http header parameter is used by the browser to list the content encodings it supports. */
+    private static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+
+    /** What http header parameter is used to specify the encoding of the content. */
+    private static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+
+    /** What http header parameter is used to list the request headers the response depends on. */
+    private static final String VARY_HEADER = "Vary";
+
+    /** The name of the gzip content encoding. */
+    private static final String GZIP_ENCODING = "gzip";
+
+    /** The suffix added to the entity tag of the gzipped content, since it's a different representation. */
+    private static final String GZIP_ETAG_SUFFIX = "-gzip";
+
+    /** The quote surrounding the entity tags. */
+    private static final String ETAG_QUOTE = "\"";
 
     /** If the user passes this parameter in the URL, we will look for the script in the jar files. */
     private static final String JAR_RESOURCE_REQUEST_PARAMETER = "resource";
 
     private DebugConfiguration debugConfiguration;
 
+    private SkinExtensionContentCache contentCache;
+
     /** @return the logging object of the concrete subclass. */
     protected abstract Logger getLogger();
 
@@ -106,18 +141,164 @@ public void renderExtension(SxSource sxSource, Extension sxType, XWikiContext co
             response.setHeader(CACHE_CONTROL_HEADER, "no-cache, no-store, must-revalidate");
         }
 
-        if (getDebugConfiguration().isMinify()) {
-            extensionContent = compress(extensionContent, sxType.getCompressor(), context);
+        boolean minify = getDebugConfiguration().isMinify();
+
+        if (cachePolicy == CachePolicy.FORBID) {
+            if (minify) {
+                extensionContent = compress(extensionContent, sxType.getCompressor(), context);
+            }
+            sendContent(extensionContent.getBytes(StandardCharsets.UTF_8), false, response);
+            return;
+        }
+
+        // The entity tag is computed from the source content (which can depend on the request when it's parsed) so
+        // that it can be checked without having to compress the content.
+        String entityTag = getEntityTag(extensionContent, sxType, minify, context);
+        boolean gzip = acceptsGzip(context.getRequest());
+
+        response.setHeader(VARY_HEADER, ACCEPT_ENCODING_HEADER);
+
+        if (isNotModified(entityTag, sxSource, context.getRequest())) {
+            response.setHeader(ETAG_HEADER, gzip ? toGzipEntityTag(entityTag) : entityTag);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        CachedSkinExtensionContent cachedContent = getContentCache().get(entityTag);
+        if (cachedContent == null) {
+            cachedContent = createCachedContent(extensionContent, sxType, minify, context);
+            getContentCache().set(entityTag, cachedContent);
+        } else if (cachedContent.getCompressionMetadata() != null) {
+            applyCompressionMetadata(cachedContent.getCompressionMetadata(), context);
+        }
+
+        if (gzip && cachedContent.getGzippedContent() != null) {
+            response.setHeader(ETAG_HEADER, toGzipEntityTag(entityTag));
+            sendContent(cachedContent.getGzippedContent(), true, response);
+        } else {
+            response.setHeader(ETAG_HEADER, entityTag);
+            sendContent(cachedContent.getContent(), false, response);
+        }
+    }
+
+    private CachedSkinExtensionContent createCachedContent(String extensionContent, Extension sxType, boolean minify,
+        XWikiContext context)
+    {
+        String content = extensionContent;
+        String compressionMetadata = null;
+        if (minify) {
+            SxCompressor compressor = sxType.getCompressor();
+            content = compress(extensionContent, compressor, context);
+            compressionMetadata = getCompressionMetadata(compressor);
+        }
+
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+
+        byte[] gzippedBytes = null;
+        ByteArrayOutputStream gzippedStream = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(gzippedStream)) {
+            gzipStream.write(bytes);
+            gzipStream.finish();
+            gzippedBytes = gzippedStream.toByteArray();
+        } catch (IOException e) {
+            getLogger().warn("Failed to gzip SX content: [{}]", ExceptionUtils.getRootCauseMessage(e));
+        }
+
+        return new CachedSkinExtensionContent(bytes, gzippedBytes, compressionMetadata);
+    }
+
+    private String getEntityTag(String extensionContent, Extension sxType, boolean minify, XWikiContext context)
+    {
+        StringBuilder source = new StringBuilder();
+        source.append(sxType.getContentType()).append('\n');
+        source.append(minify).append('\n');
+        // The minified content can reference the document holding the extension (e.g. in the source map).
+        if (context.getDoc() != null) {
+            source.append(context.getDoc().getDocumentReference()).append('\n');
+        }
+        source.append(extensionContent);
+
+        return ETAG_QUOTE + DigestUtils.sha256Hex(source.toString()) + ETAG_QUOTE;
+    }
+
+    private String toGzipEntityTag(String entityTag)
+    {
+        return StringUtils.removeEnd(entityTag, ETAG_QUOTE) + GZIP_ETAG_SUFFIX + ETAG_QUOTE;
+    }
+
+    private boolean acceptsGzip(XWikiRequest request)
+    {
+        String acceptEncoding = request.getHeader(ACCEPT_ENCODING_HEADER);
+        return acceptEncoding != null && StringUtils.containsIgnoreCase(acceptEncoding, GZIP_ENCODING);
+    }
+
+    private boolean isNotModified(String entityTag, SxSource sxSource, XWikiRequest request)
+    {
+        String ifNoneMatch = request.getHeader(IF_NONE_MATCH_HEADER);
+        if (ifNoneMatch != null) {
+            // The entity tags take precedence over the modification date when both are sent.
+            String gzipEntityTag = toGzipEntityTag(entityTag);
+            for (String browserEntityTag : StringUtils.split(ifNoneMatch, ',')) {
+                String tag = StringUtils.removeStart(browserEntityTag.trim(), "W/");
+                if ("*".equals(tag) || entityTag.equals(tag) || gzipEntityTag.equals(tag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long lastModified = sxSource.getLastModifiedDate();
+        if (lastModified > 0) {
+            try {
+                long ifModifiedSince = request.getDateHeader(IF_MODIFIED_SINCE_HEADER);
+                // HTTP dates have a precision of one second.
+                return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+            } catch (IllegalArgumentException e) {
+                // Invalid date sent by the browser, ignore it.
+            }
+        }
+
+        return false;
+    }
+
+    private void sendContent(byte[] content, boolean gzipped, XWikiResponse response)
+    {
+        if (gzipped) {
+            response.setHeader(CONTENT_ENCODING_HEADER, GZIP_ENCODING);
         }
 
         try {
-            response.setContentLength(extensionContent.getBytes(RESPONSE_CHARACTER_SET).length);
-            response.getOutputStream().write(extensionContent.getBytes(RESPONSE_CHARACTER_SET));
+            response.setContentLength(content.length);
+            response.getOutputStream().write(content);
         } catch (IOException ex) {
             getLogger().warn("Failed to send SX content: [{}]", ex.getMessage());
         }
     }
 
+    /**
+     * @param compressor the compressor that has just been used to minify the extension content
+     * @return the metadata produced by the compressor that needs to be kept along with the minified content when it is
+     *         cached, {@code null} if there is none
+     * @since 12.8RC1
+     */
+    protected String getCompressionMetadata(SxCompressor compressor)
+    {
+        return null;
+    }
+
+    /**
+     * Called when the minified extension content is taken from the cache instead of being compressed again.
+     *
+     * @param compressionMetadata the metadata returned by {@link #getCompressionMetadata(SxCompressor)} when the
+     *            content was minified
+     * @param context the XWiki context
+     * @since 12.8RC1
+     */
+    protected void applyCompressionMetadata(String compressionMetadata, XWikiContext context)
+    {
+        // Nothing to do by default.
+    }
+
     protected String compress(String source, SxCompressor compressor, XWikiContext context)
     {
         return compressor.compress(source);
@@ -156,6 +337,15 @@ protected DebugConfiguration getDebugConfiguration()
         return this.debugConfiguration;
     }
 
+    private SkinExtensionContentCache getContentCache()
+    {
+        if (this.contentCache == null) {
+            this.contentCache = Utils.getComponent(SkinExtensionContentCache.class);
+        }
+
+        return this.contentCache;
+    }
+
     /**
      * Get the type of extension, depends on the type of action.
      *
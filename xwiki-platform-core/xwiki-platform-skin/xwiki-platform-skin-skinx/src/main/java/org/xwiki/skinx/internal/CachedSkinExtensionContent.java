@@ -0,0 +1,72 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.skinx.internal;
+
+/**
+ * The content of a skin extension, as it's sent to the browser.
+ * 
+ * @version $Id$
+ * @since 12.8RC1
+ */
+public class CachedSkinExtensionContent
+{
+    private final byte[] content;
+
+    private final byte[] gzippedContent;
+
+    private final String compressionMetadata;
+
+    /**
+     * @param content the (minified) skin extension content
+     * @param gzippedContent the same content compressed with gzip, {@code null} if not available
+     * @param compressionMetadata the metadata produced when minifying the content (e.g. a source map), {@code null} if
+     *            there is none
+     */
+    public CachedSkinExtensionContent(byte[] content, byte[] gzippedContent, String compressionMetadata)
+    {
+        this.content = content;
+        this.gzippedContent = gzippedContent;
+        this.compressionMetadata = compressionMetadata;
+    }
+
+    /**
+     * @return the (minified) skin extension content
+     */
+    public byte[] getContent()
+    {
+        return this.content;
+    }
+
+    /**
+     * @return the same content compressed with gzip, {@code null} if not available
+     */
+    public byte[] getGzippedContent()
+    {
+        return this.gzippedContent;
+    }
+
+    /**
+     * @return the metadata produced when minifying the content (e.g. a source map), {@code null} if there is none
+     */
+    public String getCompressionMetadata()
+    {
+        return this.compressionMetadata;
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.xwiki.skinx.internal;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.xwiki.cache.Cache;
+import org.xwiki.cache.CacheException;
+import org.xwiki.cache.CacheManager;
+import org.xwiki.cache.config.LRUCacheConfiguration;
+import org.xwiki.component.annotation.Component;
+import org.xwiki.component.manager.ComponentLifecycleException;
+import org.xwiki.component.phase.Disposable;
+import org.xwiki.component.phase.Initializable;
+import org.xwiki.component.phase.InitializationException;
+
+/**
+ * Keep the (minified) content of the skin extensions sent to the browser so that it doesn't have to be compressed again
+ * for each request. The entries are indexed by the entity tag of the content, which is computed from the source content
+ * of the skin extension, so a modified skin extension never matches an outdated entry.
+ * 
+ * @version $Id$
+ * @since 12.8RC1
+ */
+@Component(roles = SkinExtensionContentCache.class)
+@Singleton
+public class SkinExtensionContentCache implements Initializable, Disposable
+{
+    /**
+     * The maximum number of skin extension contents to keep in the cache.
+     */
+    private static final int CACHE_CAPACITY = 500;
+
+    @Inject
+    private CacheManager cacheManager;
+
+    private Cache<CachedSkinExtensionContent> cache;
+
+    @Override
+    public void initialize() throws InitializationException
+    {
+        try {
+            this.cache = this.cacheManager.createNewCache(new LRUCacheConfiguration("skinx.content", CACHE_CAPACITY));
+        } catch (CacheException e) {
+            throw new InitializationException("Failed to create the skin extension content cache", e);
+        }
+    }
+
+    @Override
+    public void dispose() throws ComponentLifecycleException
+    {
+        this.cache.dispose();
+    }
+
+    /**
+     * @param entityTag the entity tag of the skin extension content
+     * @return the cached skin extension content, {@code null} if it's not in the cache
+     */
+    public CachedSkinExtensionContent get(String entityTag)
+    {
+        return this.cache.get(entityTag);
+    }
+
+    /**
+     * @param entityTag the entity tag of the skin extension content
+     * @param content the skin extension content to cache
+     */
+    public void set(String entityTag, CachedSkinExtensionContent content)
+    {
+        this.cache.set(entityTag, content);
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * See the NOTICE file distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package com.xpn.xwiki.web.sx;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.xwiki.skinx.internal.CachedSkinExtensionContent;
+import org.xwiki.skinx.internal.SkinExtensionContentCache;
+import org.xwiki.test.junit5.mockito.MockComponent;
+
+import com.xpn.xwiki.XWikiContext;
+import com.xpn.xwiki.internal.debug.DebugConfiguration;
+import com.xpn.xwiki.test.MockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.InjectMockitoOldcore;
+import com.xpn.xwiki.test.junit5.mockito.OldcoreTest;
+import com.xpn.xwiki.web.SsxAction;
+import com.xpn.xwiki.web.XWikiRequest;
+import com.xpn.xwiki.web.XWikiResponse;
+import com.xpn.xwiki.web.sx.SxSource.CachePolicy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Validate the caching of the skin extension content done by {@link AbstractSxAction}.
+ *
+ * @version $Id$
+ */
+@OldcoreTest
+public class AbstractSxActionTest
+{
+    @MockComponent
+    private DebugConfiguration debugConfiguration;
+
+    @MockComponent
+    private SkinExtensionContentCache contentCache;
+
+    @InjectMockitoOldcore
+    private MockitoOldcore oldcore;
+
+    private Map<String, CachedSkinExtensionContent> cachedContents = new HashMap<>();
+
+    private int compressions;
+
+    private XWikiContext xcontext;
+
+    private XWikiRequest request;
+
+    private XWikiResponse response;
+
+    private ServletOutputStream output;
+
+    private AbstractSxAction action = new SsxAction()
+    {
+        @Override
+        protected String compress(String source, SxCompressor compressor, XWikiContext context)
+        {
+            compressions++;
+
+            return source.trim();
+        }
+    };
+
+    @BeforeEach
+    public void beforeEach() throws Exception
+    {
+        when(this.debugConfiguration.isMinify()).thenReturn(true);
+
+        when(this.contentCache.get(anyString())).then(invocation -> this.cachedContents.get(invocation.getArgument(0)));
+        doAnswer(invocation -> this.cachedContents.put(invocation.getArgument(0), invocation.getArgument(1)))
+            .when(this.contentCache).set(anyString(), any());
+
+        this.xcontext = this.oldcore.getXWikiContext();
+        mockRequest();
+    }
+
+    private void mockRequest() throws Exception
+    {
+        this.request = mock(XWikiRequest.class);
+        when(this.request.getDateHeader("If-Modified-Since")).thenReturn(-1L);
+        this.response = mock(XWikiResponse.class);
+        this.output = mock(ServletOutputStream.class);
+        when(this.response.getOutputStream()).thenReturn(this.output);
+
+        this.xcontext.setRequest(this.request);
+        this.xcontext.setResponse(this.response);
+    }
+
+    private SxSource source(String content, long lastModified)
+    {
+        SxSource source = mock(SxSource.class);
+        when(source.getContent()).thenReturn(content);
+        when(source.getLastModifiedDate()).thenReturn(lastModified);
+        when(source.getCachePolicy()).thenReturn(CachePolicy.DEFAULT);
+
+        return source;
+    }
+
+    private String render(SxSource source) throws Exception
+    {
+        this.action.renderExtension(source, this.action.getExtensionType(), this.xcontext);
+
+        ArgumentCaptor<String> entityTag = ArgumentCaptor.forClass(String.class);
+        verify(this.response).setHeader(eq("ETag"), entityTag.capture());
+
+        return entityTag.getValue();
+    }
+
+    @Test
+    public void renderExtensionFromCache() throws Exception
+    {
+        SxSource source = source(" .class {} ", 0);
+
+        String entityTag = render(source);
+        verify(this.output).write(".class {}".getBytes(StandardCharsets.UTF_8));
+
+        mockRequest();
+        assertEquals(entityTag, render(source));
+
+        // The content is compressed only once
+        assertEquals(1, this.compressions);
+        verify(this.output).write(".class {}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void renderModifiedExtension() throws Exception
+    {
+        String entityTag = render(source(" .class {} ", 0));
+
+        // A modified extension never matches the content cached for the previous version
+        mockRequest();
+        assertNotEquals(entityTag, render(source(" .other {} ", 0)));
+
+        assertEquals(2, this.compressions);
+        verify(this.output).write(".other {}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void renderNotModifiedExtension() throws Exception
+    {
+        SxSource source = source(" .class {} ", 0);
+        String entityTag = render(source);
+
+        mockRequest();
+        when(this.request.getHeader("If-None-Match")).thenReturn(entityTag);
+
+        assertEquals(entityTag, render(source));
+
+        verify(this.response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(this.output, never()).write(any(byte[].class));
+        verify(this.response, never()).setContentLength(anyInt());
+        assertEquals(1, this.compressions);
+    }
+
+    @Test
+    public void renderExtensionNotModifiedSince() throws Exception
+    {
+        long lastModified = 1600000000000L;
+        when(this.request.getDateHeader("If-Modified-Since")).thenReturn(lastModified);
+
+        render(source(" .class {} ", lastModified));
+
+        verify(this.response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(this.output, never()).write(any(byte[].class));
+        assertEquals(0, this.compressions);
+    }
+}
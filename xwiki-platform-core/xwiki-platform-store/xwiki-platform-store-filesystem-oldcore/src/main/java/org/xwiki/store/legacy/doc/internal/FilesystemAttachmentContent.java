@@ -23,6 +23,8 @@
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.AutoCloseInputStream;
@@ -122,6 +124,16 @@ public InputStream getContentInputStream()
         }
     }
 
+    @Override
+    public FileChannel getContentChannel() throws IOException
+    {
+        if (this.getFileItem() != null) {
+            return super.getContentChannel();
+        }
+
+        return FileChannel.open(this.storageFile.toPath(), StandardOpenOption.READ);
+    }
+
     @Override
     public long getLongSize()
     {
@@ -19,12 +19,15 @@
  */
 package org.xwiki.user.internal.group;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import javax.inject.Inject;
@@ -63,13 +66,19 @@ public abstract class AbstractGroupCache extends AbstractCacheEntryListener<Grou
     {
         private final String key;
 
+        private final DocumentReference reference;
+
+        private final Collection<String> wikis;
+
         private Collection<DocumentReference> direct;
 
         private Collection<DocumentReference> all;
 
-        GroupCacheEntry(String key)
+        GroupCacheEntry(String key, DocumentReference reference, Collection<String> wikis)
         {
             this.key = key;
+            this.reference = reference;
+            this.wikis = wikis;
         }
 
         /**
@@ -93,6 +102,22 @@ public Collection<DocumentReference> setDirect(Collection<DocumentReference> dir
             return this.direct;
         }
 
+        /**
+         * @param direct the direct entities.
+         * @param generation the generation of the cache when the direct entities started to be resolved
+         * @return the new unmodificable list, or the passed entities when the cache was updated in the meantime (in
+         *         which case they are not stored since they might be outdated)
+         * @since 12.8RC1
+         */
+        public Collection<DocumentReference> setDirect(Collection<DocumentReference> direct, long generation)
+        {
+            if (generation != getGeneration()) {
+                return Collections.unmodifiableCollection(direct);
+            }
+
+            return setDirect(direct);
+        }
+
         /**
          * @return the recursive entities.
          */
@@ -113,6 +138,72 @@ public Collection<DocumentReference> setAll(Collection<DocumentReference> all)
 
             return this.all;
         }
+
+        /**
+         * @param all the recursive entities.
+         * @param generation the generation of the cache when the recursive entities started to be resolved
+         * @return the new unmodificable list, or the passed entities when the cache was updated in the meantime (in
+         *         which case they are not stored since they might have been resolved from outdated entries)
+         * @since 12.8RC1
+         */
+        public Collection<DocumentReference> setAll(Collection<DocumentReference> all, long generation)
+        {
+            if (generation != getGeneration()) {
+                return Collections.unmodifiableCollection(all);
+            }
+
+            return setAll(all);
+        }
+
+        private void update(DocumentReference entity, DocumentReference related, boolean added)
+        {
+            if (entity.equals(this.reference)) {
+                // Update the direct entities instead of loading them again
+                if (this.direct != null) {
+                    Set<DocumentReference> newDirect = new LinkedHashSet<>(this.direct);
+                    if (added) {
+                        // Only the entities located in the wikis of the entry are taken into account
+                        if ((this.wikis == null || this.wikis.contains(related.getWikiReference().getName()))
+                            && newDirect.add(related)) {
+                            setDirect(newDirect);
+                        }
+                    } else if (newDirect.remove(related)) {
+                        this.direct = Collections.unmodifiableCollection(newDirect);
+
+                        cleanIndex(related);
+                    }
+                }
+
+                resetAll();
+            } else if (this.all != null && this.all.contains(entity)) {
+                resetAll();
+            }
+        }
+
+        /**
+         * Forget the recursive entities, they will be resolved again from the (cached) direct entities.
+         */
+        private void resetAll()
+        {
+            Collection<DocumentReference> previousAll = this.all;
+
+            if (previousAll != null) {
+                this.all = null;
+
+                for (DocumentReference previous : previousAll) {
+                    cleanIndex(previous);
+                }
+            }
+        }
+
+        private void cleanIndex(DocumentReference previous)
+        {
+            // Keep the references which are still associated with the entry
+            if (!previous.equals(this.reference) && (this.direct == null || !this.direct.contains(previous))
+                && (this.all == null || !this.all.contains(previous))) {
+                AbstractGroupCache.this.cleanIndex(this.key, Collections.singleton(previous));
+            }
+        }
     }
 
     @Inject
@@ -127,6 +218,12 @@ public Collection<DocumentReference> setAll(Collection<DocumentReference> all)
 
     private final String id;
 
+    /**
+     * Incremented each time the cache entries are updated in place, to know if entries resolved in the meantime might
+     * be outdated.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
     /**
      * Keep an index of what's in the cache to clean just what's needed.
      */
@@ -156,7 +253,26 @@ public void initialize() throws InitializationException
         }
     }
 
+    /**
+     * The recursive entities of an entry are resolved from the entries of other entities which can be updated in the
+     * meantime: the generation should be taken before starting to resolve an entry and passed when storing the result
+     * so that it's only stored if no update happened since.
+     *
+     * @return the current generation of the cache
+     * @since 12.8RC1
+     */
+    public long getGeneration()
+    {
+        return this.generation.get();
+    }
+
     protected GroupCacheEntry getCacheEntry(String key, DocumentReference reference, boolean create)
+    {
+        return getCacheEntry(key, reference, null, create);
+    }
+
+    protected GroupCacheEntry getCacheEntry(String key, DocumentReference reference, Collection<String> wikis,
+        boolean create)
     {
         lockRead();
 
@@ -171,7 +287,7 @@ protected GroupCacheEntry getCacheEntry(String key, DocumentReference reference,
             lockWrite();
 
             try {
-                entry = new GroupCacheEntry(key);
+                entry = new GroupCacheEntry(key, reference, wikis);
                 this.cache.set(key, entry);
                 addToIndex(key, reference);
             } finally {
@@ -184,7 +300,7 @@ protected GroupCacheEntry getCacheEntry(String key, DocumentReference reference,
 
     private void addToIndex(String key, DocumentReference reference)
     {
-        this.cacheDocumentIndex.computeIfAbsent(reference, k -> new HashSet<>()).add(key);
+        this.cacheDocumentIndex.computeIfAbsent(reference, k -> ConcurrentHashMap.newKeySet()).add(key);
     }
 
     private void addToIndex(String key, Collection<DocumentReference> references)
@@ -270,6 +386,52 @@ private void cleanDocumentCache(DocumentReference reference)
         }
     }
 
+    /**
+     * Update the cache entries impacted by the addition or the removal of a direct relation of the passed entity
+     * instead of removing them.
+     * <p>
+     * The direct entities of the passed entity are updated and the recursive entities of the entries which depend on
+     * the passed entity are reset so that they are resolved again from the cached direct entities (i.e. without
+     * requesting the database).
+     *
+     * @param entity the entity whose direct relations changed
+     * @param related the entity added to or removed from the direct relations
+     * @param added true if the relation was added, false if it was removed
+     * @since 12.8RC1
+     */
+    public void update(DocumentReference entity, DocumentReference related, boolean added)
+    {
+        // Make sure entries being resolved from the current entries are not stored
+        this.generation.incrementAndGet();
+
+        List<GroupCacheEntry> entries = new ArrayList<>();
+
+        lockRead();
+
+        try {
+            Set<String> keys = this.cacheDocumentIndex.get(entity);
+
+            if (keys != null) {
+                for (String key : new ArrayList<>(keys)) {
+                    GroupCacheEntry entry = this.cache.get(key);
+
+                    if (entry != null) {
+                        entries.add(entry);
+                    }
+                }
+            }
+        } finally {
+            unlockRead();
+        }
+
+        // Don't lock the entries while holding the cache lock since entries are locked before the cache when resolved
+        for (GroupCacheEntry entry : entries) {
+            synchronized (entry) {
+                entry.update(entity, related, added);
+            }
+        }
+    }
+
     /**
      * Remove anything related to the passed wiki from the cache.
      * 
@@ -179,6 +179,9 @@ private Collection<DocumentReference> getGroups(DocumentReference reference, Obj
         // Not in the cache
 
         synchronized (entry) {
+            // Remember the state of the cache the entry is resolved from
+            long generation = this.groupsCache.getGeneration();
+
             // Check if it was calculated by another thread in the meantime
             groups = get(entry, recurse);
             if (groups != null) {
@@ -192,7 +195,7 @@ private Collection<DocumentReference> getGroups(DocumentReference reference, Obj
             // Get direct groups
             groups = entry.getDirect();
             if (groups == null) {
-                groups = entry.setDirect(getGroups(reference, cacheWikis));
+                groups = entry.setDirect(getGroups(reference, cacheWikis), generation);
             }
 
             // Get all groups
@@ -229,7 +232,7 @@ private Collection<DocumentReference> getGroups(DocumentReference reference, Obj
                 resolvedGroups.remove(reference);
 
                 if (groups != null || rootGroups == resolvedGroups) {
-                    groups = entry.setAll(resolvedGroups);
+                    groups = entry.setAll(resolvedGroups, generation);
                 }
             } else {
                 if (rootGroups != null) {
@@ -317,6 +320,9 @@ private Collection<DocumentReference> getMembers(DocumentReference reference, bo
         // Not in the cache
 
         synchronized (entry) {
+            // Remember the state of the cache the entry is resolved from
+            long generation = this.membersCache.getGeneration();
+
             // Check if it was calculated by another thread in the meantime
             members = get(entry, recurse);
             if (members != null) {
@@ -330,7 +336,7 @@ private Collection<DocumentReference> getMembers(DocumentReference reference, bo
             // Get direct members
             members = entry.getDirect();
             if (members == null) {
-                members = entry.setDirect(getMembers(reference));
+                members = entry.setDirect(getMembers(reference), generation);
             }
 
             // Get all members
@@ -367,7 +373,7 @@ private Collection<DocumentReference> getMembers(DocumentReference reference, bo
                 resolvedMembers.remove(reference);
 
                 if (members != null || rootMembers == resolvedMembers) {
-                    members = entry.setAll(resolvedMembers);
+                    members = entry.setAll(resolvedMembers, generation);
                 }
             } else {
                 if (rootMembers != null) {
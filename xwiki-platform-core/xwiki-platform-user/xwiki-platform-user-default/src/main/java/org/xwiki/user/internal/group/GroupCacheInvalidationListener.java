@@ -19,6 +19,8 @@
  */
 package org.xwiki.user.internal.group;
 
+import java.util.Objects;
+
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -28,6 +30,7 @@
 import org.xwiki.component.annotation.Component;
 import org.xwiki.model.reference.DocumentReference;
 import org.xwiki.model.reference.DocumentReferenceResolver;
+import org.xwiki.model.reference.LocalDocumentReference;
 import org.xwiki.model.reference.ObjectReference;
 import org.xwiki.model.reference.WikiReference;
 import org.xwiki.observation.AbstractEventListener;
@@ -59,6 +62,11 @@ public class GroupCacheInvalidationListener extends AbstractEventListener
 
     private static final String USERS_CLASSNAME = "XWiki.XWikiUsers";
 
+    private static final LocalDocumentReference GROUPS_CLASS_REFERENCE =
+        new LocalDocumentReference("XWiki", "XWikiGroups");
+
+    private static final String MEMBER_PROPERTY = "member";
+
     @Inject
     private DocumentReferenceResolver<String> resolver;
 
@@ -91,34 +99,66 @@ public void onEvent(Event event, Object source, Object data)
 
             DocumentReference documentReference = document.getDocumentReference();
 
-            // Remove the entity from the cache
-            this.groupsCache.cleanCache(documentReference);
-            this.membersCache.cleanCache(documentReference);
-
-            // Remove the previous and new group members from the cache
             XObjectEvent xobjectEvent = (XObjectEvent) event;
             ObjectReference reference = (ObjectReference) xobjectEvent.getReference();
 
-            BaseObject newXObject = document.getXObject(reference);
-            BaseObject previousXObject = document.getOriginalDocument().getXObject(reference);
-
-            clean(newXObject, documentReference);
-            clean(previousXObject, documentReference);
+            if (isGroupObject(reference)) {
+                // Update the impacted entries instead of forgetting everything related to the group and its members
+                BaseObject newXObject = document.getXObject(reference);
+                BaseObject previousXObject = document.getOriginalDocument().getXObject(reference);
+
+                DocumentReference newMember = getMember(newXObject, documentReference);
+                DocumentReference previousMember = getMember(previousXObject, documentReference);
+
+                if (!Objects.equals(newMember, previousMember)) {
+                    if (previousMember != null && !isMember(previousMember, document)) {
+                        update(documentReference, previousMember, false);
+                    }
+                    if (newMember != null) {
+                        update(documentReference, newMember, true);
+                    }
+                }
+            } else {
+                // Remove the deleted user from the cache
+                this.groupsCache.cleanCache(documentReference);
+                this.membersCache.cleanCache(documentReference);
+            }
         }
     }
 
-    private void clean(BaseObject xobject, DocumentReference groupReference)
+    private boolean isGroupObject(ObjectReference reference)
+    {
+        return new BaseObjectReference(reference).getXClassReference().getLocalDocumentReference()
+            .equals(GROUPS_CLASS_REFERENCE);
+    }
+
+    private void update(DocumentReference groupReference, DocumentReference memberReference, boolean added)
+    {
+        this.groupsCache.update(memberReference, groupReference, added);
+        this.membersCache.update(groupReference, memberReference, added);
+    }
+
+    private DocumentReference getMember(BaseObject xobject, DocumentReference groupReference)
     {
-        if (xobject == null) {
-            return;
+        if (xobject != null) {
+            String memberString = xobject.getStringValue(MEMBER_PROPERTY);
+            if (StringUtils.isNotEmpty(memberString)) {
+                return this.resolver.resolve(memberString, groupReference);
+            }
         }
 
-        String memberString = xobject.getStringValue("member");
-        if (StringUtils.isNotEmpty(memberString)) {
-            DocumentReference memberReference = this.resolver.resolve(memberString, groupReference);
+        return null;
+    }
 
-            this.groupsCache.cleanCache(memberReference);
-            this.membersCache.cleanCache(memberReference);
+    private boolean isMember(DocumentReference memberReference, XWikiDocument group)
+    {
+        // The same member can be listed several times
+        for (BaseObject xobject : group.getXObjects(GROUPS_CLASS_REFERENCE)) {
+            if (memberReference.equals(getMember(xobject, group.getDocumentReference()))) {
+                return true;
+            }
         }
+
+        return false;
     }
 }
@@ -334,4 +334,46 @@ public void getMembersWhenCrossReference() throws GroupException
         assertGetMembers(GLOBAL_GROUP_1, GLOBAL_GROUP_2, true);
         assertGetMembers(GLOBAL_GROUP_2, GLOBAL_GROUP_1, true);
     }
+
+    @Test
+    public void getGroupsWhenUpdatedWhileResolved() throws Exception
+    {
+        mockGroups("xwiki", GLOBAL_USER_1, Arrays.asList(GLOBAL_GROUP_1));
+        GroupsCache groupsCache = this.oldcore.getMocker().getInstance(GroupsCache.class);
+        // Simulate the removal of group1 from group2 while the groups of group1 are being loaded
+        when(this.groupService.getAllGroupsReferencesForMember(same(GLOBAL_GROUP_1), anyInt(), anyInt(),
+            isContextWiki("xwiki"))).thenAnswer(invocation -> {
+                groupsCache.update(GLOBAL_GROUP_1, GLOBAL_GROUP_2, false);
+
+                return Arrays.asList(GLOBAL_GROUP_2);
+            }).thenReturn(Collections.emptyList());
+
+        assertEquals(new HashSet<>(Arrays.asList(GLOBAL_GROUP_1, GLOBAL_GROUP_2)),
+            new HashSet<>(this.manager.getGroups(GLOBAL_USER_1, WikiTarget.ENTITY, true)));
+
+        // The groups resolved from the outdated membership should not have been cached
+        assertGetGroups(GLOBAL_GROUP_1, GLOBAL_USER_1, WikiTarget.ENTITY, true);
+        assertGetGroupsEmpty(GLOBAL_GROUP_1, WikiTarget.ENTITY, false);
+    }
+
+    @Test
+    public void getMembersWhenUpdatedWhileResolved() throws Exception
+    {
+        mockMembers(GLOBAL_GROUP_1, Arrays.asList(GLOBAL_GROUP_2));
+        MembersCache membersCache = this.oldcore.getMocker().getInstance(MembersCache.class);
+        // Simulate the removal of user1 from group2 while the members of group2 are being loaded
+        when(this.groupService.getAllMembersNamesForGroup(eq(GLOBAL_GROUP_2.toString()), anyInt(), anyInt(), any()))
+            .thenAnswer(invocation -> {
+                membersCache.update(GLOBAL_GROUP_2, GLOBAL_USER_1, false);
+
+                return Arrays.asList(GLOBAL_USER_1.toString());
+            }).thenReturn(Collections.emptyList());
+
+        assertEquals(new HashSet<>(Arrays.asList(GLOBAL_GROUP_2, GLOBAL_USER_1)),
+            new HashSet<>(this.manager.getMembers(GLOBAL_GROUP_1, true)));
+
+        // The members resolved from the outdated membership should not have been cached
+        assertGetMembers(GLOBAL_GROUP_2, GLOBAL_GROUP_1, true);
+        assertGetMembersEmpty(GLOBAL_GROUP_2, false);
+    }
 }
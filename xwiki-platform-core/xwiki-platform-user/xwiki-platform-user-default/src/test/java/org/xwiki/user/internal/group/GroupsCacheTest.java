@@ -39,6 +39,7 @@
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 
@@ -191,4 +192,56 @@ public void cleanCacheWiki()
 
         assertNotNull(getCacheEntry(false));
     }
+
+    @Test
+    public void update()
+    {
+        DocumentReference otherUser = new DocumentReference("userwiki", "userspace", "otheruser");
+        DocumentReference group3 = new DocumentReference("wiki1", "groupspace3", "groupdocument3");
+
+        GroupCacheEntry entry = getCacheEntry(true);
+        entry.setDirect(Arrays.asList(GROUP1));
+        entry.setAll(Arrays.asList(GROUP1, GROUP2));
+
+        GroupCacheEntry otherEntry = this.groupsCache.getCacheEntry(otherUser, WIKIS, true);
+        otherEntry.setDirect(Arrays.asList(USER));
+        otherEntry.setAll(Arrays.asList(USER, GROUP1, GROUP2));
+
+        // Group in a wiki which is not part of the entry wikis
+        this.groupsCache.update(USER, GROUP2, true);
+
+        assertSame(entry, getCacheEntry(false));
+        assertEquals(Arrays.asList(GROUP1), new ArrayList<>(entry.getDirect()));
+        assertNull(entry.getAll());
+        assertNull(otherEntry.getAll());
+
+        // Add
+        this.groupsCache.update(USER, group3, true);
+
+        assertEquals(Arrays.asList(GROUP1, group3), new ArrayList<>(entry.getDirect()));
+        assertEquals(Arrays.asList(USER), new ArrayList<>(otherEntry.getDirect()));
+
+        // Remove
+        entry.setAll(Arrays.asList(GROUP1, GROUP2, group3));
+        otherEntry.setAll(Arrays.asList(USER, GROUP1, GROUP2, group3));
+
+        this.groupsCache.update(USER, GROUP1, false);
+
+        assertEquals(Arrays.asList(group3), new ArrayList<>(entry.getDirect()));
+        assertNull(entry.getAll());
+        assertNull(otherEntry.getAll());
+
+        // The removed group is not associated with the entry anymore
+        this.groupsCache.cleanCache(GROUP1);
+
+        assertSame(entry, getCacheEntry(false));
+
+        // Not related
+        entry.setAll(Arrays.asList(group3));
+
+        this.groupsCache.update(otherUser, GROUP1, true);
+
+        assertEquals(Arrays.asList(group3), new ArrayList<>(entry.getAll()));
+        assertEquals(Arrays.asList(USER), new ArrayList<>(otherEntry.getDirect()));
+    }
 }